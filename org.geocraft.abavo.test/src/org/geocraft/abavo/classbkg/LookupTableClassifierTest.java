@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.abavo.classbkg;
+
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.geocraft.abavo.ellipse.EllipseRegionsClassifier;
+
+
+/**
+ * Unit tests for the LookupTableClassifier class.
+ */
+public class LookupTableClassifierTest extends TestCase {
+
+  /**
+   * A classifier of 2 squares: a large one, and a small one that fits within a cell of the table.
+   */
+  private static class SquaresClassifier implements IRegionsClassifier, IRegionBoundaries {
+
+    private final double[][] _xs = { { -50, 50, 50, -50 }, { 60.01, 60.02, 60.02, 60.01 } };
+
+    private final double[][] _ys = { { -50, -50, 50, 50 }, { 60.01, 60.01, 60.02, 60.02 } };
+
+    public String getName() {
+      return "Squares";
+    }
+
+    public double processAB(final double a, final double b) {
+      for (int i = 0; i < _xs.length; i++) {
+        if (a >= _xs[i][0] && a <= _xs[i][1] && b >= _ys[i][0] && b <= _ys[i][2]) {
+          return i + 1;
+        }
+      }
+      return Double.NaN;
+    }
+
+    public int getNumBoundaries() {
+      return _xs.length;
+    }
+
+    public double[] getBoundaryXs(final int index) {
+      return _xs[index];
+    }
+
+    public double[] getBoundaryYs(final int index) {
+      return _ys[index];
+    }
+  }
+
+  public void testSquares() {
+    IRegionsClassifier exact = new SquaresClassifier();
+    LookupTableClassifier table = new LookupTableClassifier(exact, -100, 100, -100, 100, 64);
+    assertEquals(64, table.getNumCells());
+    assertTrue(table.getNumExactCells() < 64 * 64 / 4);
+
+    assertEquals(1.0, table.processAB(0, 0));
+    assertEquals(2.0, table.processAB(60.015, 60.015));
+    assertTrue(Double.isNaN(table.processAB(-90, 90)));
+    assertTrue(Double.isNaN(table.processAB(Double.NaN, 0)));
+    assertTrue(Double.isNaN(table.processAB(500, 500)));
+
+    compare(exact, table, -110, 110);
+  }
+
+  public void testEllipses() {
+    double sqrt50 = Math.sqrt(50);
+    double[] outerXs = { 1, -1, -100, -100, -99, -1, 1, 100, 100, 99 };
+    double[] outerYs = { -100, -100, 0, 99, 100, 100, 100, 0, -99, -100 };
+    double[] innerXs = { 1, -1, -10, -sqrt50, -sqrt50, -1, 1, 10, sqrt50, sqrt50 };
+    double[] innerYs = { -Math.sqrt(99), -Math.sqrt(99), 0, sqrt50, sqrt50, Math.sqrt(99), Math.sqrt(99), 0, -sqrt50,
+        -sqrt50 };
+    EllipseRegionsClassifier exact = new EllipseRegionsClassifier(-1, 10, 10, -1, 22, 22, outerXs, outerYs, innerXs,
+        innerYs, 128, -100, 100, -100, 100, 0, 0);
+    LookupTableClassifier table = new LookupTableClassifier(exact, -100, 100, -100, 100, 256);
+
+    assertEquals(exact.processAB(1.1, -11), table.processAB(1.1, -11));
+    compare(exact, table, -100, 100);
+
+    // Classify a block.
+    float[] a = { 1.1f, 50, -50, 0 };
+    float[] b = { -11, 50, -50, 0 };
+    float[] values = new float[a.length];
+    table.processAB(a, b, values, a.length);
+    for (int k = 0; k < a.length; k++) {
+      double value = exact.processAB(a[k], b[k]);
+      if (Double.isNaN(value)) {
+        assertTrue(Float.isNaN(values[k]));
+      } else {
+        assertEquals((float) value, values[k]);
+      }
+    }
+  }
+
+  public void testInvalidArguments() {
+    try {
+      new LookupTableClassifier(new SquaresClassifier(), 0, 0, -1, 1, 16);
+      fail("Should have failed due to an empty range.");
+    } catch (IllegalArgumentException e) {
+      assertTrue(true);
+    }
+    try {
+      new LookupTableClassifier(new SquaresClassifier(), -1, 1, -1, 1, 0);
+      fail("Should have failed due to no cells.");
+    } catch (IllegalArgumentException e) {
+      assertTrue(true);
+    }
+  }
+
+  /**
+   * Compares the lookup table classifier with the exact classifier at random coordinates.
+   */
+  private static void compare(final IRegionsClassifier exact, final IRegionsClassifier table, final double min,
+      final double max) {
+    Random random = new Random(11);
+    for (int k = 0; k < 200000; k++) {
+      double a = min + random.nextDouble() * (max - min);
+      double b = min + random.nextDouble() * (max - min);
+      double expected = exact.processAB(a, b);
+      double actual = table.processAB(a, b);
+      if (Double.isNaN(expected)) {
+        assertTrue("At " + a + "," + b, Double.isNaN(actual));
+      } else {
+        assertEquals("At " + a + "," + b, expected, actual);
+      }
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package org.geocraft.abavo.crossplot;
+
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Unit tests for the ABDensityGrid class.
+ */
+public class ABDensityGridTest extends TestCase {
+
+  /**
+   * Tests the counts are exact as the grid grows to cover new samples.
+   */
+  public void testCounts() {
+    ABDensityGrid grid = new ABDensityGrid(8, 8);
+    assertEquals(0, grid.getTotalCount());
+
+    // A first chunk within a small range.
+    float[] a = { 0, 1, 1, 2 };
+    float[] b = { 0, 1, 1, 2 };
+    add(grid, a, b);
+    assertEquals(4, grid.getTotalCount());
+    assertEquals(2, grid.getCount(1.0, 1.0));
+
+    // A second chunk far outside it, forcing the bins to be merged.
+    a = new float[] { -100, 100, 1 };
+    b = new float[] { -50, 50, 1 };
+    add(grid, a, b);
+    assertEquals(7, grid.getTotalCount());
+    assertTrue(grid.getStartA() <= -100 && grid.getEndA() >= 100);
+    assertTrue(grid.getStartB() <= -50 && grid.getEndB() >= 50);
+    assertEquals(-100f, grid.getMinimumA());
+    assertEquals(100f, grid.getMaximumA());
+    assertEquals(1, grid.getCount(-100.0, -50.0));
+    assertEquals(1, grid.getCount(100.0, 50.0));
+    assertEquals(0, grid.getCount(1000.0, 0.0));
+
+    long sum = 0;
+    for (int i = 0; i < grid.getNumBinsA(); i++) {
+      for (int j = 0; j < grid.getNumBinsB(); j++) {
+        sum += grid.getCount(i, j);
+      }
+    }
+    assertEquals(7, sum);
+  }
+
+  /**
+   * Tests random samples are all counted, whatever the order they are added in.
+   */
+  public void testRandom() {
+    ABDensityGrid grid = new ABDensityGrid();
+    Random random = new Random(17);
+    int numChunks = 20;
+    int chunkSize = 1000;
+    for (int n = 0; n < numChunks; n++) {
+      float[] a = new float[chunkSize];
+      float[] b = new float[chunkSize];
+      for (int i = 0; i < chunkSize; i++) {
+        a[i] = (float) (random.nextGaussian() * (n + 1));
+        b[i] = (float) (random.nextGaussian() * (n + 1) - 3);
+      }
+      add(grid, a, b);
+    }
+    assertEquals(numChunks * chunkSize, grid.getTotalCount());
+    assertTrue(grid.getMaximumCount() > 1);
+    assertTrue(grid.getNumNonEmptyBins() <= numChunks * chunkSize);
+  }
+
+  /**
+   * Tests the counts of grids filled separately are exact once merged.
+   */
+  public void testMerge() {
+    Random random = new Random(5);
+    int numGrids = 3;
+    int chunkSize = 2000;
+    float[][] a = new float[numGrids][chunkSize];
+    float[][] b = new float[numGrids][chunkSize];
+    ABDensityGrid merged = new ABDensityGrid(16, 16);
+    for (int n = 0; n < numGrids; n++) {
+      for (int i = 0; i < chunkSize; i++) {
+        a[n][i] = (float) (random.nextGaussian() * (n + 1) * 10 + n);
+        b[n][i] = (float) (random.nextGaussian() * (n + 1) - 3 * n);
+      }
+      ABDensityGrid grid = new ABDensityGrid(16, 16);
+      add(grid, a[n], b[n]);
+      merged.merge(grid);
+    }
+    assertEquals(numGrids * chunkSize, merged.getTotalCount());
+
+    // Count the samples in each bin of the merged grid directly.
+    long[][] counts = new long[merged.getNumBinsA()][merged.getNumBinsB()];
+    for (int n = 0; n < numGrids; n++) {
+      for (int i = 0; i < chunkSize; i++) {
+        int indexA = (int) Math.floor((a[n][i] - merged.getStartA()) / merged.getBinWidthA());
+        int indexB = (int) Math.floor((b[n][i] - merged.getStartB()) / merged.getBinWidthB());
+        counts[indexA][indexB]++;
+      }
+    }
+    for (int i = 0; i < merged.getNumBinsA(); i++) {
+      for (int j = 0; j < merged.getNumBinsB(); j++) {
+        assertEquals(counts[i][j], merged.getCount(i, j));
+      }
+    }
+  }
+
+  private static void add(final ABDensityGrid grid, final float[] a, final float[] b) {
+    int n = a.length;
+    grid.add(a, b, new double[n], new double[n], new float[n], n);
+  }
+}
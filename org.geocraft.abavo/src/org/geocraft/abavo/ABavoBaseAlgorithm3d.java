@@ -3,6 +3,14 @@ package org.geocraft.abavo;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.geocraft.abavo.classbkg.ABavoAlgorithm3dWorker;
@@ -17,6 +25,7 @@ import org.geocraft.core.model.datatypes.Domain;
 import org.geocraft.core.model.datatypes.TraceData;
 import org.geocraft.core.model.datatypes.Unit;
 import org.geocraft.core.model.grid.Grid3d;
+import org.geocraft.core.model.property.BooleanProperty;
 import org.geocraft.core.model.property.EntityProperty;
 import org.geocraft.core.model.property.FloatProperty;
 import org.geocraft.core.model.property.IntegerProperty;
@@ -35,6 +44,18 @@ public abstract class ABavoBaseAlgorithm3d extends ABavoAbstractAlgorithm {
 
   public static final int MAX_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
 
+  /** The interval (in milliseconds) at which the workers are checked for cancellation. */
+  private static final long CANCEL_CHECK_INTERVAL = 250;
+
+  /** The executor shared by the workers of all the ABavo 3D algorithms, with a thread per core. */
+  private static ExecutorService _workerExecutor;
+
+  /** The executor shared by the trace readers of all the ABavo 3D algorithms. */
+  private static ExecutorService _readerExecutor;
+
+  /** The flag for choosing the number of worker threads from the number of cores. */
+  protected BooleanProperty _autoNumWorkers;
+
   protected IntegerProperty _numWorkers;
 
   /** Input data properties. */
@@ -67,6 +88,7 @@ public abstract class ABavoBaseAlgorithm3d extends ABavoAbstractAlgorithm {
 
   @Override
   protected void addVolumeProperties() {
+    _autoNumWorkers = addBooleanProperty("Automatic Worker Threads", true);
     _numWorkers = addIntegerProperty("# of Worker Threads", 1);
     _volumeA = addEntityProperty(VOLUME_A, PostStack3d.class);
     _volumeB = addEntityProperty(VOLUME_B, PostStack3d.class);
@@ -88,6 +110,7 @@ public abstract class ABavoBaseAlgorithm3d extends ABavoAbstractAlgorithm {
 
   @Override
   protected void addVolumeFields(FormSection section) {
+    section.addCheckboxField(_autoNumWorkers);
     section.addSpinnerField(_numWorkers, 1, MAX_THREADS, 0, 1);
     section.addEntityComboField(_volumeA, PostStack3d.class);
     section.addEntityComboField(_volumeB, PostStack3d.class);
@@ -112,6 +135,9 @@ public abstract class ABavoBaseAlgorithm3d extends ABavoAbstractAlgorithm {
 
   public void propertyChanged(String key) {
     String propertyName = key;
+    if (propertyName.equals(_autoNumWorkers.getKey())) {
+      setFieldEnabled(_numWorkers, !_autoNumWorkers.get());
+    }
     if (propertyName.equals(_volumeA.getKey())) {
       setFieldEnabled(_outputSampleRate, !_volumeA.isNull());
       if (!_volumeA.isNull()) {
@@ -186,7 +212,7 @@ public abstract class ABavoBaseAlgorithm3d extends ABavoAbstractAlgorithm {
 
   public void validate(IValidation results) {
     int numWorkers = _numWorkers.get();
-    if (numWorkers < 1 || numWorkers > MAX_THREADS) {
+    if (!_autoNumWorkers.get() && (numWorkers < 1 || numWorkers > MAX_THREADS)) {
       results.error(_numWorkers, "# of worker threads must be in the range 1-" + MAX_THREADS);
     }
     PostStack3d volumeA = _volumeA.get();
@@ -356,7 +382,14 @@ public abstract class ABavoBaseAlgorithm3d extends ABavoAbstractAlgorithm {
   protected abstract ABavoAlgorithm3dWorker createWorker(int workerID, IProgressMonitor monitor, ILogger logger,
       IRepository repository, InputProcess3d inputProcess);
 
+  /**
+   * Returns the number of worker threads: either the number entered,
+   * or, if automatic, the number of cores less those left for reading and the user interface.
+   */
   public int getNumWorkerThreads() {
+    if (_autoNumWorkers.get()) {
+      return MAX_THREADS;
+    }
     return _numWorkers.get();
   }
 
@@ -386,30 +419,28 @@ public abstract class ABavoBaseAlgorithm3d extends ABavoAbstractAlgorithm {
     }
     TraceReader3d traceReader = new TraceReader3d(new MultiVolumeTraceIterator(aoi, volumeA.getZStart(), volumeA
         .getZEnd(), volumeA, volumeB), numWorkers);
-    new Thread(traceReader).start();
+    getReaderExecutor().execute(traceReader);
 
+    // Create the workers and queue them on the shared executor.
     List<ABavoAlgorithm3dWorker> workers = new ArrayList<ABavoAlgorithm3dWorker>();
-    List<Thread> workerThreads = new ArrayList<Thread>();
-    for (int i = 0; i < numWorkers; i++) {
-      InputProcess3d inputProcess = new InputProcess3d(this, traceReader);
-      int workerID = i;
-      ABavoAlgorithm3dWorker worker = createWorker(workerID, monitor, logger, repository, inputProcess);
-      workers.add(worker);
-      Thread thread = new Thread(worker);
-      workerThreads.add(thread);
-      thread.start();
-    }
-    for (int i = 0; i < numWorkers; i++) {
-      try {
-        workerThreads.get(i).join();
-      } catch (InterruptedException ex) {
-        throw new RuntimeException(ex);
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    try {
+      for (int i = 0; i < numWorkers; i++) {
+        InputProcess3d inputProcess = new InputProcess3d(this, traceReader);
+        int workerID = i;
+        ABavoAlgorithm3dWorker worker = createWorker(workerID, monitor, logger, repository, inputProcess);
+        workers.add(worker);
+        futures.add(getWorkerExecutor().submit(worker));
       }
+      waitForWorkers(futures, traceReader, monitor, logger);
+    } finally {
+      // Stop the reader, in case the workers stopped before the end of the data.
+      traceReader.cancel();
     }
     long time1 = System.currentTimeMillis();
-    System.out.println("ElapsedTime(msec) " + (time1 - time0));
-    for (int i = 0; i < numWorkers; i++) {
-      workers.get(i).cleanup();
+    logger.info(taskName + ": " + numWorkers + " workers, elapsed time " + (time1 - time0) + " msec");
+    for (ABavoAlgorithm3dWorker worker : workers) {
+      worker.cleanup();
     }
 
     // Long the appropriate end-of-task message.
@@ -424,6 +455,63 @@ public abstract class ABavoBaseAlgorithm3d extends ABavoAbstractAlgorithm {
     cleanup();
   }
 
+  /**
+   * Waits for the workers to finish, canceling the trace reader if the monitor is canceled.
+   * Exceptions thrown by a worker are written to the logger and do not stop the other workers.
+   */
+  private void waitForWorkers(final List<Future<?>> futures, final TraceReader3d traceReader,
+      final IProgressMonitor monitor, final ILogger logger) {
+    for (Future<?> future : futures) {
+      boolean done = false;
+      while (!done) {
+        try {
+          future.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+          done = true;
+        } catch (TimeoutException ex) {
+          if (monitor.isCanceled()) {
+            // The workers waiting for traces are given the end of the data.
+            traceReader.cancel();
+          }
+        } catch (ExecutionException ex) {
+          logger.error(getTaskName() + " worker failed: " + ex.getCause(), ex.getCause());
+          done = true;
+        } catch (InterruptedException ex) {
+          traceReader.cancel();
+          for (Future<?> f : futures) {
+            f.cancel(true);
+          }
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the executor shared by the workers of all the ABavo 3D algorithms.
+   * It has a thread per core, so several algorithms run at once do not oversubscribe the cores;
+   * the workers of a later algorithm are queued until threads are free.
+   */
+  private static synchronized ExecutorService getWorkerExecutor() {
+    if (_workerExecutor == null) {
+      _workerExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+          new DaemonThreadFactory("ABavo worker"));
+    }
+    return _workerExecutor;
+  }
+
+  /**
+   * Returns the executor shared by the trace readers of all the ABavo 3D algorithms.
+   * The readers are kept apart from the workers, so a queued algorithm's reader cannot hold
+   * a worker thread while it waits for room to read ahead.
+   */
+  private static synchronized ExecutorService getReaderExecutor() {
+    if (_readerExecutor == null) {
+      _readerExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory("ABavo reader"));
+    }
+    return _readerExecutor;
+  }
+
   protected void initialize(IRepository repository) {
     // Nothing to do.
   }
@@ -493,4 +581,24 @@ public abstract class ABavoBaseAlgorithm3d extends ABavoAbstractAlgorithm {
   protected String[] getUnpickleKeyOrder() {
     return new String[] { VOLUME_A, VOLUME_B };
   }
+
+  /**
+   * Creates named daemon threads for the shared executors.
+   */
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    private final String _name;
+
+    private final AtomicInteger _count = new AtomicInteger();
+
+    DaemonThreadFactory(final String name) {
+      _name = name;
+    }
+
+    public Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(runnable, _name + " " + _count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
 }
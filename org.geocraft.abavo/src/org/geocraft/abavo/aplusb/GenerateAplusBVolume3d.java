@@ -183,7 +183,7 @@ public class GenerateAplusBVolume3d extends ABavoBaseAlgorithm3d {
           storageFormat, _outputSampleRate.get());
 
       // Initialize the volume output process.
-      _outputProcess = new OutputPostStack3dProcess("Output A+B Volume", outputVolume);
+      _outputProcess = new OutputPostStack3dProcess("Output A+B Volume", outputVolume, 2 * getNumWorkerThreads());
     } catch (Exception ex) {
       throw new RuntimeException(ex);
     }
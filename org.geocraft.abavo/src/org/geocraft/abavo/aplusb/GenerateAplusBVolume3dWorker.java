@@ -28,18 +28,23 @@ public class GenerateAplusBVolume3dWorker extends ABavoAlgorithm3dWorker {
   public void run() {
     _monitor.beginTask("", 100);
 
-    while (!_inputProcess.isDone()) {
-      TraceData[] traceDataIn = _inputProcess.process();
-
-      if (traceDataIn.length == 0) {
-        break;
-      }
-      TraceData[] traceDataOut = _aplusbProcess.process(traceDataIn);
-      _outputProcess.process(traceDataOut);
-
-      if (_monitor.isCanceled()) {
-        break;
+    try {
+      while (!_inputProcess.isDone()) {
+        TraceData[] traceDataIn = _inputProcess.process();
+        finishBlocks(_outputProcess);
+
+        if (traceDataIn.length == 0) {
+          break;
+        }
+        TraceData[] traceDataOut = _aplusbProcess.process(traceDataIn);
+        _outputProcess.process(traceDataOut, _inputProcess.getBlockIndex());
+
+        if (_monitor.isCanceled()) {
+          break;
+        }
       }
+    } finally {
+      releaseBlock(_outputProcess);
     }
   }
 
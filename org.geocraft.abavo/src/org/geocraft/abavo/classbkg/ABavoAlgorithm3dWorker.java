@@ -38,4 +38,27 @@ public abstract class ABavoAlgorithm3dWorker implements Runnable {
 
   public abstract void cleanup();
 
-}
\ No newline at end of file
+  /**
+   * Signals the output process of the input blocks the input process has finished with,
+   * so the traces from them can be written in order.
+   * @param outputProcess the output process (or <i>null</i> if none).
+   */
+  protected void finishBlocks(final OutputPostStack3dProcess outputProcess) {
+    for (int blockIndex : _inputProcess.takeFinishedBlocks()) {
+      if (outputProcess != null) {
+        outputProcess.blockFinished(blockIndex);
+      }
+    }
+  }
+
+  /**
+   * Releases the input block being processed, when the worker stops.
+   * This must be done even if the worker stops early, so the output of the other workers is not held back.
+   * @param outputProcess the output process (or <i>null</i> if none).
+   */
+  protected void releaseBlock(final OutputPostStack3dProcess outputProcess) {
+    _inputProcess.releaseBlock();
+    finishBlocks(outputProcess);
+  }
+
+}
\ No newline at end of file
@@ -100,33 +100,37 @@ public class ClassificationProcess implements ITraceProcess {
       Trace traceB = traceDataB.getTrace(i);
       float[] a = traceA.getData();
       float[] b = traceB.getData();
-      float[] ptMask = Arrays.copyOf(a, a.length);
-      MaskFloatArray.process(ptMask, ABavoDataMode.PEAKS_AND_TROUGHS);
-      int[] ptBlockMask = MaskFloatArray.maskPeaksAndTroughsBlock(a);
       float[] c = new float[a.length];
-      // Loop thru each sample.
-      for (int k = 0; k < traceA.getNumSamples(); k++) {
-        boolean isPeakTrough = ptMask[k] < 0 || ptMask[k] > 0;
-        if (_classifyBySample || _classifyByPeakTrough && isPeakTrough) {
-          // Get the classification value of each sample.
-          double classValue = _classifier.processAB(a[k], b[k]);
-          if (Double.isNaN(classValue)) {
-            classValue = 0;
-          }
-          c[k] = (float) classValue;
-          if (_classifyByPeakTrough) {
+      int numSamples = traceA.getNumSamples();
+      if (_classifyBySample) {
+        // Classify the whole trace as a block.
+        classify(a, b, c, numSamples);
+      } else if (_classifyByPeakTrough) {
+        float[] ptMask = Arrays.copyOf(a, a.length);
+        MaskFloatArray.process(ptMask, ABavoDataMode.PEAKS_AND_TROUGHS);
+        int[] ptBlockMask = MaskFloatArray.maskPeaksAndTroughsBlock(a);
+        // Loop thru each sample.
+        for (int k = 0; k < numSamples; k++) {
+          boolean isPeakTrough = ptMask[k] < 0 || ptMask[k] > 0;
+          if (isPeakTrough) {
+            // Get the classification value of the peak or trough, and apply it to its block.
+            float classValue = (float) _classifier.processAB(a[k], b[k]);
+            if (Float.isNaN(classValue)) {
+              classValue = 0;
+            }
+            c[k] = classValue;
             int ptFlag = ptBlockMask[k];
             for (int j = k - 1; j >= 0; j--) {
               if (ptBlockMask[j] != ptFlag) {
                 break;
               }
-              c[j] = (float) classValue;
+              c[j] = classValue;
             }
-            for (int j = k + 1; j < traceA.getNumSamples(); j++) {
+            for (int j = k + 1; j < numSamples; j++) {
               if (ptBlockMask[j] != ptFlag) {
                 break;
               }
-              c[j] = (float) classValue;
+              c[j] = classValue;
             }
           }
         }
@@ -142,4 +146,22 @@ public class ClassificationProcess implements ITraceProcess {
     return traceDataOut;
   }
 
+  /**
+   * Classifies a block of A,B samples. Samples not in a valid region are classified as 0.
+   */
+  private void classify(final float[] a, final float[] b, final float[] c, final int numSamples) {
+    if (_classifier instanceof LookupTableClassifier) {
+      ((LookupTableClassifier) _classifier).processAB(a, b, c, numSamples);
+    } else {
+      for (int k = 0; k < numSamples; k++) {
+        c[k] = (float) _classifier.processAB(a[k], b[k]);
+      }
+    }
+    for (int k = 0; k < numSamples; k++) {
+      if (Float.isNaN(c[k])) {
+        c[k] = 0;
+      }
+    }
+  }
+
 }
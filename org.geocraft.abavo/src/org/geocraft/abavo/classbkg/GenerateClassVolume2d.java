@@ -20,6 +20,7 @@ import org.geocraft.core.model.DataSource;
 import org.geocraft.core.model.datatypes.TraceData;
 import org.geocraft.core.model.property.EnumProperty;
 import org.geocraft.core.model.property.FloatProperty;
+import org.geocraft.core.model.property.IntegerProperty;
 import org.geocraft.core.model.property.StringProperty;
 import org.geocraft.core.model.seismic.PostStack2dLine;
 import org.geocraft.core.model.seismic.SeismicDataset.StorageFormat;
@@ -42,6 +43,9 @@ public class GenerateClassVolume2d extends ABavoBaseAlgorithm2d implements IGene
   /** The region definition string. */
   private StringProperty _regionDefinition;
 
+  /** The number of cells along each axis of the classification lookup table (0 to classify exactly). */
+  private IntegerProperty _lookupTableSize;
+
   /** The flag for processing polarity reversals only. */
   // TODO private BooleanProperty _polarityReversalsOnly;
 
@@ -73,6 +77,7 @@ public class GenerateClassVolume2d extends ABavoBaseAlgorithm2d implements IGene
         ClassificationMethod.CLASS_OF_SAMPLE);
     _normalizationFactor = addFloatProperty("Normalization Factor", 128);
     _regionDefinition = addStringProperty("Region Definition", ELLIPSES);
+    _lookupTableSize = addIntegerProperty("Lookup Table Size", LookupTableClassifier.DEFAULT_NUM_CELLS);
     // TODO _polarityReversalsOnly = addBooleanProperty("Polarity Reversals Only", false);
     _outputVolumeName = addStringProperty("Class Volume Name", "avoClass");
     _outputVolumeType = addEnumProperty("Class Volume Type", OutputVolumeType.class, OutputVolumeType.INTEGER_08);
@@ -100,6 +105,9 @@ public class GenerateClassVolume2d extends ABavoBaseAlgorithm2d implements IGene
     String[] regionDefinitions = { ELLIPSES, POLYGONS };
     section.addRadioGroupField(_regionDefinition, regionDefinitions);
 
+    // Add a text field for the size of the classification lookup table.
+    section.addTextField(_lookupTableSize);
+
     // Add a checkbox for the polarity reversals flag.
     //CheckBoxField polarityReversals = addCheckBoxField(section, POLARITY_REVERSALS_ONLY);
     //polarityReversals.setLabel("Polarity Reversals Only");
@@ -132,6 +140,12 @@ public class GenerateClassVolume2d extends ABavoBaseAlgorithm2d implements IGene
       results.error(_regionDefinition, "Invalid region definition");
     }
 
+    // Validate the size of the classification lookup table.
+    int lookupTableSize = _lookupTableSize.get();
+    if (lookupTableSize < 0 || lookupTableSize > LookupTableClassifier.MAX_NUM_CELLS) {
+      results.error(_lookupTableSize, "Lookup table size must be between 0 and " + LookupTableClassifier.MAX_NUM_CELLS);
+    }
+
     // Validate the output class volume name.
     if (_outputVolumeName.isEmpty()) {
       results.error(_outputVolumeName, "Class volume name not specified");
@@ -200,6 +214,13 @@ public class GenerateClassVolume2d extends ABavoBaseAlgorithm2d implements IGene
       throw new RuntimeException("Invalid region definition: " + regionDefinition);
     }
 
+    // Compile the regions classifier into a lookup table over the crossplot bounds.
+    // Samples outside the bounds, or near a region boundary, are still classified exactly.
+    int lookupTableSize = _lookupTableSize.get();
+    if (lookupTableSize > 0 && _xEnd > _xStart && _yEnd > _yStart) {
+      classifier = new LookupTableClassifier(classifier, _xStart, _xEnd, _yStart, _yEnd, lookupTableSize);
+    }
+
     // Create and initialize the classification process.
     _classificationProcess = new ClassificationProcess(classifier, getClassificationMethod());
 
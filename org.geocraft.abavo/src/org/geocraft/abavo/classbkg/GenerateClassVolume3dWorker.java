@@ -27,32 +27,37 @@ public class GenerateClassVolume3dWorker extends ABavoAlgorithm3dWorker {
   public void run() {
     _monitor.beginTask("", 100);
 
-    while (!_inputProcess.isDone()) {
-      TraceData[] traceDataIn = _inputProcess.process();
+    try {
+      while (!_inputProcess.isDone()) {
+        TraceData[] traceDataIn = _inputProcess.process();
+        finishBlocks(_outputProcess);
 
-      if (traceDataIn.length == 0) {
-        break;
-      }
-      TraceData[] traceDataOut = _classificationProcess.process(traceDataIn);
-      for (TraceData traceData : traceDataOut) {
-        for (Trace trace : traceData.getTraces()) {
-          int numSamples = trace.getNumSamples();
-          if (numSamples > 0) {
-            float[] data = trace.getDataReference();
-            if (data[0] == 0f) {
-              data[0] = 0.01f;
-            }
-            if (data[numSamples - 1] == 0f) {
-              data[numSamples - 1] = 0.01f;
+        if (traceDataIn.length == 0) {
+          break;
+        }
+        TraceData[] traceDataOut = _classificationProcess.process(traceDataIn);
+        for (TraceData traceData : traceDataOut) {
+          for (Trace trace : traceData.getTraces()) {
+            int numSamples = trace.getNumSamples();
+            if (numSamples > 0) {
+              float[] data = trace.getDataReference();
+              if (data[0] == 0f) {
+                data[0] = 0.01f;
+              }
+              if (data[numSamples - 1] == 0f) {
+                data[numSamples - 1] = 0.01f;
+              }
             }
           }
         }
-      }
-      _outputProcess.process(traceDataOut);
+        _outputProcess.process(traceDataOut, _inputProcess.getBlockIndex());
 
-      if (_monitor.isCanceled()) {
-        break;
+        if (_monitor.isCanceled()) {
+          break;
+        }
       }
+    } finally {
+      releaseBlock(_outputProcess);
     }
   }
 
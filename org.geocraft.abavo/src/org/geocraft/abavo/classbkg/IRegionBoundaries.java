@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.abavo.classbkg;
+
+
+/**
+ * The interface for regions classifiers that can describe the boundaries of their regions.
+ * A <code>LookupTableClassifier</code> built from such a classifier classifies exactly any
+ * cell crossed by a boundary, so regions smaller than a cell of the table are not lost.
+ */
+public interface IRegionBoundaries {
+
+  /**
+   * Returns the number of region boundaries.
+   */
+  int getNumBoundaries();
+
+  /**
+   * Returns the x-coordinates of a region boundary, as a closed polyline.
+   * @param index the boundary index.
+   */
+  double[] getBoundaryXs(int index);
+
+  /**
+   * Returns the y-coordinates of a region boundary, as a closed polyline.
+   * @param index the boundary index.
+   */
+  double[] getBoundaryYs(int index);
+}
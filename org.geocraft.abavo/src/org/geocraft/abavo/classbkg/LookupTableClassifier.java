@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.abavo.classbkg;
+
+
+/**
+ * A regions classifier that classifies A,B coordinates from a lookup table,
+ * compiled once from another (exact) regions classifier.
+ * <p>
+ * The table divides the A,B range into a grid of cells. The exact classifier is evaluated
+ * at the corners of each cell, and a cell whose corners all have the same classification
+ * value takes that value. A cell whose corners differ is crossed by a region boundary, and
+ * is classified exactly, as is any cell adjacent to it. If the exact classifier implements
+ * <code>IRegionBoundaries</code>, every cell crossed by one of its boundaries is also classified
+ * exactly, so that regions smaller than a cell are not lost. Coordinates outside the range of
+ * the table are always classified exactly.
+ * <p>
+ * Once constructed, the classifier is read-only, and may be shared by several threads.
+ */
+public class LookupTableClassifier implements IRegionsClassifier {
+
+  /** The default number of cells along each axis of the table. */
+  public static final int DEFAULT_NUM_CELLS = 1024;
+
+  /** The maximum number of cells along each axis of the table. */
+  public static final int MAX_NUM_CELLS = 4096;
+
+  /** The exact regions classifier. */
+  private final IRegionsClassifier _classifier;
+
+  /** The number of cells along the A axis. */
+  private final int _numCellsA;
+
+  /** The number of cells along the B axis. */
+  private final int _numCellsB;
+
+  /** The starting A coordinate of the table. */
+  private final double _startA;
+
+  /** The starting B coordinate of the table. */
+  private final double _startB;
+
+  /** The width of the cells along the A axis. */
+  private final double _cellWidthA;
+
+  /** The width of the cells along the B axis. */
+  private final double _cellWidthB;
+
+  /** The classification value of each cell. */
+  private final double[] _values;
+
+  /** The flags of the cells to classify exactly. */
+  private final boolean[] _exact;
+
+  /**
+   * Constructs a lookup table classifier with the default number of cells.
+   * @param classifier the exact regions classifier.
+   * @param startA the starting A coordinate of the table.
+   * @param endA the ending A coordinate of the table.
+   * @param startB the starting B coordinate of the table.
+   * @param endB the ending B coordinate of the table.
+   */
+  public LookupTableClassifier(final IRegionsClassifier classifier, final double startA, final double endA, final double startB, final double endB) {
+    this(classifier, startA, endA, startB, endB, DEFAULT_NUM_CELLS);
+  }
+
+  /**
+   * Constructs a lookup table classifier.
+   * @param classifier the exact regions classifier.
+   * @param startA the starting A coordinate of the table.
+   * @param endA the ending A coordinate of the table.
+   * @param startB the starting B coordinate of the table.
+   * @param endB the ending B coordinate of the table.
+   * @param numCells the number of cells along each axis of the table.
+   */
+  public LookupTableClassifier(final IRegionsClassifier classifier, final double startA, final double endA, final double startB, final double endB, final int numCells) {
+    if (numCells < 1 || numCells > MAX_NUM_CELLS) {
+      throw new IllegalArgumentException("The number of cells must be between 1 and " + MAX_NUM_CELLS + ".");
+    }
+    if (!(endA > startA) || !(endB > startB)) {
+      throw new IllegalArgumentException("Invalid lookup table range.");
+    }
+    _classifier = classifier;
+    _numCellsA = numCells;
+    _numCellsB = numCells;
+    _startA = startA;
+    _startB = startB;
+    _cellWidthA = (endA - startA) / numCells;
+    _cellWidthB = (endB - startB) / numCells;
+    _values = new double[_numCellsA * _numCellsB];
+    _exact = new boolean[_numCellsA * _numCellsB];
+    compile();
+  }
+
+  public String getName() {
+    return _classifier.getName();
+  }
+
+  /**
+   * Returns the exact regions classifier.
+   */
+  public IRegionsClassifier getClassifier() {
+    return _classifier;
+  }
+
+  /**
+   * Returns the number of cells along each axis of the table.
+   */
+  public int getNumCells() {
+    return _numCellsA;
+  }
+
+  /**
+   * Returns the number of cells classified exactly.
+   */
+  public int getNumExactCells() {
+    int count = 0;
+    for (boolean exact : _exact) {
+      if (exact) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Processes the A,B coordinate.
+   * @param a the A coordinate.
+   * @param b the B coordinate.
+   * @return the classification value (or NaN if not valid).
+   */
+  public double processAB(final double a, final double b) {
+    double cellA = (a - _startA) / _cellWidthA;
+    double cellB = (b - _startB) / _cellWidthB;
+    // Written so that NaN coordinates fail the range test.
+    if (cellA >= 0 && cellA < _numCellsA && cellB >= 0 && cellB < _numCellsB) {
+      int cell = (int) cellB * _numCellsA + (int) cellA;
+      if (!_exact[cell]) {
+        return _values[cell];
+      }
+    }
+    return _classifier.processAB(a, b);
+  }
+
+  /**
+   * Processes a block of A,B coordinates.
+   * @param a the array of A coordinates.
+   * @param b the array of B coordinates.
+   * @param values the array in which to store the classification values (NaN if not valid).
+   * @param numValues the number of coordinates to process.
+   */
+  public void processAB(final float[] a, final float[] b, final float[] values, final int numValues) {
+    for (int k = 0; k < numValues; k++) {
+      values[k] = (float) processAB(a[k], b[k]);
+    }
+  }
+
+  /**
+   * Compiles the lookup table from the exact classifier.
+   */
+  private void compile() {
+    int numCornersA = _numCellsA + 1;
+    int numCornersB = _numCellsB + 1;
+
+    // Classify the corners of the cells.
+    double[] corners = new double[numCornersA * numCornersB];
+    for (int j = 0; j < numCornersB; j++) {
+      double b = _startB + j * _cellWidthB;
+      for (int i = 0; i < numCornersA; i++) {
+        double a = _startA + i * _cellWidthA;
+        corners[j * numCornersA + i] = _classifier.processAB(a, b);
+      }
+    }
+
+    // A cell takes the value of its corners, unless they differ.
+    boolean[] boundary = new boolean[_values.length];
+    for (int j = 0; j < _numCellsB; j++) {
+      for (int i = 0; i < _numCellsA; i++) {
+        int corner = j * numCornersA + i;
+        double value = corners[corner];
+        int cell = j * _numCellsA + i;
+        _values[cell] = value;
+        boundary[cell] = !isEqual(value, corners[corner + 1]) || !isEqual(value, corners[corner + numCornersA])
+            || !isEqual(value, corners[corner + numCornersA + 1]);
+      }
+    }
+
+    // Mark the cells crossed by the boundaries known to the exact classifier.
+    if (_classifier instanceof IRegionBoundaries) {
+      IRegionBoundaries boundaries = (IRegionBoundaries) _classifier;
+      for (int n = 0; n < boundaries.getNumBoundaries(); n++) {
+        double[] xs = boundaries.getBoundaryXs(n);
+        double[] ys = boundaries.getBoundaryYs(n);
+        int numPoints = Math.min(xs.length, ys.length);
+        for (int k = 0; k < numPoints; k++) {
+          int next = (k + 1) % numPoints;
+          markSegment(boundary, xs[k], ys[k], xs[next], ys[next]);
+        }
+      }
+    }
+
+    // Classify exactly the boundary cells and their neighbors.
+    for (int j = 0; j < _numCellsB; j++) {
+      for (int i = 0; i < _numCellsA; i++) {
+        if (boundary[j * _numCellsA + i]) {
+          for (int jj = Math.max(0, j - 1); jj <= Math.min(_numCellsB - 1, j + 1); jj++) {
+            for (int ii = Math.max(0, i - 1); ii <= Math.min(_numCellsA - 1, i + 1); ii++) {
+              _exact[jj * _numCellsA + ii] = true;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Marks the cells along a line segment, clipped to the table. The segment is sampled
+   * at half the cell width, so every cell it crosses is marked or is adjacent to a marked cell.
+   */
+  private void markSegment(final boolean[] boundary, final double a1, final double b1, final double a2, final double b2) {
+    // Work in cell coordinates.
+    double x1 = (a1 - _startA) / _cellWidthA;
+    double y1 = (b1 - _startB) / _cellWidthB;
+    double x2 = (a2 - _startA) / _cellWidthA;
+    double y2 = (b2 - _startB) / _cellWidthB;
+    double dx = x2 - x1;
+    double dy = y2 - y1;
+
+    // Clip the segment to the table (Liang-Barsky).
+    double[] p = { -dx, dx, -dy, dy };
+    double[] q = { x1, _numCellsA - x1, y1, _numCellsB - y1 };
+    double t0 = 0;
+    double t1 = 1;
+    for (int k = 0; k < 4; k++) {
+      if (p[k] == 0) {
+        if (q[k] < 0) {
+          return;
+        }
+      } else {
+        double t = q[k] / p[k];
+        if (p[k] < 0) {
+          t0 = Math.max(t0, t);
+        } else {
+          t1 = Math.min(t1, t);
+        }
+      }
+    }
+    if (t0 > t1 || Double.isNaN(t0) || Double.isNaN(t1)) {
+      return;
+    }
+
+    double length = Math.sqrt(dx * dx + dy * dy) * (t1 - t0);
+    int numSteps = 1 + (int) Math.ceil(length * 2);
+    for (int k = 0; k <= numSteps; k++) {
+      double t = t0 + (t1 - t0) * k / numSteps;
+      int i = Math.max(0, Math.min(_numCellsA - 1, (int) (x1 + t * dx)));
+      int j = Math.max(0, Math.min(_numCellsB - 1, (int) (y1 + t * dy)));
+      boundary[j * _numCellsA + i] = true;
+    }
+  }
+
+  /**
+   * Returns <i>true</i> if two classification values are equal, treating NaN as equal to NaN.
+   */
+  private static boolean isEqual(final double value1, final double value2) {
+    return value1 == value2 || Double.isNaN(value1) && Double.isNaN(value2);
+  }
+}
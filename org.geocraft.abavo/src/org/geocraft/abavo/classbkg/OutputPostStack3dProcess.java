@@ -1,9 +1,16 @@
 /*
- * Copyright (C) ConocoPhillips 2008 All Rights Reserved. 
+ * Copyright (C) ConocoPhillips 2008 All Rights Reserved.
  */
 package org.geocraft.abavo.classbkg;
 
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
 import org.geocraft.abavo.process.ITraceProcess;
 import org.geocraft.core.model.datatypes.TraceData;
 import org.geocraft.core.model.seismic.PostStack3d;
@@ -16,23 +23,56 @@ import org.geocraft.core.model.seismic.PostStack3d;
  * factory methods. Traces are then passed into the process and written
  * to the output volume. Afterwards, the output volume is closed during
  * the cleanup.
+ * <p>
+ * When several workers share the process, each passes its traces along with the index of
+ * the input block they came from, and signals when it has finished with a block. The traces
+ * are then written in block order, regardless of the order in which the workers finish. A worker
+ * that gets too far ahead of the next block to write waits, so the traces held back are bounded.
  */
 public class OutputPostStack3dProcess implements ITraceProcess {
 
+  /** The default maximum number of blocks buffered ahead of the next block to write. */
+  public static final int DEFAULT_MAX_PENDING_BLOCKS = 16;
+
   /** The process name. */
   private final String _name;
 
   /** The poststack3d volume to write. */
   private final PostStack3d _outputVolume;
 
+  /** The maximum number of blocks buffered ahead of the next block to write. */
+  private final int _maxPendingBlocks;
+
+  /** The index of the next block to write. */
+  private int _nextBlock;
+
+  /** The traces held back, by block index. */
+  private final Map<Integer, List<TraceData>> _pendingTraces;
+
+  /** The indices of the blocks finished with, but not yet written. */
+  private final Set<Integer> _finishedBlocks;
+
   /**
    * Creates the poststack3d output process with the specified name.
    * @param name the process name.
    * @param outputVolume the output poststack3d volume.
    */
   public OutputPostStack3dProcess(final String name, final PostStack3d outputVolume) {
+    this(name, outputVolume, DEFAULT_MAX_PENDING_BLOCKS);
+  }
+
+  /**
+   * Creates the poststack3d output process with the specified name.
+   * @param name the process name.
+   * @param outputVolume the output poststack3d volume.
+   * @param maxPendingBlocks the maximum number of blocks buffered ahead of the next block to write.
+   */
+  public OutputPostStack3dProcess(final String name, final PostStack3d outputVolume, final int maxPendingBlocks) {
     _name = name;
     _outputVolume = outputVolume;
+    _maxPendingBlocks = Math.max(1, maxPendingBlocks);
+    _pendingTraces = new TreeMap<Integer, List<TraceData>>();
+    _finishedBlocks = new HashSet<Integer>();
   }
 
   public String getName() {
@@ -43,21 +83,91 @@ public class OutputPostStack3dProcess implements ITraceProcess {
     // No action required.
   }
 
-  public void cleanup() {
-    // Close the output volume.
+  public synchronized void cleanup() {
+    // Write any traces still held back (e.g. if canceled), then close the output volume.
+    for (List<TraceData> traces : _pendingTraces.values()) {
+      write(traces.toArray(new TraceData[0]));
+    }
+    _pendingTraces.clear();
     _outputVolume.close();
   }
 
   public synchronized TraceData[] process(final TraceData[] traceDataIn) {
+    write(traceDataIn);
+
+    // Pass the input traces thru.
+    return traceDataIn;
+  }
+
+  /**
+   * Writes the traces from an input block, in block order.
+   * The traces are held back until the blocks before it are finished with.
+   * @param traceDataIn the traces to write.
+   * @param blockIndex the index of the input block the traces came from.
+   * @return the input traces.
+   */
+  public synchronized TraceData[] process(final TraceData[] traceDataIn, final int blockIndex) {
+    // Wait while too far ahead of the next block to write.
+    try {
+      while (blockIndex >= _nextBlock + _maxPendingBlocks) {
+        wait();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+
+    if (blockIndex == _nextBlock) {
+      writePending(blockIndex);
+      write(traceDataIn);
+    } else {
+      List<TraceData> traces = _pendingTraces.get(blockIndex);
+      if (traces == null) {
+        traces = new ArrayList<TraceData>();
+        _pendingTraces.put(blockIndex, traces);
+      }
+      for (TraceData traceData : traceDataIn) {
+        traces.add(traceData);
+      }
+    }
+    return traceDataIn;
+  }
+
+  /**
+   * Signals that no more traces will come from an input block.
+   * The traces held back for the following blocks are written, as far as possible.
+   * @param blockIndex the index of the input block.
+   */
+  public synchronized void blockFinished(final int blockIndex) {
+    _finishedBlocks.add(blockIndex);
+    boolean advanced = false;
+    while (_finishedBlocks.remove(_nextBlock)) {
+      writePending(_nextBlock);
+      _nextBlock++;
+      writePending(_nextBlock);
+      advanced = true;
+    }
+    if (advanced) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Writes the traces held back for a block.
+   */
+  private void writePending(final int blockIndex) {
+    List<TraceData> traces = _pendingTraces.remove(blockIndex);
+    if (traces != null) {
+      write(traces.toArray(new TraceData[0]));
+    }
+  }
+
+  private void write(final TraceData[] traceDataIn) {
     // Loop thru the array of trace data objects.
     for (TraceData traceData : traceDataIn) {
 
       // Write the traces to the output poststack3d volume.
       _outputVolume.putTraces(traceData);
     }
-
-    // Pass the input traces thru.
-    return traceDataIn;
   }
 
 }
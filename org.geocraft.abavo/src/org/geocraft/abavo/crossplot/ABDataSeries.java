@@ -76,6 +76,9 @@ public class ABDataSeries {
   /** The regression data statistics. */
   private final RegressionDataStatistics _regressionDataStats;
 
+  /** The density grid the points were sampled from, or <i>null</i> if the series holds all its points. */
+  private ABDensityGrid _densityGrid;
+
   /**
    * Generates an array of 3d points from arrays of x,y,z values.
    * @param numPoints the number of points.
@@ -141,6 +144,33 @@ public class ABDataSeries {
     this(name, id, numPoints, a, b, getPoints(numPoints, x, y, z), xyUnit, zUnit, domain, regressionType);
   }
 
+  /**
+   * The parameterized constructor, for the points sampled from a density grid.
+   * The minimum and maximum values of the series are those of all the samples counted in the grid.
+   * @param name the data series name.
+   * @param id the data series id.
+   * @param numPoints the number of points in the data series arrays.
+   * @param a the array of sampled A values.
+   * @param b the array of sampled B values.
+   * @param x the array of x values.
+   * @param y the array of y values.
+   * @param z the array of z values.
+   * @param xyUnit the x,y unit.
+   * @param zUnit the z unit.
+   * @param domainType the domain type (Time or Depth).
+   * @param densityGrid the density grid the points were sampled from.
+   */
+  public ABDataSeries(final String name, final int id, final int numPoints, final float[] a, final float[] b, final double[] x, final double[] y, final float[] z, final Unit xyUnit, final Unit zUnit, final Domain domain, final RegressionType regressionType, final ABDensityGrid densityGrid) {
+    this(name, id, numPoints, a, b, x, y, z, xyUnit, zUnit, domain, regressionType);
+    _densityGrid = densityGrid;
+    _minimumA = densityGrid.getMinimumA();
+    _maximumA = densityGrid.getMaximumA();
+    _minimumB = densityGrid.getMinimumB();
+    _maximumB = densityGrid.getMaximumB();
+    _minimumZ = densityGrid.getMinimumZ();
+    _maximumZ = densityGrid.getMaximumZ();
+  }
+
   /**
    * The parameterized constructor, using 3d points for the coordinate values.
    * @param name the data series name.
@@ -363,6 +393,14 @@ public class ABDataSeries {
     return _regressions.get(methodAcronym);
   }
 
+  /**
+   * Gets the density grid the points of the series were sampled from.
+   * @return the density grid, or <i>null</i> if the series holds all its points.
+   */
+  public ABDensityGrid getDensityGrid() {
+    return _densityGrid;
+  }
+
   /**
    * Returns the regression data statistics for this series.
    * @return the regression data statistics for this series.
@@ -0,0 +1,547 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.abavo.crossplot;
+
+
+import java.util.Random;
+
+import org.geocraft.core.model.datatypes.Domain;
+import org.geocraft.core.model.datatypes.Unit;
+import org.geocraft.math.regression.RegressionType;
+
+
+/**
+ * A 2D histogram of A vs B samples, used to crossplot data sets far too large to plot point by point.
+ * <p>
+ * The samples are counted in a fixed number of bins. The bounds of the grid are not needed in advance:
+ * they are set from the first samples added, and whenever a sample falls outside them the bin width along
+ * that axis is doubled (merging pairs of bins) until the grid covers it. The counts are therefore exact,
+ * whatever the order the samples are added in.
+ * <p>
+ * The bin widths are powers of 2, and the bins start at multiples of their width, so the bins of any
+ * two grids nest. This lets the grids filled by several workers be merged exactly, so each worker
+ * can add to a grid of its own instead of contending for a shared one.
+ * <p>
+ * For picking, each bin also keeps one of its samples (with its x,y,z location), chosen uniformly at random
+ * among the samples counted in the bin. These samples form a data series of at most one point per bin.
+ */
+public class ABDensityGrid {
+
+  /** The default number of bins along each axis. */
+  public static final int DEFAULT_NUM_BINS = 256;
+
+  /** The number of bins along the A axis. */
+  private final int _numBinsA;
+
+  /** The number of bins along the B axis. */
+  private final int _numBinsB;
+
+  /** The sample counts, indexed by <i>indexB * numBinsA + indexA</i>. */
+  private long[] _counts;
+
+  /** The sampled A values of the bins. */
+  private float[] _sampleA;
+
+  /** The sampled B values of the bins. */
+  private float[] _sampleB;
+
+  /** The x coordinates of the sampled values. */
+  private double[] _sampleX;
+
+  /** The y coordinates of the sampled values. */
+  private double[] _sampleY;
+
+  /** The z values of the sampled values. */
+  private float[] _sampleZ;
+
+  /** The start of the first bin along the A axis, in units of the bin width. */
+  private long _originA;
+
+  /** The start of the first bin along the B axis, in units of the bin width. */
+  private long _originB;
+
+  /** The width of a bin along the A axis (0 until the first sample is added). */
+  private double _binWidthA;
+
+  /** The width of a bin along the B axis (0 until the first sample is added). */
+  private double _binWidthB;
+
+  /** The total number of samples counted. */
+  private long _totalCount;
+
+  private float _minimumA;
+
+  private float _maximumA;
+
+  private float _minimumB;
+
+  private float _maximumB;
+
+  private float _minimumZ;
+
+  private float _maximumZ;
+
+  /** The random generator used to choose the sample of each bin. */
+  private final Random _random = new Random(0);
+
+  /**
+   * Constructs an empty density grid with the default number of bins.
+   */
+  public ABDensityGrid() {
+    this(DEFAULT_NUM_BINS, DEFAULT_NUM_BINS);
+  }
+
+  /**
+   * Constructs an empty density grid.
+   *
+   * @param numBinsA the number of bins along the A axis (rounded up to an even number).
+   * @param numBinsB the number of bins along the B axis (rounded up to an even number).
+   */
+  public ABDensityGrid(final int numBinsA, final int numBinsB) {
+    if (numBinsA < 1 || numBinsB < 1) {
+      throw new IllegalArgumentException("Invalid number of bins (" + numBinsA + "x" + numBinsB + ").");
+    }
+    // The bins are merged in pairs when the grid grows.
+    _numBinsA = numBinsA + numBinsA % 2;
+    _numBinsB = numBinsB + numBinsB % 2;
+    int numBins = _numBinsA * _numBinsB;
+    _counts = new long[numBins];
+    _sampleA = new float[numBins];
+    _sampleB = new float[numBins];
+    _sampleX = new double[numBins];
+    _sampleY = new double[numBins];
+    _sampleZ = new float[numBins];
+  }
+
+  /**
+   * Adds the specified samples to the grid. Samples with a NaN A or B value are ignored.
+   *
+   * @param a the array of A values.
+   * @param b the array of B values.
+   * @param x the array of x coordinates.
+   * @param y the array of y coordinates.
+   * @param z the array of z values.
+   * @param numSamples the number of samples to add from the arrays.
+   */
+  public synchronized void add(final float[] a, final float[] b, final double[] x, final double[] y,
+      final float[] z, final int numSamples) {
+    // Find the range of the samples, and grow the grid once to cover it.
+    float minA = Float.MAX_VALUE;
+    float maxA = -Float.MAX_VALUE;
+    float minB = Float.MAX_VALUE;
+    float maxB = -Float.MAX_VALUE;
+    float minZ = Float.MAX_VALUE;
+    float maxZ = -Float.MAX_VALUE;
+    int numValid = 0;
+    for (int i = 0; i < numSamples; i++) {
+      if (isValid(a[i], b[i])) {
+        minA = Math.min(minA, a[i]);
+        maxA = Math.max(maxA, a[i]);
+        minB = Math.min(minB, b[i]);
+        maxB = Math.max(maxB, b[i]);
+        minZ = Math.min(minZ, z[i]);
+        maxZ = Math.max(maxZ, z[i]);
+        numValid++;
+      }
+    }
+    if (numValid == 0) {
+      return;
+    }
+    if (_totalCount == 0) {
+      _binWidthA = getInitialBinWidth(minA, maxA, _numBinsA);
+      _binWidthB = getInitialBinWidth(minB, maxB, _numBinsB);
+      _originA = (long) Math.floor(minA / _binWidthA);
+      _originB = (long) Math.floor(minB / _binWidthB);
+      _minimumA = minA;
+      _maximumA = maxA;
+      _minimumB = minB;
+      _maximumB = maxB;
+      _minimumZ = minZ;
+      _maximumZ = maxZ;
+    } else {
+      _minimumA = Math.min(_minimumA, minA);
+      _maximumA = Math.max(_maximumA, maxA);
+      _minimumB = Math.min(_minimumB, minB);
+      _maximumB = Math.max(_maximumB, maxB);
+      _minimumZ = Math.min(_minimumZ, minZ);
+      _maximumZ = Math.max(_maximumZ, maxZ);
+    }
+    growToCover(minA, maxA, _binWidthA, minB, maxB, _binWidthB);
+
+    for (int i = 0; i < numSamples; i++) {
+      if (isValid(a[i], b[i])) {
+        int indexA = clamp((long) Math.floor(a[i] / _binWidthA) - _originA, _numBinsA);
+        int indexB = clamp((long) Math.floor(b[i] / _binWidthB) - _originB, _numBinsB);
+        int bin = indexB * _numBinsA + indexA;
+        long count = ++_counts[bin];
+        // Keep each sample of the bin with equal probability (reservoir sampling).
+        if (count == 1 || _random.nextDouble() * count < 1) {
+          _sampleA[bin] = a[i];
+          _sampleB[bin] = b[i];
+          _sampleX[bin] = x[i];
+          _sampleY[bin] = y[i];
+          _sampleZ[bin] = z[i];
+        }
+      }
+    }
+    _totalCount += numValid;
+  }
+
+  /**
+   * Adds the counts and samples of another grid to this grid, as if its samples had been added
+   * to this grid. The counts are exact, as the bins of the other grid nest in those of this grid.
+   *
+   * @param other the grid to merge into this grid.
+   */
+  public synchronized void merge(final ABDensityGrid other) {
+    synchronized (other) {
+      if (other._totalCount == 0) {
+        return;
+      }
+      if (_totalCount == 0) {
+        _binWidthA = other._binWidthA;
+        _binWidthB = other._binWidthB;
+        _originA = (long) Math.floor(other._minimumA / _binWidthA);
+        _originB = (long) Math.floor(other._minimumB / _binWidthB);
+        _minimumA = other._minimumA;
+        _maximumA = other._maximumA;
+        _minimumB = other._minimumB;
+        _maximumB = other._maximumB;
+        _minimumZ = other._minimumZ;
+        _maximumZ = other._maximumZ;
+      } else {
+        _minimumA = Math.min(_minimumA, other._minimumA);
+        _maximumA = Math.max(_maximumA, other._maximumA);
+        _minimumB = Math.min(_minimumB, other._minimumB);
+        _maximumB = Math.max(_maximumB, other._maximumB);
+        _minimumZ = Math.min(_minimumZ, other._minimumZ);
+        _maximumZ = Math.max(_maximumZ, other._maximumZ);
+      }
+      // Every non-empty bin of the other grid lies within the range of its samples.
+      growToCover(other._minimumA, other._maximumA, other._binWidthA, other._minimumB, other._maximumB,
+          other._binWidthB);
+
+      long ratioA = Math.round(_binWidthA / other._binWidthA);
+      long ratioB = Math.round(_binWidthB / other._binWidthB);
+      for (int ib = 0; ib < other._numBinsB; ib++) {
+        for (int ia = 0; ia < other._numBinsA; ia++) {
+          int otherBin = ib * other._numBinsA + ia;
+          long count = other._counts[otherBin];
+          if (count == 0) {
+            continue;
+          }
+          int indexA = clamp(floorDiv(other._originA + ia, ratioA) - _originA, _numBinsA);
+          int indexB = clamp(floorDiv(other._originB + ib, ratioB) - _originB, _numBinsB);
+          int bin = indexB * _numBinsA + indexA;
+          long total = _counts[bin] + count;
+          // Keep the sample of either bin in proportion to its count.
+          if (_counts[bin] == 0 || _random.nextDouble() * total < count) {
+            _sampleA[bin] = other._sampleA[otherBin];
+            _sampleB[bin] = other._sampleB[otherBin];
+            _sampleX[bin] = other._sampleX[otherBin];
+            _sampleY[bin] = other._sampleY[otherBin];
+            _sampleZ[bin] = other._sampleZ[otherBin];
+          }
+          _counts[bin] = total;
+        }
+      }
+      _totalCount += other._totalCount;
+    }
+  }
+
+  /**
+   * Returns the number of bins along the A axis.
+   */
+  public int getNumBinsA() {
+    return _numBinsA;
+  }
+
+  /**
+   * Returns the number of bins along the B axis.
+   */
+  public int getNumBinsB() {
+    return _numBinsB;
+  }
+
+  /**
+   * Returns the A value at the start of the first bin.
+   */
+  public synchronized double getStartA() {
+    return _originA * _binWidthA;
+  }
+
+  /**
+   * Returns the A value at the end of the last bin.
+   */
+  public synchronized double getEndA() {
+    return (_originA + _numBinsA) * _binWidthA;
+  }
+
+  /**
+   * Returns the B value at the start of the first bin.
+   */
+  public synchronized double getStartB() {
+    return _originB * _binWidthB;
+  }
+
+  /**
+   * Returns the B value at the end of the last bin.
+   */
+  public synchronized double getEndB() {
+    return (_originB + _numBinsB) * _binWidthB;
+  }
+
+  /**
+   * Returns the width of a bin along the A axis.
+   */
+  public synchronized double getBinWidthA() {
+    return _binWidthA;
+  }
+
+  /**
+   * Returns the width of a bin along the B axis.
+   */
+  public synchronized double getBinWidthB() {
+    return _binWidthB;
+  }
+
+  /**
+   * Returns the number of samples counted in the specified bin.
+   *
+   * @param indexA the bin index along the A axis.
+   * @param indexB the bin index along the B axis.
+   */
+  public synchronized long getCount(final int indexA, final int indexB) {
+    return _counts[indexB * _numBinsA + indexA];
+  }
+
+  /**
+   * Returns the number of samples counted in the bin containing the specified A,B values,
+   * or 0 if they are outside the grid.
+   *
+   * @param a the A value.
+   * @param b the B value.
+   */
+  public synchronized long getCount(final double a, final double b) {
+    if (_totalCount == 0) {
+      return 0;
+    }
+    long indexA = (long) Math.floor(a / _binWidthA) - _originA;
+    long indexB = (long) Math.floor(b / _binWidthB) - _originB;
+    if (indexA < 0 || indexA >= _numBinsA || indexB < 0 || indexB >= _numBinsB) {
+      return 0;
+    }
+    return _counts[(int) indexB * _numBinsA + (int) indexA];
+  }
+
+  /**
+   * Returns the largest number of samples counted in a bin.
+   */
+  public synchronized long getMaximumCount() {
+    long maxCount = 0;
+    for (long count : _counts) {
+      maxCount = Math.max(maxCount, count);
+    }
+    return maxCount;
+  }
+
+  /**
+   * Returns the total number of samples counted.
+   */
+  public synchronized long getTotalCount() {
+    return _totalCount;
+  }
+
+  /**
+   * Returns the number of bins containing at least one sample.
+   */
+  public synchronized int getNumNonEmptyBins() {
+    int numBins = 0;
+    for (long count : _counts) {
+      if (count > 0) {
+        numBins++;
+      }
+    }
+    return numBins;
+  }
+
+  public synchronized float getMinimumA() {
+    return _minimumA;
+  }
+
+  public synchronized float getMaximumA() {
+    return _maximumA;
+  }
+
+  public synchronized float getMinimumB() {
+    return _minimumB;
+  }
+
+  public synchronized float getMaximumB() {
+    return _maximumB;
+  }
+
+  public synchronized float getMinimumZ() {
+    return _minimumZ;
+  }
+
+  public synchronized float getMaximumZ() {
+    return _maximumZ;
+  }
+
+  /**
+   * Creates a data series of the samples kept for the bins, one point per non-empty bin,
+   * that refers back to this grid.
+   *
+   * @param name the data series name.
+   * @param id the data series id.
+   * @param xyUnit the x,y unit.
+   * @param zUnit the z unit.
+   * @param domain the domain type (Time or Depth).
+   * @param regressionType the regression type.
+   * @return the data series, or <i>null</i> if the grid is empty.
+   */
+  public synchronized ABDataSeries createSeries(final String name, final int id, final Unit xyUnit,
+      final Unit zUnit, final Domain domain, final RegressionType regressionType) {
+    int numPoints = getNumNonEmptyBins();
+    if (numPoints == 0) {
+      return null;
+    }
+    float[] a = new float[numPoints];
+    float[] b = new float[numPoints];
+    double[] x = new double[numPoints];
+    double[] y = new double[numPoints];
+    float[] z = new float[numPoints];
+    int index = 0;
+    for (int bin = 0; bin < _counts.length; bin++) {
+      if (_counts[bin] > 0) {
+        a[index] = _sampleA[bin];
+        b[index] = _sampleB[bin];
+        x[index] = _sampleX[bin];
+        y[index] = _sampleY[bin];
+        z[index] = _sampleZ[bin];
+        index++;
+      }
+    }
+    return new ABDataSeries(name, id, numPoints, a, b, x, y, z, xyUnit, zUnit, domain, regressionType, this);
+  }
+
+  private static boolean isValid(final float a, final float b) {
+    return !Float.isNaN(a) && !Float.isNaN(b) && !Float.isInfinite(a) && !Float.isInfinite(b);
+  }
+
+  private static int clamp(final long index, final int numBins) {
+    return (int) Math.max(0, Math.min(index, numBins - 1));
+  }
+
+  private static long floorDiv(final long value, final long divisor) {
+    long quotient = value / divisor;
+    return quotient * divisor > value ? quotient - 1 : quotient;
+  }
+
+  /**
+   * Returns the initial bin width for a range of values: the smallest power of 2
+   * for which the bins can cover the range.
+   */
+  private static double getInitialBinWidth(final float min, final float max, final int numBins) {
+    double width = ((double) max - min) / numBins;
+    if (width <= 0) {
+      // All the values are equal, so choose a small width around them.
+      width = Math.max(Math.abs(min), 1.0) * 1e-6;
+    }
+    double powerOf2 = Math.scalb(1.0, Math.getExponent(width));
+    return powerOf2 < width ? 2 * powerOf2 : powerOf2;
+  }
+
+  /**
+   * Doubles the bin widths (merging bins) until the grid covers both its current bins and
+   * the specified ranges, with bin widths of at least the specified widths.
+   */
+  private void growToCover(final double minA, final double maxA, final double minWidthA, final double minB,
+      final double maxB, final double minWidthB) {
+    double widthA = _binWidthA;
+    long originA = _originA;
+    while (true) {
+      widthA = Math.max(widthA, minWidthA);
+      long ratio = Math.round(widthA / _binWidthA);
+      long lo = Math.min(floorDiv(_originA, ratio), (long) Math.floor(minA / widthA));
+      long hi = Math.max(floorDiv(_originA + _numBinsA - 1, ratio), (long) Math.floor(maxA / widthA));
+      if (hi - lo < _numBinsA) {
+        originA = lo;
+        break;
+      }
+      widthA *= 2;
+    }
+    double widthB = _binWidthB;
+    long originB = _originB;
+    while (true) {
+      widthB = Math.max(widthB, minWidthB);
+      long ratio = Math.round(widthB / _binWidthB);
+      long lo = Math.min(floorDiv(_originB, ratio), (long) Math.floor(minB / widthB));
+      long hi = Math.max(floorDiv(_originB + _numBinsB - 1, ratio), (long) Math.floor(maxB / widthB));
+      if (hi - lo < _numBinsB) {
+        originB = lo;
+        break;
+      }
+      widthB *= 2;
+    }
+    if (widthA != _binWidthA || originA != _originA || widthB != _binWidthB || originB != _originB) {
+      mergeBins(widthA, originA, widthB, originB);
+    }
+  }
+
+  /**
+   * Moves the counts and samples of the bins to the bins of wider (or shifted) grid.
+   * Old bin <i>i</i> along an axis becomes new bin <i>(origin + i) / ratio - newOrigin</i>,
+   * where <i>ratio</i> is the ratio of the new to the old bin width.
+   *
+   * @param widthA the new bin width along the A axis.
+   * @param originA the new start of the first bin along the A axis, in units of the new bin width.
+   * @param widthB the new bin width along the B axis.
+   * @param originB the new start of the first bin along the B axis, in units of the new bin width.
+   */
+  private void mergeBins(final double widthA, final long originA, final double widthB, final long originB) {
+    long ratioA = Math.round(widthA / _binWidthA);
+    long ratioB = Math.round(widthB / _binWidthB);
+    int numBins = _counts.length;
+    long[] counts = new long[numBins];
+    float[] sampleA = new float[numBins];
+    float[] sampleB = new float[numBins];
+    double[] sampleX = new double[numBins];
+    double[] sampleY = new double[numBins];
+    float[] sampleZ = new float[numBins];
+    for (int ib = 0; ib < _numBinsB; ib++) {
+      for (int ia = 0; ia < _numBinsA; ia++) {
+        int oldBin = ib * _numBinsA + ia;
+        long count = _counts[oldBin];
+        if (count == 0) {
+          continue;
+        }
+        int newA = (int) (floorDiv(_originA + ia, ratioA) - originA);
+        int newB = (int) (floorDiv(_originB + ib, ratioB) - originB);
+        int newBin = newB * _numBinsA + newA;
+        long total = counts[newBin] + count;
+        // Keep the sample of either bin in proportion to its count.
+        if (counts[newBin] == 0 || _random.nextDouble() * total < count) {
+          sampleA[newBin] = _sampleA[oldBin];
+          sampleB[newBin] = _sampleB[oldBin];
+          sampleX[newBin] = _sampleX[oldBin];
+          sampleY[newBin] = _sampleY[oldBin];
+          sampleZ[newBin] = _sampleZ[oldBin];
+        }
+        counts[newBin] = total;
+      }
+    }
+    _binWidthA = widthA;
+    _originA = originA;
+    _binWidthB = widthB;
+    _originB = originB;
+    _counts = counts;
+    _sampleA = sampleA;
+    _sampleB = sampleB;
+    _sampleX = sampleX;
+    _sampleY = sampleY;
+    _sampleZ = sampleZ;
+  }
+}
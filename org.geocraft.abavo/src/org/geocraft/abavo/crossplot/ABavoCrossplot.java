@@ -49,6 +49,7 @@ import org.geocraft.abavo.crossplot.action.EndPolygonDefinition;
 import org.geocraft.abavo.crossplot.action.MoveSeriesToFront;
 import org.geocraft.abavo.crossplot.action.OpenAlgorithm;
 import org.geocraft.abavo.crossplot.action.SetRegressionMethod;
+import org.geocraft.abavo.crossplot.layer.CrossplotDensityLayer;
 import org.geocraft.abavo.crossplot.layer.CrossplotSeriesLayer;
 import org.geocraft.abavo.crossplot.layer.EllipseLayer;
 import org.geocraft.abavo.crossplot.layer.EllipseRegionsImageLayer;
@@ -395,9 +396,11 @@ public class ABavoCrossplot extends PlotView implements IABavoCrossplot, IModelL
 
     // For usability purposes, a limit of 200,000 points has been
     // established. Prompt the user to continue if that limit is
-    // being exceeded.
+    // being exceeded. A density series only plots a sample point
+    // per bin, so the limit does not apply.
     int numPoints = series.getNumPoints();
-    if (numPoints > limit) {
+    ABDensityGrid densityGrid = series.getDensityGrid();
+    if (densityGrid == null && numPoints > limit) {
       String message = "Point count (" + nf.format(numPoints) + ") exceeds " + nf.format(limit) + "!\nContinue?";
       boolean confirm = MessageDialog.openConfirm(new Shell(Display.getCurrent()), "Add Data Series", message);
       if (!confirm) {
@@ -436,6 +439,10 @@ public class ABavoCrossplot extends PlotView implements IABavoCrossplot, IModelL
     _series[seriesIndex] = series;
 
     String msg = series.getName() + ": " + numPoints + " points plotted.\n";
+    if (densityGrid != null) {
+      msg = series.getName() + ": " + densityGrid.getTotalCount() + " samples binned, " + numPoints
+          + " points plotted.\n";
+    }
     ServiceProvider.getLoggingService().getLogger(getClass()).info(msg);
 
     // Update the plot bounds if set to automatic.
@@ -535,12 +542,25 @@ public class ABavoCrossplot extends PlotView implements IABavoCrossplot, IModelL
     seriesGroupLayer.setImage(Activator.getDefault().createImage(ABavoImages.DATA_SERIES));
     layerModel.addLayer(seriesGroupLayer);
 
+    // Add a layer for the series density, if binned.
+    if (densityGrid != null) {
+      CrossplotDensityLayer densityLayer = new CrossplotDensityLayer(series);
+      addLayer(densityLayer, false, false);
+      IViewLayer seriesDensityLayer = new RendererViewLayer(densityLayer, series.getName() + " Density", false, false,
+          false);
+      layerModel.addLayer(seriesDensityLayer, seriesGroupLayer);
+    }
+
     // Add a layer for the series point data.
     PointProperties pointProps = _seriesPointProps[seriesIndex];
     CrossplotSeriesLayer seriesLayer = new CrossplotSeriesLayer(series, pointProps, _depthColorBar);
     addLayer(seriesLayer, false, false);
     IViewLayer seriesPointsLayer = new RendererViewLayer(seriesLayer, series.getName() + " Points", true, false, false);
     layerModel.addLayer(seriesPointsLayer, seriesGroupLayer);
+    if (densityGrid != null) {
+      // The sample points of a density series are hidden, but can be shown from the layer tree.
+      seriesPointsLayer.setVisible(false);
+    }
 
     // Add a group layer for the regression layers.
     IViewLayer regressionsLayer = new ViewGroupLayer(series.getName() + " Regressions", series.getName()
@@ -12,6 +12,7 @@ import org.geocraft.core.model.datatypes.Domain;
 import org.geocraft.core.model.datatypes.TraceData;
 import org.geocraft.core.model.datatypes.Unit;
 import org.geocraft.core.model.preferences.UnitPreferences;
+import org.geocraft.core.model.property.BooleanProperty;
 import org.geocraft.core.model.seismic.PostStack3d;
 import org.geocraft.core.repository.IRepository;
 import org.geocraft.core.service.logging.ILogger;
@@ -24,6 +25,9 @@ public class CrossplotAvsB3d extends ABavoBaseAlgorithm3d {
 
   private CrossplotSeriesProcess _crossplotProcess;
 
+  /** The flag for binning the samples into a density grid, rather than plotting each one. */
+  private BooleanProperty _densityDisplay;
+
   public CrossplotAvsB3d() {
     super(false);
   }
@@ -33,10 +37,29 @@ public class CrossplotAvsB3d extends ABavoBaseAlgorithm3d {
     return "Crossplot A vs B";
   }
 
+  @Override
+  protected void addVolumeProperties() {
+    super.addVolumeProperties();
+    _densityDisplay = addBooleanProperty("Density Display", false);
+  }
+
   @Override
   protected void addVolumeFields(FormSection section) {
     section.addEntityComboField(_volumeA, PostStack3d.class);
     section.addEntityComboField(_volumeB, PostStack3d.class);
+    section.addCheckboxField(_densityDisplay);
+    section.addCheckboxField(_autoNumWorkers);
+    section.addSpinnerField(_numWorkers, 1, MAX_THREADS, 0, 1);
+  }
+
+  @Override
+  public void propertyChanged(String key) {
+    super.propertyChanged(key);
+    if (key.equals(_densityDisplay.getKey()) || key.equals(_autoNumWorkers.getKey())) {
+      boolean density = _densityDisplay.get();
+      setFieldEnabled(_autoNumWorkers, density);
+      setFieldEnabled(_numWorkers, density && !_autoNumWorkers.get());
+    }
   }
 
   @Override
@@ -53,7 +76,11 @@ public class CrossplotAvsB3d extends ABavoBaseAlgorithm3d {
     if (!crossplot.getModel().getAnchoredToOrigin()) {
       regressionType = RegressionType.Offset;
     }
-    _crossplotProcess = new CrossplotSeriesProcess(crossplot, xyUnit, zUnit, domain, regressionType);
+    if (_densityDisplay.get()) {
+      _crossplotProcess = new CrossplotDensityProcess(crossplot, xyUnit, zUnit, domain, regressionType);
+    } else {
+      _crossplotProcess = new CrossplotSeriesProcess(crossplot, xyUnit, zUnit, domain, regressionType);
+    }
   }
 
   @Override
@@ -80,6 +107,10 @@ public class CrossplotAvsB3d extends ABavoBaseAlgorithm3d {
 
   @Override
   public int getNumWorkerThreads() {
+    // Only the density process can be shared by several workers.
+    if (_densityDisplay.get()) {
+      return super.getNumWorkerThreads();
+    }
     return 1;
   }
 }
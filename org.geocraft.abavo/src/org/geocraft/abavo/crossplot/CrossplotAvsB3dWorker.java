@@ -24,16 +24,21 @@ public class CrossplotAvsB3dWorker extends ABavoAlgorithm3dWorker {
   public void run() {
     _monitor.beginTask("", 100);
 
-    while (!_inputProcess.isDone()) {
-      TraceData[] traceDataIn = _inputProcess.process();
-      if (traceDataIn.length == 0) {
-        break;
-      }
-      _crossplotProcess.process(traceDataIn);
-
-      if (_monitor.isCanceled()) {
-        break;
+    try {
+      while (!_inputProcess.isDone()) {
+        TraceData[] traceDataIn = _inputProcess.process();
+        finishBlocks(null);
+        if (traceDataIn.length == 0) {
+          break;
+        }
+        _crossplotProcess.process(traceDataIn);
+
+        if (_monitor.isCanceled()) {
+          break;
+        }
       }
+    } finally {
+      releaseBlock(null);
     }
   }
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.abavo.crossplot;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.widgets.Display;
+import org.geocraft.abavo.input.AbstractInputProcess;
+import org.geocraft.core.model.datatypes.Domain;
+import org.geocraft.core.model.datatypes.Trace;
+import org.geocraft.core.model.datatypes.TraceData;
+import org.geocraft.core.model.datatypes.Unit;
+import org.geocraft.math.regression.RegressionType;
+
+
+/**
+ * A crossplot series process that bins the A,B samples into a density grid, rather than
+ * keeping every sample. The memory used does not grow with the number of samples, so
+ * whole volumes can be crossplotted.
+ * <p>
+ * Unlike its superclass, this process may be called by several worker threads at once:
+ * each worker thread adds its samples to a density grid of its own, and the grids are
+ * merged when the process is cleaned up.
+ */
+public class CrossplotDensityProcess extends CrossplotSeriesProcess {
+
+  /** The density grid the samples are binned into. */
+  private final ABDensityGrid _densityGrid;
+
+  /** The density grids of the worker threads, merged into the density grid on cleanup. */
+  private final List<ABDensityGrid> _workerGrids = new ArrayList<ABDensityGrid>();
+
+  /** The density grid of the current worker thread, replaced on cleanup. */
+  private volatile ThreadLocal<ABDensityGrid> _workerGrid = createWorkerGrid();
+
+  public CrossplotDensityProcess(final IABavoCrossplot crossplot, final Unit xyUnit, final Unit zUnit, final Domain domain, final RegressionType regressionType) {
+    super(crossplot, xyUnit, zUnit, domain, regressionType);
+    _densityGrid = new ABDensityGrid();
+  }
+
+  @Override
+  public String getName() {
+    return "Crossplot Density";
+  }
+
+  /**
+   * Returns the density grid the samples are binned into.
+   * This only includes the samples of the worker threads once the process has been cleaned up.
+   */
+  public ABDensityGrid getDensityGrid() {
+    return _densityGrid;
+  }
+
+  @Override
+  public TraceData[] process(final TraceData[] data) {
+    if (data.length <= 0) {
+      return data;
+    }
+    if (data.length != 2) {
+      throw new RuntimeException("AB Crossplot: Number of input trace data objects must be 2!");
+    }
+    TraceData dataA = data[AbstractInputProcess.PRE_PROCESSES_A_TRACE];
+    TraceData dataB = data[AbstractInputProcess.PRE_PROCESSES_B_TRACE];
+    if (dataA.getNumTraces() != dataB.getNumTraces()) {
+      throw new RuntimeException("AB Crossplot: Number of input traces do not match!");
+    }
+    int maxSamples = 0;
+    for (int i = 0; i < dataA.getNumTraces(); i++) {
+      maxSamples += dataA.getTrace(i).getNumSamples();
+    }
+    float[] a = new float[maxSamples];
+    float[] b = new float[maxSamples];
+    double[] x = new double[maxSamples];
+    double[] y = new double[maxSamples];
+    float[] z = new float[maxSamples];
+    int numSamples = 0;
+    for (int i = 0; i < dataA.getNumTraces(); i++) {
+      Trace traceA = dataA.getTrace(i);
+      Trace traceB = dataB.getTrace(i);
+      float[] samplesA = traceA.getData();
+      float[] samplesB = traceB.getData();
+      double rx = traceA.getX();
+      double ry = traceA.getY();
+      for (int j = 0; j < traceA.getNumSamples(); j++) {
+        float zValue = traceA.getZStart() + j * traceA.getZDelta();
+        int k = Math.round((zValue - traceB.getZStart()) / traceB.getZDelta());
+        if (k >= 0 && k < traceB.getNumSamples() && !Float.isNaN(samplesA[j]) && !Float.isNaN(samplesB[k])) {
+          a[numSamples] = samplesA[j];
+          b[numSamples] = samplesB[k];
+          x[numSamples] = rx;
+          y[numSamples] = ry;
+          z[numSamples] = zValue;
+          numSamples++;
+        }
+      }
+    }
+    _workerGrid.get().add(a, b, x, y, z, numSamples);
+    return data;
+  }
+
+  /**
+   * Creates the density grid of each worker thread, registered to be merged on cleanup.
+   */
+  private ThreadLocal<ABDensityGrid> createWorkerGrid() {
+    return new ThreadLocal<ABDensityGrid>() {
+
+      @Override
+      protected ABDensityGrid initialValue() {
+        ABDensityGrid grid = new ABDensityGrid();
+        synchronized (_workerGrids) {
+          _workerGrids.add(grid);
+        }
+        return grid;
+      }
+    };
+  }
+
+  @Override
+  public void cleanup() {
+    synchronized (_workerGrids) {
+      for (ABDensityGrid grid : _workerGrids) {
+        _densityGrid.merge(grid);
+      }
+      _workerGrids.clear();
+      _workerGrid = createWorkerGrid();
+    }
+    final ABDataSeries series = _densityGrid.createSeries("", 0, _xyUnit, _zUnit, _domain, _regressionType);
+    if (series != null) {
+      Display.getDefault().asyncExec(new Runnable() {
+
+        public void run() {
+          if (_crossplot != null) {
+            _crossplot.addObjects(new Object[] { series });
+          }
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.abavo.crossplot.layer;
+
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
+import org.geocraft.abavo.ABavoImages;
+import org.geocraft.abavo.Activator;
+import org.geocraft.abavo.crossplot.ABDataSeries;
+import org.geocraft.abavo.crossplot.ABDensityGrid;
+import org.geocraft.core.color.ColorBar;
+import org.geocraft.core.color.ColorMapEvent;
+import org.geocraft.core.color.ColorMapListener;
+import org.geocraft.core.color.ColorMapModel;
+import org.geocraft.core.color.map.SpectrumColorMap;
+import org.geocraft.ui.plot.defs.RenderLevel;
+import org.geocraft.ui.plot.layer.PlotLayer;
+import org.geocraft.ui.plot.object.IPlotImage;
+import org.geocraft.ui.plot.object.PlotImage;
+import org.geocraft.ui.viewer.ReadoutInfo;
+
+
+/**
+ * A plot layer that renders the density grid of a data series as a single image, one pixel
+ * per bin, colored by the logarithm of the number of samples in the bin. Empty bins are transparent.
+ */
+public class CrossplotDensityLayer extends PlotLayer implements ColorMapListener {
+
+  /** The number of colors in the color bar. */
+  private static final int NUM_COLORS = 64;
+
+  /** The data series. */
+  private final ABDataSeries _series;
+
+  /** The density grid of the data series. */
+  private final ABDensityGrid _densityGrid;
+
+  /** The color bar, over the range of log10(count). */
+  private final ColorBar _colorBar;
+
+  /** The plot image. */
+  private IPlotImage _plotImage;
+
+  public CrossplotDensityLayer(final ABDataSeries series) {
+    super(series.getName() + " Density");
+    _series = series;
+    _densityGrid = series.getDensityGrid();
+    double maxLogCount = Math.max(1, Math.log10(_densityGrid.getMaximumCount()));
+    _colorBar = new ColorBar(new ColorMapModel(NUM_COLORS, new SpectrumColorMap()), 0, maxLogCount, maxLogCount / 10);
+    _colorBar.addColorMapListener(this);
+
+    Point2D.Double corner1 = new Point2D.Double(_densityGrid.getStartA(), _densityGrid.getEndB());
+    Point2D.Double corner2 = new Point2D.Double(_densityGrid.getEndA(), _densityGrid.getStartB());
+    _plotImage = new PlotImage(createDensityImage(), "", corner1, corner2);
+    _plotImage.setSelectable(false);
+    _plotImage.setRenderLevel(RenderLevel.IMAGE_UNDER_GRID);
+    addShape(_plotImage);
+  }
+
+  @Override
+  public Image createImage() {
+    return Activator.getDefault().createImage(ABavoImages.DATA_SERIES_POINTS);
+  }
+
+  @Override
+  public String getToolTipText() {
+    return _series.getRegressionDataStatistics().getInfo();
+  }
+
+  /**
+   * Creates the image of the density grid. The first row of the image is the last row of bins,
+   * as the B axis increases upward.
+   */
+  private Image createDensityImage() {
+    int width = _densityGrid.getNumBinsA();
+    int height = _densityGrid.getNumBinsB();
+    int numColors = _colorBar.getNumColors();
+    RGB[] rgbs = new RGB[numColors];
+    for (int i = 0; i < numColors; i++) {
+      rgbs[i] = _colorBar.getColor(i);
+    }
+    byte[] pixels = new byte[width * height];
+    byte[] alphas = new byte[width * height];
+    for (int row = 0; row < height; row++) {
+      int indexB = height - 1 - row;
+      for (int indexA = 0; indexA < width; indexA++) {
+        long count = _densityGrid.getCount(indexA, indexB);
+        int pixel = row * width + indexA;
+        if (count > 0) {
+          int colorIndex = _colorBar.getColorIndex(Math.log10(count));
+          pixels[pixel] = (byte) Math.max(0, Math.min(colorIndex, numColors - 1));
+          alphas[pixel] = (byte) 255;
+        }
+      }
+    }
+    ImageData imageData = new ImageData(width, height, 8, new PaletteData(rgbs), 1, pixels);
+    imageData.alphaData = alphas;
+    return new Image(Display.getDefault(), imageData);
+  }
+
+  public void colorsChanged(final ColorMapEvent event) {
+    Image imageOld = _plotImage.getImage();
+    _plotImage.setImage(createDensityImage());
+    if (imageOld != null) {
+      imageOld.dispose();
+    }
+    updated();
+  }
+
+  @Override
+  public ReadoutInfo getReadoutInfo(final double x, final double y) {
+    List<String> keys = new ArrayList<String>();
+    List<String> values = new ArrayList<String>();
+    keys.add("Sample Count");
+    values.add(Long.toString(_densityGrid.getCount(x, y)));
+    keys.add("Total Samples");
+    values.add(Long.toString(_densityGrid.getTotalCount()));
+    return new ReadoutInfo(getName(), keys, values);
+  }
+
+  @Override
+  public void dispose() {
+    _colorBar.removeColorMapListener(this);
+    if (_plotImage != null) {
+      Image image = _plotImage.getImage();
+      if (image != null && !image.isDisposed()) {
+        image.dispose();
+      }
+    }
+    super.dispose();
+  }
+}
@@ -4,6 +4,7 @@
 package org.geocraft.abavo.ellipse;
 
 
+import org.geocraft.abavo.classbkg.IRegionBoundaries;
 import org.geocraft.abavo.classbkg.IRegionsClassifier;
 import org.geocraft.abavo.ellipse.EllipseRegionsModel.EllipseType;
 
@@ -11,7 +12,16 @@ import org.geocraft.abavo.ellipse.EllipseRegionsModel.EllipseType;
 /**
  * The process for classifying points using the ellipse regions model.
  */
-public class EllipseRegionsClassifier implements IRegionsClassifier {
+public class EllipseRegionsClassifier implements IRegionsClassifier, IRegionBoundaries {
+
+  /** The sign of the classification value of each class region. */
+  private static final double[] REGION_SIGNS = { 1, 1, 1, 0, -1, -1, -1, -1, 0, 1 };
+
+  /** The base classification value of each class region. */
+  private static final double[] REGION_VALUES = { 0.25, 0.5, 0.75, 0, 0, .25, .5, .75, 0, 0 };
+
+  /** The number of points used to describe each ellipse boundary. */
+  private static final int NUM_ELLIPSE_POINTS = 720;
 
   protected double _minEllipseSlope;
 
@@ -157,8 +167,6 @@ public class EllipseRegionsClassifier implements IRegionsClassifier {
       return value;
     }
 
-    double[] sign = { 1, 1, 1, 0, -1, -1, -1, -1, 0, 1 };
-    double[] sv = { 0.25, 0.5, 0.75, 0, 0, .25, .5, .75, 0, 0 };
     int i;
     int ir = 0;
     int jr;
@@ -199,13 +207,53 @@ public class EllipseRegionsClassifier implements IRegionsClassifier {
         }
       }
       if (ir < 10) {
-        value = sign[ir] * _normalization * (sv[ir] + gradation);
+        value = REGION_SIGNS[ir] * _normalization * (REGION_VALUES[ir] + gradation);
       }
     }
 
     return value;
   }
 
+  /**
+   * Returns the number of region boundaries: the class regions, followed by the ellipses.
+   */
+  public int getNumBoundaries() {
+    return EllipseRegionsModel.NUMBER_OF_REGION_BOUNDARIES + _lumCount + 1;
+  }
+
+  public double[] getBoundaryXs(final int index) {
+    return getBoundary(index, true);
+  }
+
+  public double[] getBoundaryYs(final int index) {
+    return getBoundary(index, false);
+  }
+
+  private double[] getBoundary(final int index, final boolean isX) {
+    if (index < EllipseRegionsModel.NUMBER_OF_REGION_BOUNDARIES) {
+      int numPoints = _numClassRegions[index] > 0 ? _numClassRegions[index] : 4;
+      double[] coords = new double[numPoints];
+      System.arraycopy(isX ? _classRegionsX[index] : _classRegionsY[index], 0, coords, 0, numPoints);
+      return coords;
+    }
+    // The ellipse, rotated from the slope of regression.
+    int i = index - EllipseRegionsModel.NUMBER_OF_REGION_BOUNDARIES;
+    double length = _minEllipseLength + i * _xWeight;
+    double width = _minEllipseWidth + i * _yWeight;
+    double[] coords = new double[NUM_ELLIPSE_POINTS];
+    for (int k = 0; k < NUM_ELLIPSE_POINTS; k++) {
+      double angle = 2 * Math.PI * k / NUM_ELLIPSE_POINTS;
+      double xnew = length * Math.cos(angle);
+      double ynew = width * Math.sin(angle);
+      if (isX) {
+        coords[k] = _xCenter + xnew * _costerm - ynew * _sinterm;
+      } else {
+        coords[k] = _yCenter + xnew * _sinterm + ynew * _costerm;
+      }
+    }
+    return coords;
+  }
+
   /**
    * Initialize the class regions.
    * @param xmin the minimum x-coordinate.
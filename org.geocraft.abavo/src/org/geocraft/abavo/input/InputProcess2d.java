@@ -328,6 +328,10 @@ public class InputProcess2d extends AbstractInputProcess {
    * This includes closing the input volumes.
    */
   public void cleanup() {
+    // Stop the reading ahead, in case the iteration was abandoned.
+    if (_traceIterator != null) {
+      _traceIterator.cancel();
+    }
     if (_volumeA != null) {
       _volumeA.close();
     }
@@ -62,6 +62,12 @@ public class InputProcess3d extends AbstractInputProcess {
   /** The trace reader for the input volumes (3D only). */
   protected TraceReader3d _traceReader;
 
+  /** The index of the block of traces being processed (-1 if none). */
+  protected int _blockIndex = -1;
+
+  /** The indices of the blocks of traces finished with, since last taken. */
+  protected List<Integer> _finishedBlocks = new ArrayList<Integer>();
+
   /**
    * Constructs the input process.
    * The project dimension currently must be 3 for 3D (2D is not yet supported).
@@ -222,11 +228,14 @@ public class InputProcess3d extends AbstractInputProcess {
         //          return new TraceData[0];
         //        }
         _traceDataIndex = 0;
-        TraceData[] tempData = _traceReader.next();
+        releaseBlock();
+        TraceReader3d.TraceBlock block = _traceReader.nextBlock();
+        TraceData[] tempData = block.getTraceData();
         if (tempData.length == 0) {
           _status = Status.Completed;
           return tempData;
         }
+        _blockIndex = block.getIndex();
         if (tempData.length != 2) {
           throw new IllegalArgumentException("Invalid number of trace data objects.");
         }
@@ -345,6 +354,37 @@ public class InputProcess3d extends AbstractInputProcess {
     return dataOut;
   }
 
+  /**
+   * Returns the index of the block of traces the last trace data returned came from (-1 if none).
+   * The blocks are numbered in the order they are read.
+   */
+  public int getBlockIndex() {
+    return _blockIndex;
+  }
+
+  /**
+   * Releases the block of traces being processed, marking it as finished with.
+   * This is done when the next block is read, and must be done when a worker stops early.
+   */
+  public void releaseBlock() {
+    if (_blockIndex >= 0) {
+      _finishedBlocks.add(_blockIndex);
+      _blockIndex = -1;
+    }
+    _traceBufferA = new Trace[0];
+    _traceBufferB = new Trace[0];
+  }
+
+  /**
+   * Returns the indices of the blocks of traces finished with since the last call.
+   * No more trace data will be returned from these blocks.
+   */
+  public List<Integer> takeFinishedBlocks() {
+    List<Integer> finishedBlocks = _finishedBlocks;
+    _finishedBlocks = new ArrayList<Integer>();
+    return finishedBlocks;
+  }
+
   /**
    * Cleans up the input process.
    * This includes closing the input volumes.
@@ -1,60 +1,144 @@
 /*
- * Copyright (C) ConocoPhillips 2008 All Rights Reserved. 
+ * Copyright (C) ConocoPhillips 2008 All Rights Reserved.
  */
 package org.geocraft.abavo.input;
 
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.geocraft.core.model.datatypes.TraceData;
 import org.geocraft.io.util.MultiVolumeTraceIterator;
 
 
+/**
+ * Reads the blocks of traces of the input volumes ahead of the workers, into a bounded queue.
+ * <p>
+ * Each block is numbered in the order it is read, so the output of the workers can be
+ * written back in the same order. Once all the blocks are read, an end-of-data block is
+ * queued for each worker. The reader can be canceled, in which case the workers waiting
+ * for a block are given an end-of-data block.
+ */
 public class TraceReader3d implements Runnable {
 
+  /** The interval (in milliseconds) at which the reader and workers check for cancellation. */
+  private static final long CANCEL_CHECK_INTERVAL = 100;
+
+  /** The minimum number of blocks read ahead. */
+  private static final int MIN_CAPACITY = 10;
+
+  /** The block returned once there is no more data. */
+  private static final TraceBlock END_OF_DATA = new TraceBlock(-1, new TraceData[0]);
+
   private MultiVolumeTraceIterator _iterator;
 
-  private BlockingQueue<TraceData[]> _buffer;
+  private BlockingQueue<TraceBlock> _buffer;
 
   private int _numWorkers;
 
+  private volatile boolean _isCanceled;
+
   public TraceReader3d(final MultiVolumeTraceIterator iterator, final int numWorkers) {
     _iterator = iterator;
     _numWorkers = numWorkers;
-    _buffer = new ArrayBlockingQueue<TraceData[]>(10);
+    _buffer = new ArrayBlockingQueue<TraceBlock>(Math.max(MIN_CAPACITY, 2 * numWorkers));
   }
 
   public void run() {
     // Continue running, so long as the trace iterator has more traces.
-    while (_iterator.hasNext()) {
+    int blockIndex = 0;
+    while (!_isCanceled && _iterator.hasNext()) {
       TraceData[] traceData = _iterator.next();
-      try {
-        _buffer.put(traceData);
-      } catch (InterruptedException ex) {
-        ex.printStackTrace();
+      if (!put(new TraceBlock(blockIndex, traceData))) {
+        return;
       }
+      blockIndex++;
     }
-    try {
-      // Add an end-of-data signal for each worker.
-      for (int i = 0; i < _numWorkers; i++) {
-        _buffer.put(new TraceData[0]);
+    // Add an end-of-data signal for each worker.
+    for (int i = 0; i < _numWorkers; i++) {
+      if (!put(END_OF_DATA)) {
+        return;
       }
-    } catch (InterruptedException ex) {
-      ex.printStackTrace();
     }
   }
 
+  /**
+   * Returns the next block of trace data, waiting for it to be read if necessary.
+   * An empty array is returned once there is no more data, or the reader is canceled.
+   */
   public TraceData[] next() {
+    return nextBlock().getTraceData();
+  }
+
+  /**
+   * Returns the next block of traces, waiting for it to be read if necessary.
+   * A block with an index of -1 is returned once there is no more data, or the reader is canceled.
+   */
+  TraceBlock nextBlock() {
     try {
-      return _buffer.take();
+      while (!_isCanceled) {
+        TraceBlock block = _buffer.poll(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        if (block != null) {
+          return block;
+        }
+      }
     } catch (InterruptedException ex) {
-      ex.printStackTrace();
+      Thread.currentThread().interrupt();
     }
-    return new TraceData[0];
+    return END_OF_DATA;
+  }
+
+  /**
+   * Cancels the reader, discarding any blocks already read, and stops the iterator reading ahead.
+   */
+  public void cancel() {
+    _isCanceled = true;
+    _buffer.clear();
+    _iterator.cancel();
   }
 
   public float getCompletion() {
     return _iterator.getCompletion();
   }
+
+  /**
+   * Puts a block in the queue, waiting for room if necessary.
+   * Returns <i>false</i> if the reader was canceled.
+   */
+  private boolean put(final TraceBlock block) {
+    try {
+      while (!_isCanceled) {
+        if (_buffer.offer(block, CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      }
+    } catch (InterruptedException ex) {
+      cancel();
+    }
+    return false;
+  }
+
+  /**
+   * A block of trace data, numbered in read order.
+   */
+  static final class TraceBlock {
+
+    private final int _index;
+
+    private final TraceData[] _traceData;
+
+    TraceBlock(final int index, final TraceData[] traceData) {
+      _index = index;
+      _traceData = traceData;
+    }
+
+    int getIndex() {
+      return _index;
+    }
+
+    TraceData[] getTraceData() {
+      return _traceData;
+    }
+  }
 }
@@ -4,6 +4,7 @@
 package org.geocraft.abavo.polygon;
 
 
+import org.geocraft.abavo.classbkg.IRegionBoundaries;
 import org.geocraft.abavo.classbkg.IRegionsClassifier;
 import org.geocraft.core.model.datatypes.Point3d;
 import org.geocraft.ui.plot.util.PolygonRegionsUtil;
@@ -12,7 +13,7 @@ import org.geocraft.ui.plot.util.PolygonRegionsUtil;
 /**
  * TODO
  */
-public class PolygonRegionsClassifier implements IRegionsClassifier {
+public class PolygonRegionsClassifier implements IRegionsClassifier, IRegionBoundaries {
 
   /** The number of polygons. */
   protected int _numPolygons;
@@ -79,4 +80,16 @@ public class PolygonRegionsClassifier implements IRegionsClassifier {
     return value;
   }
 
+  public int getNumBoundaries() {
+    return _numPolygons;
+  }
+
+  public double[] getBoundaryXs(final int index) {
+    return _polygonXs[index];
+  }
+
+  public double[] getBoundaryYs(final int index) {
+    return _polygonYs[index];
+  }
+
 }
@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) ConocoPhillips 2008 All Rights Reserved.
+ */
+package org.geocraft.algorithm.thread;
+
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.geocraft.core.model.datatypes.Header;
+import org.geocraft.core.model.datatypes.HeaderDefinition;
+import org.geocraft.core.model.datatypes.HeaderEntry;
+import org.geocraft.core.model.datatypes.Trace;
+import org.geocraft.core.model.datatypes.TraceData;
+import org.geocraft.core.model.datatypes.TraceHeaderCatalog;
+import org.geocraft.core.model.datatypes.Unit;
+import org.geocraft.core.model.seismic.PostStack3d;
+
+
+/**
+ * Unit tests for the PostStack3dDataSink class.
+ */
+public class PostStack3dDataSinkTestCase extends TestCase {
+
+  private static final HeaderDefinition HEADER_DEF = new HeaderDefinition(new HeaderEntry[] {
+      TraceHeaderCatalog.INLINE_NO, TraceHeaderCatalog.XLINE_NO });
+
+  /**
+   * Tests blocks put out of storage order are written in storage order, as a single batch.
+   */
+  public void testWriteOrder() {
+    TestVolume volume = new TestVolume(4, 8, PostStack3d.StorageOrder.INLINE_XLINE_Z);
+    PostStack3dDataSink sink = new PostStack3dDataSink(volume);
+    int[] order = { 2, 0, 3, 1 };
+    for (int inline : order) {
+      sink.put(createInline(volume, inline));
+    }
+    sink.close();
+
+    assertEquals(1, sink.getNumWrites());
+    assertStorageOrder(volume, 0, 32);
+    assertTrue(volume._closed);
+    assertFalse(volume.isDirty());
+  }
+
+  /**
+   * Tests the storage index follows the xlines when they vary slowest.
+   */
+  public void testXlineOrder() {
+    TestVolume volume = new TestVolume(8, 4, PostStack3d.StorageOrder.XLINE_INLINE_Z);
+    PostStack3dDataSink sink = new PostStack3dDataSink(volume);
+    int[] order = { 3, 1, 0, 2 };
+    for (int xline : order) {
+      sink.put(createXline(volume, xline));
+    }
+    sink.close();
+
+    assertEquals(1, sink.getNumWrites());
+    assertEquals(32, volume._traces.size());
+    for (int i = 0; i < 32; i++) {
+      Trace trace = volume._traces.get(i);
+      assertEquals(i / 8, Math.round(trace.getXline()));
+      assertEquals(i % 8, Math.round(trace.getInline()));
+    }
+  }
+
+  /**
+   * Tests contiguous blocks are coalesced into writes of 2048 traces.
+   */
+  public void testCoalescing() {
+    TestVolume volume = new TestVolume(8, 512, PostStack3d.StorageOrder.INLINE_XLINE_Z);
+    PostStack3dDataSink sink = new PostStack3dDataSink(volume);
+    for (int inline = 0; inline < 8; inline++) {
+      sink.put(createInline(volume, inline));
+    }
+    sink.close();
+
+    assertEquals(2, sink.getNumWrites());
+    assertEquals(2048, volume._writeSizes.get(0).intValue());
+    assertEquals(2048, volume._writeSizes.get(1).intValue());
+    assertStorageOrder(volume, 0, 4096);
+  }
+
+  /**
+   * Tests a full reorder buffer releases its blocks across a gap that is never filled,
+   * and a block arriving after the blocks following it is written on its own.
+   */
+  public void testReorderCapacity() {
+    TestVolume volume = new TestVolume(6, 8, PostStack3d.StorageOrder.INLINE_XLINE_Z);
+    PostStack3dDataSink sink = new PostStack3dDataSink(volume, 16);
+    int[] order = { 1, 2, 3, 4, 0 };
+    for (int inline : order) {
+      sink.put(createInline(volume, inline));
+    }
+    sink.close();
+
+    // Inlines 1-4 are written as a batch once the buffer overflows, and inline 0 on its own.
+    assertEquals(2, sink.getNumWrites());
+    assertEquals(32, volume._writeSizes.get(0).intValue());
+    assertEquals(8, volume._writeSizes.get(1).intValue());
+    assertStorageOrder(volume, 8, 32);
+    for (int i = 32; i < 40; i++) {
+      assertEquals(0, Math.round(volume._traces.get(i).getInline()));
+    }
+  }
+
+  /**
+   * Tests blocks put by concurrent workers are all written in storage order.
+   */
+  public void testConcurrentPuts() throws Exception {
+    final TestVolume volume = new TestVolume(64, 16, PostStack3d.StorageOrder.INLINE_XLINE_Z);
+    final PostStack3dDataSink sink = new PostStack3dDataSink(volume, 1024);
+    Thread[] workers = new Thread[4];
+    for (int w = 0; w < workers.length; w++) {
+      final int start = w;
+      workers[w] = new Thread(new Runnable() {
+
+        public void run() {
+          for (int inline = start; inline < 64; inline += 4) {
+            sink.put(createInline(volume, inline));
+          }
+        }
+      });
+      workers[w].start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    sink.close();
+
+    assertStorageOrder(volume, 0, 1024);
+  }
+
+  /**
+   * Tests an error thrown while writing is rethrown to the caller, and the volume still closed.
+   */
+  public void testWriteError() {
+    TestVolume volume = new TestVolume(8, 512, PostStack3d.StorageOrder.INLINE_XLINE_Z);
+    RuntimeException error = new RuntimeException("Disk full");
+    volume._error = error;
+    PostStack3dDataSink sink = new PostStack3dDataSink(volume);
+    RuntimeException thrown = null;
+    try {
+      for (int inline = 0; inline < 8; inline++) {
+        sink.put(createInline(volume, inline));
+      }
+    } catch (RuntimeException ex) {
+      thrown = ex;
+    }
+    try {
+      sink.close();
+    } catch (RuntimeException ex) {
+      thrown = ex;
+    }
+
+    assertSame(error, thrown);
+    assertTrue(volume._closed);
+    assertEquals(0, sink.getNumWrites());
+  }
+
+  /**
+   * Tests putting a block after the sink is closed is rejected.
+   */
+  public void testPutAfterClose() {
+    TestVolume volume = new TestVolume(2, 2, PostStack3d.StorageOrder.INLINE_XLINE_Z);
+    PostStack3dDataSink sink = new PostStack3dDataSink(volume);
+    sink.close();
+    try {
+      sink.put(createInline(volume, 0));
+      fail("Expected an IllegalStateException.");
+    } catch (IllegalStateException ex) {
+      // Expected.
+    }
+  }
+
+  /**
+   * Tests an empty block is ignored.
+   */
+  public void testEmptyBlock() throws Exception {
+    TestVolume volume = new TestVolume(2, 4, PostStack3d.StorageOrder.INLINE_XLINE_Z);
+    PostStack3dDataSink sink = new PostStack3dDataSink(volume);
+    sink.put(createInline(volume, 0));
+    sink.put(createEmpty());
+    sink.put(createInline(volume, 1));
+    sink.close();
+
+    assertEquals(1, sink.getNumWrites());
+    assertStorageOrder(volume, 0, 8);
+  }
+
+  /**
+   * Asserts the traces written to the volume follow the inline-major storage order.
+   */
+  private static void assertStorageOrder(final TestVolume volume, final int startIndex, final int numTraces) {
+    assertTrue(volume._traces.size() >= numTraces);
+    int numXlines = volume.getNumXlines();
+    for (int i = 0; i < numTraces; i++) {
+      Trace trace = volume._traces.get(i);
+      int index = startIndex + i;
+      assertEquals(index / numXlines, Math.round(trace.getInline()));
+      assertEquals(index % numXlines, Math.round(trace.getXline()));
+    }
+  }
+
+  private static TraceData createInline(final TestVolume volume, final int inline) {
+    Trace[] traces = new Trace[volume.getNumXlines()];
+    for (int xline = 0; xline < traces.length; xline++) {
+      traces[xline] = createTrace(inline, xline);
+    }
+    return new TraceData(traces);
+  }
+
+  private static TraceData createXline(final TestVolume volume, final int xline) {
+    Trace[] traces = new Trace[volume.getNumInlines()];
+    for (int inline = 0; inline < traces.length; inline++) {
+      traces[inline] = createTrace(inline, xline);
+    }
+    return new TraceData(traces);
+  }
+
+  /**
+   * Creates a trace collection without any traces, which the constructors do not allow.
+   */
+  private static TraceData createEmpty() throws Exception {
+    TraceData traceData = new TraceData(new Trace[] { createTrace(0, 0) });
+    Field numTraces = TraceData.class.getDeclaredField("_numTraces");
+    numTraces.setAccessible(true);
+    numTraces.setInt(traceData, 0);
+    return traceData;
+  }
+
+  private static Trace createTrace(final int inline, final int xline) {
+    Header header = new Header(HEADER_DEF);
+    header.putInteger(TraceHeaderCatalog.INLINE_NO, inline);
+    header.putInteger(TraceHeaderCatalog.XLINE_NO, xline);
+    float[] data = { inline, xline, 0 };
+    return new Trace(0, 4, Unit.MILLISECONDS, data, Trace.Status.Live, header);
+  }
+
+  /**
+   * A volume that records the traces written to it, instead of storing them.
+   */
+  private static class TestVolume extends PostStack3d {
+
+    private final int _numInlines;
+
+    private final int _numXlines;
+
+    private final StorageOrder _order;
+
+    private final List<Trace> _traces = new ArrayList<Trace>();
+
+    private final List<Integer> _writeSizes = new ArrayList<Integer>();
+
+    private RuntimeException _error;
+
+    private boolean _closed;
+
+    TestVolume(final int numInlines, final int numXlines, final StorageOrder order) {
+      super("Test", null);
+      _numInlines = numInlines;
+      _numXlines = numXlines;
+      _order = order;
+    }
+
+    @Override
+    public int getNumInlines() {
+      return _numInlines;
+    }
+
+    @Override
+    public int getNumXlines() {
+      return _numXlines;
+    }
+
+    @Override
+    public float getInlineStart() {
+      return 0;
+    }
+
+    @Override
+    public float getInlineDelta() {
+      return 1;
+    }
+
+    @Override
+    public float getXlineStart() {
+      return 0;
+    }
+
+    @Override
+    public float getXlineDelta() {
+      return 1;
+    }
+
+    @Override
+    public StorageOrder getPreferredOrder() {
+      return _order;
+    }
+
+    @Override
+    public synchronized void putTraces(final TraceData traceData) {
+      if (_error != null) {
+        throw _error;
+      }
+      for (Trace trace : traceData.getTraces()) {
+        _traces.add(trace);
+      }
+      _writeSizes.add(traceData.getNumTraces());
+    }
+
+    @Override
+    public void close() {
+      _closed = true;
+    }
+  }
+}
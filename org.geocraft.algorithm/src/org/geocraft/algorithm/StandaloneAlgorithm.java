@@ -4,7 +4,6 @@
 package org.geocraft.algorithm;
 
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.core.runtime.CoreException;
@@ -15,6 +14,7 @@ import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Shell;
 import org.geocraft.algorithm.thread.IDataSource;
 import org.geocraft.algorithm.thread.MultiThreadedAlgorithmWorker;
+import org.geocraft.algorithm.thread.WorkerPool;
 import org.geocraft.core.common.util.Utilities;
 import org.geocraft.core.model.IModel;
 import org.geocraft.core.model.IModelListener;
@@ -196,6 +196,11 @@ public abstract class StandaloneAlgorithm extends Model implements IModelListene
     runMultiThreadedSubTask(taskName, totalWork, ticks, workers, null, logger, monitor);
   }
 
+  /**
+   * Runs the workers on a <code>WorkerPool</code> sized to the available cores, and waits until they are done.
+   * The workers pull their input from the data source themselves. Once they are done, or have been
+   * canceled, the data source (if any) is closed, so any reading ahead is stopped.
+   */
   protected final synchronized void runMultiThreadedSubTask(String taskName, int totalWork, int ticks,
       List<MultiThreadedAlgorithmWorker> workerList, IDataSource dataSource, ILogger logger, IProgressMonitor monitor) throws InterruptedException {
 
@@ -204,31 +209,17 @@ public abstract class StandaloneAlgorithm extends Model implements IModelListene
         SubProgressMonitor.PREPEND_MAIN_LABEL_TO_SUBTASK);
     subMonitor.beginTask(taskName, totalWork);
 
-    List<Thread> threads = new ArrayList<Thread>();
-    final MultiThreadedAlgorithmWorker[] workers = workerList.toArray(new MultiThreadedAlgorithmWorker[0]);
-    for (MultiThreadedAlgorithmWorker worker : workers) {
-      worker.init(logger, subMonitor);
-      Thread t = new Thread(worker);
-      threads.add(t);
-      t.start();
-    }
-
-    Runnable workerTimer = new WorkerMessageQuery(subMonitor, workers);
-    new Thread(workerTimer).start();
-    // TODO: Implement this worker controller to adapt to the data source buffer.
-    //    if (dataSource != null) {
-    //      MultiThreadedWorkerController workerController = new MultiThreadedWorkerController(monitor, dataSource, workers);
-    //      new Thread(workerController).start();
-    //    }
-
-    // Join all the threads to prevent continuation until all the threads complete.
-    for (int i = 0; i < workers.length; i++) {
-      System.out.println("Worker " + workers[i].getWorkerId() + " joined. " + threads.get(i).isAlive() + " "
-          + threads.get(i).isInterrupted());
-      threads.get(i).join();
+    // Run the workers on a pool sized to the available cores.
+    MultiThreadedAlgorithmWorker[] workers = workerList.toArray(new MultiThreadedAlgorithmWorker[0]);
+    WorkerPool pool = new WorkerPool(taskName);
+    try {
+      pool.run(workers, logger, subMonitor);
+    } finally {
+      if (dataSource != null) {
+        dataSource.close();
+      }
+      subMonitor.done();
     }
-    System.out.println("All workers done.");
-    subMonitor.done();
   }
 
   public void saveAsBatchFile(final Shell shell) {
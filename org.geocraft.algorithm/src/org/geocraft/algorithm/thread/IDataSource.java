@@ -4,9 +4,6 @@
 package org.geocraft.algorithm.thread;
 
 
-import org.geocraft.io.util.volume.BufferStatus;
-
-
 public interface IDataSource<T> {
 
   T get();
@@ -15,7 +12,5 @@ public interface IDataSource<T> {
 
   int getTotalWork();
 
-  BufferStatus getBufferStatus();
-
   boolean isEndOfData();
 }
@@ -10,6 +10,12 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.geocraft.core.service.logging.ILogger;
 
 
+/**
+ * The abstract base class for workers run by a <code>WorkerPool</code>.
+ * <p>
+ * Workers record the time taken to process each item with <code>itemProcessed()</code>,
+ * from which the pool computes its throughput and latency statistics.
+ */
 public abstract class MultiThreadedAlgorithmWorker<T> extends SwingWorker<T, Void> {
 
   private ILogger _logger;
@@ -18,9 +24,14 @@ public abstract class MultiThreadedAlgorithmWorker<T> extends SwingWorker<T, Voi
 
   private int _workerId;
 
-  private boolean _paused = false;
+  /** The number of items processed. */
+  private volatile long _numItemsProcessed;
+
+  /** The total time (in nanoseconds) spent processing items. */
+  private volatile long _totalLatency;
 
-  protected String _pauseObject = "PAUSE";
+  /** The maximum time (in nanoseconds) spent processing an item. */
+  private volatile long _maxLatency;
 
   public MultiThreadedAlgorithmWorker(int workerId) {
     _workerId = workerId;
@@ -41,21 +52,50 @@ public abstract class MultiThreadedAlgorithmWorker<T> extends SwingWorker<T, Voi
   public void init(ILogger logger, IProgressMonitor monitor) {
     _logger = logger;
     _monitor = monitor;
+    _numItemsProcessed = 0;
+    _totalLatency = 0;
+    _maxLatency = 0;
   }
 
-  public synchronized void pause() {
-    _paused = true;
+  /**
+   * Returns <i>true</i> if the worker has started and is not yet done.
+   */
+  public boolean isActive() {
+    return getState() == StateValue.STARTED && !isDone();
   }
 
-  public synchronized void resume() {
-    _paused = false;
-    synchronized (_pauseObject) {
-      _pauseObject.notify();
+  /**
+   * Records the processing of an item. This is only called from the worker thread.
+   *
+   * @param latency the time (in nanoseconds) taken to process the item.
+   */
+  protected final void itemProcessed(final long latency) {
+    _numItemsProcessed++;
+    _totalLatency += latency;
+    if (latency > _maxLatency) {
+      _maxLatency = latency;
     }
   }
 
-  public synchronized boolean isPaused() {
-    return _paused;
+  /**
+   * Returns the number of items processed.
+   */
+  public long getNumItemsProcessed() {
+    return _numItemsProcessed;
+  }
+
+  /**
+   * Returns the total time (in nanoseconds) spent processing items.
+   */
+  public long getTotalLatency() {
+    return _totalLatency;
+  }
+
+  /**
+   * Returns the maximum time (in nanoseconds) spent processing an item.
+   */
+  public long getMaxLatency() {
+    return _maxLatency;
   }
 
   public abstract String getMessage();
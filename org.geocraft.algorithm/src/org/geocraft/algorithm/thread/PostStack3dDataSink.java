@@ -1,38 +1,322 @@
 /*
- * Copyright (C) ConocoPhillips 2008 All Rights Reserved. 
+ * Copyright (C) ConocoPhillips 2008 All Rights Reserved.
  */
 package org.geocraft.algorithm.thread;
 
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.geocraft.core.model.datatypes.Trace;
 import org.geocraft.core.model.datatypes.TraceData;
 import org.geocraft.core.model.seismic.PostStack3d;
+import org.geocraft.core.model.seismic.PostStack3d.StorageOrder;
 
 
 /**
  * This class defines a data sink for trace data, writing them to a PostStack3d volume.
+ * <p>
+ * The trace blocks may be put in any order by any number of workers. They are held in a
+ * bounded reorder buffer, keyed by their position in the storage order of the volume, and
+ * released in that order. Blocks that are contiguous in storage order are coalesced into
+ * batches of up to <code>MAX_TRACES_PER_WRITE</code> traces, which are written to the volume
+ * by a dedicated I/O thread. The workers are therefore never blocked on the volume, except
+ * when the I/O thread falls behind by more than <code>WRITE_QUEUE_CAPACITY</code> batches.
+ * <p>
+ * If the reorder buffer fills up (e.g. the blocks do not cover the volume), its first
+ * block is released regardless of any gap before it, so the buffer stays bounded. Any
+ * block arriving after the blocks following it were released is written on its own.
  */
 public class PostStack3dDataSink implements IDataSink<TraceData> {
 
+  /** The default capacity (in traces) of the reorder buffer. */
+  public static final int DEFAULT_REORDER_CAPACITY = 8192;
+
+  /** The maximum number of traces coalesced into a single write. */
+  private static final int MAX_TRACES_PER_WRITE = 2048;
+
+  /** The maximum number of batches waiting to be written. */
+  private static final int WRITE_QUEUE_CAPACITY = 4;
+
+  /** The batch that signals the I/O thread to stop. */
+  private static final Trace[] END_OF_DATA = new Trace[0];
+
   /** The PostStack3d volume for writing traces. */
   private PostStack3d _outputVolume;
 
+  /** The capacity (in traces) of the reorder buffer. */
+  private final int _reorderCapacity;
+
+  /** <i>true</i> if the inline index varies slowest in the storage order. */
+  private final boolean _inlineMajor;
+
+  /** The number of inlines and xlines in the volume. */
+  private final int _numInlines;
+
+  private final int _numXlines;
+
+  /** The blocks waiting to be released, keyed by the storage index of their first trace. */
+  private final TreeMap<Long, Block> _pending = new TreeMap<Long, Block>();
+
+  /** The number of traces in the reorder buffer. */
+  private int _numPendingTraces;
+
+  /** The storage index expected at the start of the next block. */
+  private long _nextIndex;
+
+  /** The traces of the batch being coalesced. */
+  private final List<Trace> _batch = new ArrayList<Trace>();
+
+  /** The batches waiting to be written by the I/O thread. */
+  private final BlockingQueue<Trace[]> _writeQueue = new ArrayBlockingQueue<Trace[]>(WRITE_QUEUE_CAPACITY);
+
+  /** The I/O thread. */
+  private Thread _writerThread;
+
+  /** The first error thrown while writing, if any. */
+  private volatile RuntimeException _writeError;
+
+  /** The number of writes to the volume. */
+  private volatile int _numWrites;
+
+  /** <i>true</i> if the sink has been closed. */
+  private boolean _closed;
+
   /**
    * Constructs a PostStack3d data sink.
-   * 
+   *
    * @param outputVolume the PostStack3d volume for writing traces.
    */
   public PostStack3dDataSink(PostStack3d outputVolume) {
+    this(outputVolume, DEFAULT_REORDER_CAPACITY);
+  }
+
+  /**
+   * Constructs a PostStack3d data sink.
+   *
+   * @param outputVolume the PostStack3d volume for writing traces.
+   * @param reorderCapacity the capacity (in traces) of the reorder buffer.
+   */
+  public PostStack3dDataSink(PostStack3d outputVolume, int reorderCapacity) {
     _outputVolume = outputVolume;
+    _reorderCapacity = Math.max(1, reorderCapacity);
+    _inlineMajor = !outputVolume.getPreferredOrder().equals(StorageOrder.XLINE_INLINE_Z);
+    _numInlines = outputVolume.getNumInlines();
+    _numXlines = outputVolume.getNumXlines();
   }
 
-  public void put(TraceData outputTraces) {
-    _outputVolume.putTraces(outputTraces);
+  public synchronized void put(TraceData outputTraces) {
+    checkWriteError();
+    if (_closed) {
+      throw new IllegalStateException("The data sink is closed.");
+    }
+    if (outputTraces.getNumTraces() == 0) {
+      // Nothing to write.
+      return;
+    }
+    Block block = new Block(outputTraces);
+    if (block._startIndex < 0) {
+      // No live traces, so the position does not matter.
+      append(block);
+    } else {
+      Block previous = _pending.put(block._startIndex, block);
+      _numPendingTraces += block._traces.length;
+      if (previous != null) {
+        // A duplicate position, so write the earlier block without waiting.
+        _numPendingTraces -= previous._traces.length;
+        append(previous);
+      }
+      release(false);
+    }
   }
 
   public void close() {
+    synchronized (this) {
+      if (_closed) {
+        return;
+      }
+      _closed = true;
+      release(true);
+      flushBatch();
+      if (_writerThread != null) {
+        enqueue(END_OF_DATA);
+      }
+    }
+    if (_writerThread != null) {
+      try {
+        _writerThread.join();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
     synchronized (_outputVolume) {
       _outputVolume.setDirty(false);
       _outputVolume.close();
     }
+    checkWriteError();
+  }
+
+  /**
+   * Returns the number of writes made to the volume.
+   */
+  public int getNumWrites() {
+    return _numWrites;
+  }
+
+  /**
+   * Releases the blocks from the reorder buffer that are next in storage order,
+   * or all of them if the buffer is being flushed.
+   */
+  private void release(final boolean flush) {
+    while (!_pending.isEmpty()) {
+      Map.Entry<Long, Block> first = _pending.firstEntry();
+      long startIndex = first.getKey().longValue();
+      if (startIndex > _nextIndex && !flush && _numPendingTraces <= _reorderCapacity) {
+        break;
+      }
+      _pending.remove(first.getKey());
+      Block block = first.getValue();
+      _numPendingTraces -= block._traces.length;
+      if (startIndex == _nextIndex) {
+        append(block);
+        _nextIndex = block._endIndex;
+      } else if (startIndex > _nextIndex) {
+        // There is a gap, so start a new batch.
+        flushBatch();
+        append(block);
+        _nextIndex = block._endIndex;
+      } else {
+        // The block is behind the blocks already released, so write it on its own.
+        flushBatch();
+        append(block);
+        flushBatch();
+      }
+    }
+  }
+
+  /**
+   * Appends a block to the current batch, writing the batch if it is full.
+   */
+  private void append(final Block block) {
+    if (!_batch.isEmpty()) {
+      Trace last = _batch.get(_batch.size() - 1);
+      Trace trace = block._traces[0];
+      if (last.getNumSamples() != trace.getNumSamples() || last.getZStart() != trace.getZStart()
+          || last.getZDelta() != trace.getZDelta() || last.getUnitOfZ() != trace.getUnitOfZ()) {
+        flushBatch();
+      }
+    }
+    _batch.addAll(Arrays.asList(block._traces));
+    if (_batch.size() >= MAX_TRACES_PER_WRITE) {
+      flushBatch();
+    }
+  }
+
+  /**
+   * Passes the current batch to the I/O thread.
+   */
+  private void flushBatch() {
+    if (_batch.isEmpty()) {
+      return;
+    }
+    Trace[] traces = _batch.toArray(new Trace[_batch.size()]);
+    _batch.clear();
+    if (_writerThread == null) {
+      _writerThread = new Thread(new Writer(), "PostStack3dDataSink writer: " + _outputVolume.getDisplayName());
+      _writerThread.setDaemon(true);
+      _writerThread.start();
+    }
+    enqueue(traces);
+  }
+
+  private void enqueue(final Trace[] traces) {
+    try {
+      _writeQueue.put(traces);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while writing to " + _outputVolume.getDisplayName(), ex);
+    }
+  }
+
+  private void checkWriteError() {
+    if (_writeError != null) {
+      throw _writeError;
+    }
+  }
+
+  /**
+   * Returns the index of a trace in the storage order of the volume.
+   */
+  private long getStorageIndex(final Trace trace) {
+    long inlineIndex = Math.round((trace.getInline() - _outputVolume.getInlineStart())
+        / _outputVolume.getInlineDelta());
+    long xlineIndex = Math.round((trace.getXline() - _outputVolume.getXlineStart()) / _outputVolume.getXlineDelta());
+    if (_inlineMajor) {
+      return inlineIndex * _numXlines + xlineIndex;
+    }
+    return xlineIndex * _numInlines + inlineIndex;
+  }
+
+  /**
+   * A block of traces, and the range of storage indices of its live traces.
+   */
+  private class Block {
+
+    private final Trace[] _traces;
+
+    /** The storage index of the first live trace, or -1 if there are no live traces. */
+    private final long _startIndex;
+
+    /** The storage index following the last live trace. */
+    private final long _endIndex;
+
+    Block(final TraceData traceData) {
+      _traces = traceData.getTraces();
+      long startIndex = -1;
+      long endIndex = -1;
+      for (Trace trace : _traces) {
+        if (!trace.isMissing()) {
+          long index = getStorageIndex(trace);
+          startIndex = startIndex < 0 ? index : Math.min(startIndex, index);
+          endIndex = Math.max(endIndex, index + 1);
+        }
+      }
+      _startIndex = startIndex;
+      _endIndex = endIndex;
+    }
+  }
+
+  /**
+   * Writes the batches of traces to the volume, until the end of data.
+   * After an error, the remaining batches are discarded so the workers do not block.
+   */
+  private class Writer implements Runnable {
+
+    public void run() {
+      while (true) {
+        Trace[] traces;
+        try {
+          traces = _writeQueue.take();
+        } catch (InterruptedException ex) {
+          return;
+        }
+        if (traces == END_OF_DATA) {
+          return;
+        }
+        if (_writeError == null) {
+          try {
+            _outputVolume.putTraces(new TraceData(traces, false));
+            _numWrites++;
+          } catch (RuntimeException ex) {
+            _writeError = ex;
+          }
+        }
+      }
+    }
   }
 }
@@ -7,14 +7,20 @@ package org.geocraft.algorithm.thread;
 import org.eclipse.core.runtime.IProgressMonitor;
 
 
+/**
+ * The abstract base class for workers that pull their input from a shared data source,
+ * and push their output to a shared data sink.
+ * <p>
+ * Each worker takes the next item from the data source as soon as it has put the
+ * output of the previous one, so the workers stay busy for as long as the data
+ * source has data, without any pausing or polling.
+ */
 public abstract class SourceSinkMultiThreadedAlgorithmWorker<S, K> extends MultiThreadedAlgorithmWorker<Void> {
 
   protected final IDataSource<S> _dataSource;
 
   protected final IDataSink<K> _dataSink;
 
-  private int _counter = 0;
-
   public SourceSinkMultiThreadedAlgorithmWorker(int workerId, IDataSource<S> dataSource, IDataSink<K> dataSink) {
     super(workerId);
     _dataSource = dataSource;
@@ -23,23 +29,18 @@ public abstract class SourceSinkMultiThreadedAlgorithmWorker<S, K> extends Multi
 
   @Override
   protected final Void doInBackground() throws Exception {
-    boolean hasMore = true;
-    while (hasMore && !getMonitor().isCanceled()) {
+    while (!isCancelled() && !getMonitor().isCanceled()) {
       S inputData = null;
       // Keep a lock on the data source only as long as necessary.
       // (i.e. to check if more data available, and if so to get it)
       synchronized (_dataSource) {
         inputData = _dataSource.get();
-        hasMore = inputData != null;
-        //hasMore = _dataSource.hasNext();
-        if (hasMore) {
-          _counter++;
-          //inputData = _dataSource.next();
-        } else {
-          continue;
-        }
+      }
+      if (inputData == null) {
+        break;
       }
 
+      long startTime = System.nanoTime();
       K outputData = process(inputData, getMonitor());
 
       // Keep a lock on the data sink only as long as necessary.
@@ -47,12 +48,7 @@ public abstract class SourceSinkMultiThreadedAlgorithmWorker<S, K> extends Multi
       synchronized (_dataSink) {
         _dataSink.put(outputData);
       }
-
-      if (isPaused()) {
-        synchronized (_pauseObject) {
-          _pauseObject.wait();
-        }
-      }
+      itemProcessed(System.nanoTime() - startTime);
     }
     return null;
   }
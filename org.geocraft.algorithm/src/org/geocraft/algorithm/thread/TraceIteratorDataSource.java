@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) ConocoPhillips 2008 All Rights Reserved. 
+ */
+package org.geocraft.algorithm.thread;
+
+
+import org.geocraft.core.model.datatypes.TraceData;
+import org.geocraft.io.util.TraceIterator;
+
+
+/**
+ * This class defines a data source for trace data, reading them from a trace iterator.
+ * <p>
+ * Each call to <code>get</code> returns the next block of traces from the iterator,
+ * or <i>null</i> once the iterator is exhausted or the data source has been closed.
+ */
+public class TraceIteratorDataSource implements IDataSource<TraceData> {
+
+  /** The trace iterator for reading traces. */
+  private final TraceIterator _iterator;
+
+  /** The total number of traces to read. */
+  private final int _totalWork;
+
+  /** <i>true</i> if the data source has been closed. */
+  private boolean _closed;
+
+  /**
+   * Constructs a trace iterator data source.
+   * 
+   * @param iterator the trace iterator for reading traces.
+   * @param totalWork the total number of traces to read.
+   */
+  public TraceIteratorDataSource(final TraceIterator iterator, final int totalWork) {
+    _iterator = iterator;
+    _totalWork = totalWork;
+  }
+
+  public synchronized TraceData get() {
+    if (_closed || !_iterator.hasNext()) {
+      return null;
+    }
+    return _iterator.next();
+  }
+
+  public synchronized void close() {
+    if (!_closed) {
+      _closed = true;
+      _iterator.cancel();
+    }
+  }
+
+  public int getTotalWork() {
+    return _totalWork;
+  }
+
+  public synchronized boolean isEndOfData() {
+    return _closed || !_iterator.hasNext();
+  }
+
+  /**
+   * Gets the status message of the trace iterator.
+   * 
+   * @return the status message of the trace iterator.
+   */
+  public String getMessage() {
+    return _iterator.getMessage();
+  }
+}
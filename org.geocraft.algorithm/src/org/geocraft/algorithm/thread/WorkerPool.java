@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.algorithm.thread;
+
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.geocraft.core.service.logging.ILogger;
+
+
+/**
+ * Runs a set of algorithm workers on a pool of threads sized to the number of available cores.
+ * <p>
+ * The workers share a single data source, from which each one pulls its next item as soon as
+ * it has finished with the previous one. An idle core therefore takes up the next item immediately,
+ * rather than waiting for a controller to notice the depth of the data source buffer and resume
+ * a paused worker. If there are more workers than threads, the surplus workers are queued and
+ * started as soon as a thread becomes free.
+ * <p>
+ * While the workers run, the pool relays the message of the first active worker to the progress
+ * monitor and cancels the workers if the monitor is canceled. Once they are done, the throughput
+ * and latency statistics of the workers are available from the pool, and are written to the logger.
+ */
+public class WorkerPool {
+
+  /** The interval (in milliseconds) at which the progress monitor is updated. */
+  private static final long UPDATE_INTERVAL = 250;
+
+  /** The name of the pool, used for naming the threads and in the statistics. */
+  private final String _name;
+
+  /** The maximum number of threads. */
+  private final int _numThreads;
+
+  /** The workers of the last run. */
+  private MultiThreadedAlgorithmWorker[] _workers = new MultiThreadedAlgorithmWorker[0];
+
+  /** The elapsed time (in nanoseconds) of the last run. */
+  private long _elapsedTime;
+
+  /**
+   * Constructs a worker pool with one thread per available core.
+   *
+   * @param name the name of the pool.
+   */
+  public WorkerPool(final String name) {
+    this(name, getDefaultNumThreads());
+  }
+
+  /**
+   * Constructs a worker pool with the specified maximum number of threads.
+   *
+   * @param name the name of the pool.
+   * @param numThreads the maximum number of threads.
+   */
+  public WorkerPool(final String name, final int numThreads) {
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("Invalid number of threads (" + numThreads + ").");
+    }
+    _name = name;
+    _numThreads = numThreads;
+  }
+
+  /**
+   * Returns the default number of threads, which is the number of available cores.
+   */
+  public static int getDefaultNumThreads() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Returns the maximum number of threads.
+   */
+  public int getNumThreads() {
+    return _numThreads;
+  }
+
+  /**
+   * Runs the workers, and waits until they are all done.
+   * <p>
+   * Exceptions thrown by the workers are written to the logger and do not stop the other workers.
+   *
+   * @param workers the workers to run.
+   * @param logger the logger.
+   * @param monitor the progress monitor.
+   * @throws InterruptedException thrown if the calling thread is interrupted while waiting.
+   */
+  public void run(final MultiThreadedAlgorithmWorker[] workers, final ILogger logger, final IProgressMonitor monitor) throws InterruptedException {
+    _workers = workers.clone();
+    _elapsedTime = 0;
+    if (workers.length == 0) {
+      return;
+    }
+
+    long startTime = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(_numThreads, workers.length),
+        new WorkerThreadFactory(_name));
+    try {
+      for (MultiThreadedAlgorithmWorker worker : workers) {
+        worker.init(logger, monitor);
+        executor.execute(worker);
+      }
+      executor.shutdown();
+
+      // Wait for the workers, relaying their messages to the monitor.
+      while (!executor.awaitTermination(UPDATE_INTERVAL, TimeUnit.MILLISECONDS)) {
+        if (monitor.isCanceled()) {
+          cancel();
+        }
+        for (MultiThreadedAlgorithmWorker worker : workers) {
+          if (worker.isActive()) {
+            monitor.subTask("Worker # " + worker.getWorkerId() + ": " + worker.getMessage());
+            break;
+          }
+        }
+      }
+    } catch (InterruptedException ex) {
+      cancel();
+      throw ex;
+    } finally {
+      executor.shutdownNow();
+      _elapsedTime = System.nanoTime() - startTime;
+    }
+
+    // Report any exceptions thrown by the workers.
+    for (MultiThreadedAlgorithmWorker worker : workers) {
+      try {
+        worker.get();
+      } catch (CancellationException ex) {
+        // Canceled workers have nothing to report.
+      } catch (ExecutionException ex) {
+        logger.error("Worker # " + worker.getWorkerId() + " failed: " + ex.getCause(), ex.getCause());
+      }
+    }
+    logger.info(getStatistics());
+  }
+
+  /**
+   * Cancels the workers of the current run.
+   */
+  public void cancel() {
+    for (MultiThreadedAlgorithmWorker worker : _workers) {
+      worker.cancel(true);
+    }
+  }
+
+  /**
+   * Returns the elapsed time (in milliseconds) of the last run.
+   */
+  public long getElapsedTime() {
+    return TimeUnit.NANOSECONDS.toMillis(_elapsedTime);
+  }
+
+  /**
+   * Returns the total number of items processed by the workers of the last run.
+   */
+  public long getNumItemsProcessed() {
+    long numItems = 0;
+    for (MultiThreadedAlgorithmWorker worker : _workers) {
+      numItems += worker.getNumItemsProcessed();
+    }
+    return numItems;
+  }
+
+  /**
+   * Returns the throughput (in items per second) of the last run.
+   */
+  public double getThroughput() {
+    if (_elapsedTime == 0) {
+      return 0;
+    }
+    return getNumItemsProcessed() * 1e9 / _elapsedTime;
+  }
+
+  /**
+   * Returns the mean time (in milliseconds) taken by a worker to process an item.
+   */
+  public double getMeanLatency() {
+    long numItems = 0;
+    long totalLatency = 0;
+    for (MultiThreadedAlgorithmWorker worker : _workers) {
+      numItems += worker.getNumItemsProcessed();
+      totalLatency += worker.getTotalLatency();
+    }
+    if (numItems == 0) {
+      return 0;
+    }
+    return totalLatency / 1e6 / numItems;
+  }
+
+  /**
+   * Returns the maximum time (in milliseconds) taken by a worker to process an item.
+   */
+  public double getMaxLatency() {
+    long maxLatency = 0;
+    for (MultiThreadedAlgorithmWorker worker : _workers) {
+      maxLatency = Math.max(maxLatency, worker.getMaxLatency());
+    }
+    return maxLatency / 1e6;
+  }
+
+  /**
+   * Returns the fraction of the available thread time that the workers spent processing items.
+   */
+  public double getUtilization() {
+    int numThreads = Math.min(_numThreads, _workers.length);
+    if (_elapsedTime == 0 || numThreads == 0) {
+      return 0;
+    }
+    long totalLatency = 0;
+    for (MultiThreadedAlgorithmWorker worker : _workers) {
+      totalLatency += worker.getTotalLatency();
+    }
+    return (double) totalLatency / (_elapsedTime * numThreads);
+  }
+
+  /**
+   * Returns a summary of the statistics of the last run.
+   */
+  public String getStatistics() {
+    return String.format("%s: %d workers on %d threads processed %d items in %d ms "
+        + "(%.1f items/s, latency mean %.1f ms, max %.1f ms, utilization %.0f%%)", _name, _workers.length, Math.min(
+        _numThreads, _workers.length), getNumItemsProcessed(), getElapsedTime(), getThroughput(), getMeanLatency(),
+        getMaxLatency(), getUtilization() * 100);
+  }
+
+  /**
+   * Creates named daemon threads for the workers.
+   */
+  private static class WorkerThreadFactory implements ThreadFactory {
+
+    private final String _name;
+
+    private final AtomicInteger _count = new AtomicInteger();
+
+    WorkerThreadFactory(final String name) {
+      _name = name;
+    }
+
+    public Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(runnable, _name + " worker " + _count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
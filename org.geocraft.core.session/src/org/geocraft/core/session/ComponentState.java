@@ -28,6 +28,47 @@ public class ComponentState {
     _indent = _indent.substring(2);
   }
 
+  /**
+   * Escape the XML markup characters in an attribute value.
+   * <p>
+   * An ampersand starting a numeric character reference is kept as is, since
+   * algorithm and viewer values are written with their line breaks and quotes
+   * already encoded, e.g. "&#xA;" and "&#034;".
+   * @param value Attribute value
+   * @return Attribute value that can be written between double quotes
+   */
+  static String escape(String value) {
+    if (value == null) {
+      return null;
+    }
+    StringBuffer buf = null;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      String entity = null;
+      if (c == '&' && !value.startsWith("&#", i)) {
+        entity = "&amp;";
+      } else if (c == '<') {
+        entity = "&lt;";
+      } else if (c == '>') {
+        entity = "&gt;";
+      } else if (c == '"') {
+        entity = "&quot;";
+      }
+      if (entity != null && buf == null) {
+        buf = new StringBuffer(value.length() + 16);
+        buf.append(value, 0, i);
+      }
+      if (buf != null) {
+        if (entity != null) {
+          buf.append(entity);
+        } else {
+          buf.append(c);
+        }
+      }
+    }
+    return buf != null ? buf.toString() : value;
+  }
+
   /**
    * Write the XML Prologue
    */
@@ -105,7 +146,7 @@ public class ComponentState {
    */
   static public void openEntityElement(String varName, String uniqueId) {
     SessionManager.getInstance().writeXML(
-        _indent + "<entity varName=\"" + varName + "\" uniqueId=\"" + uniqueId + "\">");
+        _indent + "<entity varName=\"" + escape(varName) + "\" uniqueId=\"" + escape(uniqueId) + "\">");
     incrIndent();
   }
 
@@ -121,7 +162,7 @@ public class ComponentState {
    * Write the <property> element.
    */
   static public void entityPropertyElement(String key, String value) {
-    SessionManager.getInstance().writeXML(_indent + "<property key=\"" + key + "\" value=\"" + value + "\"/>");
+    SessionManager.getInstance().writeXML(_indent + "<property key=\"" + escape(key) + "\" value=\"" + escape(value) + "\"/>");
   }
 
   /**
@@ -151,7 +192,7 @@ public class ComponentState {
   static public void openAlgorithmElement(String name, String klass, String windowID, int uniqueId, boolean batch) {
     String action = batch ? "\"execute\"" : "\"load\"";
     SessionManager.getInstance().writeXML(
-        _indent + "<algorithm name=\"" + name + "\" class=\"" + klass + "\" windowID=\"" + windowID + "\" uniqueID=\""
+        _indent + "<algorithm name=\"" + escape(name) + "\" class=\"" + klass + "\" windowID=\"" + windowID + "\" uniqueID=\""
             + uniqueId + "\" action=" + action + ">");
     incrIndent();
   }
@@ -168,7 +209,7 @@ public class ComponentState {
    * Write the algorithm <parameter/> element.
    */
   static public void algorithmParameterElement(String key, String value) {
-    SessionManager.getInstance().writeXML(_indent + "<parameter key=\"" + key + "\" value=\"" + value + "\"/>");
+    SessionManager.getInstance().writeXML(_indent + "<parameter key=\"" + escape(key) + "\" value=\"" + escape(value) + "\"/>");
   }
 
   /**
@@ -202,7 +243,7 @@ public class ComponentState {
    * @return XML for the <viewer> element.
    */
   static public String openViewerElement(String title, String klass) {
-    String s = _indent + "<viewer title=\"" + title + "\" class=\"" + klass + "\">";
+    String s = _indent + "<viewer title=\"" + escape(title) + "\" class=\"" + klass + "\">";
     incrIndent();
     return s;
   }
@@ -217,14 +258,14 @@ public class ComponentState {
 
   /** Generate the <viewerLayer/> element */
   static public String viewerLayerElement(String layerName, boolean checked) {
-    return _indent + "<viewerLayer layerName=\"" + layerName + "\" checked=\"" + (checked ? "true" : "false") + "\"/>";
+    return _indent + "<viewerLayer layerName=\"" + escape(layerName) + "\" checked=\"" + (checked ? "true" : "false") + "\"/>";
   }
 
   /**
    * Generate the <viewerProperty/> element.
    */
   static public String viewerParameterElement(String key, String value) {
-    return _indent + "<viewerProperty key=\"" + key + "\" value=\"" + value + "\"/>";
+    return _indent + "<viewerProperty key=\"" + escape(key) + "\" value=\"" + escape(value) + "\"/>";
   }
 
   /**
@@ -251,7 +292,7 @@ public class ComponentState {
    * Generate the renderer's <rendererProperty/> element.
    */
   static public String rendererPropertyElement(String key, String value) {
-    return _indent + "<rendererProperty key=\"" + key + "\" value=\"" + value + "\"/>";
+    return _indent + "<rendererProperty key=\"" + escape(key) + "\" value=\"" + escape(value) + "\"/>";
   }
 
   /**
@@ -261,14 +302,14 @@ public class ComponentState {
    * @return XML for the <entityRendered> element
    */
   static public String renderedEntityElement(String uniqueId) {
-    return _indent + "<entityRendered uniqueId=\"" + uniqueId + "\"/>";
+    return _indent + "<entityRendered uniqueId=\"" + escape(uniqueId) + "\"/>";
   }
 
   /**
    * Generate the renderer's <modelProperty/> element.
    */
   static public String rendererModelPropertyElement(String key, String value) {
-    return _indent + "<modelProperty key=\"" + key + "\" value=\"" + value + "\"/>";
+    return _indent + "<modelProperty key=\"" + escape(key) + "\" value=\"" + escape(value) + "\"/>";
   }
 
   /**
@@ -282,7 +323,7 @@ public class ComponentState {
   static public void openPerspectiveElement(String id, String name, String klass, String windowID,
       boolean isEditorAreaVisible) {
     String isVisible = isEditorAreaVisible ? "true" : "false";
-    String s = _indent + "<perspective id=\"" + id + "\" name=\"" + name + "\" class=\"" + klass + "\" windowID=\""
+    String s = _indent + "<perspective id=\"" + id + "\" name=\"" + escape(name) + "\" class=\"" + klass + "\" windowID=\""
         + windowID + "\" isEditorAreaVisible=\"" + isVisible + "\">";
     incrIndent();
     SessionManager.getInstance().writeXML(s);
@@ -302,7 +343,7 @@ public class ComponentState {
    * @param klass The class of the preference page
    */
   static public void openPreferencePageElement(String name, String klass) {
-    String s = _indent + "<preferencePage name=\"" + name + "\" class=\"" + klass + "\">";
+    String s = _indent + "<preferencePage name=\"" + escape(name) + "\" class=\"" + klass + "\">";
     incrIndent();
     SessionManager.getInstance().writeXML(s);
   }
@@ -319,7 +360,7 @@ public class ComponentState {
    * Write the <preference/> element.
    */
   static public void preferenceElement(String key, String value) {
-    SessionManager.getInstance().writeXML(_indent + "<preference key=\"" + key + "\" value=\"" + value + "\"/>");
+    SessionManager.getInstance().writeXML(_indent + "<preference key=\"" + escape(key) + "\" value=\"" + escape(value) + "\"/>");
   }
 
   /**
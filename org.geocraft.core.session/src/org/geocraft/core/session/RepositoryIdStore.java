@@ -5,19 +5,30 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.geocraft.core.common.progress.BackgroundTask;
 import org.geocraft.core.common.progress.TaskRunner;
 import org.geocraft.core.internal.session.Activator;
 import org.geocraft.core.io.IDatastoreAccessorService;
+import org.geocraft.core.io.ImportTask;
 import org.geocraft.core.model.Entity;
 import org.geocraft.core.model.Model;
 import org.geocraft.core.model.mapper.MapperModel;
@@ -51,6 +62,12 @@ public class RepositoryIdStore extends AbstractStore {
 
   final static String EOL = System.getProperty("line.separator");
 
+  /** The maximum number of threads used to restore entities concurrently. */
+  private static final int MAX_RESTORE_THREADS = 8;
+
+  /** The time (in seconds) to wait for the running validations to finish when the restore ends. */
+  private static final long RESTORE_TERMINATION_TIMEOUT = 60;
+
   /**
    * Saves the id of the contents of the repository to the session preferences store. 
    */
@@ -359,6 +376,105 @@ public class RepositoryIdStore extends AbstractStore {
    * @throws BackingStoreException
    */
   public static void restoreEntity(final Map<String, String> parms, final String variableName) throws BackingStoreException {
+    MapperModel model = createRestoreModel(parms, variableName);
+    if (model != null) {
+      ServiceProvider.getDatastoreAccessorService().restoreEntityFromMapperModel(model);
+    }
+  }
+
+  /**
+   * Load a set of entities back in to the repository.
+   * <p>
+   * Each entity is restored by a bounded pool of worker threads, which unpickle and validate its
+   * mapper model against the datastore, then run its import task. The import tasks run
+   * concurrently; each holds the repository lock only while it checks the repository for an
+   * existing entity and adds its own (see <code>ImportTask</code>). Each import task is run
+   * directly instead of being scheduled and joined as a job of its own, and adds its entities to
+   * the repository as ghosts, so their bulk data is not read until a viewer or algorithm first
+   * accesses it.
+   * <p>
+   * If the progress monitor is canceled, the pending restores are canceled and
+   * no further entities are restored.
+   * 
+   * @param entityParms Map of model parameters, keyed by the unique ID of each entity
+   * @param monitor the progress monitor, which receives one unit of work per entity
+   */
+  public static void restoreEntities(final Map<String, Map<String, String>> entityParms, final IProgressMonitor monitor) {
+    final IDatastoreAccessorService datastoreAccessorService = ServiceProvider.getDatastoreAccessorService();
+    if (datastoreAccessorService == null) {
+      LOGGER.error("Could not access the dataStoreAccessorService - skipping the data entities");
+      return;
+    }
+    int numThreads = Math.max(1, Math.min(MAX_RESTORE_THREADS, Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+
+      private final AtomicInteger _count = new AtomicInteger();
+
+      public Thread newThread(final Runnable runnable) {
+        Thread thread = new Thread(runnable, "Session restore " + _count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    Map<String, Future<Object>> restores = new LinkedHashMap<String, Future<Object>>();
+    try {
+      for (final Map.Entry<String, Map<String, String>> entry : entityParms.entrySet()) {
+        restores.put(entry.getKey(), executor.submit(new Callable<Object>() {
+
+          public Object call() throws Exception {
+            MapperModel model = createRestoreModel(entry.getValue(), entry.getKey());
+            if (model != null) {
+              ImportTask task = datastoreAccessorService.createImportTask(model);
+              if (task != null) {
+                task.compute(ServiceProvider.getLoggingService().getLogger(task.getClass()), new NullProgressMonitor());
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Map.Entry<String, Future<Object>> entry : restores.entrySet()) {
+        if (monitor.isCanceled()) {
+          break;
+        }
+        String uniqueId = entry.getKey();
+        monitor.subTask("Data Entities (" + entityParms.size() + "): " + uniqueId);
+        try {
+          entry.getValue().get();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          break;
+        } catch (ExecutionException ex) {
+          LOGGER.error("Error restoring entity with unique ID: " + uniqueId, ex.getCause());
+        }
+        monitor.worked(1);
+      }
+    } finally {
+      // Cancel any restores still pending (e.g. if the monitor was canceled),
+      // and wait for those running, so none outlives the restore.
+      for (Future<Object> restore : restores.values()) {
+        restore.cancel(false);
+      }
+      executor.shutdown();
+      try {
+        executor.awaitTermination(RESTORE_TERMINATION_TIMEOUT, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Creates the mapper model of an entity to be loaded back in to the repository.
+   * The model is only returned if it still exists in the datastore and is valid;
+   * otherwise the entity is removed from the session data to prevent its reloading.
+   * 
+   * @param parms Map of model parameters
+   * @param variableName
+   * @return the mapper model to restore; or <i>null</i> if the entity cannot be restored
+   * @throws BackingStoreException
+   */
+  private static MapperModel createRestoreModel(final Map<String, String> parms, final String variableName) throws BackingStoreException {
     if (parms != null && parms.get("class") != null) {
       String modelClassName = parms.get("class").substring("class ".length());
 
@@ -366,7 +482,7 @@ public class RepositoryIdStore extends AbstractStore {
 
       if (datastoreAccessorService == null) {
         LOGGER.error("Could not access the dataStoreAccessorService - skipping " + variableName);
-        return;
+        return null;
       }
 
       MapperModel model = datastoreAccessorService.createMapperModelFromClassName(modelClassName);
@@ -381,13 +497,12 @@ public class RepositoryIdStore extends AbstractStore {
           if (model.existsInStore()) {
             model.validate(val);
             if (!val.containsError()) {
-              datastoreAccessorService.restoreEntityFromMapperModel(model);
-            } else {
-              LOGGER.error("Could not restore entity: " + variableName);
-              LOGGER.error("  Model validation failed: " + val.getStatusMessages(0));
-              AbstractStore.lookupNode(_sessionData, variableName).removeNode();
-              _sessionData.flush();
+              return model;
             }
+            LOGGER.error("Could not restore entity: " + variableName);
+            LOGGER.error("  Model validation failed: " + val.getStatusMessages(0));
+            AbstractStore.lookupNode(_sessionData, variableName).removeNode();
+            _sessionData.flush();
           } else {
             // If it no longer exists in the datastore, report a warning.
             LOGGER.warn("Could not restore entity: " + variableName + ". No longer exists in datastore.");
@@ -400,6 +515,7 @@ public class RepositoryIdStore extends AbstractStore {
         }
       }
     }
+    return null;
   }
 
   /**
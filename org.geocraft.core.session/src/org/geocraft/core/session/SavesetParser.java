@@ -4,13 +4,12 @@
 package org.geocraft.core.session;
 
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.Reader;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.geocraft.core.service.ServiceProvider;
 import org.geocraft.core.service.logging.ILogger;
@@ -22,11 +21,6 @@ import org.geocraft.core.session.SavesetDescriptor.Viewer;
 import org.geocraft.core.session.SavesetDescriptor.ViewerPart;
 import org.geocraft.core.session.SavesetDescriptor.Viewer.Renderer;
 import org.geocraft.core.session.SavesetDescriptor.Viewer.ViewerLayer;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 
 /** Parse the XML State (.gcs) and Batch (.gcb) saveset files */
@@ -213,27 +207,6 @@ public class SavesetParser {
   /** Current renderer */
   Renderer _currentRenderer;
 
-  /**
-   * Read the Geocraft state from the state session file
-   * which has been opened. The state is at the beginning of
-   * the file and starts with "<?xml". State for workbench
-   * windows occurs after the Geocraft state and each starts 
-   * with an XML comment: "<!--".
-   */
-  private String readState() {
-    StringBuffer buf = new StringBuffer();
-    //read <?xml>
-    String line = SessionManager.getInstance().readXML();
-    if (line == null) {
-      return "";
-    }
-    buf.append(line);
-    while ((line = SessionManager.getInstance().readXML()) != null && !line.startsWith("<!--")) {
-      buf.append(line);
-    }
-    return buf.toString();
-  }
-
   /**
    * Parse the XML saveset file (.gcs or .gcb).
    * @param pathname Pathname of the session state file
@@ -248,512 +221,388 @@ public class SavesetParser {
 
   /**
    * Parse the XML saveset file (.gcs or .gcb).
+   * <p>
+   * The Geocraft state is parsed in a single pass as it is read from the
+   * session state file, filling the saveset descriptor one element at a
+   * time. The file is left positioned at the state of the first workbench
+   * window (if any).
    * @param desc Container for all parsed saveset data
    * @return true if processed XML file with no errors; otherwise, false
    */
   public boolean parseSaveset(final SavesetDescriptor desc) {
     _savesetDescriptor = desc;
 
-    DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
 
+    XMLStreamReader reader = null;
     try {
-      DocumentBuilder db = dbf.newDocumentBuilder();
-      //Document doc = db.parse(path);
-      ByteArrayInputStream is = null;
-      try {
-        String saveset = readState();
-        if (saveset.equals("")) {
-          return false;
+      reader = factory.createXMLStreamReader(new StateReader());
+      //Process each element as it is read, extracting all saveset metadata
+      //into the specified saveset descriptor
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT && !processElement(reader)) {
+          skipElement(reader);
         }
-        is = new ByteArrayInputStream(saveset.getBytes("UTF-8"));
-      } catch (UnsupportedEncodingException uee) {
-        LOGGER.error("Cannot parse Geocraft session state");
-        return false;
       }
-      //parse the session state into a DOM document
-      Document doc = db.parse(is);
-      //Walk the DOM tree, extracting all saveset metadata into the specified
-      //saveset descriptor
-      walkTree(doc);
-    } catch (ParserConfigurationException pce) {
-      //System.out.println("SavesetParser: Parser error: " + pce.getMessage());
-      return false;
-    } catch (SAXException saxe) {
-      //System.out.println("SavesetParser: Cannot find file: " + saxe.getMessage());
-      return false;
-    } catch (IOException ioe) {
-      //System.out.println("SavesetParser: IO error: " + ioe.getMessage());
+    } catch (XMLStreamException xse) {
+      LOGGER.error("Cannot parse Geocraft session state: " + xse.getMessage());
       return false;
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException xse) {
+          //do nothing; the session state file is closed by the session manager
+        }
+      }
     }
 
     return true;
   }
 
   /**
-   * Recursively walk the XML tree processing each node.
-   * @param node Start node to begin walk.
+   * Skip the rest of the current element, including all its children.
+   * @param reader XML reader positioned at the start of the element
    */
-  private void walkTree(final Node node) {
-    NodeList children;
-    NamedNodeMap attributes;
+  private void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  /**
+   * Process the element the reader is positioned at.
+   * @param reader XML reader positioned at the start of the element
+   * @return true if the element's children are to be processed; false if they are to be skipped
+   */
+  private boolean processElement(final XMLStreamReader reader) {
     String attrName, attrValue;
     String key = "", value = "";
+    int numAttributes = reader.getAttributeCount();
+
+    String name = reader.getLocalName();
+    if (name.equals(ENTITY_NODE)) {
+      _currentEntity = _savesetDescriptor.new DataEntity();
+
+      // gather <entity> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(ENTITY_VARNAME_ATTR)) {
+          _currentEntity.setVarName(attrValue);
+        } else if (attrName.equals(ENTITY_UNIQUEID_ATTR)) {
+          _currentEntityID = attrValue;
+          _currentEntity.setEntityUniqueId(attrValue);
+          _savesetDescriptor.addEntity(_currentEntity);
+        }
+      }
+      return true;
+    } else if (name.equals(PROPERTY_NODE)) {
+      // gather <property> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(PROPERTY_KEY_ATTR)) {
+          key = attrValue;
+        } else if (attrName.equals(PROPERTY_VALUE_ATTR)) {
+          value = attrValue;
+        }
+      }
+      _currentEntity.addEntityProperty(key, value);
+      return true;
+    } else if (name.equals(ALGORITHM_NODE)) {
+      _currentAlgorithm = _savesetDescriptor.new Algorithm();
+
+      // gather <algorithm> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(ALGORITHM_NAME_ATTR)) {
+          _currentAlgorithm.setAlgorithmName(attrValue);
+        } else if (attrName.equals(ALGORITHM_CLASS_ATTR)) {
+          _currentAlgorithm.setAlgorithmClassName(attrValue);
+        } else if (attrName.equals(ALGORITHM_WINDOW_ID_ATTR)) {
+          _currentAlgorithm.setAlgorithmWindowID(attrValue);
+          _savesetDescriptor.addWindowID(attrValue);
+        } else if (attrName.equals(ALGORITHM_UNIQUEID_ATTR)) {
+          _currentAlgorithmID = attrValue;
+          _currentAlgorithm.setAlgorithmUniqueId(attrValue);
+          _savesetDescriptor.addAlgorithm(_currentAlgorithm);
+        } else if (attrName.equals(ALGORITHM_ACTION_ATTR)) {
+          _currentAlgorithm.setAlgorithmAction(attrValue);
+        }
+      }
+      return true;
+    } else if (name.equals(PARAMETER_NODE)) {
+      // gather <parameter> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(PARAMETER_KEY_ATTR)) {
+          key = attrValue;
+        } else if (attrName.equals(PARAMETER_VALUE_ATTR)) {
+          value = attrValue;
+        }
+      }
+      value = value.replace("&#xD;&#xA;", "\r\n"); //Windows (CR+LF)
+      value = value.replace("&#xA;", "\n"); //Unix (CR)
+      value = value.replace("&#034;", "\"");
+      value = value.replace("&#060;", "<");
+      value = value.replace("&#062;", ">");
+      _currentAlgorithm.addAlgorithmProperty(key, value);
+      return true;
+    } else if (name.equals(PREFERENCE_PAGE_NODE)) {
+      _currentPreferencePage = _savesetDescriptor.new PreferencePage();
+
+      // gather <preferencePage> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(PREFERENCE_PAGE_NAME_ATTR)) {
+          _currentPreferencePage.setPreferencePageName(attrValue);
+        } else if (attrName.equals(PREFERENCE_PAGE_CLASS_ATTR)) {
+          _currentPreferencePage.setPreferencePageClassName(attrValue);
+          _savesetDescriptor.addPreferencePage(_currentPreferencePage);
+        }
+      }
+      return true;
+    } else if (name.equals(PREFERENCE_NODE)) {
+      // gather <preference> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(PREFERENCE_KEY_ATTR)) {
+          key = attrValue;
+        } else if (attrName.equals(PREFERENCE_VALUE_ATTR)) {
+          value = attrValue;
+        }
+      }
+      _currentPreferencePage.addPreference(key, value);
+      return true;
+    } else if (name.equals(PERSPECTIVE_NODE)) {
+      _currentPerspective = _savesetDescriptor.new Perspective();
+
+      // gather <perspective> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(PERSPECTIVE_NAME_ATTR)) {
+          _currentPerspective.setPerspectiveName(attrValue);
+        } else if (attrName.equals(PERSPECTIVE_CLASS_ATTR)) {
+          _currentPerspective.setPerspectiveClass(attrValue);
+        } else if (attrName.equals(PERSPECTIVE_ID_ATTR)) {
+          _currentPerspective.setPerspectiveID(attrValue);
+          _savesetDescriptor.addPerspective(_currentPerspective);
+        } else if (attrName.equals(PERSPECTIVE_WINDOW_ID_ATTR)) {
+          _currentPerspective.setPerspectiveWindowID(attrValue);
+          _savesetDescriptor.addWindowID(attrValue);
+        } else if (attrName.equals(PERSPECTIVE_EDITOR_VISIBLE_ATTR)) {
+          _currentPerspective.setEditorAreaVisible(attrValue.equals("true") ? true : false);
+        }
+      }
+      return true;
+    } else if (name.equals(VIEWER_NODE)) {
+      _currentViewer = _savesetDescriptor.new Viewer();
+      _currentViewerPart.addViewer(_currentViewer);
+
+      // gather <viewer> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(VIEWER_TITLE_ATTR)) {
+          _currentViewer.setViewerTitle(attrValue);
+        } else if (attrName.equals(VIEWER_CLASS_ATTR)) {
+          _currentViewer.setViewerClassName(attrValue);
+        }
+      }
+      return true;
+    } else if (name.equals(VIEWER_LAYER_NODE)) {
+      ViewerLayer viewerLayer = _currentViewer.new ViewerLayer();
+
+      // gather <viewerLayer> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(VIEWER_LAYER_NAME_ATTR)) {
+          viewerLayer.setLayerName(attrValue);
+        } else if (attrName.equals(VIEWER_LAYER_CHECKED_ATTR)) {
+          viewerLayer.setChecked(attrValue);
+        }
+      }
+      _currentViewer.addViewerLayer(viewerLayer);
+      return false;
+    } else if (name.equals(VIEWER_PROPERTY_NODE)) {
+      // gather <viewerProperty> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(VIEWER_PROPERTY_KEY_ATTR)) {
+          key = attrValue;
+        } else if (attrName.equals(VIEWER_PROPERTY_VALUE_ATTR)) {
+          value = attrValue;
+        }
+      }
+      value = value.replace("&#xD;&#xA;", "\r\n"); //Windows (CR+LF)
+      value = value.replace("&#xA;", "\n"); //Unix (CR)
+      _currentViewer.addViewerProperty(key, value);
+      return false;
+    } else if (name.equals(RENDERER_NODE)) {
+      _currentRenderer = _currentViewer.new Renderer();
+
+      // gather <renderer> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(RENDERER_CLASS_ATTR)) {
+          _currentRenderer.setRendererClassName(attrValue);
+        } else if (attrName.equals(RENDERER_UNIQUEID_ATTR)) {
+          _currentRendererId = attrValue;
+          _currentRenderer.setRendererUniqueId(attrValue);
+          _currentViewer.addRenderer(_currentRendererId, _currentRenderer);
+        }
+      }
+      return true;
+    } else if (name.equals(RENDERED_ENTITY_NODE)) {
+      // gather <entityRendered> attributes
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(RENDERED_ENTITY_UNIQUEID_ATTR)) {
+          _currentRenderer.setRenderedEntity(attrValue);
+        }
+      }
+      return false;
+    } else if (name.equals(RENDERER_PROPERTY_NODE)) {
+      // gather <modelProperty> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(RENDERER_PROPERTY_KEY_ATTR)) {
+          key = attrValue;
+        } else if (attrName.equals(RENDERER_PROPERTY_VALUE_ATTR)) {
+          value = attrValue;
+        }
+      }
+      value = value.replace("&#xD;&#xA;", "\r\n"); //Windows (CR+LF)
+      value = value.replace("&#xA;", "\n"); //Unix (CR)
+      _currentRenderer.addRendererProperty(key, value);
+      return false;
+    } else if (name.equals(VIEWER_PART_NODE)) {
+      _currentViewerPart = _savesetDescriptor.new ViewerPart();
+
+      // gather <viewerPart> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(VIEWER_PART_CLASS_ATTR)) {
+          _currentViewerPart.setViewerPartClassName(attrValue);
+        } else if (attrName.equals(VIEWER_PART_UNIQUEID_ATTR)) {
+          _currentViewerPartId = attrValue;
+          _currentViewerPart.setViewerPartUniqueId(attrValue);
+          _savesetDescriptor.addViewerPart(_currentViewerPartId, _currentViewerPart);
+        } else if (attrName.equals(VIEWER_PART_ID_ATTR)) {
+          _currentViewerPart.setViewerPartId(attrValue);
+        } else if (attrName.equals(VIEWER_PART_WINDOW_ID_ATTR)) {
+          _currentViewerPart.setViewerPartWindowID(attrValue);
+          _savesetDescriptor.addWindowID(attrValue);
+        } else if (attrName.equals(VIEWER_PART_PERSPECTIVE_ID_ATTR)) {
+          _currentViewerPart.setViewerPerspectiveID(attrValue);
+        }
+      }
+      return true;
+    } else if (name.equals(PLOT_WINDOW_NODE)) {
+      // gather <plotWindow> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(PLOT_WINDOW_ID_ATTR)) {
+          _savesetDescriptor.setPlotWindowID(attrValue);
+        }
+      }
+      return false;
+    } else if (name.equals(ENTITIES_NODE) || name.equals(ALGORITHMS_NODE) || name.equals(REPOSITORY_NODE)) {
+      return true;
+    } else if (name.equals(ROOT_NODE)) {
+      String version = "", width = "1000", height = "1000", x = "0", y = "0";
+      // gather <geocraft> attributes. NOTE: they can be in any order
+      for (int i = 0; i < numAttributes; i++) {
+        attrName = reader.getAttributeLocalName(i);
+        attrValue = reader.getAttributeValue(i);
+        if (attrName.equals(ROOT_VERSION_ATTR)) {
+          version = attrValue;
+        } else if (attrName.equals(ROOT_WIDTH_ATTR)) {
+          width = attrValue;
+        } else if (attrName.equals(ROOT_HEIGHT_ATTR)) {
+          height = attrValue;
+        } else if (attrName.equals(ROOT_X_ATTR)) {
+          x = attrValue;
+        } else if (attrName.equals(ROOT_Y_ATTR)) {
+          y = attrValue;
+        }
+      }
 
-    switch (node.getNodeType()) {
-      case Node.DOCUMENT_NODE:
-        // Document object
-        walkTree(((Document) node).getDocumentElement());
-        break;
-
-      case Node.ELEMENT_NODE:
-        // element + attributes
-        String name = node.getNodeName();
-        // System.out.println("Element node: "+name);
-        if (name.equals(ENTITY_NODE)) {
-          _currentEntity = _savesetDescriptor.new DataEntity();
-
-          attributes = node.getAttributes();
-          // gather <entity> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(ENTITY_VARNAME_ATTR)) {
-              _currentEntity.setVarName(attrValue);
-            } else if (attrName.equals(ENTITY_UNIQUEID_ATTR)) {
-              _currentEntityID = attrValue;
-              _currentEntity.setEntityUniqueId(attrValue);
-              _savesetDescriptor.addEntity(_currentEntity);
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
-
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(PROPERTY_NODE)) {
-          attributes = node.getAttributes();
-          key = "";
-          value = "";
-          // gather <property> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(PROPERTY_KEY_ATTR)) {
-              key = attrValue;
-            } else if (attrName.equals(PROPERTY_VALUE_ATTR)) {
-              value = attrValue;
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
-          _currentEntity.addEntityProperty(key, value);
-
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(ALGORITHM_NODE)) {
-          _currentAlgorithm = _savesetDescriptor.new Algorithm();
-
-          attributes = node.getAttributes();
-          // gather <algorithm> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(ALGORITHM_NAME_ATTR)) {
-              _currentAlgorithm.setAlgorithmName(attrValue);
-            } else if (attrName.equals(ALGORITHM_CLASS_ATTR)) {
-              _currentAlgorithm.setAlgorithmClassName(attrValue);
-            } else if (attrName.equals(ALGORITHM_WINDOW_ID_ATTR)) {
-              _currentAlgorithm.setAlgorithmWindowID(attrValue);
-              _savesetDescriptor.addWindowID(attrValue);
-            } else if (attrName.equals(ALGORITHM_UNIQUEID_ATTR)) {
-              _currentAlgorithmID = attrValue;
-              _currentAlgorithm.setAlgorithmUniqueId(attrValue);
-              _savesetDescriptor.addAlgorithm(_currentAlgorithm);
-            } else if (attrName.equals(ALGORITHM_ACTION_ATTR)) {
-              _currentAlgorithm.setAlgorithmAction(attrValue);
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
-
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(PARAMETER_NODE)) {
-          attributes = node.getAttributes();
-          key = "";
-          value = "";
-          // gather <parameter> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(PARAMETER_KEY_ATTR)) {
-              key = attrValue;
-            } else if (attrName.equals(PARAMETER_VALUE_ATTR)) {
-              value = attrValue;
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
-          value = value.replace("&#xD;&#xA;", "\r\n"); //Windows (CR+LF)
-          value = value.replace("&#xA;", "\n"); //Unix (CR)
-          value = value.replace("&#034;", "\"");
-          value = value.replace("&#060;", "<");
-          value = value.replace("&#062;", ">");
-          _currentAlgorithm.addAlgorithmProperty(key, value);
-
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(PREFERENCE_PAGE_NODE)) {
-          _currentPreferencePage = _savesetDescriptor.new PreferencePage();
-
-          attributes = node.getAttributes();
-          // gather <preferencePage> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(PREFERENCE_PAGE_NAME_ATTR)) {
-              _currentPreferencePage.setPreferencePageName(attrValue);
-            } else if (attrName.equals(PREFERENCE_PAGE_CLASS_ATTR)) {
-              _currentPreferencePage.setPreferencePageClassName(attrValue);
-              _savesetDescriptor.addPreferencePage(_currentPreferencePage);
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
-
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(PREFERENCE_NODE)) {
-          attributes = node.getAttributes();
-          key = "";
-          value = "";
-          // gather <preference> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(PREFERENCE_KEY_ATTR)) {
-              key = attrValue;
-            } else if (attrName.equals(PREFERENCE_VALUE_ATTR)) {
-              value = attrValue;
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
-          _currentPreferencePage.addPreference(key, value);
-
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(PERSPECTIVE_NODE)) {
-          _currentPerspective = _savesetDescriptor.new Perspective();
-
-          attributes = node.getAttributes();
-          // gather <perspective> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(PERSPECTIVE_NAME_ATTR)) {
-              _currentPerspective.setPerspectiveName(attrValue);
-            } else if (attrName.equals(PERSPECTIVE_CLASS_ATTR)) {
-              _currentPerspective.setPerspectiveClass(attrValue);
-            } else if (attrName.equals(PERSPECTIVE_ID_ATTR)) {
-              _currentPerspective.setPerspectiveID(attrValue);
-              _savesetDescriptor.addPerspective(_currentPerspective);
-            } else if (attrName.equals(PERSPECTIVE_WINDOW_ID_ATTR)) {
-              _currentPerspective.setPerspectiveWindowID(attrValue);
-              _savesetDescriptor.addWindowID(attrValue);
-            } else if (attrName.equals(PERSPECTIVE_EDITOR_VISIBLE_ATTR)) {
-              _currentPerspective.setEditorAreaVisible(attrValue.equals("true") ? true : false);
-            }
-          }
-
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(VIEWER_NODE)) {
-          _currentViewer = _savesetDescriptor.new Viewer();
-          _currentViewerPart.addViewer(_currentViewer);
-
-          attributes = node.getAttributes();
-          // gather <viewer> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(VIEWER_TITLE_ATTR)) {
-              _currentViewer.setViewerTitle(attrValue);
-            } else if (attrName.equals(VIEWER_CLASS_ATTR)) {
-              _currentViewer.setViewerClassName(attrValue);
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
+      _savesetDescriptor.setWindowAttributes(version, width, height, x, y);
+      return true;
+    }
+    //unknown element
+    return false;
+  }
 
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(VIEWER_LAYER_NODE)) {
-          ViewerLayer viewerLayer = _currentViewer.new ViewerLayer();
-
-          attributes = node.getAttributes();
-          // gather <folderLayer> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(VIEWER_LAYER_NAME_ATTR)) {
-              viewerLayer.setLayerName(attrValue);
-            } else if (attrName.equals(VIEWER_LAYER_CHECKED_ATTR)) {
-              viewerLayer.setChecked(attrValue);
-            }
-          }
-          _currentViewer.addViewerLayer(viewerLayer);
-        } else if (name.equals(VIEWER_PROPERTY_NODE)) {
-          attributes = node.getAttributes();
-          key = "";
-          value = "";
-          // gather <viewerProperty> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(VIEWER_PROPERTY_KEY_ATTR)) {
-              key = attrValue;
-            } else if (attrName.equals(VIEWER_PROPERTY_VALUE_ATTR)) {
-              value = attrValue;
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
-          value = value.replace("&#xD;&#xA;", "\r\n"); //Windows (CR+LF)
-          value = value.replace("&#xA;", "\n"); //Unix (CR)
-          _currentViewer.addViewerProperty(key, value);
-        } else if (name.equals(RENDERER_NODE)) {
-          _currentRenderer = _currentViewer.new Renderer();
-
-          attributes = node.getAttributes();
-          // gather <renderer> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(RENDERER_CLASS_ATTR)) {
-              _currentRenderer.setRendererClassName(attrValue);
-            } else if (attrName.equals(RENDERER_UNIQUEID_ATTR)) {
-              _currentRendererId = attrValue;
-              _currentRenderer.setRendererUniqueId(attrValue);
-              _currentViewer.addRenderer(_currentRendererId, _currentRenderer);
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
+  /**
+   * Reader of the Geocraft state from the state session file
+   * which has been opened. The state is at the beginning of
+   * the file and starts with "<?xml". The reader ends at the
+   * state for the first workbench window, which starts with
+   * an XML comment: "<!--" and is left to be read next.
+   */
+  private static class StateReader extends Reader {
 
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(RENDERED_ENTITY_NODE)) {
-          attributes = node.getAttributes();
-          // gather <entityRendered> attributes
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(RENDERED_ENTITY_UNIQUEID_ATTR)) {
-              _currentRenderer.setRenderedEntity(attrValue);
-            }
-          }
-        } else if (name.equals(RENDERER_PROPERTY_NODE)) {
-          attributes = node.getAttributes();
-          key = "";
-          value = "";
-          // gather <modelProperty> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(RENDERER_PROPERTY_KEY_ATTR)) {
-              key = attrValue;
-            } else if (attrName.equals(RENDERER_PROPERTY_VALUE_ATTR)) {
-              value = attrValue;
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
-          value = value.replace("&#xD;&#xA;", "\r\n"); //Windows (CR+LF)
-          value = value.replace("&#xA;", "\n"); //Unix (CR)
-          _currentRenderer.addRendererProperty(key, value);
-        } else if (name.equals(ENTITIES_NODE)) {
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(VIEWER_PART_NODE)) {
-          _currentViewerPart = _savesetDescriptor.new ViewerPart();
-
-          attributes = node.getAttributes();
-          // gather <viewer> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(VIEWER_PART_CLASS_ATTR)) {
-              _currentViewerPart.setViewerPartClassName(attrValue);
-            } else if (attrName.equals(VIEWER_PART_UNIQUEID_ATTR)) {
-              _currentViewerPartId = attrValue;
-              _currentViewerPart.setViewerPartUniqueId(attrValue);
-              _savesetDescriptor.addViewerPart(_currentViewerPartId, _currentViewerPart);
-            } else if (attrName.equals(VIEWER_PART_ID_ATTR)) {
-              _currentViewerPart.setViewerPartId(attrValue);
-            } else if (attrName.equals(VIEWER_PART_WINDOW_ID_ATTR)) {
-              _currentViewerPart.setViewerPartWindowID(attrValue);
-              _savesetDescriptor.addWindowID(attrValue);
-            } else if (attrName.equals(VIEWER_PART_PERSPECTIVE_ID_ATTR)) {
-              _currentViewerPart.setViewerPerspectiveID(attrValue);
-            }
-            // System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
+    /** Current line of the session state file */
+    private String _line = "";
 
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(PLOT_WINDOW_NODE)) {
-          attributes = node.getAttributes();
-          // gather <plotWindow> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(PLOT_WINDOW_ID_ATTR)) {
-              _savesetDescriptor.setPlotWindowID(attrValue);
-            }
-            //System.out.println("    Attribute: " + attrName + ", Value: " + attrValue);
-          }
-        } else if (name.equals(ALGORITHMS_NODE)) {
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(REPOSITORY_NODE)) {
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
-          }
-        } else if (name.equals(ROOT_NODE)) {
-          attributes = node.getAttributes();
-          String version = "", width = "1000", height = "1000", x = "0", y = "0";
-          // gather <geocraft> attributes. NOTE: they can be in any order
-          for (int i = 0; i < attributes.getLength(); i++) {
-            Node attr = attributes.item(i);
-            attrName = attr.getNodeName();
-            attrValue = attr.getNodeValue();
-            if (attrName.equals(ROOT_VERSION_ATTR)) {
-              version = attrValue;
-            } else if (attrName.equals(ROOT_WIDTH_ATTR)) {
-              width = attrValue;
-            } else if (attrName.equals(ROOT_HEIGHT_ATTR)) {
-              height = attrValue;
-            } else if (attrName.equals(ROOT_X_ATTR)) {
-              x = attrValue;
-            } else if (attrName.equals(ROOT_Y_ATTR)) {
-              y = attrValue;
-            }
-            //  System.out.println("    Attribute: "+attrName+", Value: "+attrValue);
-          }
+    /** Position of the next character to read in the current line */
+    private int _position = 0;
 
-          _savesetDescriptor.setWindowAttributes(version, width, height, x, y);
+    /** true if the end of the Geocraft state has been reached */
+    private boolean _endOfState = false;
 
-          children = node.getChildNodes();
-          if (children != null) {
-            for (int i = 0; i < children.getLength(); i++) {
-              Node child = children.item(i);
-              // System.out.println("    Process child "+child.getNodeName());
-              walkTree(child);
-            }
+    @Override
+    public int read(final char[] buffer, final int offset, final int length) {
+      if (length == 0) {
+        return 0;
+      }
+      while (_position >= _line.length()) {
+        if (_endOfState) {
+          return -1;
+        }
+        String line = SessionManager.getInstance().readXML();
+        if (line == null || line.startsWith("<!--")) {
+          //leave the comment starting the first window's state to be read next
+          if (line != null) {
+            SessionManager.getInstance().unreadXML(line);
           }
+          _endOfState = true;
+          return -1;
         }
-        break;
-
-      case Node.TEXT_NODE:
-      case Node.CDATA_SECTION_NODE:
-        // textual data
-        String text = node.getNodeValue();
-        break;
-
-      case Node.PROCESSING_INSTRUCTION_NODE:
-        // processing instruction
-        break;
-
-      case Node.ENTITY_REFERENCE_NODE:
-        // entity reference
-        break;
+        _line = line;
+        _position = 0;
+      }
+      int count = Math.min(length, _line.length() - _position);
+      _line.getChars(_position, _position + count, buffer, offset);
+      _position += count;
+      return count;
+    }
 
-      case Node.DOCUMENT_TYPE_NODE:
-        // DTD declaration
-        break;
+    @Override
+    public void close() {
+      //do nothing; the session state file is closed by the session manager
     }
   }
 }
@@ -19,6 +19,7 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -70,7 +71,6 @@ import org.geocraft.core.session.SavesetDescriptor.Viewer;
 import org.geocraft.core.session.SavesetDescriptor.ViewerPart;
 import org.geocraft.core.session.SavesetDescriptor.ViewerProperty;
 import org.geocraft.core.session.SavesetDescriptor.Viewer.Renderer;
-import org.osgi.service.prefs.BackingStoreException;
 
 
 public class SessionManager {
@@ -133,6 +133,9 @@ public class SessionManager {
 
   static BufferedReader _xmlReader;
 
+  /** Line returned to the session state reader, to be read again by the next readXML() */
+  static String _unreadLine;
+
   /**
    * Open a buffered reader for a XML session state file
    * @param pathname Full pathname of the file to read
@@ -140,6 +143,7 @@ public class SessionManager {
   public void openXMLReader(String pathname) {
     try {
       _xmlReader = new BufferedReader(new FileReader(pathname));
+      _unreadLine = null;
 
     } catch (IOException ioe) {
       LOGGER.error("Cannot open session state reader: " + pathname);
@@ -165,6 +169,11 @@ public class SessionManager {
    * @return Next line; null if EOF
    */
   public String readXML() {
+    if (_unreadLine != null) {
+      String line = _unreadLine;
+      _unreadLine = null;
+      return line;
+    }
     try {
       return _xmlReader.readLine();
     } catch (IOException ioe) {
@@ -173,6 +182,14 @@ public class SessionManager {
     }
   }
 
+  /**
+   * Return a line to the session state file, so it is the next line read.
+   * @param line Line to be read again
+   */
+  public void unreadXML(String line) {
+    _unreadLine = line;
+  }
+
   /**
    * Write an XML string to a session state file. Text is
    * appended to the file.
@@ -422,10 +439,6 @@ public class SessionManager {
 
     //CLOSE ROOT element </geocraft>
     ComponentState.closeRootElement();
-    closeXMLWriter();
-
-    //append Eclipse state
-    openXMLWriter(pathname, true);
 
     //APPEND ECLIPSE STATE FOR EACH OF ITS WINDOWS
     for (IWorkbenchWindow win : windows) {
@@ -558,6 +571,8 @@ public class SessionManager {
     //  parse the Geocraft session state
     final SavesetDescriptor desc = new SavesetDescriptor();
     boolean parsed = SavesetParser.getInstance().parseSaveset(desc);
+    //  read the state of every workbench window in the same pass over the file
+    Map<String, String> windowStates = parsed ? readWindowStates() : new HashMap<String, String>();
     closeXMLReader();
     //desc.dumpDescriptor();
     if (parsed) {
@@ -600,41 +615,34 @@ public class SessionManager {
       monitor.done();
 
       //LOAD REPOSITORY with the data entities (if any)
-      try {
-        //create the map of var names (key = entity's unique ID)
-        HashMap<String, String> varNames = new HashMap<String, String>();
-        ArrayList<DataEntity> entities = desc.getEntities();
-        for (DataEntity entity : entities) {
-          varNames.put(entity.getEntityUniqueId(), entity.getVarName());
-        }
-        //Set the var names to be used when loading the entities
-        if (_repo != null) {
-          _repo.setVarnameMap(varNames);
-        }
+      //create the map of var names (key = entity's unique ID)
+      HashMap<String, String> varNames = new HashMap<String, String>();
+      ArrayList<DataEntity> entities = desc.getEntities();
+      for (DataEntity entity : entities) {
+        varNames.put(entity.getEntityUniqueId(), entity.getVarName());
+      }
+      //Set the var names to be used when loading the entities
+      if (_repo != null) {
+        _repo.setVarnameMap(varNames);
+      }
 
-        monitor.beginTask(sessionTask, varNames.size());
+      //create each model's unpickle map
+      Map<String, Map<String, String>> entityProps = new LinkedHashMap<String, Map<String, String>>();
+      for (DataEntity entity : entities) {
+        String uniqueId = entity.getEntityUniqueId();
+        LOGGER.info("Restoring entity (" + entity.getVarName() + ") with unique ID: " + uniqueId);
         Map<String, String> props = new HashMap<String, String>();
-        for (DataEntity entity : entities) {
-          String uniqueId = entity.getEntityUniqueId();
-          monitor.subTask("Data Entities (" + varNames.size() + "): " + uniqueId);
-          String varName = entity.getVarName();
-          LOGGER.info("Restoring entity (" + varName + ") with unique ID: " + uniqueId);
-          //create the model's unpickle map
-          ArrayList<EntityModelProperty> properties = entity.getEntityProperties();
-          for (int j = 0; j < properties.size(); j++) {
-            EntityModelProperty prop = properties.get(j);
-            props.put(prop.getKey(), prop.getValue());
-          }
-          //Note: restoration runs in JOIN mode, so restoring entities is sequential
-          RepositoryIdStore.restoreEntity(props, uniqueId);
-          //clear out model properties for next entity
-          props.clear();
-          monitor.worked(1);
+        ArrayList<EntityModelProperty> properties = entity.getEntityProperties();
+        for (int j = 0; j < properties.size(); j++) {
+          EntityModelProperty prop = properties.get(j);
+          props.put(prop.getKey(), prop.getValue());
         }
-        monitor.done();
-      } catch (BackingStoreException bse) {
-        bse.printStackTrace();
+        entityProps.put(uniqueId, props);
       }
+      //Note: entities are restored concurrently as ghosts; their data is loaded when first accessed
+      monitor.beginTask(sessionTask, entityProps.size());
+      RepositoryIdStore.restoreEntities(entityProps, monitor);
+      monitor.done();
 
       //RESTORE WORKBENCH WINDOWS' STATE
       //There is at least 1 window.
@@ -689,10 +697,9 @@ public class SessionManager {
         }
 
         //Restore the state of the workbench window.
-        openXMLReader(_currentSaveset);
-        IPerspectiveDescriptor perspectiveDesc = restoreWindowState(workbenchWindow, readWindowState(windowId),
-            perspectiveId);
-        closeXMLReader();
+        String windowState = windowStates.get(windowId);
+        IPerspectiveDescriptor perspectiveDesc = restoreWindowState(workbenchWindow, windowState != null ? windowState
+            : "", perspectiveId);
         //close the initial active workbench window
         //Note: there is no window to close if launching Geocraft
         if (winIdx == 0 && !launching) {
@@ -1353,35 +1360,29 @@ public class SessionManager {
   }
 
   /**
-   * Read the state of a workbench window from the state session file
-   * window which has been opened. The state is preceded by an XML
-   * comment containing the window's ID and starts with "<?xml"
-   * @param winID The ID of the window state to be read
-   * @return The state of the workbench window
+   * Read the state of all the workbench windows from the state session file
+   * which has been opened and whose Geocraft state has been read. The state of
+   * each window is preceded by an XML comment containing the window's ID and
+   * starts with "<?xml"
+   * @return The state of each workbench window, keyed by window ID
    */
-  private String readWindowState(String winID) {
-    StringBuffer buf = new StringBuffer();
+  private Map<String, String> readWindowStates() {
+    Map<String, String> windowStates = new HashMap<String, String>();
     String line = readXML();
-    if (line == null) {
-      return "";
-    }
-    //skip to the XML comment which is the start of the window's state
-    boolean foundState = false;
-    while (line != null && !foundState) {
-      if (line.startsWith("<!--") && extractWorkbenchWindowID(line).equals(winID)) {
-        foundState = true;
-      }
+    //skip to the XML comment which is the start of the first window's state
+    while (line != null && !line.startsWith("<!--")) {
       line = readXML();
     }
-    if (!foundState) {
-      return "";
-    }
-    buf.append(line);
-    //read to the EOF or the start of the state for the next window
-    while ((line = readXML()) != null && !line.startsWith("<!--")) {
-      buf.append(line);
+    while (line != null) {
+      String winID = extractWorkbenchWindowID(line);
+      StringBuffer buf = new StringBuffer();
+      //read to the EOF or the start of the state for the next window
+      while ((line = readXML()) != null && !line.startsWith("<!--")) {
+        buf.append(line);
+      }
+      windowStates.put(winID, buf.toString());
     }
-    return buf.toString();
+    return windowStates;
   }
 
   public String getWorkbenchWindowID(IWorkbenchWindow window) {
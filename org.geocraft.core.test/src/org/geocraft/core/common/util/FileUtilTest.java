@@ -5,6 +5,10 @@ package org.geocraft.core.common.util;
 
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
 
 import junit.framework.TestCase;
 
@@ -60,4 +64,24 @@ public class FileUtilTest extends TestCase {
     assertEquals(_testString.substring(0, _testString.lastIndexOf(File.separator)), pathName);
   }
 
+
+  /**
+   * Test method for
+   * {@link org.geocraft.core.common.util.FileUtil#unmap(java.nio.ByteBuffer)}
+   * .
+   */
+  public void testUnmap() throws Exception {
+    File file = File.createTempFile("unmap", ".dat");
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(new byte[] { 1, 2, 3, 4 });
+    out.close();
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    MappedByteBuffer buffer = raf.getChannel().map(MapMode.READ_ONLY, 0, 4);
+    raf.close();
+    assertEquals(3, buffer.get(2));
+    assertTrue(FileUtil.unmap(buffer));
+    assertFalse(FileUtil.unmap(java.nio.ByteBuffer.allocate(4)));
+    // Once unmapped, the file can be deleted on all platforms.
+    assertTrue(file.delete());
+  }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.core.model.datatypes;
+
+
+import junit.framework.TestCase;
+
+
+/**
+ * Unit tests for the <code>HeaderBlock</code> class, and the header views it provides.
+ */
+public class HeaderBlockTestCase extends TestCase {
+
+  private static final HeaderDefinition HEADER_DEF = new HeaderDefinition(new HeaderEntry[] {
+      TraceHeaderCatalog.INLINE_NO, TraceHeaderCatalog.XLINE_NO, TraceHeaderCatalog.OFFSET, TraceHeaderCatalog.X,
+      TraceHeaderCatalog.Y });
+
+  /**
+   * Test that the views and the block share the same values.
+   */
+  public void testViews() {
+    int numHeaders = 4;
+    HeaderBlock block = new HeaderBlock(HEADER_DEF, numHeaders);
+    assertEquals(numHeaders, block.getNumHeaders());
+    for (int i = 0; i < numHeaders; i++) {
+      block.putInteger(i, TraceHeaderCatalog.INLINE_NO, 100 + i);
+      block.getHeader(i).putInteger(TraceHeaderCatalog.XLINE_NO, 200 + i);
+      block.getHeader(i).putDouble(TraceHeaderCatalog.X, i * 0.5);
+    }
+    for (int i = 0; i < numHeaders; i++) {
+      Header header = block.getHeader(i);
+      assertSame(header, block.getHeader(i));
+      assertEquals(100 + i, header.getInteger(TraceHeaderCatalog.INLINE_NO));
+      assertEquals(200 + i, block.getInteger(i, TraceHeaderCatalog.XLINE_NO));
+      assertEquals(i * 0.5, header.getDouble(TraceHeaderCatalog.X));
+      assertEquals(0.0, header.getDouble(TraceHeaderCatalog.Y));
+    }
+    int[] inlines = block.getIntegers(TraceHeaderCatalog.INLINE_NO);
+    for (int i = 0; i < numHeaders; i++) {
+      assertEquals(100 + i, inlines[i]);
+    }
+    try {
+      block.getInteger(numHeaders, TraceHeaderCatalog.INLINE_NO);
+      fail("Failed to throw an index exception.");
+    } catch (ArrayIndexOutOfBoundsException ex) {
+      // Success: the index is out of bounds.
+    }
+  }
+
+  /**
+   * Test copying between headers, views and blocks.
+   */
+  public void testCopy() {
+    Header header = new Header(HEADER_DEF);
+    header.putInteger(TraceHeaderCatalog.INLINE_NO, 7);
+    header.putFloat(TraceHeaderCatalog.OFFSET, 1250f);
+    header.putDouble(TraceHeaderCatalog.Y, -3.5);
+
+    HeaderBlock block = new HeaderBlock(HEADER_DEF, 3);
+    block.copyFrom(1, header);
+    assertEquals(7, block.getInteger(1, TraceHeaderCatalog.INLINE_NO));
+    assertEquals(1250f, block.getFloat(1, TraceHeaderCatalog.OFFSET));
+    assertEquals(-3.5, block.getDouble(1, TraceHeaderCatalog.Y));
+    assertEquals(0, block.getInteger(0, TraceHeaderCatalog.INLINE_NO));
+
+    // A copy of a view is a standalone header.
+    Header copy = new Header(block.getHeader(1));
+    block.putInteger(1, TraceHeaderCatalog.INLINE_NO, 8);
+    assertEquals(7, copy.getInteger(TraceHeaderCatalog.INLINE_NO));
+    assertEquals(1250f, copy.getFloat(TraceHeaderCatalog.OFFSET));
+
+    // Copy a range of headers in bulk.
+    HeaderBlock target = new HeaderBlock(HEADER_DEF, 5);
+    block.copyTo(1, target, 3, 2);
+    assertEquals(8, target.getInteger(3, TraceHeaderCatalog.INLINE_NO));
+    assertEquals(1250f, target.getFloat(3, TraceHeaderCatalog.OFFSET));
+    assertEquals(-3.5, target.getDouble(3, TraceHeaderCatalog.Y));
+    assertEquals(0, target.getInteger(2, TraceHeaderCatalog.INLINE_NO));
+    assertEquals(0.0, target.getDouble(4, TraceHeaderCatalog.Y));
+  }
+}
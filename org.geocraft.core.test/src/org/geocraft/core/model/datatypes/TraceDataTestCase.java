@@ -4,6 +4,8 @@
 package org.geocraft.core.model.datatypes;
 
 
+import java.nio.FloatBuffer;
+
 import junit.framework.TestCase;
 
 
@@ -95,4 +97,69 @@ public class TraceDataTestCase extends TestCase {
       // Success: the constructor should have thrown an exception.
     }
   }
+
+  /**
+   * Test a flat trace collection, backed by a single array and by a direct buffer.
+   */
+  public void testFlat() {
+    int numTraces = 3;
+    int numSamples = 5;
+    float zStart = 100;
+    float zDelta = 2;
+    Unit zUnit = Unit.MILLISECONDS;
+    Trace.Status[] statuses = { Trace.Status.Live, Trace.Status.Missing, Trace.Status.Live };
+    Header[] headers = new Header[numTraces];
+    for (int i = 0; i < numTraces; i++) {
+      headers[i] = new Header(new HeaderDefinition(new HeaderEntry[] { TraceHeaderCatalog.X, TraceHeaderCatalog.Y }));
+      headers[i].putDouble(TraceHeaderCatalog.X, i);
+    }
+
+    for (boolean direct : new boolean[] { false, true }) {
+      FloatBuffer buffer = TraceData.allocateBuffer(numTraces, numSamples, direct);
+      for (int k = 0; k < numTraces * numSamples; k++) {
+        buffer.put(k, k);
+      }
+      TraceData traceData = new TraceData(buffer, numSamples, zStart, zDelta, zUnit, statuses, headers);
+
+      assertTrue(traceData.isFlat());
+      assertEquals(numTraces, traceData.getNumTraces());
+      assertEquals(numSamples, traceData.getNumSamples());
+      assertEquals(zStart + (numSamples - 1) * zDelta, traceData.getEndZ());
+      assertEquals(Trace.Status.Missing, traceData.getStatus(1));
+      assertEquals(2.0, traceData.getHeader(2).getDouble(TraceHeaderCatalog.X));
+
+      // The trace views share the buffer.
+      FloatBuffer view = traceData.getTraceBuffer(1);
+      assertEquals(numSamples, view.remaining());
+      assertEquals(5f, view.get(0));
+      view.put(0, -1);
+      assertEquals(-1f, buffer.get(5));
+      view.put(0, 5);
+
+      // The traces are created on demand from the buffer.
+      Trace trace = traceData.getTrace(2);
+      assertSame(trace, traceData.getTrace(2));
+      assertEquals(Trace.Status.Live, trace.getStatus());
+      assertEquals(10f, trace.getDataReference()[0]);
+      assertEquals(2.0, trace.getX());
+
+      float[] data = traceData.getData();
+      for (int k = 0; k < numTraces * numSamples; k++) {
+        assertEquals((float) k, data[k]);
+      }
+    }
+
+    // A heap array of exactly the right size is returned without copying.
+    float[] samples = new float[numTraces * numSamples];
+    TraceData traceData = new TraceData(samples, numSamples, zStart, zDelta, zUnit, statuses, headers);
+    assertSame(samples, traceData.getData());
+
+    // A buffer with too few samples is rejected.
+    try {
+      new TraceData(new float[numTraces * numSamples - 1], numSamples, zStart, zDelta, zUnit, statuses, headers);
+      fail("Constructor failed to throw a validation exception.");
+    } catch (IllegalArgumentException ex) {
+      // Success: the constructor should have thrown an exception.
+    }
+  }
 }
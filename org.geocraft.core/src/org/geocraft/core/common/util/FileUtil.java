@@ -11,6 +11,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
@@ -259,4 +262,47 @@ public class FileUtil {
       }
     }
   }
+
+  /**
+   * Releases the memory mapping of a buffer returned by <code>FileChannel.map</code>, without waiting
+   * for the buffer to be garbage collected. Until a mapping is released, the mapped file cannot be
+   * deleted or replaced on Windows.
+   * <p>
+   * The buffer, and every view of it, must not be accessed afterwards.
+   * 
+   * @param buffer the mapped buffer (not a duplicate or slice of it).
+   * @return <i>true</i> if the mapping was released; <i>false</i> if the buffer is not mapped or
+   *         this JVM does not allow mappings to be released.
+   */
+  public static boolean unmap(final ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect()) {
+      return false;
+    }
+    try {
+      // Java 9 and later.
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      return true;
+    } catch (NoSuchMethodException ex) {
+      // Java 8 and earlier, where the buffer has a cleaner.
+      try {
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+          return true;
+        }
+      } catch (Exception e) {
+        // The mapping is released when the buffer is garbage collected.
+      }
+      return false;
+    } catch (Exception ex) {
+      // The mapping is released when the buffer is garbage collected.
+      return false;
+    }
+  }
 }
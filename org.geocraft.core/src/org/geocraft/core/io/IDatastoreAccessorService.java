@@ -30,6 +30,16 @@ public interface IDatastoreAccessorService extends IMapperFactory {
    */
   void restoreEntityFromMapperModel(final MapperModel model);
 
+  /**
+   * Creates the import task that restores an entity from a mapper model,
+   * without running it. This allows the caller to restore many entities
+   * concurrently instead of joining one job per entity.
+   * 
+   * @param model the mapper model used to restore the entity.
+   * @return the import task initialized with the mapper model; or <i>null</i> if none found.
+   */
+  ImportTask createImportTask(final MapperModel model);
+
   /**
    * Creates a mapper model based on its class name.
    * This method loops thru the registered datastore accessors, comparing the
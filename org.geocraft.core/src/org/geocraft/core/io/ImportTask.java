@@ -10,6 +10,10 @@ import org.geocraft.core.model.mapper.MapperModel;
 
 /**
  * Defines the abstract base class used for all tasks that import data into the application.
+ * <p>
+ * Import tasks may run concurrently (e.g. when a session is restored), so a task that checks
+ * the repository for an existing entity before adding its own should do both while holding
+ * the lock of the repository.
  */
 public abstract class ImportTask extends RepositoryTask {
 
@@ -6,6 +6,14 @@ import java.io.Serializable;
 import org.geocraft.core.model.datatypes.HeaderEntry.Format;
 
 
+/**
+ * The values of a trace header, as defined by a header definition.
+ * <p>
+ * A header either owns its value arrays, or is a view of one of the headers stored
+ * column-wise in a <code>HeaderBlock</code>. In the latter case, the value at index
+ * <i>i</i> of the definition is stored at index <i>i * stride + offset</i> of the
+ * value arrays shared with the block.
+ */
 public class Header implements Serializable {
 
   /** The header definition containing the header entries. */
@@ -32,6 +40,12 @@ public class Header implements Serializable {
   /** The array of double values. */
   private final double[] _doubleValues;
 
+  /** The offset of the values of this header in the value arrays. */
+  private final int _offset;
+
+  /** The stride between the values of this header in the value arrays. */
+  private final int _stride;
+
   /**
    * Constructs a header with the given definition.
    * <p>
@@ -42,13 +56,15 @@ public class Header implements Serializable {
    */
   public Header(final HeaderDefinition headerDef) {
     _headerDef = headerDef;
-    _stringValues = new String[headerDef.getStringArraySize()];
-    _byteValues = new byte[headerDef.getByteArraySize()];
-    _shortValues = new short[headerDef.getShortArraySize()];
-    _intValues = new int[headerDef.getIntegerArraySize()];
-    _longValues = new long[headerDef.getLongArraySize()];
-    _floatValues = new float[headerDef.getFloatArraySize()];
-    _doubleValues = new double[headerDef.getDoubleArraySize()];
+    _stringValues = HeaderBlock.allocateStrings(headerDef.getStringArraySize());
+    _byteValues = HeaderBlock.allocateBytes(headerDef.getByteArraySize());
+    _shortValues = HeaderBlock.allocateShorts(headerDef.getShortArraySize());
+    _intValues = HeaderBlock.allocateIntegers(headerDef.getIntegerArraySize());
+    _longValues = HeaderBlock.allocateLongs(headerDef.getLongArraySize());
+    _floatValues = HeaderBlock.allocateFloats(headerDef.getFloatArraySize());
+    _doubleValues = HeaderBlock.allocateDoubles(headerDef.getDoubleArraySize());
+    _offset = 0;
+    _stride = 1;
   }
 
   public Header(final Header header) {
@@ -56,7 +72,44 @@ public class Header implements Serializable {
     copyFrom(header);
   }
 
+  /**
+   * Constructs a view of the header at the specified index of a header block.
+   * 
+   * @param block the header block.
+   * @param index the index of the header in the block.
+   */
+  Header(final HeaderBlock block, final int index) {
+    _headerDef = block.getHeaderDefinition();
+    _stringValues = block._stringValues;
+    _byteValues = block._byteValues;
+    _shortValues = block._shortValues;
+    _intValues = block._intValues;
+    _longValues = block._longValues;
+    _floatValues = block._floatValues;
+    _doubleValues = block._doubleValues;
+    _offset = index;
+    _stride = block.getNumHeaders();
+  }
+
+  /**
+   * Returns the index in the value arrays of the value at the given index of the header definition.
+   */
+  private int slot(final int index) {
+    return index * _stride + _offset;
+  }
+
   public void copyFrom(final Header header) {
+    // If the definitions are the same, then copy the values directly.
+    if (header.getHeaderDefinition() == _headerDef) {
+      copyValues(header._stringValues, header, _stringValues, _headerDef.getStringArraySize());
+      copyValues(header._byteValues, header, _byteValues, _headerDef.getByteArraySize());
+      copyValues(header._shortValues, header, _shortValues, _headerDef.getShortArraySize());
+      copyValues(header._intValues, header, _intValues, _headerDef.getIntegerArraySize());
+      copyValues(header._longValues, header, _longValues, _headerDef.getLongArraySize());
+      copyValues(header._floatValues, header, _floatValues, _headerDef.getFloatArraySize());
+      copyValues(header._doubleValues, header, _doubleValues, _headerDef.getDoubleArraySize());
+      return;
+    }
     for (HeaderEntry entry : header.getHeaderDefinition().getEntries()) {
       switch (entry.getFormat()) {
         case STRING:
@@ -84,148 +137,161 @@ public class Header implements Serializable {
     }
   }
 
+  /**
+   * Copies the values of one format from the given header, which has the same definition as this header.
+   */
+  private void copyValues(final Object source, final Header header, final Object target, final int numValues) {
+    if (header._stride == 1 && _stride == 1) {
+      System.arraycopy(source, header._offset, target, _offset, numValues);
+    } else {
+      for (int i = 0; i < numValues; i++) {
+        System.arraycopy(source, header.slot(i), target, slot(i), 1);
+      }
+    }
+  }
+
   public HeaderDefinition getHeaderDefinition() {
     return _headerDef;
   }
 
   public String getString(final HeaderEntry headerEntry) {
     int index = _headerDef.getStringIndex(headerEntry.getKey());
-    return _stringValues[index];
+    return _stringValues[slot(index)];
   }
 
   public byte getByte(final HeaderEntry headerEntry) {
     int index = _headerDef.getByteIndex(headerEntry.getKey());
-    return _byteValues[index];
+    return _byteValues[slot(index)];
   }
 
   public short getShort(final HeaderEntry headerEntry) {
     int index = _headerDef.getShortIndex(headerEntry.getKey());
-    return _shortValues[index];
+    return _shortValues[slot(index)];
   }
 
   public int getInteger(final HeaderEntry headerEntry) {
     int index = _headerDef.getIntegerIndex(headerEntry.getKey());
-    return _intValues[index];
+    return _intValues[slot(index)];
   }
 
   public long getLong(final HeaderEntry headerEntry) {
     int index = _headerDef.getLongIndex(headerEntry.getKey());
-    return _longValues[index];
+    return _longValues[slot(index)];
   }
 
   public float getFloat(final HeaderEntry headerEntry) {
     int index = _headerDef.getFloatIndex(headerEntry.getKey());
-    return _floatValues[index];
+    return _floatValues[slot(index)];
   }
 
   public double getDouble(final HeaderEntry headerEntry) {
     int index = _headerDef.getDoubleIndex(headerEntry.getKey());
-    return _doubleValues[index];
+    return _doubleValues[slot(index)];
   }
 
   public String getString(final String key) {
     int index = _headerDef.getStringIndex(key);
-    return _stringValues[index];
+    return _stringValues[slot(index)];
   }
 
   public byte getByte(final String key) {
     int index = _headerDef.getByteIndex(key);
-    return _byteValues[index];
+    return _byteValues[slot(index)];
   }
 
   public short getShort(final String key) {
     int index = _headerDef.getShortIndex(key);
-    return _shortValues[index];
+    return _shortValues[slot(index)];
   }
 
   public int getInteger(final String key) {
     int index = _headerDef.getIntegerIndex(key);
-    return _intValues[index];
+    return _intValues[slot(index)];
   }
 
   public long getLong(final String key) {
     int index = _headerDef.getLongIndex(key);
-    return _longValues[index];
+    return _longValues[slot(index)];
   }
 
   public float getFloat(final String key) {
     int index = _headerDef.getFloatIndex(key);
-    return _floatValues[index];
+    return _floatValues[slot(index)];
   }
 
   public double getDouble(final String key) {
     int index = _headerDef.getDoubleIndex(key);
-    return _doubleValues[index];
+    return _doubleValues[slot(index)];
   }
 
   public void putString(final HeaderEntry headerEntry, final String value) {
     int index = _headerDef.getStringIndex(headerEntry.getKey());
-    _stringValues[index] = value;
+    _stringValues[slot(index)] = value;
   }
 
   public void putByte(final HeaderEntry headerEntry, final byte value) {
     int index = _headerDef.getByteIndex(headerEntry.getKey());
-    _byteValues[index] = value;
+    _byteValues[slot(index)] = value;
   }
 
   public void putShort(final HeaderEntry headerEntry, final short value) {
     int index = _headerDef.getShortIndex(headerEntry.getKey());
-    _shortValues[index] = value;
+    _shortValues[slot(index)] = value;
   }
 
   public void putInteger(final HeaderEntry headerEntry, final int value) {
     int index = _headerDef.getIntegerIndex(headerEntry.getKey());
-    _intValues[index] = value;
+    _intValues[slot(index)] = value;
   }
 
   public void putLong(final HeaderEntry headerEntry, final long value) {
     int index = _headerDef.getLongIndex(headerEntry.getKey());
-    _longValues[index] = value;
+    _longValues[slot(index)] = value;
   }
 
   public void putFloat(final HeaderEntry headerEntry, final float value) {
     int index = _headerDef.getFloatIndex(headerEntry.getKey());
-    _floatValues[index] = value;
+    _floatValues[slot(index)] = value;
   }
 
   public void putDouble(final HeaderEntry headerEntry, final double value) {
     int index = _headerDef.getDoubleIndex(headerEntry.getKey());
-    _doubleValues[index] = value;
+    _doubleValues[slot(index)] = value;
   }
 
   public void putString(final String key, final String value) {
     int index = _headerDef.getStringIndex(key);
-    _stringValues[index] = value;
+    _stringValues[slot(index)] = value;
   }
 
   public void putByte(final String key, final byte value) {
     int index = _headerDef.getByteIndex(key);
-    _byteValues[index] = value;
+    _byteValues[slot(index)] = value;
   }
 
   public void putShort(final String key, final short value) {
     int index = _headerDef.getShortIndex(key);
-    _shortValues[index] = value;
+    _shortValues[slot(index)] = value;
   }
 
   public void putInteger(final String key, final int value) {
     int index = _headerDef.getIntegerIndex(key);
-    _intValues[index] = value;
+    _intValues[slot(index)] = value;
   }
 
   public void putLong(final String key, final long value) {
     int index = _headerDef.getLongIndex(key);
-    _longValues[index] = value;
+    _longValues[slot(index)] = value;
   }
 
   public void putFloat(final String key, final float value) {
     int index = _headerDef.getFloatIndex(key);
-    _floatValues[index] = value;
+    _floatValues[slot(index)] = value;
   }
 
   public void putDouble(final String key, final double value) {
     int index = _headerDef.getDoubleIndex(key);
-    _doubleValues[index] = value;
+    _doubleValues[slot(index)] = value;
   }
 
   public Object getValue(final String key) {
@@ -255,7 +321,7 @@ public class Header implements Serializable {
     int numElements = headerEntry.getNumElements();
     String[] values = new String[numElements];
     for (int i = 0; i < numElements; i++) {
-      values[i] = _stringValues[index + i];
+      values[i] = _stringValues[slot(index + i)];
     }
     return values;
   }
@@ -264,7 +330,7 @@ public class Header implements Serializable {
     int index = _headerDef.getStringIndex(headerEntry.getKey());
     int numElements = headerEntry.getNumElements();
     for (int i = 0; i < numElements; i++) {
-      _stringValues[index + i] = values[i];
+      _stringValues[slot(index + i)] = values[i];
     }
   }
 
@@ -273,7 +339,7 @@ public class Header implements Serializable {
     int numElements = headerEntry.getNumElements();
     byte[] values = new byte[numElements];
     for (int i = 0; i < numElements; i++) {
-      values[i] = _byteValues[index + i];
+      values[i] = _byteValues[slot(index + i)];
     }
     return values;
   }
@@ -282,7 +348,7 @@ public class Header implements Serializable {
     int index = _headerDef.getByteIndex(headerEntry.getKey());
     int numElements = headerEntry.getNumElements();
     for (int i = 0; i < numElements; i++) {
-      _byteValues[index + i] = values[i];
+      _byteValues[slot(index + i)] = values[i];
     }
   }
 
@@ -291,7 +357,7 @@ public class Header implements Serializable {
     int numElements = headerEntry.getNumElements();
     short[] values = new short[numElements];
     for (int i = 0; i < numElements; i++) {
-      values[i] = _shortValues[index + i];
+      values[i] = _shortValues[slot(index + i)];
     }
     return values;
   }
@@ -300,7 +366,7 @@ public class Header implements Serializable {
     int index = _headerDef.getShortIndex(headerEntry.getKey());
     int numElements = headerEntry.getNumElements();
     for (int i = 0; i < numElements; i++) {
-      _shortValues[index + i] = values[i];
+      _shortValues[slot(index + i)] = values[i];
     }
   }
 
@@ -309,7 +375,7 @@ public class Header implements Serializable {
     int numElements = headerEntry.getNumElements();
     int[] values = new int[numElements];
     for (int i = 0; i < numElements; i++) {
-      values[i] = _intValues[index + i];
+      values[i] = _intValues[slot(index + i)];
     }
     return values;
   }
@@ -318,7 +384,7 @@ public class Header implements Serializable {
     int index = _headerDef.getIntegerIndex(headerEntry.getKey());
     int numElements = headerEntry.getNumElements();
     for (int i = 0; i < numElements; i++) {
-      _intValues[index + i] = values[i];
+      _intValues[slot(index + i)] = values[i];
     }
   }
 
@@ -327,7 +393,7 @@ public class Header implements Serializable {
     int numElements = headerEntry.getNumElements();
     long[] values = new long[numElements];
     for (int i = 0; i < numElements; i++) {
-      values[i] = _longValues[index + i];
+      values[i] = _longValues[slot(index + i)];
     }
     return values;
   }
@@ -336,7 +402,7 @@ public class Header implements Serializable {
     int index = _headerDef.getLongIndex(headerEntry.getKey());
     int numElements = headerEntry.getNumElements();
     for (int i = 0; i < numElements; i++) {
-      _longValues[index + i] = values[i];
+      _longValues[slot(index + i)] = values[i];
     }
   }
 
@@ -345,7 +411,7 @@ public class Header implements Serializable {
     int numElements = headerEntry.getNumElements();
     float[] values = new float[numElements];
     for (int i = 0; i < numElements; i++) {
-      values[i] = _floatValues[index + i];
+      values[i] = _floatValues[slot(index + i)];
     }
     return values;
   }
@@ -354,7 +420,7 @@ public class Header implements Serializable {
     int index = _headerDef.getFloatIndex(headerEntry.getKey());
     int numElements = headerEntry.getNumElements();
     for (int i = 0; i < numElements; i++) {
-      _floatValues[index + i] = values[i];
+      _floatValues[slot(index + i)] = values[i];
     }
   }
 
@@ -363,7 +429,7 @@ public class Header implements Serializable {
     int numElements = headerEntry.getNumElements();
     double[] values = new double[numElements];
     for (int i = 0; i < numElements; i++) {
-      values[i] = _doubleValues[index + i];
+      values[i] = _doubleValues[slot(index + i)];
     }
     return values;
   }
@@ -372,7 +438,7 @@ public class Header implements Serializable {
     int index = _headerDef.getDoubleIndex(headerEntry.getKey());
     int numElements = headerEntry.getNumElements();
     for (int i = 0; i < numElements; i++) {
-      _doubleValues[index + i] = values[i];
+      _doubleValues[slot(index + i)] = values[i];
     }
   }
 
@@ -396,6 +462,16 @@ public class Header implements Serializable {
     return "";
   }
 
+  /**
+   * Replaces a view of a header block with a copy for serialization, so the block is not serialized.
+   */
+  protected Object writeReplace() {
+    if (_stride != 1 && getClass() == Header.class) {
+      return new Header(this);
+    }
+    return this;
+  }
+
   public static void main(final String[] args) {
     tester();
   }
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.core.model.datatypes;
+
+
+/**
+ * The headers of a block of traces, stored column-wise.
+ * <p>
+ * For each format, the values of all the headers are stored in a single primitive array,
+ * with the values of a given header entry stored contiguously for all the headers (i.e. the
+ * value at index <i>i</i> of the definition for header <i>h</i> is stored at index
+ * <i>i * numHeaders + h</i>). This requires only one array per format used by the definition,
+ * regardless of the number of headers, and allows a header entry to be copied in bulk for a
+ * range of headers.
+ * <p>
+ * The headers are accessed either directly by index and header entry, or through per-header
+ * views returned by <code>getHeader()</code>. The views share the arrays of the block, and are
+ * created once per index and then reused.
+ */
+public class HeaderBlock {
+
+  private static final String[] EMPTY_STRINGS = new String[0];
+
+  private static final byte[] EMPTY_BYTES = new byte[0];
+
+  private static final short[] EMPTY_SHORTS = new short[0];
+
+  private static final int[] EMPTY_INTEGERS = new int[0];
+
+  private static final long[] EMPTY_LONGS = new long[0];
+
+  private static final float[] EMPTY_FLOATS = new float[0];
+
+  private static final double[] EMPTY_DOUBLES = new double[0];
+
+  /** The header definition containing the header entries. */
+  private final HeaderDefinition _headerDef;
+
+  /** The number of headers in the block. */
+  private final int _numHeaders;
+
+  /** The column-wise arrays of values, shared with the header views. */
+  final String[] _stringValues;
+
+  final byte[] _byteValues;
+
+  final short[] _shortValues;
+
+  final int[] _intValues;
+
+  final long[] _longValues;
+
+  final float[] _floatValues;
+
+  final double[] _doubleValues;
+
+  /** The pool of header views, created on demand. */
+  private final Header[] _views;
+
+  /**
+   * Constructs a block of headers with the given definition, with all the values set to zero (or <i>null</i>).
+   *
+   * @param headerDef the header definition.
+   * @param numHeaders the number of headers.
+   */
+  public HeaderBlock(final HeaderDefinition headerDef, final int numHeaders) {
+    if (numHeaders < 0) {
+      throw new IllegalArgumentException("Invalid number of headers (" + numHeaders + ").");
+    }
+    _headerDef = headerDef;
+    _numHeaders = numHeaders;
+    _stringValues = allocateStrings(headerDef.getStringArraySize() * numHeaders);
+    _byteValues = allocateBytes(headerDef.getByteArraySize() * numHeaders);
+    _shortValues = allocateShorts(headerDef.getShortArraySize() * numHeaders);
+    _intValues = allocateIntegers(headerDef.getIntegerArraySize() * numHeaders);
+    _longValues = allocateLongs(headerDef.getLongArraySize() * numHeaders);
+    _floatValues = allocateFloats(headerDef.getFloatArraySize() * numHeaders);
+    _doubleValues = allocateDoubles(headerDef.getDoubleArraySize() * numHeaders);
+    _views = new Header[numHeaders];
+  }
+
+  /**
+   * Returns the header definition.
+   */
+  public HeaderDefinition getHeaderDefinition() {
+    return _headerDef;
+  }
+
+  /**
+   * Returns the number of headers in the block.
+   */
+  public int getNumHeaders() {
+    return _numHeaders;
+  }
+
+  /**
+   * Returns a view of the specified header. Changes to the view are reflected in the block, and vice versa.
+   *
+   * @param index the index of the header.
+   * @return the view of the header.
+   */
+  public synchronized Header getHeader(final int index) {
+    if (_views[index] == null) {
+      _views[index] = new Header(this, index);
+    }
+    return _views[index];
+  }
+
+  /**
+   * Returns views of all the headers.
+   */
+  public Header[] getHeaders() {
+    Header[] headers = new Header[_numHeaders];
+    for (int i = 0; i < _numHeaders; i++) {
+      headers[i] = getHeader(i);
+    }
+    return headers;
+  }
+
+  public String getString(final int index, final HeaderEntry headerEntry) {
+    return _stringValues[slot(_headerDef.getStringIndex(headerEntry.getKey()), index)];
+  }
+
+  public byte getByte(final int index, final HeaderEntry headerEntry) {
+    return _byteValues[slot(_headerDef.getByteIndex(headerEntry.getKey()), index)];
+  }
+
+  public short getShort(final int index, final HeaderEntry headerEntry) {
+    return _shortValues[slot(_headerDef.getShortIndex(headerEntry.getKey()), index)];
+  }
+
+  public int getInteger(final int index, final HeaderEntry headerEntry) {
+    return _intValues[slot(_headerDef.getIntegerIndex(headerEntry.getKey()), index)];
+  }
+
+  public long getLong(final int index, final HeaderEntry headerEntry) {
+    return _longValues[slot(_headerDef.getLongIndex(headerEntry.getKey()), index)];
+  }
+
+  public float getFloat(final int index, final HeaderEntry headerEntry) {
+    return _floatValues[slot(_headerDef.getFloatIndex(headerEntry.getKey()), index)];
+  }
+
+  public double getDouble(final int index, final HeaderEntry headerEntry) {
+    return _doubleValues[slot(_headerDef.getDoubleIndex(headerEntry.getKey()), index)];
+  }
+
+  public void putString(final int index, final HeaderEntry headerEntry, final String value) {
+    _stringValues[slot(_headerDef.getStringIndex(headerEntry.getKey()), index)] = value;
+  }
+
+  public void putByte(final int index, final HeaderEntry headerEntry, final byte value) {
+    _byteValues[slot(_headerDef.getByteIndex(headerEntry.getKey()), index)] = value;
+  }
+
+  public void putShort(final int index, final HeaderEntry headerEntry, final short value) {
+    _shortValues[slot(_headerDef.getShortIndex(headerEntry.getKey()), index)] = value;
+  }
+
+  public void putInteger(final int index, final HeaderEntry headerEntry, final int value) {
+    _intValues[slot(_headerDef.getIntegerIndex(headerEntry.getKey()), index)] = value;
+  }
+
+  public void putLong(final int index, final HeaderEntry headerEntry, final long value) {
+    _longValues[slot(_headerDef.getLongIndex(headerEntry.getKey()), index)] = value;
+  }
+
+  public void putFloat(final int index, final HeaderEntry headerEntry, final float value) {
+    _floatValues[slot(_headerDef.getFloatIndex(headerEntry.getKey()), index)] = value;
+  }
+
+  public void putDouble(final int index, final HeaderEntry headerEntry, final double value) {
+    _doubleValues[slot(_headerDef.getDoubleIndex(headerEntry.getKey()), index)] = value;
+  }
+
+  /**
+   * Returns the values of a single-element integer entry for all the headers.
+   *
+   * @param headerEntry the header entry.
+   * @return the array of values, one per header.
+   */
+  public int[] getIntegers(final HeaderEntry headerEntry) {
+    int[] values = new int[_numHeaders];
+    int start = _headerDef.getIntegerIndex(headerEntry.getKey()) * _numHeaders;
+    System.arraycopy(_intValues, start, values, 0, _numHeaders);
+    return values;
+  }
+
+  /**
+   * Returns the values of a single-element float entry for all the headers.
+   *
+   * @param headerEntry the header entry.
+   * @return the array of values, one per header.
+   */
+  public float[] getFloats(final HeaderEntry headerEntry) {
+    float[] values = new float[_numHeaders];
+    int start = _headerDef.getFloatIndex(headerEntry.getKey()) * _numHeaders;
+    System.arraycopy(_floatValues, start, values, 0, _numHeaders);
+    return values;
+  }
+
+  /**
+   * Returns the values of a single-element double entry for all the headers.
+   *
+   * @param headerEntry the header entry.
+   * @return the array of values, one per header.
+   */
+  public double[] getDoubles(final HeaderEntry headerEntry) {
+    double[] values = new double[_numHeaders];
+    int start = _headerDef.getDoubleIndex(headerEntry.getKey()) * _numHeaders;
+    System.arraycopy(_doubleValues, start, values, 0, _numHeaders);
+    return values;
+  }
+
+  /**
+   * Copies a range of headers to another block with the same definition.
+   * Each header entry is copied in bulk for the whole range.
+   *
+   * @param srcIndex the index of the first header to copy.
+   * @param block the destination block.
+   * @param dstIndex the index of the first header in the destination block.
+   * @param numHeaders the number of headers to copy.
+   */
+  public void copyTo(final int srcIndex, final HeaderBlock block, final int dstIndex, final int numHeaders) {
+    if (block.getHeaderDefinition() != _headerDef) {
+      throw new IllegalArgumentException("The header blocks must have the same header definition.");
+    }
+    if (srcIndex < 0 || srcIndex + numHeaders > _numHeaders || dstIndex < 0
+        || dstIndex + numHeaders > block.getNumHeaders()) {
+      throw new IndexOutOfBoundsException("Invalid range of headers to copy.");
+    }
+    if (numHeaders == 0) {
+      return;
+    }
+    copyColumns(_stringValues, srcIndex, block._stringValues, block, dstIndex, numHeaders, _headerDef
+        .getStringArraySize());
+    copyColumns(_byteValues, srcIndex, block._byteValues, block, dstIndex, numHeaders, _headerDef.getByteArraySize());
+    copyColumns(_shortValues, srcIndex, block._shortValues, block, dstIndex, numHeaders, _headerDef
+        .getShortArraySize());
+    copyColumns(_intValues, srcIndex, block._intValues, block, dstIndex, numHeaders, _headerDef
+        .getIntegerArraySize());
+    copyColumns(_longValues, srcIndex, block._longValues, block, dstIndex, numHeaders, _headerDef.getLongArraySize());
+    copyColumns(_floatValues, srcIndex, block._floatValues, block, dstIndex, numHeaders, _headerDef
+        .getFloatArraySize());
+    copyColumns(_doubleValues, srcIndex, block._doubleValues, block, dstIndex, numHeaders, _headerDef
+        .getDoubleArraySize());
+  }
+
+  /**
+   * Copies the values of the given header into the specified header of this block.
+   *
+   * @param index the index of the header to copy into.
+   * @param header the header to copy from.
+   */
+  public void copyFrom(final int index, final Header header) {
+    getHeader(index).copyFrom(header);
+  }
+
+  private void copyColumns(final Object source, final int srcIndex, final Object target, final HeaderBlock block,
+      final int dstIndex, final int numHeaders, final int numColumns) {
+    for (int i = 0; i < numColumns; i++) {
+      System.arraycopy(source, slot(i, srcIndex), target, block.slot(i, dstIndex), numHeaders);
+    }
+  }
+
+  /**
+   * Returns the index in the value arrays of a value of the specified header.
+   */
+  private int slot(final int valueIndex, final int index) {
+    if (index < 0 || index >= _numHeaders) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return valueIndex * _numHeaders + index;
+  }
+
+  static String[] allocateStrings(final int size) {
+    return size == 0 ? EMPTY_STRINGS : new String[size];
+  }
+
+  static byte[] allocateBytes(final int size) {
+    return size == 0 ? EMPTY_BYTES : new byte[size];
+  }
+
+  static short[] allocateShorts(final int size) {
+    return size == 0 ? EMPTY_SHORTS : new short[size];
+  }
+
+  static int[] allocateIntegers(final int size) {
+    return size == 0 ? EMPTY_INTEGERS : new int[size];
+  }
+
+  static long[] allocateLongs(final int size) {
+    return size == 0 ? EMPTY_LONGS : new long[size];
+  }
+
+  static float[] allocateFloats(final int size) {
+    return size == 0 ? EMPTY_FLOATS : new float[size];
+  }
+
+  static double[] allocateDoubles(final int size) {
+    return size == 0 ? EMPTY_DOUBLES : new double[size];
+  }
+}
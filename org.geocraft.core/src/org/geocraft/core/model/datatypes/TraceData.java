@@ -4,20 +4,43 @@
 package org.geocraft.core.model.datatypes;
 
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 
 
 /**
  * A collection of seismic traces, where each trace contains the same number of samples.
+ * <p>
+ * The collection is either backed by an array of traces, each with its own data array,
+ * or is <i>flat</i>, with the samples of all the traces stored contiguously in a single
+ * (heap or direct) float buffer, along with arrays of the trace statuses and headers.
+ * A flat collection lets a mapper read straight into one buffer, and lets renderers and
+ * algorithms access the samples through <code>getData()</code>, <code>getBuffer()</code>
+ * and <code>getTraceBuffer()</code> without copying them. The <code>Trace</code> objects
+ * of a flat collection are only created when requested by <code>getTrace()</code>, and hold
+ * copies of the samples, so changes to their data arrays are not reflected in the buffer.
  */
 public final class TraceData implements Serializable {
 
   /** The 1-d array of data for all the traces. */
   private float[] _data;
 
-  /** The array of traces. */
-  private final Trace[] _traces;
+  /** The array of traces, created on demand for a flat collection. */
+  private Trace[] _traces;
+
+  /** The samples of all the traces, for a flat collection; otherwise <i>null</i>. */
+  private transient FloatBuffer _samples;
+
+  /** The trace statuses, for a flat collection. */
+  private transient Trace.Status[] _statuses;
+
+  /** The trace headers, for a flat collection. */
+  private transient Header[] _headers;
 
   /** The number of samples per traces in the collection. */
   private final int _numSamples;
@@ -81,6 +104,87 @@ public final class TraceData implements Serializable {
     }
   }
 
+  /**
+   * Constructs a flat trace collection, with the samples of all the traces stored
+   * contiguously in the given buffer (the sample index varying fastest).
+   * <p>
+   * The buffer is not copied, so changes to it will be reflected in the collection.
+   * 
+   * @param samples the buffer containing the samples, starting at its current position.
+   * @param numSamples the number of samples per trace.
+   * @param zStart the start z value of the traces.
+   * @param zDelta the delta z value of the traces.
+   * @param zUnit the z unit of the traces.
+   * @param statuses the trace statuses.
+   * @param headers the trace headers.
+   */
+  public TraceData(final FloatBuffer samples, final int numSamples, final float zStart, final float zDelta,
+      final Unit zUnit, final Trace.Status[] statuses, final Header[] headers) {
+    // Validate that at least 1 trace is passed in.
+    if (statuses == null || statuses.length == 0) {
+      throw new IllegalArgumentException("No traces specified.");
+    }
+    if (headers == null || headers.length != statuses.length) {
+      throw new IllegalArgumentException("The number of headers must match the number of traces.");
+    }
+    if (samples.remaining() < statuses.length * numSamples) {
+      throw new IllegalArgumentException("The sample buffer contains " + samples.remaining() + " samples but "
+          + statuses.length * numSamples + " are required.");
+    }
+    _numTraces = statuses.length;
+    _numSamples = numSamples;
+    _zStart = zStart;
+    _zDelta = zDelta;
+    _zUnit = zUnit;
+    FloatBuffer slice = samples.slice();
+    slice.limit(_numTraces * _numSamples);
+    _samples = slice.slice();
+    _statuses = Arrays.copyOf(statuses, _numTraces);
+    _headers = Arrays.copyOf(headers, _numTraces);
+  }
+
+  /**
+   * Constructs a flat trace collection, with the samples of all the traces stored
+   * contiguously in the given array (the sample index varying fastest).
+   * <p>
+   * The array is not copied, so changes to it will be reflected in the collection.
+   * 
+   * @param samples the array containing the samples.
+   * @param numSamples the number of samples per trace.
+   * @param zStart the start z value of the traces.
+   * @param zDelta the delta z value of the traces.
+   * @param zUnit the z unit of the traces.
+   * @param statuses the trace statuses.
+   * @param headers the trace headers.
+   */
+  public TraceData(final float[] samples, final int numSamples, final float zStart, final float zDelta,
+      final Unit zUnit, final Trace.Status[] statuses, final Header[] headers) {
+    this(FloatBuffer.wrap(samples), numSamples, zStart, zDelta, zUnit, statuses, headers);
+  }
+
+  /**
+   * Allocates a buffer large enough for the samples of a flat trace collection.
+   * 
+   * @param numTraces the number of traces.
+   * @param numSamples the number of samples per trace.
+   * @param direct <i>true</i> to allocate a direct (off-heap) buffer; <i>false</i> to allocate a heap buffer.
+   * @return the buffer.
+   */
+  public static FloatBuffer allocateBuffer(final int numTraces, final int numSamples, final boolean direct) {
+    int numFloats = numTraces * numSamples;
+    if (direct) {
+      return ByteBuffer.allocateDirect(numFloats * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+    return FloatBuffer.allocate(numFloats);
+  }
+
+  /**
+   * Returns <i>true</i> if this trace collection stores the samples of all the traces in a single buffer.
+   */
+  public boolean isFlat() {
+    return _samples != null;
+  }
+
   /**
    * Returns the number of traces in this trace collection.
    * 
@@ -107,9 +211,76 @@ public final class TraceData implements Serializable {
    * @throws ArrayIndexOutOfBoundsException thrown if the index if out of bounds.
    */
   public Trace getTrace(final int index) {
+    if (_samples != null) {
+      return getFlatTrace(index);
+    }
     return _traces[index];
   }
 
+  /**
+   * Returns the status of the specified trace in this trace collection,
+   * without creating the trace of a flat collection.
+   * 
+   * @param index the index of the trace.
+   * @return the trace status.
+   */
+  public Trace.Status getStatus(final int index) {
+    if (_samples != null) {
+      return _statuses[index];
+    }
+    return _traces[index].getStatus();
+  }
+
+  /**
+   * Returns the header of the specified trace in this trace collection,
+   * without creating the trace of a flat collection.
+   * 
+   * @param index the index of the trace.
+   * @return the trace header.
+   */
+  public Header getHeader(final int index) {
+    if (_samples != null) {
+      return _headers[index];
+    }
+    return _traces[index].getHeader();
+  }
+
+  /**
+   * Returns a view of the samples of the specified trace.
+   * <p>
+   * No samples are copied, so changes to the view will be reflected in the trace collection.
+   * 
+   * @param index the index of the trace.
+   * @return a view of the samples of the trace.
+   */
+  public FloatBuffer getTraceBuffer(final int index) {
+    if (_samples != null) {
+      if (index < 0 || index >= _numTraces) {
+        throw new ArrayIndexOutOfBoundsException(index);
+      }
+      FloatBuffer view = _samples.duplicate();
+      view.position(index * _numSamples);
+      view.limit((index + 1) * _numSamples);
+      return view.slice();
+    }
+    return FloatBuffer.wrap(_traces[index].getDataReference());
+  }
+
+  /**
+   * Returns a view of the samples of all the traces in this collection, with the sample index varying fastest.
+   * <p>
+   * For a flat collection, no samples are copied and changes to the view will be reflected in the collection.
+   * Otherwise the view wraps the array returned by <code>getData()</code>.
+   * 
+   * @return a view of the samples of all the traces.
+   */
+  public FloatBuffer getBuffer() {
+    if (_samples != null) {
+      return _samples.duplicate();
+    }
+    return FloatBuffer.wrap(getData());
+  }
+
   /**
    * Returns an array of traces in this trace collection.
    * <p>
@@ -160,16 +331,54 @@ public final class TraceData implements Serializable {
    * @return the data of all the traces as a 1-D array.
    */
   public float[] getData() {
+    // For a flat collection backed by an array of exactly the right size, return the array itself.
+    if (_samples != null && _samples.hasArray() && _samples.arrayOffset() == 0
+        && _samples.array().length == _numTraces * _numSamples) {
+      return _samples.array();
+    }
+
     // If the 1-D data array has not yet been allocated, then allocate it.
     if (_data == null || _data.length != _numTraces * _numSamples) {
       _data = new float[_numTraces * _numSamples];
       // Copy the data from each of the traces into the 1-D array.
-      for (int i = 0; i < _traces.length; i++) {
-        System.arraycopy(_traces[i].getDataReference(), 0, _data, i * _numSamples, _numSamples);
+      if (_samples != null) {
+        FloatBuffer samples = _samples.duplicate();
+        samples.rewind();
+        samples.get(_data);
+      } else {
+        for (int i = 0; i < _traces.length; i++) {
+          System.arraycopy(_traces[i].getDataReference(), 0, _data, i * _numSamples, _numSamples);
+        }
       }
     }
 
     // Return the 1-D data array.
     return _data;
   }
+
+  /**
+   * Returns the specified trace of a flat collection, creating it on the first request.
+   * The trace contains a copy of the samples.
+   */
+  private synchronized Trace getFlatTrace(final int index) {
+    if (_traces == null) {
+      _traces = new Trace[_numTraces];
+    }
+    if (_traces[index] == null) {
+      float[] data = new float[_numSamples];
+      getTraceBuffer(index).get(data);
+      _traces[index] = new Trace(_zStart, _zDelta, _zUnit, data, _statuses[index], _headers[index]);
+    }
+    return _traces[index];
+  }
+
+  /**
+   * Creates the traces of a flat collection before serialization, since the buffer is not serializable.
+   */
+  private void writeObject(final ObjectOutputStream out) throws IOException {
+    if (_samples != null) {
+      getTraces();
+    }
+    out.defaultWriteObject();
+  }
 }
@@ -108,13 +108,21 @@ public class DatastoreAccessorService implements IDatastoreAccessorService {
   }
 
   public synchronized void restoreEntityFromMapperModel(final MapperModel model) {
+    ImportTask task = createImportTask(model);
+    if (task != null) {
+      TaskRunner.runTask(task, "Restoring " + model.getUniqueId(), TaskRunner.JOIN);
+    }
+  }
+
+  public ImportTask createImportTask(final MapperModel model) {
     for (IDatastoreAccessor dataAccessor : getDatastoreAccessors()) {
       if (model.getClass().getName().equals(dataAccessor.getMapperModelClassName(IOMode.INPUT))) {
         ImportTask task = dataAccessor.createImportTask();
         task.setMapperModel(model);
-        TaskRunner.runTask(task, "Restoring " + model.getUniqueId(), TaskRunner.JOIN);
+        return task;
       }
     }
+    return null;
   }
 
   public IMapper createMapper(final IMapper mapper, final MapperModel model, final String name) {
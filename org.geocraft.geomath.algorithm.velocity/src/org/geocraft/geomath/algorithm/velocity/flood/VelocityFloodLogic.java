@@ -198,152 +198,156 @@ public class VelocityFloodLogic {
 
     // Create a trace iterator for reading the input volume in the optimal direction.
     TraceIterator traceIterator = TraceIteratorFactory.create(inputVelocityVolume, areaOfInterest);
-    while (traceIterator.hasNext()) {
-      // Get the next trace collection.
-      TraceData traceDataIn = traceIterator.next();
-      Trace[] tracesIn = traceDataIn.getTraces();
-      // Allocate the output traces.
-      Trace[] tracesOut = new Trace[traceDataIn.getNumTraces()];
-
-      // Update the progress monitor message.
-      monitor.subTask(traceIterator.getMessage());
-
-      // Determine which traces are inside the area of interest
-      int numTraces = traceDataIn.getNumTraces();
-
-      // Loop thru the traces in the trace collection.
-      for (int i = 0; i < numTraces; i++) {
-
-        Trace trace = tracesIn[i];
-
-        // Make sure input trace is 'live' before processing.
-        if (trace.isLive()) {
-          double x = trace.getX();
-          double y = trace.getY();
-
-          boolean doFlood = true;
-
-          // Make sure x,y coordinates of the trace are found in the horizons.
-          boolean isValidXY = true;
-          for (int j = 0; j < zGrids.length; j++) {
-            Grid3d prop = zGrids[j];
-            GridGeometry3d geometry = prop.getGeometry();
-            double[] rowcol = geometry.transformXYToRowCol(x, y, true);
-            int row = (int) rowcol[0];
-            if (row < 0 || row > geometry.getNumRows()) {
-              isValidXY = false;
-            }
-            int col = (int) rowcol[1];
-            if (col < 0 || col > geometry.getNumColumns()) {
-              isValidXY = false;
-            }
-            rows[j] = row;
-            cols[j] = col;
-          }
+    try {
+      while (traceIterator.hasNext()) {
+        // Get the next trace collection.
+        TraceData traceDataIn = traceIterator.next();
+        Trace[] tracesIn = traceDataIn.getTraces();
+        // Allocate the output traces.
+        Trace[] tracesOut = new Trace[traceDataIn.getNumTraces()];
 
-          // determine the current velocity in the velocity horizon
-          if (isValidXY) {
-            if (velocityGrid != null) {
-              GridGeometry3d geometry = velocityGrid.getGeometry();
-              double[] res = geometry.transformXYToRowCol(x, y, true);
-              int row = (int) res[0];
-              if (row < 0 || row > geometry.getNumRows()) {
-                throw new Exception(
-                    "Cannot match x,y coordinates in the volume to the velocity horizon! x,y coordinates = " + x + ","
-                        + y);
-              }
-              int col = (int) res[1];
-              if (col < 0 || col > geometry.getNumColumns()) {
-                throw new Exception(
-                    "Cannot match x,y coordinates in the volume to the velocity horizon! x,y coordinates = " + x + ","
-                        + y);
-              }
-              float velocity = velocityGrid.getValueAtRowCol(row, col);
-              floodStrategy.setVelocity(velocity);
-            }
+        // Update the progress monitor message.
+        monitor.subTask(traceIterator.getMessage());
 
-            // Determine the current gradient in the gradient horizon.
-            if (gradientGrid != null) {
-              GridGeometry3d geometry = gradientGrid.getGeometry();
+        // Determine which traces are inside the area of interest
+        int numTraces = traceDataIn.getNumTraces();
+
+        // Loop thru the traces in the trace collection.
+        for (int i = 0; i < numTraces; i++) {
+
+          Trace trace = tracesIn[i];
+
+          // Make sure input trace is 'live' before processing.
+          if (trace.isLive()) {
+            double x = trace.getX();
+            double y = trace.getY();
+
+            boolean doFlood = true;
+
+            // Make sure x,y coordinates of the trace are found in the horizons.
+            boolean isValidXY = true;
+            for (int j = 0; j < zGrids.length; j++) {
+              Grid3d prop = zGrids[j];
+              GridGeometry3d geometry = prop.getGeometry();
               double[] rowcol = geometry.transformXYToRowCol(x, y, true);
               int row = (int) rowcol[0];
               if (row < 0 || row > geometry.getNumRows()) {
-                throw new Exception(
-                    "Cannot match x,y coordinates in the volume to the gradient horizon. x,y coordinates = " + x + ","
-                        + y);
+                isValidXY = false;
               }
               int col = (int) rowcol[1];
               if (col < 0 || col > geometry.getNumColumns()) {
-                throw new Exception(
-                    "Cannot match x,y coordinates in the volume to the gradient horizon. x,y coordinates = " + x + ","
-                        + y);
+                isValidXY = false;
               }
-              float gradient = gradientGrid.getValueAtRowCol(row, col);
-              floodStrategy.setGradient(gradient);
+              rows[j] = row;
+              cols[j] = col;
             }
 
-            // Determine the current reference depth in the reference horizon.
-            if (referenceDepthGrid != null) {
-              GridGeometry3d geometry = referenceDepthGrid.getGeometry();
-              double[] rowcol = geometry.transformXYToRowCol(x, y, true);
-              int row = (int) rowcol[0];
-              if (row < 0 || row > geometry.getNumRows()) {
-                throw new Exception(
-                    "Cannot match x,y coordinates in the volume to the reference horizon. x,y coordinates = " + x + ","
-                        + y);
+            // determine the current velocity in the velocity horizon
+            if (isValidXY) {
+              if (velocityGrid != null) {
+                GridGeometry3d geometry = velocityGrid.getGeometry();
+                double[] res = geometry.transformXYToRowCol(x, y, true);
+                int row = (int) res[0];
+                if (row < 0 || row > geometry.getNumRows()) {
+                  throw new Exception(
+                      "Cannot match x,y coordinates in the volume to the velocity horizon! x,y coordinates = " + x + ","
+                          + y);
+                }
+                int col = (int) res[1];
+                if (col < 0 || col > geometry.getNumColumns()) {
+                  throw new Exception(
+                      "Cannot match x,y coordinates in the volume to the velocity horizon! x,y coordinates = " + x + ","
+                          + y);
+                }
+                float velocity = velocityGrid.getValueAtRowCol(row, col);
+                floodStrategy.setVelocity(velocity);
               }
-              int col = (int) rowcol[1];
-              if (col < 0 || col > geometry.getNumColumns()) {
-                throw new Exception(
-                    "Cannot match x,y coordinates in the volume to the reference horizon. x,y coordinates = " + x + ","
-                        + y);
+
+              // Determine the current gradient in the gradient horizon.
+              if (gradientGrid != null) {
+                GridGeometry3d geometry = gradientGrid.getGeometry();
+                double[] rowcol = geometry.transformXYToRowCol(x, y, true);
+                int row = (int) rowcol[0];
+                if (row < 0 || row > geometry.getNumRows()) {
+                  throw new Exception(
+                      "Cannot match x,y coordinates in the volume to the gradient horizon. x,y coordinates = " + x + ","
+                          + y);
+                }
+                int col = (int) rowcol[1];
+                if (col < 0 || col > geometry.getNumColumns()) {
+                  throw new Exception(
+                      "Cannot match x,y coordinates in the volume to the gradient horizon. x,y coordinates = " + x + ","
+                          + y);
+                }
+                float gradient = gradientGrid.getValueAtRowCol(row, col);
+                floodStrategy.setGradient(gradient);
               }
-              float referenceDepth = referenceDepthGrid.getValueAtRowCol(row, col);
-              floodStrategy.setReferenceDepth(referenceDepth);
-            }
 
-            for (int j = 0; j < zGrids.length; j++) {
-              Grid3d prop = zGrids[j];
+              // Determine the current reference depth in the reference horizon.
+              if (referenceDepthGrid != null) {
+                GridGeometry3d geometry = referenceDepthGrid.getGeometry();
+                double[] rowcol = geometry.transformXYToRowCol(x, y, true);
+                int row = (int) rowcol[0];
+                if (row < 0 || row > geometry.getNumRows()) {
+                  throw new Exception(
+                      "Cannot match x,y coordinates in the volume to the reference horizon. x,y coordinates = " + x + ","
+                          + y);
+                }
+                int col = (int) rowcol[1];
+                if (col < 0 || col > geometry.getNumColumns()) {
+                  throw new Exception(
+                      "Cannot match x,y coordinates in the volume to the reference horizon. x,y coordinates = " + x + ","
+                          + y);
+                }
+                float referenceDepth = referenceDepthGrid.getValueAtRowCol(row, col);
+                floodStrategy.setReferenceDepth(referenceDepth);
+              }
 
-              float depth = prop.getValueAtRowCol(rows[j], cols[j]);
-              if (!prop.isNull(depth)) {
-                horizonRange[j] = depth;
-              } else {
-                // Do not flood if horizon has a null value.
-                // If ANY horizons are undefined we do nothing.
-                // This will need to be improved to handle flooding between more than 2 layers.
-                // One pair could be null but the next might not.
-                doFlood = false;
-                break;
+              for (int j = 0; j < zGrids.length; j++) {
+                Grid3d prop = zGrids[j];
+
+                float depth = prop.getValueAtRowCol(rows[j], cols[j]);
+                if (!prop.isNull(depth)) {
+                  horizonRange[j] = depth;
+                } else {
+                  // Do not flood if horizon has a null value.
+                  // If ANY horizons are undefined we do nothing.
+                  // This will need to be improved to handle flooding between more than 2 layers.
+                  // One pair could be null but the next might not.
+                  doFlood = false;
+                  break;
+                }
               }
+              // Do not flood if x,y is invalid
+            } else {
+              doFlood = false;
+            }
+
+            // Perform the flooding for the current trace
+            if (doFlood) {
+              tracesOut[i] = floodStrategy.flood(trace, horizonRange, logger);
+              floodingDone = true;
+            } else {
+              tracesOut[i] = new Trace(trace);
             }
-            // Do not flood if x,y is invalid
-          } else {
-            doFlood = false;
-          }
 
-          // Perform the flooding for the current trace
-          if (doFlood) {
-            tracesOut[i] = floodStrategy.flood(trace, horizonRange, logger);
-            floodingDone = true;
           } else {
-            tracesOut[i] = new Trace(trace);
+            // If trace is 'dead' or 'missing', simply pass along the input trace.
+            tracesOut[i] = trace;
           }
-
-        } else {
-          // If trace is 'dead' or 'missing', simply pass along the input trace.
-          tracesOut[i] = trace;
+        }
+        // Create an output trace collection and write it to the output volume.
+        TraceData traceDataOut = new TraceData(tracesOut);
+        outputVelocityVolume.putTraces(traceDataOut);
+
+        // Update the progress monitor.
+        monitor.worked(1);
+        if (monitor.isCanceled()) {
+          break;
         }
       }
-      // Create an output trace collection and write it to the output volume.
-      TraceData traceDataOut = new TraceData(tracesOut);
-      outputVelocityVolume.putTraces(traceDataOut);
-
-      // Update the progress monitor.
-      monitor.worked(1);
-      if (monitor.isCanceled()) {
-        break;
-      }
+    } finally {
+      traceIterator.cancel();
     }
     if (!floodingDone) {
       throw new Exception("No flooding done! The x,y coordinates in the horizon do not match the volume");
@@ -259,72 +259,76 @@ public class VolumeCascade3d extends StandaloneAlgorithm {
       TraceIterator traceIterator = TraceIteratorFactory.create(inputVolume, areaOfInterest);
 
       int completionOld = 0;
-      while (traceIterator.hasNext()) {
-        TraceData traceData = traceIterator.next();
-        Trace[] inputTraces = traceData.getTraces();
-
-        int numTraces = traceData.getNumTraces();
-        float[] inlines = new float[numTraces];
-        float[] xlines = new float[numTraces];
-        for (int i = 0; i < numTraces; i++) {
-          inlines[i] = inputTraces[i].getInline();
-          xlines[i] = inputTraces[i].getXline();
-        }
-        Trace[] velocityTraces1 = velocityVolume1.getTraces(inlines, xlines, velocityVolume1.getZStart(),
-            velocityVolume1.getZEnd()).getTraces();
-        Trace[] velocityTraces2 = velocityVolume2.getTraces(inlines, xlines, velocityVolume2.getZStart(),
-            velocityVolume2.getZEnd()).getTraces();
-
-        Trace[] tracesd2t = new Trace[numTraces];
-        Trace[] tracest2d = new Trace[numTraces];
-        // Loop thru each of the input traces.
-        for (int i = 0; i < numTraces; i++) {
-
-          Trace inputTrace = inputTraces[i];
-          Trace velocityTrace1 = velocityTraces1[i];
-          Trace velocityTrace2 = velocityTraces2[i];
-
-          // Determine the current inline and xline.
-          float inline = inputTrace.getInline();
-          float xline = inputTrace.getXline();
-
-          // Make the conversion from depth to time
-          tracesd2t[i] = volumeStretch.convertTrace(inputTrace, velocityTrace1, inputDomain1, timeUnit,
-              conversionMethod, timeSampleRate, 0, maximumTime, velocityVolume1.getZDomain(), velocityUnit1);
-
-          // Add the 3d trace headers.
-          add3DTraceHeader(tracesd2t[i], inline, xline);
-
-          // Now Make the conversion from time to depth
-          tracest2d[i] = volumeStretch.convertTrace(tracesd2t[i], velocityTrace2, inputDomain2, depthUnit,
-              conversionMethod, depthSampleRate, 0, maximumDepth, velocityVolume2.getZDomain(), velocityUnit2);
+      try {
+        while (traceIterator.hasNext()) {
+          TraceData traceData = traceIterator.next();
+          Trace[] inputTraces = traceData.getTraces();
+
+          int numTraces = traceData.getNumTraces();
+          float[] inlines = new float[numTraces];
+          float[] xlines = new float[numTraces];
+          for (int i = 0; i < numTraces; i++) {
+            inlines[i] = inputTraces[i].getInline();
+            xlines[i] = inputTraces[i].getXline();
+          }
+          Trace[] velocityTraces1 = velocityVolume1.getTraces(inlines, xlines, velocityVolume1.getZStart(),
+              velocityVolume1.getZEnd()).getTraces();
+          Trace[] velocityTraces2 = velocityVolume2.getTraces(inlines, xlines, velocityVolume2.getZStart(),
+              velocityVolume2.getZEnd()).getTraces();
+
+          Trace[] tracesd2t = new Trace[numTraces];
+          Trace[] tracest2d = new Trace[numTraces];
+          // Loop thru each of the input traces.
+          for (int i = 0; i < numTraces; i++) {
+
+            Trace inputTrace = inputTraces[i];
+            Trace velocityTrace1 = velocityTraces1[i];
+            Trace velocityTrace2 = velocityTraces2[i];
+
+            // Determine the current inline and xline.
+            float inline = inputTrace.getInline();
+            float xline = inputTrace.getXline();
+
+            // Make the conversion from depth to time
+            tracesd2t[i] = volumeStretch.convertTrace(inputTrace, velocityTrace1, inputDomain1, timeUnit,
+                conversionMethod, timeSampleRate, 0, maximumTime, velocityVolume1.getZDomain(), velocityUnit1);
+
+            // Add the 3d trace headers.
+            add3DTraceHeader(tracesd2t[i], inline, xline);
+
+            // Now Make the conversion from time to depth
+            tracest2d[i] = volumeStretch.convertTrace(tracesd2t[i], velocityTrace2, inputDomain2, depthUnit,
+                conversionMethod, depthSampleRate, 0, maximumDepth, velocityVolume2.getZDomain(), velocityUnit2);
+
+            // Add the 3d trace headers.
+            add3DTraceHeader(tracest2d[i], inline, xline);
+
+            // Update the progress monitor.
+            if (monitor.isCanceled()) {
+              break;
+            }
+          }
+          int completion = Math.round(traceIterator.getCompletion());
+          int work = completion - completionOld;
+          if (work > 0) {
+            monitor.worked(work);
+          }
+          completionOld = completion;
 
-          // Add the 3d trace headers.
-          add3DTraceHeader(tracest2d[i], inline, xline);
+          // Update the progress monitor message.
+          monitor.subTask(traceIterator.getMessage());
 
-          // Update the progress monitor.
-          if (monitor.isCanceled()) {
-            break;
+          // Write to the time volume 
+          if (saveTimeVolume) {
+            timeVolume.putTraces(new TraceData(tracesd2t));
           }
-        }
-        int completion = Math.round(traceIterator.getCompletion());
-        int work = completion - completionOld;
-        if (work > 0) {
-          monitor.worked(work);
-        }
-        completionOld = completion;
 
-        // Update the progress monitor message.
-        monitor.subTask(traceIterator.getMessage());
+          // Write the converted traces to the depth volume.
+          depthVolume.putTraces(new TraceData(tracest2d));
 
-        // Write to the time volume 
-        if (saveTimeVolume) {
-          timeVolume.putTraces(new TraceData(tracesd2t));
         }
-
-        // Write the converted traces to the depth volume.
-        depthVolume.putTraces(new TraceData(tracest2d));
-
+      } finally {
+        traceIterator.cancel();
       }
 
       // Close the input, velocity and output volumes.
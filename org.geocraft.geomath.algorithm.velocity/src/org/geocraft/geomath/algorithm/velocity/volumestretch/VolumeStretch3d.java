@@ -188,56 +188,60 @@ public class VolumeStretch3d extends StandaloneAlgorithm {
       TraceIterator traceIterator = TraceIteratorFactory.create(inputVolume, areaOfInterest);
 
       int completionOld = 0;
-      while (traceIterator.hasNext()) {
-        TraceData traceData = traceIterator.next();
-        Trace[] inputTraces = traceData.getTraces();
-
-        int numTraces = traceData.getNumTraces();
-        Trace[] tracesOut = new Trace[numTraces];
-        float[] inlines = new float[numTraces];
-        float[] xlines = new float[numTraces];
-        for (int i = 0; i < numTraces; i++) {
-          inlines[i] = inputTraces[i].getInline();
-          xlines[i] = inputTraces[i].getXline();
-        }
-        Trace[] velocityTraces = velocityVolume.getTraces(inlines, xlines, velocityVolume.getZStart(),
-            velocityVolume.getZEnd()).getTraces();
+      try {
+        while (traceIterator.hasNext()) {
+          TraceData traceData = traceIterator.next();
+          Trace[] inputTraces = traceData.getTraces();
+
+          int numTraces = traceData.getNumTraces();
+          Trace[] tracesOut = new Trace[numTraces];
+          float[] inlines = new float[numTraces];
+          float[] xlines = new float[numTraces];
+          for (int i = 0; i < numTraces; i++) {
+            inlines[i] = inputTraces[i].getInline();
+            xlines[i] = inputTraces[i].getXline();
+          }
+          Trace[] velocityTraces = velocityVolume.getTraces(inlines, xlines, velocityVolume.getZStart(),
+              velocityVolume.getZEnd()).getTraces();
 
-        // Loop thru each of the input traces.
-        for (int i = 0; i < numTraces; i++) {
+          // Loop thru each of the input traces.
+          for (int i = 0; i < numTraces; i++) {
 
-          Trace inputTrace = inputTraces[i];
-          Trace velocityTrace = velocityTraces[i];
+            Trace inputTrace = inputTraces[i];
+            Trace velocityTrace = velocityTraces[i];
 
-          // Determine the current inline and xline.
-          float inline = inputTrace.getInline();
-          float xline = inputTrace.getXline();
+            // Determine the current inline and xline.
+            float inline = inputTrace.getInline();
+            float xline = inputTrace.getXline();
 
-          // Convert the input trace.
-          tracesOut[i] = convertTrace(inputTrace, velocityTrace, inputVolume.getZDomain(), outputVolume.getZUnit(),
-              conversionMethod, sampleRate, 0, maximumTimeOrDepth, velocityVolume.getZDomain(), velocityUnit);
+            // Convert the input trace.
+            tracesOut[i] = convertTrace(inputTrace, velocityTrace, inputVolume.getZDomain(), outputVolume.getZUnit(),
+                conversionMethod, sampleRate, 0, maximumTimeOrDepth, velocityVolume.getZDomain(), velocityUnit);
 
-          // Add the 3d trace headers.
-          add3DTraceHeader(tracesOut[i], inline, xline);
+            // Add the 3d trace headers.
+            add3DTraceHeader(tracesOut[i], inline, xline);
 
-          // Update the progress monitor.
-          if (monitor.isCanceled()) {
-            break;
+            // Update the progress monitor.
+            if (monitor.isCanceled()) {
+              break;
+            }
           }
-        }
-        int completion = Math.round(traceIterator.getCompletion());
-        int work = completion - completionOld;
-        if (work > 0) {
-          monitor.worked(work);
-        }
-        completionOld = completion;
+          int completion = Math.round(traceIterator.getCompletion());
+          int work = completion - completionOld;
+          if (work > 0) {
+            monitor.worked(work);
+          }
+          completionOld = completion;
 
-        // Update the progress monitor message.
-        monitor.subTask(traceIterator.getMessage());
+          // Update the progress monitor message.
+          monitor.subTask(traceIterator.getMessage());
 
-        // Write the converted traces to the output volume.
-        outputVolume.putTraces(new TraceData(tracesOut));
+          // Write the converted traces to the output volume.
+          outputVolume.putTraces(new TraceData(tracesOut));
 
+        }
+      } finally {
+        traceIterator.cancel();
       }
 
       // Close the input, velocity and output volumes.
@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.geomath.algorithm.volume.filter;
+
+
+/**
+ * Enumeration of the available frequency-domain filter types.
+ */
+public enum FilterType {
+  /** A zero-phase trapezoidal bandpass filter. */
+  BANDPASS("Bandpass"),
+  /** Convolution with a wavelet. */
+  WAVELET_SHAPING("Wavelet shaping"),
+  /** Deconvolution of a wavelet. */
+  DECONVOLUTION("Wavelet deconvolution");
+
+  private String _name;
+
+  FilterType(final String name) {
+    _name = name;
+  }
+
+  @Override
+  public String toString() {
+    return _name;
+  }
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.geomath.algorithm.volume.filter;
+
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.geocraft.algorithm.StandaloneAlgorithm;
+import org.geocraft.core.factory.model.PostStack3dFactory;
+import org.geocraft.core.model.DataSource;
+import org.geocraft.core.model.aoi.AreaOfInterest;
+import org.geocraft.core.model.datatypes.Domain;
+import org.geocraft.core.model.datatypes.Trace;
+import org.geocraft.core.model.datatypes.TraceData;
+import org.geocraft.core.model.datatypes.Unit;
+import org.geocraft.core.model.preferences.UnitPreferences;
+import org.geocraft.core.model.property.BooleanProperty;
+import org.geocraft.core.model.property.EntityProperty;
+import org.geocraft.core.model.property.EnumProperty;
+import org.geocraft.core.model.property.FloatProperty;
+import org.geocraft.core.model.property.IntegerProperty;
+import org.geocraft.core.model.property.StringProperty;
+import org.geocraft.core.model.seismic.PostStack3d;
+import org.geocraft.core.model.seismic.PostStack3d.StorageOrder;
+import org.geocraft.core.model.seismic.Wavelet;
+import org.geocraft.core.model.validation.IValidation;
+import org.geocraft.core.repository.IRepository;
+import org.geocraft.core.service.logging.ILogger;
+import org.geocraft.io.util.volume.IPipelineProcessor;
+import org.geocraft.io.util.volume.IPipelineReader;
+import org.geocraft.io.util.volume.IPipelineWriter;
+import org.geocraft.io.util.volume.PostStack3dBlockIterator;
+import org.geocraft.io.util.volume.TraceBlock3d;
+import org.geocraft.io.util.volume.TracePipeline;
+import org.geocraft.math.fft.SpectralFilter;
+import org.geocraft.ui.form2.FormSection;
+import org.geocraft.ui.form2.IModelForm;
+import org.geocraft.ui.form2.field.ComboField;
+import org.geocraft.ui.form2.field.EntityComboField;
+import org.geocraft.ui.form2.field.SpinnerField;
+import org.geocraft.ui.form2.field.TextField;
+
+
+/**
+ * Applies a frequency-domain filter (bandpass, wavelet shaping or wavelet deconvolution)
+ * to a <code>PostStack3d</code> volume.
+ * <p>
+ * The volume is streamed thru a <code>TracePipeline</code>: a block iterator reads the
+ * input an inline (or xline) at a time, the worker threads filter the blocks in batches
+ * thru a shared <code>SpectralFilter</code>, and a single writer puts the filtered traces
+ * into the output volume in read order.
+ */
+public class VolumeFilter3d extends StandaloneAlgorithm {
+
+  /** The maximum number of worker threads. */
+  private static final int MAX_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+  private static final String INPUT_VOLUME = "Input Volume";
+
+  private static final String OUTPUT_VOLUME_NAME = "Output Volume Name";
+
+  /** The input 3D volume. */
+  private EntityProperty<PostStack3d> _inputVolume;
+
+  /** The area-of-interest (optional). */
+  private EntityProperty<AreaOfInterest> _areaOfInterest;
+
+  /** The area-of-interest usage flag. */
+  private BooleanProperty _useAreaOfInterest;
+
+  /** The filter type. */
+  private EnumProperty<FilterType> _filterType;
+
+  /** The bandpass low-cut frequency (in Hz). */
+  private FloatProperty _lowCut;
+
+  /** The bandpass low-pass frequency (in Hz). */
+  private FloatProperty _lowPass;
+
+  /** The bandpass high-pass frequency (in Hz). */
+  private FloatProperty _highPass;
+
+  /** The bandpass high-cut frequency (in Hz). */
+  private FloatProperty _highCut;
+
+  /** The wavelet to shape with, or deconvolve. */
+  private EntityProperty<Wavelet> _wavelet;
+
+  /** The white noise (in percent) added when deconvolving. */
+  private FloatProperty _whiteNoise;
+
+  /** The number of workers (i.e. threads) to use. */
+  private IntegerProperty _numWorkers;
+
+  /** The output volume name. */
+  private StringProperty _outputVolumeName;
+
+  public VolumeFilter3d() {
+    _inputVolume = addEntityProperty(INPUT_VOLUME, PostStack3d.class);
+    _areaOfInterest = addEntityProperty("Area of Interest", AreaOfInterest.class);
+    _useAreaOfInterest = addBooleanProperty("Use Area of Interest", false);
+    _filterType = addEnumProperty("Filter Type", FilterType.class, FilterType.BANDPASS);
+    _lowCut = addFloatProperty("Low Cut (Hz)", 5);
+    _lowPass = addFloatProperty("Low Pass (Hz)", 10);
+    _highPass = addFloatProperty("High Pass (Hz)", 50);
+    _highCut = addFloatProperty("High Cut (Hz)", 60);
+    _wavelet = addEntityProperty("Wavelet", Wavelet.class);
+    _whiteNoise = addFloatProperty("White Noise (%)", 1);
+    _numWorkers = addIntegerProperty("# of Threads", MAX_THREADS);
+    _outputVolumeName = addStringProperty(OUTPUT_VOLUME_NAME, "filter");
+  }
+
+  @Override
+  public String[] getUnpickleKeyOrder() {
+    // Ensure that the input volume gets set before the output volume name.
+    return new String[] { INPUT_VOLUME, OUTPUT_VOLUME_NAME };
+  }
+
+  @Override
+  public void buildView(final IModelForm form) {
+    FormSection section = form.addSection("Input Data");
+
+    EntityComboField inputVolume = section.addEntityComboField(_inputVolume, PostStack3d.class);
+    inputVolume.setTooltip("The input volume (time domain)");
+
+    EntityComboField aoiField = section.addEntityComboField(_areaOfInterest, AreaOfInterest.class);
+    aoiField.showActiveFieldToggle(_useAreaOfInterest);
+
+    section = form.addSection("Filter");
+
+    ComboField filterType = section.addComboField(_filterType, FilterType.values());
+    filterType.setTooltip("The type of frequency-domain filter to apply");
+
+    TextField lowCut = section.addTextField(_lowCut);
+    lowCut.setTooltip("The frequency below which the bandpass response is 0");
+
+    TextField lowPass = section.addTextField(_lowPass);
+    lowPass.setTooltip("The frequency above which the bandpass response is 1");
+
+    TextField highPass = section.addTextField(_highPass);
+    highPass.setTooltip("The frequency below which the bandpass response is 1");
+
+    TextField highCut = section.addTextField(_highCut);
+    highCut.setTooltip("The frequency above which the bandpass response is 0");
+
+    EntityComboField wavelet = section.addEntityComboField(_wavelet, Wavelet.class);
+    wavelet.setTooltip("The wavelet to shape with, or deconvolve");
+    wavelet.setVisible(false);
+
+    TextField whiteNoise = section.addTextField(_whiteNoise);
+    whiteNoise.setTooltip("The white noise added to stabilize the deconvolution, as a percentage of the peak power");
+    whiteNoise.setVisible(false);
+
+    SpinnerField numThreads = section.addSpinnerField(_numWorkers, 1, MAX_THREADS, 0, 1);
+    numThreads.setTooltip("The number of worker threads.");
+
+    section = form.addSection("Output");
+
+    TextField outputVolumeName = section.addTextField(_outputVolumeName);
+    outputVolumeName.setTooltip("The name of the output volume");
+  }
+
+  public void propertyChanged(final String key) {
+    if (key.equals(_inputVolume.getKey())) {
+      // If the input volume is changed (and non-null), then auto-generate an output volume name.
+      if (!_inputVolume.isNull()) {
+        _outputVolumeName.set(_inputVolume.get().getDisplayName() + "_filter");
+      }
+    } else if (key.equals(_filterType.getKey())) {
+      FilterType filterType = _filterType.get();
+      boolean isBandpass = filterType == FilterType.BANDPASS;
+      setFieldVisible(_lowCut, isBandpass);
+      setFieldVisible(_lowPass, isBandpass);
+      setFieldVisible(_highPass, isBandpass);
+      setFieldVisible(_highCut, isBandpass);
+      setFieldVisible(_wavelet, !isBandpass);
+      setFieldVisible(_whiteNoise, filterType == FilterType.DECONVOLUTION);
+    }
+  }
+
+  public void validate(final IValidation results) {
+    // Validate the input volume.
+    if (_inputVolume.isNull()) {
+      results.error(_inputVolume, "No input volume specified.");
+    } else if (_inputVolume.get().getZDomain() != Domain.TIME) {
+      results.error(_inputVolume, "The input volume must be in the time domain.");
+    }
+
+    // Validate the AOI.
+    if (_useAreaOfInterest.get() && _areaOfInterest.isNull()) {
+      results.error(_areaOfInterest, "No area of interest specified.");
+    }
+
+    // Validate the filter parameters.
+    FilterType filterType = _filterType.get();
+    if (filterType == FilterType.BANDPASS) {
+      if (_lowCut.get() < 0) {
+        results.error(_lowCut, "The low cut frequency must be >= 0.");
+      }
+      if (_lowPass.get() < _lowCut.get()) {
+        results.error(_lowPass, "The low pass frequency must be >= the low cut frequency.");
+      }
+      if (_highPass.get() < _lowPass.get()) {
+        results.error(_highPass, "The high pass frequency must be >= the low pass frequency.");
+      }
+      if (_highCut.get() < _highPass.get()) {
+        results.error(_highCut, "The high cut frequency must be >= the high pass frequency.");
+      }
+      if (!_inputVolume.isNull() && _inputVolume.get().getZDomain() == Domain.TIME) {
+        float nyquist = 0.5f / getSampleInterval(_inputVolume.get());
+        if (_highCut.get() > nyquist) {
+          results.warning(_highCut, "The high cut frequency is above the Nyquist frequency (" + nyquist + " Hz).");
+        }
+      }
+    } else {
+      if (_wavelet.isNull()) {
+        results.error(_wavelet, "No wavelet specified.");
+      } else if (!_inputVolume.isNull()) {
+        float waveletInterval = Unit.convert(_wavelet.get().getTimeInterval(), UnitPreferences.getInstance()
+            .getTimeUnit(), _inputVolume.get().getZUnit());
+        float volumeInterval = _inputVolume.get().getZDelta();
+        if (Math.abs(waveletInterval - volumeInterval) > 0.001f * volumeInterval) {
+          results.error(_wavelet, "The wavelet sample rate (" + waveletInterval
+              + ") does not match the volume sample rate (" + volumeInterval + ").");
+        }
+      }
+      if (filterType == FilterType.DECONVOLUTION && _whiteNoise.get() <= 0) {
+        results.error(_whiteNoise, "The white noise must be > 0.");
+      }
+    }
+
+    // Validate there is at least 1 worker thread.
+    if (_numWorkers.get() < 1) {
+      results.error(_numWorkers, "Must have at least 1 worker thread.");
+    }
+
+    // Validate the output volume name.
+    if (_outputVolumeName.isEmpty()) {
+      results.error(_outputVolumeName, "No output volume name specified.");
+    } else {
+      if (!_inputVolume.isNull()) {
+        IStatus status = DataSource.validateName(_inputVolume.get(), _outputVolumeName.get());
+        if (!status.isOK()) {
+          results.setStatus(_outputVolumeName, status);
+        } else if (PostStack3dFactory.existsInStore(_inputVolume.get(), _outputVolumeName.get())) {
+          results.warning(_outputVolumeName, "Exists in datastore and will be overwritten.");
+        }
+      }
+    }
+  }
+
+  @Override
+  public void run(final IProgressMonitor monitor, final ILogger logger, final IRepository repository) {
+    // Unpack the properties.
+    PostStack3d inputVolume = _inputVolume.get();
+    AreaOfInterest aoi = _areaOfInterest.get();
+    if (!_useAreaOfInterest.get()) {
+      aoi = null;
+    }
+    int numWorkers = _numWorkers.get();
+    String outputVolumeName = _outputVolumeName.get();
+
+    try {
+      SpectralFilter filter = createFilter(inputVolume);
+      filterPostStack3d(inputVolume, aoi, filter, numWorkers, outputVolumeName, monitor, logger, repository);
+    } catch (Exception ex) {
+      throw new RuntimeException(ex.toString(), ex);
+    }
+  }
+
+  /**
+   * Creates the filter for the traces of the input volume, from the filter properties.
+   *
+   * @param inputVolume the input 3D volume.
+   * @return the filter.
+   */
+  private SpectralFilter createFilter(final PostStack3d inputVolume) {
+    int numSamples = inputVolume.getNumSamplesPerTrace();
+    FilterType filterType = _filterType.get();
+    if (filterType == FilterType.BANDPASS) {
+      return SpectralFilter.createBandpass(numSamples, getSampleInterval(inputVolume), _lowCut.get(), _lowPass.get(),
+          _highPass.get(), _highCut.get());
+    }
+    Wavelet wavelet = _wavelet.get();
+    float[] values = wavelet.getValues();
+    int zeroIndex = Math.round(-wavelet.getTimeStart() / wavelet.getTimeInterval());
+    zeroIndex = Math.max(0, Math.min(values.length - 1, zeroIndex));
+    if (filterType == FilterType.WAVELET_SHAPING) {
+      return SpectralFilter.createConvolution(numSamples, values, zeroIndex, true);
+    }
+    return SpectralFilter.createDeconvolution(numSamples, values, zeroIndex, _whiteNoise.get() / 100);
+  }
+
+  /**
+   * Filters a <code>PostStack3d</code> volume.
+   *
+   * @param inputVolume the input 3D volume.
+   * @param aoi the area-of-interest (null for none).
+   * @param filter the filter to apply to each trace.
+   * @param numWorkers the number of worker threads.
+   * @param outputVolumeName the output volume name.
+   * @param monitor the progress monitor.
+   * @param logger the logger.
+   * @param repository the data repository.
+   * @return the output volume.
+   */
+  public PostStack3d filterPostStack3d(final PostStack3d inputVolume, final AreaOfInterest aoi,
+      final SpectralFilter filter, final int numWorkers, final String outputVolumeName, final IProgressMonitor monitor,
+      final ILogger logger, final IRepository repository) throws Exception {
+    // Create an output volume based on the input volume.
+    final PostStack3d outputVolume = PostStack3dFactory.create(repository, inputVolume, outputVolumeName);
+
+    // Read the input a whole inline (or xline) at a time, in the preferred direction.
+    StorageOrder order = inputVolume.getPreferredOrder();
+    int numInlines = 1;
+    int numXlines = inputVolume.getNumXlines();
+    if (order == StorageOrder.XLINE_INLINE_Z || order == StorageOrder.Z_XLINE_INLINE) {
+      order = StorageOrder.XLINE_INLINE_Z;
+      numInlines = inputVolume.getNumInlines();
+      numXlines = 1;
+    } else {
+      order = StorageOrder.INLINE_XLINE_Z;
+    }
+    final PostStack3dBlockIterator iterator = new PostStack3dBlockIterator(inputVolume, order, aoi, numInlines,
+        numXlines, numInlines, numXlines, inputVolume.getZStart(), inputVolume.getZEnd());
+    iterator.setProgressMonitor(monitor);
+
+    // Initialize the progress monitor.
+    monitor.beginTask("Filtering \'" + inputVolume.getDisplayName() + "\'", iterator.getTotalWork());
+
+    IPipelineReader<TraceBlock3d> reader = new IPipelineReader<TraceBlock3d>() {
+
+      public TraceBlock3d read(final int sequence) {
+        return iterator.hasNext() ? iterator.next() : null;
+      }
+    };
+
+    IPipelineProcessor<TraceBlock3d, TraceData> processor = new IPipelineProcessor<TraceBlock3d, TraceData>() {
+
+      public TraceData process(final TraceBlock3d block) {
+        return filterBlock(block, filter);
+      }
+    };
+
+    IPipelineWriter<TraceData> writer = new IPipelineWriter<TraceData>() {
+
+      public void write(final int sequence, final TraceData traceData) {
+        outputVolume.putTraces(traceData);
+        monitor.worked(1);
+        monitor.subTask(iterator.getMessage());
+      }
+    };
+
+    TracePipeline<TraceBlock3d, TraceData> pipeline = new TracePipeline<TraceBlock3d, TraceData>("Volume Filter",
+        reader, 1, processor, numWorkers, writer, 1, 2 * numWorkers);
+    try {
+      pipeline.run(monitor);
+    } finally {
+      iterator.cancel();
+      logger.debug(pipeline.toString());
+
+      // Close the input and output volumes.
+      monitor.subTask("Closing volumes...");
+      inputVolume.close();
+      outputVolume.close();
+      monitor.done();
+    }
+    return outputVolume;
+  }
+
+  /**
+   * Filters the live traces in a block of traces. Dead and missing traces are passed thru,
+   * and the traces outside the area-of-interest are omitted.
+   *
+   * @param block the block of traces.
+   * @param filter the filter to apply to each trace.
+   * @return the filtered traces, or <i>null</i> if the block contains none.
+   */
+  private static TraceData filterBlock(final TraceBlock3d block, final SpectralFilter filter) {
+    Trace[][] tracesIn = block.getTraces(0);
+
+    // Gather the traces, and the data of the live ones.
+    int numTraces = 0;
+    int numLive = 0;
+    for (Trace[] traces : tracesIn) {
+      for (Trace trace : traces) {
+        if (trace != null) {
+          numTraces++;
+          if (trace.isLive()) {
+            numLive++;
+          }
+        }
+      }
+    }
+    if (numTraces == 0) {
+      return null;
+    }
+    Trace[] tracesOut = new Trace[numTraces];
+    float[][] data = new float[numLive][];
+    int traceIndex = 0;
+    int liveIndex = 0;
+    for (Trace[] traces : tracesIn) {
+      for (Trace trace : traces) {
+        if (trace != null) {
+          tracesOut[traceIndex++] = trace;
+          if (trace.isLive()) {
+            data[liveIndex++] = trace.getData();
+          }
+        }
+      }
+    }
+
+    // Filter the live traces as a batch.
+    filter.apply(data);
+
+    liveIndex = 0;
+    for (int i = 0; i < numTraces; i++) {
+      if (tracesOut[i].isLive()) {
+        tracesOut[i] = new Trace(tracesOut[i], data[liveIndex++]);
+      }
+    }
+    return new TraceData(tracesOut);
+  }
+
+  /**
+   * Returns the sample interval (in seconds) of a time-domain volume.
+   */
+  private static float getSampleInterval(final PostStack3d volume) {
+    return Unit.convert(volume.getZDelta(), volume.getZUnit(), Unit.SECOND);
+  }
+}
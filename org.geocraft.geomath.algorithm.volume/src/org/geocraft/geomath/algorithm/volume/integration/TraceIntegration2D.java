@@ -133,38 +133,42 @@ public class TraceIntegration2D extends TraceIntegration {
       // Create a trace iterator for the input volume.
       // The iterator with read in the optimal direction for the input volume.
       TraceIterator traceIterator = TraceIteratorFactory.create(inputVolume, aoi);
-      while (traceIterator.hasNext()) {
-        // Get the next trace collection from the iterator.
-        TraceData traceData = traceIterator.next();
-
-        // Get the array of input traces from the trace collection.
-        Trace[] tracesIn = traceData.getTraces();
-
-        // Allocate an array of output traces.
-        Trace[] tracesOut = new Trace[tracesIn.length];
-
-        // Loop thru the traces in the trace collection obtained from the iterator.
-        for (int i = 0; i < tracesIn.length; i++) {
-          if (tracesIn[i].isLive()) {
-            // If the trace is live, integrate it.
-            float[] tvals = integrateTrace(tracesIn[i], operatorLength);
-            tracesOut[i] = new Trace(tracesIn[i], tvals);
-          } else {
-            // Otherwise, simply pass it along.
-            tracesOut[i] = tracesIn[i];
+      try {
+        while (traceIterator.hasNext()) {
+          // Get the next trace collection from the iterator.
+          TraceData traceData = traceIterator.next();
+
+          // Get the array of input traces from the trace collection.
+          Trace[] tracesIn = traceData.getTraces();
+
+          // Allocate an array of output traces.
+          Trace[] tracesOut = new Trace[tracesIn.length];
+
+          // Loop thru the traces in the trace collection obtained from the iterator.
+          for (int i = 0; i < tracesIn.length; i++) {
+            if (tracesIn[i].isLive()) {
+              // If the trace is live, integrate it.
+              float[] tvals = integrateTrace(tracesIn[i], operatorLength);
+              tracesOut[i] = new Trace(tracesIn[i], tvals);
+            } else {
+              // Otherwise, simply pass it along.
+              tracesOut[i] = tracesIn[i];
+            }
+            // Update the progress monitor.
+            monitor.worked(1);
+            if (monitor.isCanceled()) {
+              break;
+            }
           }
-          // Update the progress monitor.
-          monitor.worked(1);
-          if (monitor.isCanceled()) {
-            break;
-          }
-        }
 
-        // Create a new trace collection and put it into the output volume.
-        outputVolume.putTraces(new TraceData(tracesOut));
+          // Create a new trace collection and put it into the output volume.
+          outputVolume.putTraces(new TraceData(tracesOut));
 
-        // Update the progress monitor message.
-        monitor.subTask(traceIterator.getMessage());
+          // Update the progress monitor message.
+          monitor.subTask(traceIterator.getMessage());
+        }
+      } finally {
+        traceIterator.cancel();
       }
 
       // Close the input and output volumes.
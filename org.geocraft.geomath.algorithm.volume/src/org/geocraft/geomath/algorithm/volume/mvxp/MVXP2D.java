@@ -239,58 +239,62 @@ public class MVXP2D extends StandaloneAlgorithm {
       TraceIterator traceIterator = TraceIteratorFactory.create(inputVolume, inputAOI);
       traceIterator.omitMissingTraces(true);
 
-      while (traceIterator.hasNext()) {
-        // Get the next trace collection from the iterator.
-        TraceData traceData = traceIterator.next();
+      try {
+        while (traceIterator.hasNext()) {
+          // Get the next trace collection from the iterator.
+          TraceData traceData = traceIterator.next();
 
-        // Get the array of input traces from the trace collection.
-        Trace[] tracesIn = traceData.getTraces();
+          // Get the array of input traces from the trace collection.
+          Trace[] tracesIn = traceData.getTraces();
 
-        // Allocate an array of output traces.
-        Trace[] tracesOut = new Trace[tracesIn.length];
+          // Allocate an array of output traces.
+          Trace[] tracesOut = new Trace[tracesIn.length];
 
-        cumulativeProgress = 100 * ivCount + (int) (traceIterator.getCompletion() / 3.0f);
-        if (cumulativeProgress > reportedProgress) {
-          monitor.worked(cumulativeProgress - reportedProgress);
-          reportedProgress = cumulativeProgress;
-        }
+          cumulativeProgress = 100 * ivCount + (int) (traceIterator.getCompletion() / 3.0f);
+          if (cumulativeProgress > reportedProgress) {
+            monitor.worked(cumulativeProgress - reportedProgress);
+            reportedProgress = cumulativeProgress;
+          }
 
-        monitor.subTask("Processing " + tracesIn.length + " traces from line " + inputVolume.getLineName() + " ...");
-
-        // Loop thru the traces in the trace collection obtained from the iterator.
-        for (int i = 0; i < tracesIn.length; i++) {
-          if (tracesIn[i].isLive()) {
-            // If the trace is live, run mvxp over the trace
-            float[] tvals = MVXP.mvxpTrace(tracesIn[i], iStartTime, iEndTime, windowLength, scaleFactor, clipFactor);
-            tracesOut[i] = new Trace(tracesIn[i], tvals);
-          } else {
-            // Otherwise, simply pass it along.
-            tracesOut[i] = tracesIn[i];
+          monitor.subTask("Processing " + tracesIn.length + " traces from line " + inputVolume.getLineName() + " ...");
+
+          // Loop thru the traces in the trace collection obtained from the iterator.
+          for (int i = 0; i < tracesIn.length; i++) {
+            if (tracesIn[i].isLive()) {
+              // If the trace is live, run mvxp over the trace
+              float[] tvals = MVXP.mvxpTrace(tracesIn[i], iStartTime, iEndTime, windowLength, scaleFactor, clipFactor);
+              tracesOut[i] = new Trace(tracesIn[i], tvals);
+            } else {
+              // Otherwise, simply pass it along.
+              tracesOut[i] = tracesIn[i];
+            }
           }
-        }
 
-        cumulativeProgress = 100 * ivCount + (int) (2.0f * traceIterator.getCompletion() / 3.0f);
-        if (cumulativeProgress > reportedProgress) {
-          monitor.worked(cumulativeProgress - reportedProgress);
-          reportedProgress = cumulativeProgress;
-        }
+          cumulativeProgress = 100 * ivCount + (int) (2.0f * traceIterator.getCompletion() / 3.0f);
+          if (cumulativeProgress > reportedProgress) {
+            monitor.worked(cumulativeProgress - reportedProgress);
+            reportedProgress = cumulativeProgress;
+          }
 
-        monitor.subTask("Writing " + tracesOut.length + " traces to line " + outputVolume.getLineName() + " ...");
+          monitor.subTask("Writing " + tracesOut.length + " traces to line " + outputVolume.getLineName() + " ...");
 
-        // Create a new trace collection and put it into the output volume.
-        outputVolume.putTraces(new TraceData(tracesOut));
+          // Create a new trace collection and put it into the output volume.
+          outputVolume.putTraces(new TraceData(tracesOut));
 
-        cumulativeProgress = 100 * ivCount + (int) traceIterator.getCompletion();
-        if (cumulativeProgress > reportedProgress) {
-          monitor.worked(cumulativeProgress - reportedProgress);
-          reportedProgress = cumulativeProgress;
-        }
+          cumulativeProgress = 100 * ivCount + (int) traceIterator.getCompletion();
+          if (cumulativeProgress > reportedProgress) {
+            monitor.worked(cumulativeProgress - reportedProgress);
+            reportedProgress = cumulativeProgress;
+          }
 
-        if (monitor.isCanceled()) {
-          break;
-        }
+          if (monitor.isCanceled()) {
+            break;
+          }
 
-        monitor.subTask("Reading traces from line " + inputVolume.getLineName() + " ...");
+          monitor.subTask("Reading traces from line " + inputVolume.getLineName() + " ...");
+        }
+      } finally {
+        traceIterator.cancel();
       }
 
       // Update the progress monitor.
@@ -10,6 +10,9 @@ import java.util.List;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.geocraft.algorithm.StandaloneAlgorithm;
+import org.geocraft.algorithm.thread.MultiThreadedAlgorithmWorker;
+import org.geocraft.algorithm.thread.PostStack3dDataSink;
+import org.geocraft.algorithm.thread.TraceIteratorDataSource;
 import org.geocraft.core.factory.model.PostStack3dFactory;
 import org.geocraft.core.model.DataSource;
 import org.geocraft.core.model.aoi.AreaOfInterest;
@@ -24,7 +27,8 @@ import org.geocraft.core.model.seismic.SeismicDataset.StorageFormat;
 import org.geocraft.core.model.validation.IValidation;
 import org.geocraft.core.repository.IRepository;
 import org.geocraft.core.service.logging.ILogger;
-import org.geocraft.io.util.TraceProducer;
+import org.geocraft.io.util.TraceIterator;
+import org.geocraft.io.util.TraceIteratorFactory;
 import org.geocraft.ui.form2.FormSection;
 import org.geocraft.ui.form2.IModelForm;
 import org.geocraft.ui.form2.field.ComboField;
@@ -229,7 +233,7 @@ public class MVXP3D extends StandaloneAlgorithm {
 
     try {
       mvxpPostStack3d(inputVolume, aoi, zStart, zEnd, windowLength, scaleFactor, clipFactor, numWorkers,
-          outputVolumeName, outputVolumeType, monitor, repository);
+          outputVolumeName, outputVolumeType, monitor, logger, repository);
     } catch (Exception ex) {
       throw new RuntimeException(ex.toString(), ex);
     }
@@ -249,12 +253,13 @@ public class MVXP3D extends StandaloneAlgorithm {
    * @param outputVolumeName the output volume name.
    * @param outputVolumeType the output volume type.
    * @param monitor the progress monitor.
+   * @param logger the logger.
    * @param repository the data repository.
    */
   public void mvxpPostStack3d(final PostStack3d inputVolume, final AreaOfInterest inputAOI, final double zStart,
       final double zEnd, final int windowLength, final float scaleFactor, final float clipFactor, final int numWorkers,
       final String outputVolumeName, final OutputVolumeType outputVolumeType, final IProgressMonitor monitor,
-      final IRepository repository) throws Exception {
+      final ILogger logger, final IRepository repository) throws Exception {
 
     // Create an output volume based on the input volume.
     StorageFormat storageFormat = StorageFormat.FLOAT_32;
@@ -286,27 +291,30 @@ public class MVXP3D extends StandaloneAlgorithm {
     int totalTraces = inputVolume.getNumInlines() * inputVolume.getNumXlines();
     monitor.beginTask("MVXP \'" + inputVolume.getDisplayName() + "\'", totalTraces);
 
-    // Create a trace iterator for the input volume.
-    TraceProducer producer = new TraceProducer(inputVolume, inputAOI, inputVolume.getPreferredOrder(), zStartVol,
-        zEndVol, true, 5);
-    List<Thread> workers = new ArrayList<Thread>();
+    // Create a data source reading from the input volume, and a data sink writing to the output volume.
+    // The data source is closed when the workers are done, which stops the reading ahead.
+    TraceIterator iterator = TraceIteratorFactory.create(inputVolume, inputAOI, inputVolume.getPreferredOrder(),
+        zStartVol, zEndVol);
+    iterator.prefetch(true);
+    TraceIteratorDataSource dataSource = new TraceIteratorDataSource(iterator, totalTraces);
+    PostStack3dDataSink dataSink = new PostStack3dDataSink(outputVolume);
+
+    // Run the workers until the input volume is exhausted.
+    List<MultiThreadedAlgorithmWorker> workers = new ArrayList<MultiThreadedAlgorithmWorker>();
     for (int i = 0; i < numWorkers; i++) {
-      MVXPWorker worker = new MVXPWorker(producer, outputVolume, zStartIndex, zEndIndex, windowLength, scaleFactor,
-          clipFactor, monitor);
-      Thread t = new Thread(worker);
-      workers.add(t);
-      t.start();
+      workers.add(new MVXPWorker(i, dataSource, dataSink, zStartIndex, zEndIndex, windowLength, scaleFactor,
+          clipFactor));
     }
-    // Wait for all the worker threads to finish.
-    for (int i = 0; i < numWorkers; i++) {
-      workers.get(i).join();
+    try {
+      runMultiThreadedSubTask("MVXP \'" + inputVolume.getDisplayName() + "\'", totalTraces, totalTraces, workers,
+          dataSource, logger, monitor);
+    } finally {
+      // Close the input and output volumes.
+      monitor.subTask("Closing volumes...");
+      inputVolume.close();
+      dataSink.close();
     }
 
-    // Close the input and output volumes.
-    monitor.subTask("Closing volumes...");
-    inputVolume.close();
-    outputVolume.close();
-
     monitor.done();
   }
 }
@@ -1,80 +1,72 @@
-/*
- * Copyright (C) ConocoPhillips 2008 All Rights Reserved. 
- */
-package org.geocraft.geomath.algorithm.volume.mvxp;
-
-
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.geocraft.core.common.math.MVXP;
-import org.geocraft.core.model.datatypes.Trace;
-import org.geocraft.core.model.datatypes.TraceData;
-import org.geocraft.core.model.seismic.PostStack3d;
-import org.geocraft.io.util.TraceConsumer;
-import org.geocraft.io.util.TraceProducer;
-
-
-public class MVXPWorker extends TraceConsumer {
-
-  /** The output 3D volume. */
-  private PostStack3d _outputVolume;
-
-  /** The starting z index. */
-  private int _zStartIndex;
-
-  /** The ending z index. */
-  private int _zEndIndex;
-
-  /** The window length (in samples). */
-  private int _windowLength;
-
-  /** The scaling factor. */
-  private float _scaleFactor;
-
-  /** The clipping factor. */
-  private float _clipFactor;
-
-  /** The progress monitor (shared across workers). */
-  private IProgressMonitor _monitor;
-
-  public MVXPWorker(final TraceProducer producer, final PostStack3d outputVolume, final int zStartIndex, final int zEndIndex, final int windowLength, final float scaleFactor, final float clipFactor, final IProgressMonitor monitor) {
-    super(producer);
-    _outputVolume = outputVolume;
-    _zStartIndex = zStartIndex;
-    _zEndIndex = zEndIndex;
-    _windowLength = windowLength;
-    _scaleFactor = scaleFactor;
-    _clipFactor = clipFactor;
-    _monitor = monitor;
-  }
-
-  @Override
-  public void processTraces(Trace[] tracesIn) {
-
-    // Allocate an array of output traces.
-    Trace[] tracesOut = new Trace[tracesIn.length];
-
-    // Loop thru the traces in the trace collection obtained from the iterator.
-    for (int i = 0; i < tracesIn.length; i++) {
-      if (tracesIn[i].isLive()) {
-        // If the trace is live, run mvxp over the trace
-        float[] tvals = MVXP.mvxpTrace(tracesIn[i], _zStartIndex, _zEndIndex, _windowLength, _scaleFactor, _clipFactor);
-        tracesOut[i] = new Trace(tracesIn[i], tvals);
-      } else {
-        // Otherwise, simply pass it along.
-        tracesOut[i] = tracesIn[i];
-      }
-      // Update the progress monitor.
-      _monitor.worked(1);
-      if (_monitor.isCanceled()) {
-        break;
-      }
-    }
-
-    // Create a new trace collection and put it into the output volume.
-    _outputVolume.putTraces(new TraceData(tracesOut));
-
-    // Update the progress monitor message.
-    _monitor.subTask(getMessage());
-  }
-
-}
+/*
+ * Copyright (C) ConocoPhillips 2008 All Rights Reserved. 
+ */
+package org.geocraft.geomath.algorithm.volume.mvxp;
+
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.geocraft.algorithm.thread.IDataSink;
+import org.geocraft.algorithm.thread.SourceSinkMultiThreadedAlgorithmWorker;
+import org.geocraft.algorithm.thread.TraceIteratorDataSource;
+import org.geocraft.core.common.math.MVXP;
+import org.geocraft.core.model.datatypes.Trace;
+import org.geocraft.core.model.datatypes.TraceData;
+
+
+public class MVXPWorker extends SourceSinkMultiThreadedAlgorithmWorker<TraceData, TraceData> {
+
+  /** The starting z index. */
+  private int _zStartIndex;
+
+  /** The ending z index. */
+  private int _zEndIndex;
+
+  /** The window length (in samples). */
+  private int _windowLength;
+
+  /** The scaling factor. */
+  private float _scaleFactor;
+
+  /** The clipping factor. */
+  private float _clipFactor;
+
+  public MVXPWorker(final int workerId, final TraceIteratorDataSource dataSource, final IDataSink<TraceData> dataSink, final int zStartIndex, final int zEndIndex, final int windowLength, final float scaleFactor, final float clipFactor) {
+    super(workerId, dataSource, dataSink);
+    _zStartIndex = zStartIndex;
+    _zEndIndex = zEndIndex;
+    _windowLength = windowLength;
+    _scaleFactor = scaleFactor;
+    _clipFactor = clipFactor;
+  }
+
+  @Override
+  public String getMessage() {
+    return ((TraceIteratorDataSource) _dataSource).getMessage();
+  }
+
+  @Override
+  protected TraceData process(final TraceData traceData, final IProgressMonitor monitor) {
+    Trace[] tracesIn = traceData.getTraces();
+
+    // Allocate an array of output traces.
+    Trace[] tracesOut = new Trace[tracesIn.length];
+
+    // Loop thru the traces in the trace collection obtained from the iterator.
+    for (int i = 0; i < tracesIn.length; i++) {
+      if (tracesIn[i].isLive()) {
+        // If the trace is live, run mvxp over the trace
+        float[] tvals = MVXP.mvxpTrace(tracesIn[i], _zStartIndex, _zEndIndex, _windowLength, _scaleFactor, _clipFactor);
+        tracesOut[i] = new Trace(tracesIn[i], tvals);
+      } else {
+        // Otherwise, simply pass it along.
+        tracesOut[i] = tracesIn[i];
+      }
+      // Update the progress monitor.
+      monitor.worked(1);
+    }
+
+    // Create a new trace collection to put into the output volume.
+    return new TraceData(tracesOut);
+  }
+
+}
@@ -199,55 +199,59 @@ public class VolumeCalc extends StandaloneAlgorithm {
 
       // Create a trace iterator to loop thru the volume in the most efficient direction.
       TraceIterator traceIterator = TraceIteratorFactory.create(inputVolume, areaOfInterest);
-      while (traceIterator.hasNext()) {
-        // Get the next collection of input traces.
-        TraceData traceDataIn = traceIterator.next();
-        Trace[] tracesIn = traceDataIn.getTraces();
-
-        // Allocate the output traces.
-        Trace[] tracesOut = new Trace[tracesIn.length];
-        for (int i = 0; i < tracesIn.length; i++) {
-          Trace traceIn = tracesIn[i];
-
-          // Make sure input trace as data before processing
-          if (traceIn.isLive()) {
-
-            // Get the x,y coordinates.
-            double x = traceIn.getX();
-            double y = traceIn.getY();
-
-            // Determine the b1 value.
-            float b1Value = b1Constant;
-            if (b1Grid != null) {
-              b1Value = getGridValue(b1Grid, x, y);
+      try {
+        while (traceIterator.hasNext()) {
+          // Get the next collection of input traces.
+          TraceData traceDataIn = traceIterator.next();
+          Trace[] tracesIn = traceDataIn.getTraces();
+
+          // Allocate the output traces.
+          Trace[] tracesOut = new Trace[tracesIn.length];
+          for (int i = 0; i < tracesIn.length; i++) {
+            Trace traceIn = tracesIn[i];
+
+            // Make sure input trace as data before processing
+            if (traceIn.isLive()) {
+
+              // Get the x,y coordinates.
+              double x = traceIn.getX();
+              double y = traceIn.getY();
+
+              // Determine the b1 value.
+              float b1Value = b1Constant;
+              if (b1Grid != null) {
+                b1Value = getGridValue(b1Grid, x, y);
+              }
+
+              // Determine the b2 value.
+              float b2Value = b2Constant;
+              if (b2Grid != null) {
+                b2Value = getGridValue(b2Grid, x, y);
+              }
+
+              // Calculate the output trace.
+              tracesOut[i] = calculateTrace(traceIn, b1Value, b2Value);
+
+            } else {
+              // Create a 'dead' or 'missing' trace.
+              tracesOut[i] = new Trace(traceIn, new float[traceIn.getNumSamples()]);
+              tracesOut[i].setStatus(traceIn.getStatus());
             }
 
-            // Determine the b2 value.
-            float b2Value = b2Constant;
-            if (b2Grid != null) {
-              b2Value = getGridValue(b2Grid, x, y);
+            // Update the progress monitor.
+            monitor.worked(1);
+            if (monitor.isCanceled()) {
+              break;
             }
-
-            // Calculate the output trace.
-            tracesOut[i] = calculateTrace(traceIn, b1Value, b2Value);
-
-          } else {
-            // Create a 'dead' or 'missing' trace.
-            tracesOut[i] = new Trace(traceIn, new float[traceIn.getNumSamples()]);
-            tracesOut[i].setStatus(traceIn.getStatus());
           }
+          // Update the progress monitor message.
+          monitor.subTask(traceIterator.getMessage());
 
-          // Update the progress monitor.
-          monitor.worked(1);
-          if (monitor.isCanceled()) {
-            break;
-          }
+          // Write the output traces to the output volume.
+          outputVolume.putTraces(new TraceData(tracesOut));
         }
-        // Update the progress monitor message.
-        monitor.subTask(traceIterator.getMessage());
-
-        // Write the output traces to the output volume.
-        outputVolume.putTraces(new TraceData(tracesOut));
+      } finally {
+        traceIterator.cancel();
       }
 
       // Close the input and output volumes.
@@ -69,22 +69,25 @@ public class AsciiAOILoadTask extends ImportTask {
     }
     monitor.worked(1);
 
-    // Check if AOI already exists in repository.
-    monitor.subTask("Checking repository");
-    ISpecification filter = new TypeSpecification(MapPolygonAOI.class);
-    Map<String, Object> map = repository.get(filter);
-    for (Object object : map.values()) {
-      MapPolygonAOI temp = (MapPolygonAOI) object;
-      if (aoiID.equals(temp.getUniqueID())) {
-        monitor.done();
-        throw new CoreException(new Status(IStatus.ERROR, "com.cop.spark.io.ascii", getAlreadyExistsErrorMessage(aoi)));
+    synchronized (repository) {
+      // Check if AOI already exists in repository.
+      monitor.subTask("Checking repository");
+      ISpecification filter = new TypeSpecification(MapPolygonAOI.class);
+      Map<String, Object> map = repository.get(filter);
+      for (Object object : map.values()) {
+        MapPolygonAOI temp = (MapPolygonAOI) object;
+        if (aoiID.equals(temp.getUniqueID())) {
+          monitor.done();
+          throw new CoreException(new Status(IStatus.ERROR, "com.cop.spark.io.ascii",
+              getAlreadyExistsErrorMessage(aoi)));
+        }
       }
-    }
-    monitor.worked(1);
+      monitor.worked(1);
 
-    // Add the AOI to the repository.
-    monitor.subTask("Adding AOI to repository");
-    repository.add(aoi);
+      // Add the AOI to the repository.
+      monitor.subTask("Adding AOI to repository");
+      repository.add(aoi);
+    }
     monitor.worked(1);
 
     // Task is done.
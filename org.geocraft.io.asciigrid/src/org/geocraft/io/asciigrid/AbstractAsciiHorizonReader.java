@@ -4,14 +4,13 @@
 package org.geocraft.io.asciigrid;
 
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.sql.Timestamp;
-import java.util.StringTokenizer;
+import java.util.Arrays;
 
 import org.geocraft.core.common.math.MathUtil;
-import org.geocraft.core.common.util.BufferedReaderFactory;
 import org.geocraft.core.model.datatypes.CoordinateSystem;
 import org.geocraft.core.model.datatypes.CornerPointsSeries;
 import org.geocraft.core.model.datatypes.Domain;
@@ -20,6 +19,9 @@ import org.geocraft.core.model.datatypes.Unit;
 import org.geocraft.core.model.geometry.GridGeometry3d;
 import org.geocraft.core.model.grid.Grid3d;
 import org.geocraft.core.service.ServiceProvider;
+import org.geocraft.io.util.AsciiColumnReader;
+import org.geocraft.io.util.AsciiNumberReader;
+import org.geocraft.io.util.SidecarCache;
 
 
 /**
@@ -48,123 +50,61 @@ public abstract class AbstractAsciiHorizonReader implements AsciiFileConstants {
   public float[][] readAsciiHorizon(final String filePath, final int startingLineNum, final int numOfHorizons,
       final int[] columnNums) throws IOException {
 
-    // Deterimine the # of lines in the file
-    int numOfLines = getNumOfLines(filePath, 0);
-
-    // Create the results array based on the # of lines of file
-    float[][] results = new float[numOfHorizons + 2][numOfLines];
-
-    // Create a buffered reader.
-    BufferedReader reader = BufferedReaderFactory.getBufferedReader(filePath);
-
-    int currentLineNum = 1;
-    int dataIndex = 0;
-    int xColNum = columnNums[0];
-    int yColNum = columnNums[1];
-
-    boolean endFlag = false;
-    String readLine = "";
-    while (!endFlag) {
-      // Read the next line
-      try {
-        // Create a buffered reader.
-        readLine = reader.readLine();
-      } catch (IOException ex) {
-        throw new IOException("Unable to read the Ascii file!  " + ex);
-      }
-
-      if (readLine != null) {
-        StringTokenizer tokenizer = new StringTokenizer(readLine);
-        if (currentLineNum >= startingLineNum && !readLine.startsWith("#")) {
-          int currentColNum = 1;
-          while (tokenizer.hasMoreTokens()) {
-            boolean tokenFound = false;
-            if (currentColNum == xColNum) {
-              float xVal = Float.parseFloat(tokenizer.nextToken());
-              results[0][dataIndex] = xVal;
-              tokenFound = true;
-            }
-            if (currentColNum == yColNum && !tokenFound) {
-              float yVal = Float.parseFloat(tokenizer.nextToken());
-              results[1][dataIndex] = yVal;
-              tokenFound = true;
-            }
-
-            for (int i1 = 0; i1 < numOfHorizons && !tokenFound; i1++) {
-              int colIndex = i1 + 2;
-              int horColNum = columnNums[colIndex];
-              if (currentColNum == horColNum) {
-                float horVal = Float.parseFloat(tokenizer.nextToken());
-                results[i1 + 2][dataIndex] = horVal;
-                tokenFound = true;
-              }
-              if (tokenFound) {
-                break;
-              }
-            }
-            // Skip column if token not found
-            if (!tokenFound) {
-              tokenizer.nextToken();
-            }
-            currentColNum++;
-          }
-          dataIndex++;
-        }
-        currentLineNum++;
-      } else {
-        endFlag = true;
-      }
+    // Use the columns cached from a previous read of the same file, if any.
+    File file = new File(filePath);
+    String cacheVariant = "AsciiHorizon " + startingLineNum + " " + Arrays.toString(columnNums);
+    SidecarCache.Entry entry = SidecarCache.read(file, cacheVariant);
+    if (entry != null && entry.getFloatArrays().length == numOfHorizons + 2) {
+      float[][] results = entry.getFloatArrays();
+      _numOfLines = results[0].length;
+      return results;
     }
 
-    // Close the input file.
+    // Map the file and parse the x, y and horizon columns (in parallel chunks for large files).
+    ByteBuffer buffer = AsciiNumberReader.map(file);
+    AsciiColumnReader columnReader = new AsciiColumnReader(startingLineNum, columnNums, false);
     try {
-      reader.close();
-    } catch (IOException ex) {
-      throw new IOException("Unable to close the Ascii file!  " + ex);
+      columnReader.read(buffer);
+    } catch (NumberFormatException ex) {
+      throw new IOException("Unable to read the Ascii file!  " + ex);
+    }
+    if (columnReader.getNumSkippedLines() > 0) {
+      ServiceProvider.getLoggingService().getLogger(getClass()).warn(
+          "Skipped " + columnReader.getNumSkippedLines() + " incomplete lines in the Ascii file " + filePath);
     }
 
+    // Create the results array based on the # of lines read
+    _numOfLines = columnReader.getNumRows();
+    float[][] results = new float[numOfHorizons + 2][];
+    for (int i = 0; i < results.length; i++) {
+      results[i] = columnReader.getFloatColumn(i);
+    }
+    SidecarCache.write(file, cacheVariant, results, new double[0][]);
+
     // return the results
     return results;
   }
 
   public int getNumOfLines(final String filePath, int maxLine) throws IOException {
 
-    // Create a buffered reader.
-    BufferedReader reader = BufferedReaderFactory.getBufferedReader(filePath);
+    // Map the file.
+    AsciiNumberReader reader = new AsciiNumberReader(AsciiNumberReader.map(new File(filePath)));
 
     int numOfLines = 0;
-    boolean endFlag = false;
-    String readLine = "";
-    while (!endFlag) {
-      // Read the next line
-      try {
-        readLine = reader.readLine();
-      } catch (IOException ex) {
-        throw new IOException("Unable to read the Ascii file!  " + ex);
+    while (reader.hasMoreLines()) {
+      // Stop reading if maximum line has been reached
+      if (maxLine > 0 && numOfLines >= maxLine) {
+        return numOfLines;
       }
-
-      if (readLine != null) {
-        // Stop reading if maximum line has been reached
-        if (maxLine > 0 && numOfLines >= maxLine) {
-          endFlag = true;
-          // Don't count the lines with comments          
-        } else if (!readLine.startsWith("#")) {
-          numOfLines++;
-        }
-        // Assume we are at the end of the file
-      } else {
-        endFlag = true;
-        _numOfLines = numOfLines;
+      // Don't count the lines with comments
+      if (!reader.lineStartsWith("#")) {
+        numOfLines++;
       }
+      reader.nextLine();
     }
 
-    // Close the input file.
-    try {
-      reader.close();
-    } catch (IOException ex) {
-      throw new IOException("Unable to close the Ascii file! " + ex);
-    }
-
+    // Assume we are at the end of the file
+    _numOfLines = numOfLines;
     return numOfLines;
   }
 
@@ -4,16 +4,10 @@
 package org.geocraft.io.asciipointset;
 
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.StringTokenizer;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -23,6 +17,8 @@ import org.geocraft.core.model.datatypes.Domain;
 import org.geocraft.core.model.datatypes.Point3d;
 import org.geocraft.core.model.mapper.MapperModel;
 import org.geocraft.core.service.ServiceProvider;
+import org.geocraft.io.util.AsciiColumnReader;
+import org.geocraft.io.util.AsciiNumberReader;
 
 
 public class AsciiPointSetMapper extends AbstractMapper<PointSet> {
@@ -72,18 +68,11 @@ public class AsciiPointSetMapper extends AbstractMapper<PointSet> {
       throw new RuntimeException("Cannot read pointset file: " + filePath);
     }
 
-    // TODO: Need to design this such that we don't have to read the file
-    // twice.
-    int numLines = getNumberOfLines(file, monitor);
+    ByteBuffer buffer = AsciiNumberReader.map(file);
 
     monitor.worked(9);
 
-    BufferedReader reader = createBufferedReader(file);
-    loadPoints(pointSet, domain, reader, numLines, monitor);
-    reader.close();
-
-    reader = createBufferedReader(file);
-    reader.close();
+    loadPoints(pointSet, domain, buffer, monitor);
 
     pointSet.setLastModifiedDate(new Timestamp(file.lastModified()));
     pointSet.setDirty(false);
@@ -99,92 +88,41 @@ public class AsciiPointSetMapper extends AbstractMapper<PointSet> {
     return new AsciiPointSetMapperModel(_model);
   }
 
-  private int getNumberOfLines(final File file, final IProgressMonitor monitor) throws IOException {
-    int numLines = 0;
-    BufferedReader reader = createBufferedReader(file);
-    while (reader.readLine() != null) {
-      numLines++;
-    }
-    reader.close();
-    return numLines;
-  }
-
-  private BufferedReader createBufferedReader(final File file) throws FileNotFoundException {
-    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
-    return reader;
-  }
-
-  protected void loadPoints(final PointSet pointSet, final Domain domain, final BufferedReader reader,
-      final int numLines, final IProgressMonitor monitor) throws IOException {
+  protected void loadPoints(final PointSet pointSet, final Domain domain, final ByteBuffer buffer,
+      final IProgressMonitor monitor) {
 
     AsciiPointSetMapperModel mapper = _model;
     if (mapper == null) {
       throw new RuntimeException("The task for loading the Ascii file has not been initialized.");
     }
 
-    List<Point3d> points = new ArrayList<Point3d>();
-
     int startingLineNum = mapper.getStartingLineNum();
     int xColNumber = mapper.getXcolumnNum();
     int yColNumber = mapper.getYcolumnNum();
     int zColNumber = mapper.getZcolumnNum();
 
-    int prevWorked = 0;
-    for (int i = 0; i < numLines; i++) {
-      int currentLineNum = i + 1;
-      String line = reader.readLine();
-      if (line != null) {
-        StringTokenizer tokenizer = new StringTokenizer(line);
-        if (currentLineNum >= startingLineNum && !line.startsWith("#")) {
-          int currentColNum = 1;
-          int numTokensFound = 0;
-          double xVal = 0;
-          double yVal = 0;
-          double zVal = 0;
-          while (tokenizer.hasMoreTokens()) {
-            boolean tokenFound = false;
-            if (currentColNum == xColNumber) {
-              xVal = Double.parseDouble(tokenizer.nextToken());
-              tokenFound = true;
-              numTokensFound++;
-            }
-            if (currentColNum == yColNumber && !tokenFound) {
-              yVal = Double.parseDouble(tokenizer.nextToken());
-              tokenFound = true;
-              numTokensFound++;
-            }
-            if (currentColNum == zColNumber && !tokenFound) {
-              zVal = Double.parseDouble(tokenizer.nextToken());
-              tokenFound = true;
-              numTokensFound++;
-            }
-
-            // Skip column if token not found
-            if (!tokenFound) {
-              tokenizer.nextToken();
-            }
-            currentColNum++;
-          }
-          if (numTokensFound == 3) {
-            Point3d pt = new Point3d(xVal, yVal, zVal);
-            pointSet.addPoint(pt);
-          } else {
-            ServiceProvider.getLoggingService().getLogger(getClass())
-                .error("Could not parse record #" + currentLineNum);
-            System.out.println("Could not parse record #" + currentLineNum);
-          }
-        }
-      } else {
-        ServiceProvider.getLoggingService().getLogger(getClass()).error("Could not parse record #" + currentLineNum);
-        System.out.println("Could not parse record #" + currentLineNum);
-      }
+    // Parse the x,y,z columns (in parallel chunks for large files).
+    monitor.subTask("Reading points...");
+    AsciiColumnReader columnReader = new AsciiColumnReader(startingLineNum, new int[] { xColNumber, yColNumber,
+        zColNumber }, true);
+    columnReader.read(buffer);
+    if (columnReader.getNumSkippedLines() > 0) {
+      ServiceProvider.getLoggingService().getLogger(getClass()).error(
+          "Could not parse " + columnReader.getNumSkippedLines() + " records");
+    }
+    monitor.worked(20);
 
+    double[] xs = columnReader.getDoubleColumn(0);
+    double[] ys = columnReader.getDoubleColumn(1);
+    double[] zs = columnReader.getDoubleColumn(2);
+    int numPoints = columnReader.getNumRows();
+    int prevWorked = 0;
+    for (int i = 0; i < numPoints; i++) {
+      pointSet.addPoint(new Point3d(xs[i], ys[i], zs[i]));
       if (i % 1000 == 0) {
-        int currentWorked = 45 * i / numLines;
-        int worked = currentWorked - prevWorked;
+        int currentWorked = 25 * i / numPoints;
+        monitor.worked(currentWorked - prevWorked);
         prevWorked = currentWorked;
-        monitor.worked(worked);
-        monitor.subTask("Reading points...");
       }
     }
     pointSet.setDirty(false);
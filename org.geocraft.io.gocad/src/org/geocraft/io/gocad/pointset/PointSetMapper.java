@@ -4,16 +4,12 @@
 package org.geocraft.io.gocad.pointset;
 
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -22,12 +18,12 @@ import org.geocraft.core.model.PointSet;
 import org.geocraft.core.model.PointSetAttribute;
 import org.geocraft.core.model.PointSetAttribute.Type;
 import org.geocraft.core.model.datatypes.Domain;
-import org.geocraft.core.model.datatypes.MultiPoint;
 import org.geocraft.core.model.datatypes.Point3d;
 import org.geocraft.core.model.datatypes.Unit;
 import org.geocraft.core.model.mapper.MapperModel;
 import org.geocraft.core.model.preferences.UnitPreferences;
 import org.geocraft.core.service.ServiceProvider;
+import org.geocraft.io.util.AsciiNumberReader;
 
 
 public class PointSetMapper extends AbstractMapper<PointSet> {
@@ -80,14 +76,11 @@ public class PointSetMapper extends AbstractMapper<PointSet> {
       throw new RuntimeException("Cannot read pointset file: " + filePath);
     }
 
-    // TODO: Need to design this such that we don't have to read the file twice.
-    int numLines = getNumberOfLines(file, monitor);
+    ByteBuffer buffer = AsciiNumberReader.map(file);
 
     monitor.worked(9);
 
-    BufferedReader reader = createBufferedReader(file);
-    String[] propertyNames = loadPoints(pointSet, reader, numLines, monitor);
-    reader.close();
+    loadPoints(pointSet, buffer, monitor);
 
     pointSet.setLastModifiedDate(new Timestamp(file.lastModified()));
     pointSet.setDirty(false);
@@ -103,56 +96,58 @@ public class PointSetMapper extends AbstractMapper<PointSet> {
     return new PointSetMapperModel(_model);
   }
 
-  private int getNumberOfLines(final File file, final IProgressMonitor monitor) throws IOException {
-    int numLines = 0;
-    BufferedReader reader = createBufferedReader(file);
-    while (reader.readLine() != null) {
-      numLines++;
-    }
-    reader.close();
-    return numLines;
-  }
-
-  private BufferedReader createBufferedReader(final File file) throws FileNotFoundException {
-    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
-    return reader;
-  }
-
-  protected String[] loadPoints(final PointSet pointSet, final BufferedReader reader, final int numLines,
-      final IProgressMonitor monitor) throws IOException {
+  protected String[] loadPoints(final PointSet pointSet, final ByteBuffer buffer, final IProgressMonitor monitor) {
 
-    List<Point3d> points = new ArrayList<Point3d>();
+    Unit xyUnitApp = UnitPreferences.getInstance().getHorizontalDistanceUnit();
+    Unit zUnitApp = UnitPreferences.getInstance().getTimeUnit();
+    Unit xyUnit = _model.getXYUnit();
+    Unit zUnit = _model.getZUnit();
+    Domain zDomain = zUnit.getDomain();
+    if (zDomain == Domain.DISTANCE) {
+      zUnitApp = UnitPreferences.getInstance().getVerticalDistanceUnit();
+    }
 
     List<String> propertyNames = new ArrayList<String>();
+    PointSetAttribute[] attributes = getAttributes(pointSet);
 
+    // Scan the records in place, without reading them into strings.
+    AsciiNumberReader reader = new AsciiNumberReader(buffer);
+    int numBytes = Math.max(1, buffer.limit() - buffer.position());
     int prevWorked = 0;
     int pointIndex = 0;
-    for (int i = 0; i < numLines; i++) {
-      String line = reader.readLine();
-      if (line.startsWith(PROPERTIES)) {
-        Scanner scanner = new Scanner(line);
-        scanner.useDelimiter(" ");
-        String properties = scanner.next();
-        while (scanner.hasNext()) {
-          pointSet.addAttribute(Type.FLOAT, scanner.next());
+    for (int i = 0; reader.hasMoreLines(); i++) {
+      if (reader.lineStartsWith(PROPERTIES)) {
+        reader.skipToken();
+        while (reader.hasMoreTokens()) {
+          String propertyName = reader.nextToken();
+          pointSet.addAttribute(Type.FLOAT, propertyName);
+          propertyNames.add(propertyName);
         }
-      } else if (line.startsWith(PVRTX)) {
+        attributes = getAttributes(pointSet);
+      } else if (reader.lineStartsWith(PVRTX)) {
         try {
-          MultiPoint mpt = parsePoint(line);
-          pointSet.addPoint(new Point3d(mpt.getX(), mpt.getY(), mpt.getZ()));
-          String[] attrNames = pointSet.getAttributeNames();
-          for (int j = 0; j < attrNames.length; j++) {
-            PointSetAttribute attr = pointSet.getAttribute(attrNames[j]);
-            attr.setFloat(pointIndex, Float.parseFloat(mpt.getAttribute(j)));
+          // Skip the keyword and the vertex index.
+          reader.skipToken();
+          reader.skipToken();
+          double x = Unit.convert(reader.nextDouble(), xyUnit, xyUnitApp);
+          double y = Unit.convert(reader.nextDouble(), xyUnit, xyUnitApp);
+          double z = Unit.convert(reader.nextDouble(), zUnit, zUnitApp);
+          float[] values = new float[attributes.length];
+          for (int j = 0; j < values.length; j++) {
+            values[j] = reader.nextFloat();
+          }
+          pointSet.addPoint(new Point3d(x, y, z));
+          for (int j = 0; j < values.length; j++) {
+            attributes[j].setFloat(pointIndex, values[j]);
           }
           pointIndex++;
         } catch (Exception ex) {
           ServiceProvider.getLoggingService().getLogger(getClass()).error("Could not parse record #" + i);
-          System.out.println("Could not parse record #" + i);
         }
       }
+      reader.nextLine();
       if (i % 1000 == 0) {
-        int currentWorked = 45 * i / numLines;
+        int currentWorked = (int) (45L * reader.getPosition() / numBytes);
         int worked = currentWorked - prevWorked;
         prevWorked = currentWorked;
         monitor.worked(worked);
@@ -165,31 +160,13 @@ public class PointSetMapper extends AbstractMapper<PointSet> {
     return propertyNames.toArray(new String[0]);
   }
 
-  protected MultiPoint parsePoint(final String record) {
-    Unit xyUnitApp = UnitPreferences.getInstance().getHorizontalDistanceUnit();
-    Unit zUnitApp = UnitPreferences.getInstance().getTimeUnit();
-    Unit xyUnit = _model.getXYUnit();
-    Unit zUnit = _model.getZUnit();
-    Domain zDomain = zUnit.getDomain();
-    if (zDomain == Domain.DISTANCE) {
-      zUnitApp = UnitPreferences.getInstance().getVerticalDistanceUnit();
-    }
-
-    String[] fields = record.split("\\s+");
-    int currentFieldNo = 2; //skip the column index
-    double x = Double.parseDouble(fields[currentFieldNo++]);
-    double y = Double.parseDouble(fields[currentFieldNo++]);
-    double z = Double.parseDouble(fields[currentFieldNo++]);
-    x = Unit.convert(x, xyUnit, xyUnitApp);
-    y = Unit.convert(y, xyUnit, xyUnitApp);
-    z = Unit.convert(z, zUnit, zUnitApp);
-
-    ArrayList<String> _attrList = new ArrayList<String>();
-    while (currentFieldNo < fields.length) {
-      _attrList.add(fields[currentFieldNo++]);
+  private static PointSetAttribute[] getAttributes(final PointSet pointSet) {
+    String[] attrNames = pointSet.getAttributeNames();
+    PointSetAttribute[] attributes = new PointSetAttribute[attrNames.length];
+    for (int j = 0; j < attrNames.length; j++) {
+      attributes[j] = pointSet.getAttribute(attrNames[j]);
     }
-
-    return new MultiPoint(new double[] { x, y, z }, _attrList);
+    return attributes;
   }
 
   @Override
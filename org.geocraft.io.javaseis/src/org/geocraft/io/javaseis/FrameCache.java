@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.javaseis;
+
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.geocraft.core.model.datatypes.Header;
+import org.geocraft.core.model.datatypes.HeaderDefinition;
+import org.geocraft.core.model.seismic.PostStack3d.StorageOrder;
+import org.javaseis.io.Seisio;
+import org.javaseis.properties.PropertyDescription;
+import org.javaseis.properties.TraceProperties;
+import org.javaseis.util.SeisException;
+
+
+/**
+ * A cache of recently used frames of a JavaSeis poststack volume.
+ * <p>
+ * A JavaSeis poststack volume is stored as a sequence of frames, each frame holding all the traces of
+ * an inline (for INLINE_XLINE_Z order) or an xline (for XLINE_INLINE_Z order). Reading a whole frame
+ * with <code>readFrame</code> costs little more than reading a single trace with <code>readTrace</code>,
+ * so the mapper reads the frames containing the requested traces, and keeps copies of the most recently
+ * used ones here. The number of frames cached is bounded by a memory budget.
+ * <p>
+ * The cache is only valid while the volume is not being written, so it must be cleared after any write.
+ */
+public class FrameCache {
+
+  /** The default memory budget (in bytes) of the cache. */
+  public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+  /** The minimum number of frames cached, regardless of the memory budget. */
+  private static final int MIN_NUM_FRAMES = 2;
+
+  /** The JavaSeis I/O object of the volume. */
+  private final Seisio _seisio;
+
+  /** <i>true</i> if each frame holds an inline; <i>false</i> if each frame holds an xline. */
+  private final boolean _inlineFrames;
+
+  /** The storage order of the volume. */
+  private final StorageOrder _storageOrder;
+
+  /** The maximum number of frames cached. */
+  private final int _capacity;
+
+  /** The cached frames, keyed by frame index, in least-recently used order. */
+  private final LinkedHashMap<Integer, Frame> _frames;
+
+  /** The number of frames read from the volume. */
+  private int _numReads;
+
+  /** The number of frame requests served from the cache. */
+  private int _numHits;
+
+  /**
+   * Constructs a frame cache with the default memory budget.
+   *
+   * @param seisio the JavaSeis I/O object of the volume, which must be open.
+   * @param storageOrder the storage order of the volume.
+   */
+  public FrameCache(final Seisio seisio, final StorageOrder storageOrder) {
+    this(seisio, storageOrder, DEFAULT_MEMORY_BUDGET);
+  }
+
+  /**
+   * Constructs a frame cache with the specified memory budget.
+   *
+   * @param seisio the JavaSeis I/O object of the volume, which must be open.
+   * @param storageOrder the storage order of the volume.
+   * @param memoryBudget the memory budget (in bytes) of the cache.
+   */
+  public FrameCache(final Seisio seisio, final StorageOrder storageOrder, final long memoryBudget) {
+    if (!storageOrder.equals(StorageOrder.INLINE_XLINE_Z) && !storageOrder.equals(StorageOrder.XLINE_INLINE_Z)) {
+      throw new UnsupportedOperationException("Does not support slice orientated data yet.");
+    }
+    _seisio = seisio;
+    _storageOrder = storageOrder;
+    _inlineFrames = storageOrder.equals(StorageOrder.INLINE_XLINE_Z);
+    long numTracesPerFrame = seisio.getGridDefinition().getNumTracesPerFrame();
+    long frameSize = numTracesPerFrame
+        * (4L * seisio.getGridDefinition().getAxisLength(0) + seisio.getTraceProperties().getRecordLength());
+    _capacity = (int) Math.max(MIN_NUM_FRAMES, memoryBudget / Math.max(1, frameSize));
+    _frames = new LinkedHashMap<Integer, Frame>(16, 0.75f, true) {
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Integer, Frame> eldest) {
+        return size() > _capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns <i>true</i> if each frame holds an inline; <i>false</i> if each frame holds an xline.
+   */
+  public boolean isInlineFrames() {
+    return _inlineFrames;
+  }
+
+  /**
+   * Returns the index of the frame containing the trace at the given inline and xline indices.
+   */
+  public int getFrameIndex(final int inlineIndex, final int xlineIndex) {
+    return _inlineFrames ? inlineIndex : xlineIndex;
+  }
+
+  /**
+   * Returns the index within its frame of the trace at the given inline and xline indices.
+   */
+  public int getTraceIndex(final int inlineIndex, final int xlineIndex) {
+    return _inlineFrames ? xlineIndex : inlineIndex;
+  }
+
+  /**
+   * Returns the specified frame, reading it from the volume if it is not cached.
+   *
+   * @param frameIndex the index of the frame.
+   * @return the frame.
+   * @throws SeisException thrown on a read error.
+   */
+  public Frame getFrame(final int frameIndex) throws SeisException {
+    synchronized (_seisio) {
+      Integer key = Integer.valueOf(frameIndex);
+      Frame frame = _frames.get(key);
+      if (frame != null) {
+        _numHits++;
+        return frame;
+      }
+      int[] position = _inlineFrames ? JavaSeisUtil.orderPosition(0, 0, frameIndex, _storageOrder) : JavaSeisUtil
+          .orderPosition(0, frameIndex, 0, _storageOrder);
+      int numTracesRead = _seisio.readFrame(position);
+      _numReads++;
+      frame = new Frame(numTracesRead, _seisio.getTraceDataArray(), _seisio.getTraceProperties());
+      _frames.put(key, frame);
+      return frame;
+    }
+  }
+
+  /**
+   * Removes all the frames from the cache. This must be called after any write to the volume.
+   */
+  public void clear() {
+    synchronized (_seisio) {
+      _frames.clear();
+    }
+  }
+
+  /**
+   * Returns the maximum number of frames cached.
+   */
+  public int getCapacity() {
+    return _capacity;
+  }
+
+  /**
+   * Returns the number of frames read from the volume.
+   */
+  public int getNumReads() {
+    return _numReads;
+  }
+
+  /**
+   * Returns the number of frame requests served from the cache.
+   */
+  public int getNumHits() {
+    return _numHits;
+  }
+
+  /**
+   * A copy of the trace data and trace properties of a frame.
+   */
+  public static class Frame {
+
+    /** The trace data, or <i>null</i> if the frame contains no traces. */
+    private final float[][] _traces;
+
+    /** The trace properties of the frame, backed by a copy of the header buffer. */
+    private final TraceProperties _traceProps;
+
+    Frame(final int numTracesRead, final float[][] traces, final TraceProperties traceProps) {
+      PropertyDescription[] descs = traceProps.getTraceProperties();
+      _traceProps = new TraceProperties(descs.length, descs);
+      ByteBuffer source = traceProps.getBuffer().duplicate();
+      source.clear();
+      ByteBuffer buffer = ByteBuffer.allocate(source.capacity()).order(traceProps.getBuffer().order());
+      buffer.put(source);
+      _traceProps.setBuffer(buffer);
+      if (numTracesRead > 0) {
+        _traces = new float[traces.length][];
+        for (int i = 0; i < traces.length; i++) {
+          _traces[i] = traces[i].clone();
+        }
+      } else {
+        _traces = null;
+      }
+    }
+
+    /**
+     * Returns <i>true</i> if the frame contains no traces.
+     */
+    public boolean isMissing() {
+      return _traces == null;
+    }
+
+    /**
+     * Returns the samples of the specified trace (not a copy), or <i>null</i> if the frame is missing.
+     *
+     * @param traceIndex the index of the trace in the frame.
+     */
+    public float[] getTrace(final int traceIndex) {
+      return _traces != null ? _traces[traceIndex] : null;
+    }
+
+    /**
+     * Builds the header of the specified trace from its trace properties.
+     *
+     * @param headerDef the header definition.
+     * @param traceIndex the index of the trace in the frame.
+     * @return the trace header.
+     */
+    public synchronized Header buildHeader(final HeaderDefinition headerDef, final int traceIndex) {
+      return JavaSeisUtil.buildHeader(headerDef, _traceProps, traceIndex);
+    }
+  }
+}
@@ -2,6 +2,7 @@ package org.geocraft.io.javaseis;
 
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -1147,4 +1148,20 @@ public class JavaSeisUtil {
       }
     }
   }
+
+  /**
+   * Clears the samples and trace properties of a frame, as for a frame not yet written.
+   * 
+   * @param frame the JavaSeis trace data array of the frame.
+   * @param traceProps the JavaSeis trace properties of the frame.
+   */
+  public static void clearFrame(final float[][] frame, final TraceProperties traceProps) {
+    for (float[] trace : frame) {
+      Arrays.fill(trace, 0);
+    }
+    ByteBuffer buffer = traceProps.getBuffer();
+    for (int i = 0; i < buffer.capacity(); i++) {
+      buffer.put(i, (byte) 0);
+    }
+  }
 }
@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.javaseis;
+
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.geocraft.core.model.datatypes.Header;
+import org.javaseis.grid.GridDefinition;
+import org.javaseis.io.Seisio;
+import org.javaseis.properties.TraceProperties;
+import org.javaseis.util.SeisException;
+
+
+/**
+ * Writes traces to a JavaSeis dataset a frame at a time, using a pool of I/O threads.
+ * <p>
+ * Each I/O thread opens its own <code>Seisio</code> handle on the dataset, so the threads never
+ * share a trace buffer, a lock or a file descriptor. The frames are dealt to the threads by frame
+ * index, so consecutive frames are packed (compressed, for the compressed formats) and written
+ * concurrently, and any frames that fall in different extents are written to different secondary
+ * storage disks at the same time. The data, headers and fold of a frame are stored at offsets
+ * that no other frame uses, so handles writing different frames do not interfere.
+ * <p>
+ * The traces are gathered per frame as they are put. A frame whose traces have all been put, each
+ * with its full range of samples, is written as soon as it is complete, without first reading it
+ * from the dataset. Any other frame is written, after a read-modify-write of the samples and headers
+ * not put, when too many frames are pending or when the writer is flushed. Every frame is written
+ * with a full fold, so the writer is only used for poststack volumes.
+ */
+public class ParallelFrameWriter {
+
+  /** The maximum number of partially put frames held before the oldest is written. */
+  private static final int MAX_PENDING_FRAMES = 16;
+
+  /** The maximum number of frames waiting to be written by each I/O thread. */
+  private static final int QUEUE_CAPACITY = 4;
+
+  /** The update that signals an I/O thread to stop. */
+  private static final FrameUpdate END_OF_DATA = new FrameUpdate(-1, 0);
+
+  /** The lengths of the axes of the dataset. */
+  private final long[] _axisLengths;
+
+  /** The number of samples per trace. */
+  private final int _numSamples;
+
+  /** The number of traces per frame. */
+  private final int _numTracesPerFrame;
+
+  /** The I/O threads. */
+  private final IOThread[] _threads;
+
+  /** The frames partially put, keyed by frame index, in the order they were started. */
+  private final LinkedHashMap<Long, FrameUpdate> _pending = new LinkedHashMap<Long, FrameUpdate>();
+
+  /** The first error thrown by an I/O thread, if any. */
+  private volatile SeisException _error;
+
+  /** The number of frames written without a read-modify-write. */
+  private final AtomicInteger _numFullWrites = new AtomicInteger();
+
+  /** The number of frames written after a read-modify-write. */
+  private final AtomicInteger _numPartialWrites = new AtomicInteger();
+
+  /**
+   * Constructs a parallel frame writer, opening one handle on the dataset for each I/O thread.
+   *
+   * @param filePath the path of the JavaSeis dataset, which must already exist.
+   * @param numThreads the number of I/O threads.
+   * @throws SeisException thrown if the dataset cannot be opened.
+   */
+  public ParallelFrameWriter(final String filePath, final int numThreads) throws SeisException {
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("Invalid number of I/O threads (" + numThreads + ").");
+    }
+    _threads = new IOThread[numThreads];
+    try {
+      for (int i = 0; i < numThreads; i++) {
+        Seisio seisio = new Seisio(filePath);
+        seisio.open(Seisio.MODE_READ_WRITE);
+        _threads[i] = new IOThread(seisio, "JavaSeis writer " + (i + 1) + ": " + filePath);
+      }
+    } catch (SeisException ex) {
+      for (IOThread thread : _threads) {
+        if (thread != null) {
+          try {
+            thread._seisio.close();
+          } catch (SeisException closeEx) {
+            // Report the original error.
+          }
+        }
+      }
+      throw ex;
+    }
+    GridDefinition gridDef = _threads[0]._seisio.getGridDefinition();
+    _axisLengths = gridDef.getAxisLengths();
+    _numSamples = (int) _axisLengths[0];
+    _numTracesPerFrame = (int) _axisLengths[1];
+    for (IOThread thread : _threads) {
+      thread.start();
+    }
+  }
+
+  /**
+   * Puts a trace (or a range of its samples) and its header.
+   *
+   * @param traceIndex the index of the trace in the dataset.
+   * @param zStartIndex the index of the first sample to put.
+   * @param samples the array containing the samples to put.
+   * @param offset the offset of the first sample in the array.
+   * @param count the number of samples to put.
+   * @param header the trace header.
+   * @throws SeisException thrown if an earlier write failed.
+   */
+  public synchronized void putTrace(final long traceIndex, final int zStartIndex, final float[] samples,
+      final int offset, final int count, final Header header) throws SeisException {
+    checkError();
+    Long frameIndex = Long.valueOf(traceIndex / _numTracesPerFrame);
+    FrameUpdate update = _pending.get(frameIndex);
+    if (update == null) {
+      if (_pending.size() >= MAX_PENDING_FRAMES) {
+        Iterator<FrameUpdate> oldest = _pending.values().iterator();
+        dispatch(oldest.next());
+        oldest.remove();
+      }
+      update = new FrameUpdate(frameIndex.longValue(), _numTracesPerFrame);
+      _pending.put(frameIndex, update);
+    }
+    update.put((int) (traceIndex % _numTracesPerFrame), zStartIndex, Arrays.copyOfRange(samples, offset, offset
+        + count), header, _numSamples);
+    if (update.isComplete()) {
+      _pending.remove(frameIndex);
+      dispatch(update);
+    }
+  }
+
+  /**
+   * Writes all the pending frames, and waits until they have been written.
+   *
+   * @throws SeisException thrown if a write failed.
+   */
+  public synchronized void flush() throws SeisException {
+    for (FrameUpdate update : _pending.values()) {
+      dispatch(update);
+    }
+    _pending.clear();
+    for (IOThread thread : _threads) {
+      thread.waitUntilIdle();
+    }
+    checkError();
+  }
+
+  /**
+   * Writes all the pending frames, stops the I/O threads and closes their handles.
+   *
+   * @throws SeisException thrown if a write failed, or a handle could not be closed.
+   */
+  public synchronized void close() throws SeisException {
+    try {
+      flush();
+    } finally {
+      for (IOThread thread : _threads) {
+        thread.enqueue(END_OF_DATA);
+      }
+      for (IOThread thread : _threads) {
+        try {
+          thread.join();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        thread._seisio.close();
+      }
+    }
+    checkError();
+  }
+
+  /**
+   * Returns the number of frames written without reading them first.
+   */
+  public int getNumFullWrites() {
+    return _numFullWrites.get();
+  }
+
+  /**
+   * Returns the number of frames written after reading them first.
+   */
+  public int getNumPartialWrites() {
+    return _numPartialWrites.get();
+  }
+
+  private void dispatch(final FrameUpdate update) {
+    _threads[(int) (update._frameIndex % _threads.length)].enqueue(update);
+  }
+
+  private void checkError() throws SeisException {
+    if (_error != null) {
+      throw _error;
+    }
+  }
+
+  /**
+   * Returns the JavaSeis position of the specified frame.
+   */
+  private int[] getPosition(final long frameIndex) {
+    int[] position = new int[_axisLengths.length];
+    long index = frameIndex;
+    for (int axis = 2; axis < _axisLengths.length; axis++) {
+      position[axis] = (int) (index % _axisLengths[axis]);
+      index /= _axisLengths[axis];
+    }
+    return position;
+  }
+
+  /**
+   * The traces put for a frame.
+   */
+  private static class FrameUpdate {
+
+    private final long _frameIndex;
+
+    private final float[][] _samples;
+
+    private final int[] _zStartIndices;
+
+    private final Header[] _headers;
+
+    /** The number of traces put with their full range of samples. */
+    private int _numFullTraces;
+
+    FrameUpdate(final long frameIndex, final int numTraces) {
+      _frameIndex = frameIndex;
+      _samples = new float[numTraces][];
+      _zStartIndices = new int[numTraces];
+      _headers = new Header[numTraces];
+    }
+
+    void put(final int traceIndex, final int zStartIndex, final float[] samples, final Header header,
+        final int numSamples) {
+      if (isFull(traceIndex, numSamples)) {
+        _numFullTraces--;
+      }
+      _samples[traceIndex] = samples;
+      _zStartIndices[traceIndex] = zStartIndex;
+      _headers[traceIndex] = header;
+      if (isFull(traceIndex, numSamples)) {
+        _numFullTraces++;
+      }
+    }
+
+    private boolean isFull(final int traceIndex, final int numSamples) {
+      return _samples[traceIndex] != null && _zStartIndices[traceIndex] == 0 && _samples[traceIndex].length == numSamples;
+    }
+
+    /**
+     * Returns <i>true</i> if every trace of the frame has been put with its full range of samples.
+     */
+    boolean isComplete() {
+      return _numFullTraces == _samples.length;
+    }
+  }
+
+  /**
+   * Writes the frames dealt to it, using its own handle on the dataset.
+   * After an error, the remaining frames are discarded so the caller does not block.
+   */
+  private class IOThread extends Thread {
+
+    private final Seisio _seisio;
+
+    private final BlockingQueue<FrameUpdate> _queue = new ArrayBlockingQueue<FrameUpdate>(QUEUE_CAPACITY);
+
+    /** The number of frames enqueued but not yet written. */
+    private int _numQueued;
+
+    IOThread(final Seisio seisio, final String name) {
+      super(name);
+      _seisio = seisio;
+      setDaemon(true);
+    }
+
+    void enqueue(final FrameUpdate update) {
+      synchronized (this) {
+        _numQueued++;
+      }
+      try {
+        _queue.put(update);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while writing frames.", ex);
+      }
+    }
+
+    synchronized void waitUntilIdle() {
+      while (_numQueued > 0 && isAlive()) {
+        try {
+          wait(100);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        FrameUpdate update;
+        try {
+          update = _queue.take();
+        } catch (InterruptedException ex) {
+          return;
+        }
+        if (update == END_OF_DATA) {
+          return;
+        }
+        if (_error == null) {
+          try {
+            write(update);
+          } catch (SeisException ex) {
+            _error = ex;
+          }
+        }
+        synchronized (this) {
+          _numQueued--;
+          notifyAll();
+        }
+      }
+    }
+
+    private void write(final FrameUpdate update) throws SeisException {
+      int[] position = getPosition(update._frameIndex);
+      float[][] frame = _seisio.getTraceDataArray();
+      TraceProperties traceProps = _seisio.getTraceProperties();
+      if (update.isComplete()) {
+        _numFullWrites.incrementAndGet();
+      } else {
+        // Read the frame, to keep the samples and headers not being overwritten.
+        // A frame not yet written is padded with zero traces instead.
+        if (_seisio.readFrame(position) <= 0) {
+          JavaSeisUtil.clearFrame(frame, traceProps);
+        }
+        _numPartialWrites.incrementAndGet();
+      }
+      for (int i = 0; i < update._samples.length; i++) {
+        float[] samples = update._samples[i];
+        if (samples != null) {
+          System.arraycopy(samples, 0, frame[i], update._zStartIndices[i], samples.length);
+          JavaSeisUtil.copyHeaderValuesToJSTraceProperties(update._headers[i], traceProps, i);
+        }
+      }
+      _seisio.writeFrame(position, _numTracesPerFrame);
+    }
+  }
+}
@@ -6,9 +6,9 @@ import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.geocraft.core.model.datatypes.CoordinateSeries;
 import org.geocraft.core.model.datatypes.CoordinateSystem;
@@ -56,6 +56,9 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
 
   private Unit _xlineUnit;
 
+  /** The cache of recently read frames, valid while the volume is open. */
+  private FrameCache _frameCache;
+
   public PostStack3dMapper(final VolumeMapperModel model) {
     super(model);
 
@@ -352,6 +355,9 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
   }
 
   private String open(final String mode) {
+    if (mode.equals("r")) {
+      flushFrameWriter();
+    }
     String retval = _status;
     if (retval != null) {
       if (retval.equals("r") && mode.equals("rw")) {
@@ -384,6 +390,10 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
         //_zUnit = JavaSeisUtil.getAxisUnit(gridDef, JavaSeisUtil.getZAxis(_storageOrder));
         _xlineUnit = JavaSeisUtil.getAxisUnit(gridDef, JavaSeisUtil.getCrosslineAxis(_storageOrder));
         _inlineUnit = JavaSeisUtil.getAxisUnit(gridDef, JavaSeisUtil.getInlineAxis(_storageOrder));
+        _frameCache = null;
+        if (_storageOrder.equals(StorageOrder.INLINE_XLINE_Z) || _storageOrder.equals(StorageOrder.XLINE_INLINE_Z)) {
+          _frameCache = new FrameCache(_seisio, _storageOrder);
+        }
       } catch (SeisException e) {
         getLogger().error(e.toString(), e);
       }
@@ -542,9 +552,41 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
     return retval;
   }
 
-  @SuppressWarnings("unused")
-  public float[] getSamples(final PostStack3d ps3d, final float[] inline, final float[] xline, final float[] z) {
-    throw new UnsupportedOperationException("Does not support reading samples yet.");
+  public float[] getSamples(final PostStack3d ps3d, final float[] inlines, final float[] xlines, final float[] zs) {
+    float[] samples = new float[inlines.length];
+    _status = open("r");
+    if (_status != null) {
+      FrameCache frameCache = getFrameCache();
+      GridDefinition gridDef = _seisio.getGridDefinition();
+      Unit zUnit = ps3d.getZUnit();
+      long numSamples = gridDef.getAxisLength(JavaSeisUtil.getZAxis(_storageOrder));
+      int[] frameIndices = new int[inlines.length];
+      int[] traceIndices = new int[inlines.length];
+      int[] zIndices = new int[inlines.length];
+      for (int i = 0; i < inlines.length; i++) {
+        int inlineIndex = JavaSeisUtil.findInlineIndex(gridDef, inlines[i], _storageOrder);
+        int xlineIndex = JavaSeisUtil.findCrosslineIndex(gridDef, xlines[i], _storageOrder);
+        frameIndices[i] = frameCache.getFrameIndex(inlineIndex, xlineIndex);
+        traceIndices[i] = frameCache.getTraceIndex(inlineIndex, xlineIndex);
+        zIndices[i] = JavaSeisUtil.findZIndex(gridDef, Unit.convert(zs[i], zUnit, _model.getUnitOfZ()), _storageOrder);
+        if (zIndices[i] < 0 || zIndices[i] >= numSamples) {
+          throw new IllegalArgumentException("Requested z coordinate outside of extents (" + zs[i] + " " + zUnit
+              + ").");
+        }
+      }
+      try {
+        // Visit the samples frame by frame, so each frame is read only once.
+        for (int i : sortByFrame(frameIndices)) {
+          FrameCache.Frame frame = frameCache.getFrame(frameIndices[i]);
+          if (!frame.isMissing()) {
+            samples[i] = frame.getTrace(traceIndices[i])[zIndices[i]];
+          }
+        }
+      } catch (SeisException e) {
+        getLogger().error(e.toString(), e);
+      }
+    }
+    return samples;
   }
 
   public float[] getSlice(final PostStack3d ps3d, final float z, final float inlineStart, final float inlineEnd,
@@ -554,7 +596,52 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
 
   public float[] getSlice(final PostStack3d ps3d, final float z, final float inlineStart, final float inlineEnd,
       final float xlineStart, final float xlineEnd, final SliceBufferOrder order, final float missingValue) {
-    throw new UnsupportedOperationException("Does not support reading slices yet.");
+    int numInlines = 1 + Math.round((inlineEnd - inlineStart) / ps3d.getInlineDelta());
+    int numXlines = 1 + Math.round((xlineEnd - xlineStart) / ps3d.getXlineDelta());
+    float[] slice = new float[numInlines * numXlines];
+    Arrays.fill(slice, missingValue);
+    _status = open("r");
+    if (_status != null) {
+      FrameCache frameCache = getFrameCache();
+      GridDefinition gridDef = _seisio.getGridDefinition();
+      Unit zUnit = ps3d.getZUnit();
+      int zIndex = JavaSeisUtil.findZIndex(gridDef, Unit.convert(z, zUnit, _model.getUnitOfZ()), _storageOrder);
+      if (zIndex < 0 || zIndex >= gridDef.getAxisLength(JavaSeisUtil.getZAxis(_storageOrder))) {
+        throw new IllegalArgumentException("Requested z coordinate outside of extents (" + z + " " + zUnit + ").");
+      }
+      int[] inlineIndices = new int[numInlines];
+      for (int i = 0; i < numInlines; i++) {
+        inlineIndices[i] = JavaSeisUtil.findInlineIndex(gridDef, inlineStart + i * ps3d.getInlineDelta(),
+            _storageOrder);
+      }
+      int[] xlineIndices = new int[numXlines];
+      for (int j = 0; j < numXlines; j++) {
+        xlineIndices[j] = JavaSeisUtil.findCrosslineIndex(gridDef, xlineStart + j * ps3d.getXlineDelta(),
+            _storageOrder);
+      }
+      // Loop over the frames in the outer loop, so each frame is read only once.
+      boolean inlineFrames = frameCache.isInlineFrames();
+      int numFrames = inlineFrames ? numInlines : numXlines;
+      int numTracesPerFrame = inlineFrames ? numXlines : numInlines;
+      try {
+        for (int f = 0; f < numFrames; f++) {
+          for (int t = 0; t < numTracesPerFrame; t++) {
+            int i = inlineFrames ? f : t;
+            int j = inlineFrames ? t : f;
+            FrameCache.Frame frame = frameCache.getFrame(frameCache.getFrameIndex(inlineIndices[i],
+                xlineIndices[j]));
+            if (frame.isMissing()) {
+              break;
+            }
+            int index = order.equals(SliceBufferOrder.INLINE_XLINE) ? i * numXlines + j : j * numInlines + i;
+            slice[index] = frame.getTrace(frameCache.getTraceIndex(inlineIndices[i], xlineIndices[j]))[zIndex];
+          }
+        }
+      } catch (SeisException e) {
+        getLogger().error(e.toString(), e);
+      }
+    }
+    return slice;
   }
 
   public TraceData getTraces(final PostStack3d ps3d, final float[] inlines, final float[] xlines, final float zStart,
@@ -562,6 +649,7 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
     TraceData retval = null;
     _status = open("r");
     if (_status != null) {
+      FrameCache frameCache = getFrameCache();
       GridDefinition gridDef = _seisio.getGridDefinition();
       Unit zUnit = ps3d.getZUnit();
       float zStart2 = Unit.convert(zStart, zUnit, _model.getUnitOfZ());
@@ -570,32 +658,35 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
       int zEndIndex = JavaSeisUtil.findZIndex(gridDef, zEnd2, _storageOrder);
       int zCount = Math.abs(zEndIndex - zStartIndex) + 1;
       float zDelta = ps3d.getZDelta();//(float) JavaSeisUtil.findZPhysicalDelta(gridDef, _storageOrder);
-      float[][] jsData = _seisio.getTraceDataArray();
-      float[] samples = new float[zCount];
       Trace[] traces = new Trace[inlines.length];
-      long traceIndex;
-      TraceProperties traceProps = _seisio.getTraceProperties();
+      int[] frameIndices = new int[inlines.length];
+      int[] traceIndices = new int[inlines.length];
+      for (int j = 0; j < traces.length; j++) {
+        int inlineIndex = JavaSeisUtil.findInlineIndex(gridDef, inlines[j], _storageOrder);
+        int xlineIndex = JavaSeisUtil.findCrosslineIndex(gridDef, xlines[j], _storageOrder);
+        frameIndices[j] = frameCache.getFrameIndex(inlineIndex, xlineIndex);
+        traceIndices[j] = frameCache.getTraceIndex(inlineIndex, xlineIndex);
+      }
       try {
-        int xlineIndex;
-        int inlineIndex;
-        for (int j = 0; j < traces.length; j++) {
-          inlineIndex = JavaSeisUtil.findInlineIndex(gridDef, inlines[j], _storageOrder);
-          xlineIndex = JavaSeisUtil.findCrosslineIndex(gridDef, xlines[j], _storageOrder);
-          traceIndex = JavaSeisUtil.findTraceIndex(gridDef, inlineIndex, xlineIndex, _storageOrder);
-          _seisio.readTrace(traceIndex);
-          System.arraycopy(jsData[0], zStartIndex, samples, 0, zCount);
-          Status status = Status.Live;
-          if (Trace.isDead(samples)) {
-            status = Status.Dead;
+        // Visit the traces frame by frame, so each frame is read only once.
+        for (int j : sortByFrame(frameIndices)) {
+          FrameCache.Frame frame = frameCache.getFrame(frameIndices[j]);
+          float[] samples;
+          Status status;
+          if (frame.isMissing()) {
+            samples = new float[zCount];
+            status = Status.Missing;
+          } else {
+            samples = Arrays.copyOfRange(frame.getTrace(traceIndices[j]), zStartIndex, zStartIndex + zCount);
+            status = Trace.isDead(samples) ? Status.Dead : Status.Live;
           }
           double[] xy = ps3d.getSurvey().transformInlineXlineToXY(inlines[j], xlines[j]);
-          Header header = JavaSeisUtil.buildHeader(_headerDef, traceProps, 0);
+          Header header = frame.buildHeader(_headerDef, traceIndices[j]);
           header.putInteger(TraceHeaderCatalog.INLINE_NO, Math.round(inlines[j]));
           header.putInteger(TraceHeaderCatalog.XLINE_NO, Math.round(xlines[j]));
           header.putDouble(TraceHeaderCatalog.X, xy[0]);
           header.putDouble(TraceHeaderCatalog.Y, xy[1]);
-          traces[j] = new Trace(zStart, zDelta, _model.getUnitOfZ(), Arrays.copyOf(samples, samples.length), status,
-              header);
+          traces[j] = new Trace(zStart, zDelta, _model.getUnitOfZ(), samples, status, header);
         }
       } catch (SeisException e) {
         getLogger().error(e.toString(), e);
@@ -605,6 +696,48 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
     return retval;
   }
 
+  /**
+   * Returns the frame cache of the open volume.
+   */
+  private FrameCache getFrameCache() {
+    if (_frameCache == null) {
+      throw new UnsupportedOperationException("Does not support slice orientated data yet.");
+    }
+    return _frameCache;
+  }
+
+  /**
+   * Clears the frame cache, which must be done after writing to the volume.
+   */
+  private void clearFrameCache() {
+    if (_frameCache != null) {
+      _frameCache.clear();
+    }
+  }
+
+  @Override
+  public void close() {
+    clearFrameCache();
+    super.close();
+  }
+
+  /**
+   * Returns the indices of the given frame indices, sorted by frame index. Visiting requests in
+   * this order means each frame is read at most once, however small the frame cache.
+   */
+  private static int[] sortByFrame(final int[] frameIndices) {
+    long[] keys = new long[frameIndices.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = (long) frameIndices[i] << 32 | i;
+    }
+    Arrays.sort(keys);
+    int[] order = new int[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      order[i] = (int) keys[i];
+    }
+    return order;
+  }
+
   public TraceData getXline(final PostStack3d ps3d, final float xline, final float inlineStart, final float inlineEnd,
       final float zStart, final float zEnd) {
     TraceData retval = null;
@@ -722,6 +855,11 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
 
   public void putInline(final PostStack3d ps3d, final float inline, final float xlineStart, final float xlineEnd,
       final float zStart, final float zEnd, final TraceData traceData) {
+    if (getNumIOThreads() > 1) {
+      // Let the I/O threads write the frames.
+      putTraces(ps3d, traceData);
+      return;
+    }
     _status = open("rw");
     if (_status != null) {
       GridDefinition gridDef = _seisio.getGridDefinition();
@@ -746,8 +884,11 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
           try {
             // Determine the JS position array.
             int[] position = JavaSeisUtil.orderPosition(0, 0, inlineIndex, _storageOrder);
-            // Read the frame from the JS dataset.
-            _seisio.readFrame(position);
+            // Read the frame from the JS dataset, unless it is being fully overwritten.
+            if (traceData.getNumTraces() < numTracesPerFrame || zStartIndex != 0
+                || numSamples < gridDef.getAxisLength(JavaSeisUtil.getZAxis(_storageOrder))) {
+              _seisio.readFrame(position);
+            }
             // Loop thru the traces to be written.
             for (int j = 0; j < traceData.getNumTraces(); j++) {
               int index = j * traceData.getNumSamples();
@@ -793,6 +934,7 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
         default:
           throw new RuntimeException("Invalid storage order: " + _storageOrder);
       }
+      clearFrameCache();
     }
   }
 
@@ -811,99 +953,103 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
   public void putTraces(final PostStack3d ps3d, final TraceData traceData) {
     _status = open("rw");
     if (_status != null) {
-      int numTraces = traceData.getNumTraces();
-      StorageOrder storageOrder = ps3d.getPreferredOrder();
+      if (!_storageOrder.equals(StorageOrder.INLINE_XLINE_Z) && !_storageOrder.equals(StorageOrder.XLINE_INLINE_Z)) {
+        throw new UnsupportedOperationException("Cannot write to volume stored in slice order yet.");
+      }
+      GridDefinition gridDef = _seisio.getGridDefinition();
+      boolean inlineFrames = _storageOrder.equals(StorageOrder.INLINE_XLINE_Z);
+      int numTracesPerFrame = (int) gridDef.getNumTracesPerFrame();
+      int numSamples = (int) gridDef.getAxisLength(JavaSeisUtil.getZAxis(_storageOrder));
+      Unit zUnit = ps3d.getZUnit();
 
-      Map<Float, List<Float>> inlines = new HashMap<Float, List<Float>>();
-      Map<Float, List<Float>> xlines = new HashMap<Float, List<Float>>();
-      Trace[] traces = traceData.getTraces();
-      for (int i = 0; i < numTraces; i++) {
-        if (!traces[i].isMissing()) {
-          Float inlineKey = traces[i].getInline();
-          Float xlineKey = traces[i].getXline();
-          if (!inlines.containsKey(inlineKey)) {
-            List<Float> xlns = new ArrayList<Float>();
-            xlns.add(xlineKey);
-            inlines.put(inlineKey, xlns);
-          } else {
-            List<Float> xlns = inlines.get(inlineKey);
-            xlns.add(xlineKey);
-          }
-          if (!xlines.containsKey(xlineKey)) {
-            List<Float> ilns = new ArrayList<Float>();
-            ilns.add(inlineKey);
-            xlines.put(xlineKey, ilns);
-          } else {
-            List<Float> ilns = xlines.get(xlineKey);
-            ilns.add(inlineKey);
+      // The traces share the z range of the trace data, and their samples are taken from its 1-D data
+      // array, so the traces of a flat trace collection are not created.
+      float[] traceDataArray = traceData.getData();
+      int numSamplesPerTrace = traceData.getNumSamples();
+      float zStart = Unit.convert(traceData.getStartZ(), zUnit, _model.getUnitOfZ());
+      float zEnd = Unit.convert(traceData.getEndZ(), zUnit, _model.getUnitOfZ());
+      int zStartIndex = JavaSeisUtil.findZIndex(gridDef, zStart, _storageOrder);
+      int zEndIndex = JavaSeisUtil.findZIndex(gridDef, zEnd, _storageOrder);
+      int zCount = Math.min(Math.abs(zEndIndex - zStartIndex) + 1, numSamplesPerTrace);
+
+      // Group the traces by frame. Missing traces are skipped, so the traces already stored in their
+      // place are kept.
+      Map<Integer, List<Integer>> frames = new TreeMap<Integer, List<Integer>>();
+      int[] inlineIndices = new int[traceData.getNumTraces()];
+      int[] xlineIndices = new int[traceData.getNumTraces()];
+      for (int i = 0; i < traceData.getNumTraces(); i++) {
+        Header header = traceData.getHeader(i);
+        inlineIndices[i] = JavaSeisUtil.findInlineIndex(gridDef, header.getInteger(TraceHeaderCatalog.INLINE_NO),
+            _storageOrder);
+        xlineIndices[i] = JavaSeisUtil.findCrosslineIndex(gridDef, header.getInteger(TraceHeaderCatalog.XLINE_NO),
+            _storageOrder);
+        if (!traceData.getStatus(i).equals(Trace.Status.Missing)) {
+          Integer frameIndex = inlineFrames ? inlineIndices[i] : xlineIndices[i];
+          List<Integer> frameTraces = frames.get(frameIndex);
+          if (frameTraces == null) {
+            frameTraces = new ArrayList<Integer>();
+            frames.put(frameIndex, frameTraces);
           }
+          frameTraces.add(i);
         }
       }
 
       try {
-        GridDefinition gridDef = _seisio.getGridDefinition();
-        if (storageOrder.equals(StorageOrder.INLINE_XLINE_Z)) {
-          for (float inline : inlines.keySet()) {
-            int inlineIndex = JavaSeisUtil.findInlineIndex(gridDef, inline, storageOrder);
-            int[] position = JavaSeisUtil.orderPosition(0, 0, inlineIndex, _storageOrder);
-            int tracesRead = _seisio.readFrame(position);
-            //System.out.println("inline " + inline + " traces read = " + tracesRead);
-            TraceProperties traceProps = _seisio.getTraceProperties();
-            float[][] frameArray = _seisio.getTraceDataArray();
-            for (Trace trace : traces) {
-              if (!trace.isMissing()) {
-                float zStart = trace.getZStart();
-                float zEnd = trace.getZEnd();
-                Unit zUnit = ps3d.getZUnit();
-                zStart = Unit.convert(zStart, zUnit, _model.getUnitOfZ());
-                zEnd = Unit.convert(zEnd, zUnit, _model.getUnitOfZ());
-                int zStartIndex = JavaSeisUtil.findZIndex(gridDef, zStart, _storageOrder);
-                int zEndIndex = JavaSeisUtil.findZIndex(gridDef, zEnd, _storageOrder);
-                int zCount = Math.abs(zEndIndex - zStartIndex) + 1;
-                int traceIndex = JavaSeisUtil.findCrosslineIndex(gridDef, trace.getXline(), storageOrder);
-                float[] traceArray = frameArray[traceIndex];
-                Header header = trace.getHeader();
-                JavaSeisUtil.copyHeaderValuesToJSTraceProperties(header, traceProps, traceIndex);
-                System.arraycopy(trace.getDataReference(), 0, traceArray, zStartIndex, zCount);
-              }
+        ParallelFrameWriter frameWriter = getFrameWriter();
+        TraceProperties traceProps = _seisio.getTraceProperties();
+        float[][] frameArray = _seisio.getTraceDataArray();
+        for (Map.Entry<Integer, List<Integer>> entry : frames.entrySet()) {
+          int frameIndex = entry.getKey().intValue();
+          List<Integer> frameTraces = entry.getValue();
+          int[] traceIndices = new int[frameTraces.size()];
+          int[] zStartIndices = new int[frameTraces.size()];
+          int[] zCounts = new int[frameTraces.size()];
+          float[][] traceSamples = new float[frameTraces.size()][];
+          int[] sampleOffsets = new int[frameTraces.size()];
+          boolean[] covered = new boolean[numTracesPerFrame];
+          int numCovered = 0;
+          for (int i = 0; i < traceIndices.length; i++) {
+            int trace = frameTraces.get(i);
+            traceIndices[i] = inlineFrames ? xlineIndices[trace] : inlineIndices[trace];
+            traceSamples[i] = traceDataArray;
+            sampleOffsets[i] = trace * numSamplesPerTrace;
+            zStartIndices[i] = zStartIndex;
+            zCounts[i] = zCount;
+            if (zStartIndices[i] == 0 && zCounts[i] == numSamples && !covered[traceIndices[i]]) {
+              covered[traceIndices[i]] = true;
+              numCovered++;
             }
-            int tracesWritten = _seisio.writeFrame(position, (int) gridDef.getAxisLength(1));
-            //System.out.println("traces written = " + tracesWritten);
           }
-        } else if (storageOrder.equals(StorageOrder.XLINE_INLINE_Z)) {
-          for (float xline : xlines.keySet()) {
-            int xlineIndex = JavaSeisUtil.findCrosslineIndex(gridDef, xline, storageOrder);
-            int[] position = JavaSeisUtil.orderPosition(0, 0, xlineIndex, _storageOrder);
-            int tracesRead = _seisio.readFrame(position);
-            //System.out.println("xline " + xline + " traces read = " + tracesRead);
-            TraceProperties traceProps = _seisio.getTraceProperties();
-            float[][] frameArray = _seisio.getTraceDataArray();
-            for (Trace trace : traces) {
-              if (!trace.isMissing()) {
-                float zStart = trace.getZStart();
-                float zEnd = trace.getZEnd();
-                Unit zUnit = ps3d.getZUnit();
-                zStart = Unit.convert(zStart, zUnit, _model.getUnitOfZ());
-                zEnd = Unit.convert(zEnd, zUnit, _model.getUnitOfZ());
-                int zStartIndex = JavaSeisUtil.findZIndex(gridDef, zStart, _storageOrder);
-                int zEndIndex = JavaSeisUtil.findZIndex(gridDef, zEnd, _storageOrder);
-                int zCount = Math.abs(zEndIndex - zStartIndex) + 1;
-                int traceIndex = JavaSeisUtil.findInlineIndex(gridDef, trace.getInline(), storageOrder);
-                float[] traceArray = frameArray[traceIndex];
-                Header header = trace.getHeader();
-                JavaSeisUtil.copyHeaderValuesToJSTraceProperties(header, traceProps, traceIndex);
-                System.arraycopy(trace.getDataReference(), 0, traceArray, zStartIndex, zCount);
-              }
+          if (frameWriter != null) {
+            // Hand the traces to the I/O threads, which write the frame once it is complete.
+            long firstTraceIndex = (long) frameIndex * numTracesPerFrame;
+            for (int i = 0; i < traceIndices.length; i++) {
+              frameWriter.putTrace(firstTraceIndex + traceIndices[i], zStartIndices[i], traceSamples[i],
+                  sampleOffsets[i], zCounts[i], traceData.getHeader(frameTraces.get(i)));
             }
-            int tracesWritten = _seisio.writeFrame(position, (int) gridDef.getAxisLength(1));
-            //System.out.println("traces written = " + tracesWritten);
+            continue;
           }
-        } else {
-          throw new UnsupportedOperationException("Cannot write to volume stored in slice order yet.");
+          int[] position = inlineFrames ? JavaSeisUtil.orderPosition(0, 0, frameIndex, _storageOrder) : JavaSeisUtil
+              .orderPosition(0, frameIndex, 0, _storageOrder);
+          if (numCovered < numTracesPerFrame) {
+            // Read the frame, to keep the samples and headers not being overwritten. A frame not yet
+            // written is padded with zero traces instead.
+            if (_seisio.readFrame(position) <= 0) {
+              JavaSeisUtil.clearFrame(frameArray, traceProps);
+            }
+          }
+          for (int i = 0; i < traceIndices.length; i++) {
+            Header header = traceData.getHeader(frameTraces.get(i));
+            JavaSeisUtil.copyHeaderValuesToJSTraceProperties(header, traceProps, traceIndices[i]);
+            System.arraycopy(traceSamples[i], sampleOffsets[i], frameArray[traceIndices[i]], zStartIndices[i],
+                zCounts[i]);
+          }
+          _seisio.writeFrame(position, numTracesPerFrame);
         }
       } catch (SeisException ex) {
-        getLogger().error(ex.toString(), ex);
+        putTracesFailed(ex);
       }
+      clearFrameCache();
     }
   }
 
@@ -942,11 +1088,17 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
       } catch (SeisException e) {
         getLogger().error(e.toString(), e);
       }
+      clearFrameCache();
     }
   }
 
   public void putXline(final PostStack3d ps3d, final float xline, final float inlineStart, final float inlineEnd,
       final float zStart, final float zEnd, final TraceData traceData) {
+    if (getNumIOThreads() > 1) {
+      // Let the I/O threads write the frames.
+      putTraces(ps3d, traceData);
+      return;
+    }
     _status = open("rw");
     if (_status != null) {
       GridDefinition gridDef = _seisio.getGridDefinition();
@@ -1007,6 +1159,7 @@ public class PostStack3dMapper extends SeismicDatasetMapper<PostStack3d> impleme
         default:
           throw new RuntimeException("Invalid storage order: " + _storageOrder);
       }
+      clearFrameCache();
     }
   }
 
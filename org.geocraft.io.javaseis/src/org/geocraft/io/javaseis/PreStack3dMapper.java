@@ -685,9 +685,9 @@ public class PreStack3dMapper extends SeismicDatasetMapper<PreStack3d> implement
       float[] inlines = new float[numTraces];
       float[] xlines = new float[numTraces];
       float[] offsets = new float[numTraces];
-      Trace[] traces = traceData.getTraces();
+      // Read the trace headers directly, so the traces of a flat trace collection are not created.
       for (int i = 0; i < numTraces; i++) {
-        Header header = traces[i].getHeader();
+        Header header = traceData.getHeader(i);
         inlines[i] = header.getInteger(TraceHeaderCatalog.INLINE_NO);
         xlines[i] = header.getInteger(TraceHeaderCatalog.XLINE_NO);
         offsets[i] = header.getFloat(TraceHeaderCatalog.OFFSET);
@@ -711,19 +711,21 @@ public class PreStack3dMapper extends SeismicDatasetMapper<PreStack3d> implement
       TraceProperties traceProps = _seisio.getTraceProperties();
       //String order = guessStorageOrder(numTraces, inlines, xlines, offsets);
       try {
-        for (int j = 0; j < traces.length; j++) {
+        // The traces are written one at a time, rather than gathered into frames by the I/O threads,
+        // so a gather keeps the fold of the traces actually written to it.
+        for (int j = 0; j < numTraces; j++) {
           int index = j * traceData.getNumSamples();
           int inlineIndex = JavaSeisUtil.findInlineIndex(gridDef, inlines[j], _storageOrder);
           int xlineIndex = JavaSeisUtil.findCrosslineIndex(gridDef, xlines[j], _storageOrder);
           int offsetIndex = JavaSeisUtil.findOffsetIndex(gridDef, offsets[j], _storageOrder);
           traceIndex = JavaSeisUtil.findTraceIndex(gridDef, inlineIndex, xlineIndex, offsetIndex, _storageOrder);
           System.arraycopy(data, index, jsData[0], zStartIndex, zCount);
-          Header header = traces[j].getHeader();
+          Header header = traceData.getHeader(j);
           JavaSeisUtil.copyHeaderValuesToJSTraceProperties(header, traceProps, 0);
           _seisio.writeTrace(traceIndex);
         }
       } catch (SeisException e) {
-        getLogger().error(e.toString(), e);
+        putTracesFailed(e);
       }
     }
   }
@@ -41,6 +41,12 @@ public abstract class SeismicDatasetMapper<E extends SeismicDataset> extends Abs
   /** Open status of JavaSeis file: null, "r", "rw" */
   protected String _status;
 
+  /** The number of I/O threads used for writing frames (1 to write on the calling thread). */
+  private int _numIOThreads = 1;
+
+  /** The parallel frame writer, created on the first write if more than 1 I/O thread is used. */
+  private ParallelFrameWriter _frameWriter;
+
   public SeismicDatasetMapper(final VolumeMapperModel model) {
     _model = model;
 
@@ -87,7 +93,96 @@ public abstract class SeismicDatasetMapper<E extends SeismicDataset> extends Abs
     // No action.
   }
 
+  /**
+   * Sets the number of I/O threads used for writing frames. If more than 1, each thread writes
+   * through its own handle on the dataset (see <code>ParallelFrameWriter</code>). Only poststack
+   * frames are written this way; prestack traces are written one at a time, to keep the fold.
+   *
+   * @param numIOThreads the number of I/O threads.
+   */
+  public void setNumIOThreads(final int numIOThreads) {
+    _numIOThreads = Math.max(1, numIOThreads);
+  }
+
+  /**
+   * Returns the number of I/O threads used for writing frames.
+   */
+  public int getNumIOThreads() {
+    return _numIOThreads;
+  }
+
+  /**
+   * Returns the parallel frame writer, creating it if necessary,
+   * or <i>null</i> if frames are written on the calling thread.
+   *
+   * @throws SeisException thrown if the writer cannot open the dataset.
+   */
+  protected ParallelFrameWriter getFrameWriter() throws SeisException {
+    if (_frameWriter == null && _numIOThreads > 1) {
+      _frameWriter = new ParallelFrameWriter(getFilePath(), _numIOThreads);
+    }
+    return _frameWriter;
+  }
+
+  /**
+   * Waits until the parallel frame writer, if any, has written all the frames put so far.
+   * This must be called before reading frames that may have been written by the writer.
+   * <p>
+   * The writer writes through its own handles, so the fold cached by the trace map of this
+   * mapper's handle is discarded, and reloaded from disk on the next read.
+   *
+   * @throws RuntimeException thrown if the writer failed to write a frame.
+   */
+  protected void flushFrameWriter() {
+    if (_frameWriter != null) {
+      try {
+        _frameWriter.flush();
+      } catch (SeisException e) {
+        throw new RuntimeException("Failed to write JavaSeis frames: " + e.getMessage(), e);
+      } finally {
+        emptyTraceMapCache();
+      }
+    }
+  }
+
+  /**
+   * Reports an error thrown while putting traces. When frames are written by the parallel frame
+   * writer, the error is rethrown, as the frames it failed to write would otherwise be lost silently.
+   *
+   * @param ex the error.
+   * @throws RuntimeException thrown if frames are written by the parallel frame writer.
+   */
+  protected void putTracesFailed(final SeisException ex) {
+    if (_numIOThreads > 1) {
+      throw new RuntimeException("Failed to write JavaSeis frames: " + ex.getMessage(), ex);
+    }
+    getLogger().error(ex.toString(), ex);
+  }
+
+  /**
+   * Discards the fold cached by the trace map of this mapper's handle, if open.
+   */
+  private void emptyTraceMapCache() {
+    if (_status != null && _seisio.getTraceMap() != null) {
+      _seisio.getTraceMap().emptyCache();
+    }
+  }
+
+  /**
+   * Closes the dataset, after the parallel frame writer, if any, has written all the frames put so far.
+   *
+   * @throws RuntimeException thrown if the writer failed to write a frame.
+   */
   public void close() {
+    SeisException writeError = null;
+    if (_frameWriter != null) {
+      try {
+        _frameWriter.close();
+      } catch (SeisException e) {
+        writeError = e;
+      }
+      _frameWriter = null;
+    }
     if (_status != null) {
       try {
         _seisio.close();
@@ -96,6 +191,9 @@ public abstract class SeismicDatasetMapper<E extends SeismicDataset> extends Abs
       }
       _status = null;
     }
+    if (writeError != null) {
+      throw new RuntimeException("Failed to write JavaSeis frames: " + writeError.getMessage(), writeError);
+    }
   }
 
   public StorageOrganization getStorageOrganization() {
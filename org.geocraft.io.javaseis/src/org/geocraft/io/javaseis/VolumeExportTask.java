@@ -57,6 +57,17 @@ public class VolumeExportTask extends ExportTask {
     }
   }
 
+  /**
+   * Returns the number of I/O threads to write with, which is one per secondary storage
+   * folder, so the export scales with the number of disks the extents are striped across.
+   */
+  private int getNumIOThreads() {
+    if (_model.getSecondaryStorageFlag() && _model.getVirtualFoldersLoc() != null) {
+      return Math.max(1, _model.getVirtualFoldersLoc().length);
+    }
+    return 1;
+  }
+
   /**
    * The internal method for exporting the a poststack3d volume as JavaSeis.
    * @param ps3d the poststack3d volume.
@@ -71,23 +82,28 @@ public class VolumeExportTask extends ExportTask {
 
     // Create a JavaSeis PostStack3d mapper.
     PostStack3dMapper mapper = new PostStack3dMapper(_model);
+    mapper.setNumIOThreads(getNumIOThreads());
     try {
       mapper.create(ps3d);
 
       int oldWork = 0;
       TraceIterator iterator = TraceIteratorFactory.create(ps3d);
-      while (iterator.hasNext()) {
-        TraceData traceData = iterator.next();
-        mapper.putTraces(ps3d, traceData);
-        int completion = (int) iterator.getCompletion();
-        int work = completion - oldWork;
-        oldWork = completion;
-        monitor.worked(work);
-        monitor.subTask(iterator.getMessage());
-        if (monitor.isCanceled()) {
-          monitor.subTask("Cleanup of canceled job");
-          break;
+      try {
+        while (iterator.hasNext()) {
+          TraceData traceData = iterator.next();
+          mapper.putTraces(ps3d, traceData);
+          int completion = (int) iterator.getCompletion();
+          int work = completion - oldWork;
+          oldWork = completion;
+          monitor.worked(work);
+          monitor.subTask(iterator.getMessage());
+          if (monitor.isCanceled()) {
+            monitor.subTask("Cleanup of canceled job");
+            break;
+          }
         }
+      } finally {
+        iterator.cancel();
       }
       mapper.close();
 
@@ -223,17 +239,21 @@ public class VolumeExportTask extends ExportTask {
 
       int oldWork = 0;
       TraceIterator iterator = TraceIteratorFactory.create(ps3d);
-      while (iterator.hasNext()) {
-        TraceData traceData = iterator.next();
-        mapper.putTraces(ps3d, traceData);
-        int completion = (int) iterator.getCompletion();
-        int work = completion - oldWork;
-        oldWork = completion;
-        monitor.worked(work);
-        if (monitor.isCanceled()) {
-          monitor.subTask("Cleanup of canceled job");
-          break;
+      try {
+        while (iterator.hasNext()) {
+          TraceData traceData = iterator.next();
+          mapper.putTraces(ps3d, traceData);
+          int completion = (int) iterator.getCompletion();
+          int work = completion - oldWork;
+          oldWork = completion;
+          monitor.worked(work);
+          if (monitor.isCanceled()) {
+            monitor.subTask("Cleanup of canceled job");
+            break;
+          }
         }
+      } finally {
+        iterator.cancel();
       }
       mapper.close();
 
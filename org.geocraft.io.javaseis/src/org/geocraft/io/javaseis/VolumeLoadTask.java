@@ -81,22 +81,25 @@ public class VolumeLoadTask extends ImportTask {
     PostStack3d ps3d = PostStack3dFactory.create(_mapperModel.getFileName(), mapper);
     monitor.worked(1);
 
-    // Check if the poststack3d entity already exists in the repository.
-    monitor.subTask("Checking repository");
-    ISpecification filter = new TypeSpecification(PostStack3d.class);
-    Map<String, Object> map = repository.get(filter);
-    for (Object object : map.values()) {
-      PostStack3d temp = (PostStack3d) object;
-      if (temp.getUniqueID().equals(ps3d.getUniqueID())) {
-        monitor.done();
-        throw new CoreException(new Status(IStatus.ERROR, "org.geocraft.io.segy", getAlreadyExistsErrorMessage(ps3d)));
+    synchronized (repository) {
+      // Check if the poststack3d entity already exists in the repository.
+      monitor.subTask("Checking repository");
+      ISpecification filter = new TypeSpecification(PostStack3d.class);
+      Map<String, Object> map = repository.get(filter);
+      for (Object object : map.values()) {
+        PostStack3d temp = (PostStack3d) object;
+        if (temp.getUniqueID().equals(ps3d.getUniqueID())) {
+          monitor.done();
+          throw new CoreException(new Status(IStatus.ERROR, "org.geocraft.io.segy",
+              getAlreadyExistsErrorMessage(ps3d)));
+        }
       }
-    }
-    monitor.worked(1);
+      monitor.worked(1);
 
-    // Add the volume to the repository.
-    monitor.subTask("Adding volume to repository");
-    repository.add(ps3d);
+      // Add the volume to the repository.
+      monitor.subTask("Adding volume to repository");
+      repository.add(ps3d);
+    }
     monitor.worked(1);
 
     // Task is done.
@@ -114,24 +117,26 @@ public class VolumeLoadTask extends ImportTask {
     PreStack3d ps3d = PreStack3dFactory.create(_mapperModel.getFileName(), mapper);
     monitor.worked(1);
 
-    // Check if the prestack3d entity already exists in the repository.
-    monitor.subTask("Checking repository");
-    ISpecification filter = new TypeSpecification(PreStack3d.class);
-    Map<String, Object> map = repository.get(filter);
-    for (Object object : map.values()) {
-      PreStack3d temp = (PreStack3d) object;
-      if (temp.getUniqueID().equals(ps3d.getUniqueID())) {
-        String errorMessage = "Volume already exists in repository: " + ps3d.getDisplayName();
-        Status status = new Status(IStatus.ERROR, "org.geocraft.io.segy", errorMessage.toString());
-        monitor.done();
-        throw new CoreException(status);
+    synchronized (repository) {
+      // Check if the prestack3d entity already exists in the repository.
+      monitor.subTask("Checking repository");
+      ISpecification filter = new TypeSpecification(PreStack3d.class);
+      Map<String, Object> map = repository.get(filter);
+      for (Object object : map.values()) {
+        PreStack3d temp = (PreStack3d) object;
+        if (temp.getUniqueID().equals(ps3d.getUniqueID())) {
+          String errorMessage = "Volume already exists in repository: " + ps3d.getDisplayName();
+          Status status = new Status(IStatus.ERROR, "org.geocraft.io.segy", errorMessage.toString());
+          monitor.done();
+          throw new CoreException(status);
+        }
       }
-    }
-    monitor.worked(1);
+      monitor.worked(1);
 
-    // Add the volume to the repository.
-    monitor.subTask("Adding volume to repository");
-    repository.add(ps3d);
+      // Add the volume to the repository.
+      monitor.subTask("Adding volume to repository");
+      repository.add(ps3d);
+    }
     monitor.worked(1);
 
     // Task us dibe,
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.las;
+
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.geocraft.io.las.LasReader.Delimiter;
+
+
+/**
+ * Unit tests for parsing the data records of LAS files into per-curve arrays.
+ */
+public class LasDataParserTestCase extends TestCase {
+
+  private static final float NULL = -999.25f;
+
+  /** An LAS 2.0 file with one line per depth step, a comment, and null and missing values. */
+  private static final String[] LAS20 = {
+      "~VERSION INFORMATION",
+      " VERS.                 2.0:   CWLS LOG ASCII STANDARD - VERSION 2.0",
+      " WRAP.                  NO:   ONE LINE PER DEPTH STEP",
+      "~WELL INFORMATION BLOCK",
+      " STRT .M              1670.0:  START DEPTH",
+      " STOP .M              1669.5:  STOP DEPTH",
+      " STEP .M               -0.25:  STEP",
+      " NULL .              -999.25:  NULL VALUE",
+      " WELL .             ANY WELL:  WELL",
+      "~CURVE INFORMATION",
+      " DEPT .M                    :  DEPTH",
+      " DT   .US/M                 :  SONIC TRANSIT TIME",
+      " RHOB .K/M3                 :  BULK DENSITY",
+      " NPHI .V/V                  :  NEUTRON POROSITY",
+      "~A  DEPT     DT       RHOB     NPHI",
+      " 1670.000   123.450 2550.000    0.450",
+      "# The density tool failed below 1670 m.",
+      " 1669.750   123.450 -999.25     0.460",
+      " 1669.500   124.000" };
+
+  /** An LAS 2.0 file with each depth step wrapped over 3 lines. */
+  private static final String[] LAS20_WRAPPED = {
+      "~VERSION INFORMATION",
+      " VERS.                 2.0:   CWLS LOG ASCII STANDARD - VERSION 2.0",
+      " WRAP.                 YES:   MULTIPLE LINES PER DEPTH STEP",
+      "~WELL INFORMATION BLOCK",
+      " STRT .FT             3000.0:  START DEPTH",
+      " STOP .FT             3000.5:  STOP DEPTH",
+      " STEP .FT               0.25:  STEP",
+      " NULL .              -999.25:  NULL VALUE",
+      "~CURVE INFORMATION",
+      " DEPT .FT                   :  DEPTH",
+      " DBML .FT                   :  DEPTH BELOW MUD LINE",
+      " DPHI .V/V                  :  DENSITY POROSITY",
+      " DT   .US/FT                :  SONIC TRANSIT TIME",
+      " GR   .API                  :  GAMMA RAY",
+      " ILD  .OHMM                 :  DEEP RESISTIVITY",
+      " SP   .MV                   :  SPONTANEOUS POTENTIAL",
+      "~A",
+      "   3000.0000",
+      "    1000.0000       0.2100    -999.2500    -999.2500",
+      "      12.5000     -30.0000",
+      "   3000.2500",
+      "    1001.0000       0.2200      90.0000     100.0000",
+      "      13.5000    -999.2500",
+      "   3000.5000",
+      "    1002.0000       0.2300      91.0000     101.0000",
+      "      14.5000     -32.0000" };
+
+  /** An LAS 3.0 file with comma delimited values, some of them empty, followed by another section. */
+  private static final String[] LAS30 = {
+      "~VERSION INFORMATION",
+      " VERS.                          3.0 : CWLS LOG ASCII STANDARD -VERSION 3.0",
+      " WRAP.                           NO : ONE LINE PER DEPTH STEP",
+      " DLM .                        COMMA : DELIMITING CHARACTER BETWEEN DATA COLUMNS",
+      "~Well Information",
+      " STRT .M              1670.000      : First Index Value",
+      " STOP .M              1669.750      : Last Index Value",
+      " STEP .M              -0.125        : STEP",
+      " NULL .               -999.25       : NULL VALUE",
+      "~Curve Information",
+      " DEPT .M                            : DEPTH              {F}",
+      " DT   .US/M                         : SONIC TRANSIT TIME {F}",
+      " RHOB .K/M3                         : BULK DENSITY       {F}",
+      "~Parameter Information",
+      " BHT  .DEGC           35.5          : Bottom Hole Temperature {F}",
+      "~ASCII | CURVE",
+      "1670.000,123.450,2550.000",
+      "1669.875, ,2551.000",
+      "1669.750,124.000,",
+      "~Tops_Definition",
+      " TOPT.M                             : Top Depth {F}" };
+
+  /**
+   * Tests an LAS 2.0 file with one line per depth step.
+   */
+  public void testLas20() {
+    LasReader reader = new LasReader(Arrays.asList(LAS20));
+    assertEquals(Delimiter.SPACE, reader.getDelimiter());
+    assertEquals(NULL, reader.getNullValue());
+    assertTrue(Arrays.equals(new String[] { "DEPT", "DT", "RHOB", "NPHI" }, reader.getColumnNames()));
+
+    float[][] logs = reader.getRawData();
+    assertEquals(4, logs.length);
+    assertLog(new float[] { 1670f, 1669.75f, 1669.5f }, logs[0]);
+    assertLog(new float[] { 123.45f, 123.45f, 124f }, logs[1]);
+    // The values missing from the end of a record are null.
+    assertLog(new float[] { 2550f, NULL, NULL }, logs[2]);
+    assertLog(new float[] { 0.45f, 0.46f, NULL }, logs[3]);
+  }
+
+  /**
+   * Tests an LAS 2.0 file with each depth step wrapped over multiple lines.
+   */
+  public void testLas20Wrapped() {
+    LasReader reader = new LasReader(Arrays.asList(LAS20_WRAPPED));
+    assertEquals(7, reader.getColumnNames().length);
+
+    float[][] logs = reader.getRawData();
+    assertEquals(7, logs.length);
+    assertLog(new float[] { 3000f, 3000.25f, 3000.5f }, logs[0]);
+    assertLog(new float[] { 1000f, 1001f, 1002f }, logs[1]);
+    assertLog(new float[] { 0.21f, 0.22f, 0.23f }, logs[2]);
+    assertLog(new float[] { NULL, 90f, 91f }, logs[3]);
+    assertLog(new float[] { NULL, 100f, 101f }, logs[4]);
+    assertLog(new float[] { 12.5f, 13.5f, 14.5f }, logs[5]);
+    assertLog(new float[] { -30f, NULL, -32f }, logs[6]);
+  }
+
+  /**
+   * Tests an LAS 3.0 file with comma delimited values.
+   */
+  public void testLas30() {
+    LasReader reader = new LasReader(Arrays.asList(LAS30));
+    assertEquals(Delimiter.COMMA, reader.getDelimiter());
+    assertTrue(Arrays.equals(new String[] { "DEPT", "DT", "RHOB" }, reader.getColumnNames()));
+
+    // The empty values are null, and the data records end at the next section.
+    float[][] logs = reader.getRawData();
+    assertEquals(3, logs.length);
+    assertLog(new float[] { 1670f, 1669.875f, 1669.75f }, logs[0]);
+    assertLog(new float[] { 123.45f, NULL, 124f }, logs[1]);
+    assertLog(new float[] { 2550f, 2551f, NULL }, logs[2]);
+  }
+
+  /**
+   * Tests tab delimited records with CR-LF line endings, including a wrapped record
+   * with a trailing delimiter, and more records than expected.
+   */
+  public void testTabDelimited() {
+    String data = "1.0\t2.0\t3.0\r\n4.0\t\t6.0\r\n7.0\t8.0\t9.0\r\n";
+    float[][] logs = LasDataParser.parse(toBuffer(data), 3, Delimiter.TAB, false, NULL, 1);
+    assertEquals(3, logs.length);
+    assertLog(new float[] { 1f, 4f, 7f }, logs[0]);
+    assertLog(new float[] { 2f, NULL, 8f }, logs[1]);
+    assertLog(new float[] { 3f, 6f, 9f }, logs[2]);
+
+    String wrapped = "1.0\t2.0\t\r\n3.0\r\n4.0\t5.0\t\r\n6.0\r\n";
+    logs = LasDataParser.parse(toBuffer(wrapped), 3, Delimiter.TAB, true, NULL, 0);
+    assertLog(new float[] { 1f, 4f }, logs[0]);
+    assertLog(new float[] { 2f, 5f }, logs[1]);
+    assertLog(new float[] { 3f, 6f }, logs[2]);
+  }
+
+  /**
+   * Tests an incomplete wrapped record at the end of the data is dropped.
+   */
+  public void testIncompleteWrappedRecord() {
+    String data = " 1.0 2.0\n 3.0\n 4.0 5.0\n";
+    float[][] logs = LasDataParser.parse(toBuffer(data), 3, Delimiter.SPACE, true, NULL, 2);
+    assertEquals(3, logs.length);
+    assertLog(new float[] { 1f }, logs[0]);
+    assertLog(new float[] { 2f }, logs[1]);
+    assertLog(new float[] { 3f }, logs[2]);
+  }
+
+  private static ByteBuffer toBuffer(final String data) {
+    byte[] bytes = new byte[data.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) data.charAt(i);
+    }
+    return ByteBuffer.wrap(bytes);
+  }
+
+  private static void assertLog(final float[] expected, final float[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals("Value #" + i, expected[i], actual[i], 1e-4f);
+    }
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.las;
+
+
+import java.nio.ByteBuffer;
+
+import org.geocraft.io.las.LasReader.Delimiter;
+import org.geocraft.io.util.AsciiNumberReader;
+
+
+/**
+ * Parses the data records of the "~A" section of an LAS file directly from a byte buffer
+ * (e.g. a memory-mapped file) into one primitive array per curve.
+ * <p>
+ * The values are tokenized in place, without creating a string per record or per value,
+ * and are converted by the decimal parser of {@link AsciiNumberReader}.
+ * <p>
+ * A parser only holds per-file state, so many LAS files can be parsed concurrently.
+ */
+final class LasDataParser {
+
+  /** The buffer containing the data records. */
+  private final ByteBuffer _buffer;
+
+  /** The position after the last byte of the data records. */
+  private final int _limit;
+
+  /** The number of curves in each record. */
+  private final int _numCurves;
+
+  /** The delimiter between the values of a record. */
+  private final Delimiter _delimiter;
+
+  /** The flag for records wrapped over multiple lines. */
+  private final boolean _wrapped;
+
+  /** The null data value, used for missing values. */
+  private final float _nullValue;
+
+  /** The current position in the buffer. */
+  private int _position;
+
+  /** The parsed curves (the capacity can exceed the number of records). */
+  private float[][] _logs;
+
+  /** The number of complete records parsed. */
+  private int _numRecords;
+
+  /**
+   * Parses the data records from the current position of a buffer to its limit.
+   *
+   * @param buffer the buffer, positioned at the first byte after the "~A" record.
+   * @param numCurves the number of curves in each record.
+   * @param delimiter the delimiter between the values of a record.
+   * @param wrapped <i>true</i> if each record is wrapped over multiple lines.
+   * @param nullValue the null data value.
+   * @param expectedNumRecords the expected number of records (used to size the curves), or 0 if unknown.
+   * @return the curves, as arrays of length equal to the number of records.
+   */
+  static float[][] parse(final ByteBuffer buffer, final int numCurves, final Delimiter delimiter,
+      final boolean wrapped, final float nullValue, final int expectedNumRecords) {
+    LasDataParser parser = new LasDataParser(buffer, numCurves, delimiter, wrapped, nullValue);
+    return parser.parse(expectedNumRecords);
+  }
+
+  private LasDataParser(final ByteBuffer buffer, final int numCurves, final Delimiter delimiter,
+      final boolean wrapped, final float nullValue) {
+    _buffer = buffer;
+    _position = buffer.position();
+    _limit = buffer.limit();
+    _numCurves = numCurves;
+    _delimiter = delimiter;
+    _wrapped = wrapped;
+    _nullValue = nullValue;
+  }
+
+  private float[][] parse(final int expectedNumRecords) {
+    if (_numCurves == 0) {
+      return new float[0][0];
+    }
+    // Size the curves from the expected number of records, bounded by the number
+    // of records that fit in the data (each value takes at least 2 bytes).
+    int numBytes = _limit - _position;
+    int capacity = numBytes / (2 * _numCurves) + 1;
+    if (expectedNumRecords > 0) {
+      capacity = Math.min(capacity, expectedNumRecords);
+    } else {
+      // Otherwise guess, assuming about 8 bytes per value.
+      capacity = numBytes / (8 * _numCurves) + 1;
+    }
+    _logs = new float[_numCurves][capacity];
+
+    boolean spaceDelimited = _delimiter != Delimiter.COMMA && _delimiter != Delimiter.TAB;
+    byte delimiter = (byte) (_delimiter == Delimiter.COMMA ? ',' : '\t');
+    int curve = 0;
+    while (_position < _limit) {
+      // Skip the leading white space of the line.
+      skipWhiteSpace();
+      if (_position >= _limit) {
+        break;
+      }
+      byte b = _buffer.get(_position);
+      if (isEndOfLine(b)) {
+        _position++;
+        continue;
+      }
+      if (b == '#') {
+        // Skip comment lines.
+        skipToEndOfLine();
+        continue;
+      }
+      if (b == '~') {
+        // The start of another section ends the data records.
+        break;
+      }
+
+      // Parse the values of the line.
+      boolean endOfLine = false;
+      while (!endOfLine) {
+        int start = _position;
+        int end;
+        if (spaceDelimited) {
+          while (_position < _limit && !isWhiteSpace(_buffer.get(_position))) {
+            _position++;
+          }
+          end = _position;
+          skipWhiteSpace();
+          endOfLine = _position >= _limit || isEndOfLine(_buffer.get(_position));
+        } else {
+          while (_position < _limit && _buffer.get(_position) != delimiter && !isEndOfLine(_buffer.get(_position))) {
+            _position++;
+          }
+          end = _position;
+          endOfLine = _position >= _limit || isEndOfLine(_buffer.get(_position));
+          if (!endOfLine) {
+            // Skip the delimiter.
+            _position++;
+          }
+          // Trim the spaces around the value.
+          while (start < end && _buffer.get(start) == ' ') {
+            start++;
+          }
+          while (end > start && isWhiteSpace(_buffer.get(end - 1))) {
+            end--;
+          }
+          if (start == end && endOfLine && _wrapped) {
+            // Ignore the empty value after a trailing delimiter of a wrapped line.
+            break;
+          }
+        }
+
+        if (curve < _numCurves) {
+          setValue(curve, start == end ? _nullValue : parseFloat(start, end));
+        }
+        curve++;
+        if (_wrapped && curve == _numCurves) {
+          // The record is complete, so the next value starts a new one.
+          _numRecords++;
+          curve = 0;
+        }
+      }
+      if (!_wrapped) {
+        // Each line holds one record, whose missing values are null.
+        for (int i = curve; i < _numCurves; i++) {
+          setValue(i, _nullValue);
+        }
+        _numRecords++;
+        curve = 0;
+      }
+      skipToEndOfLine();
+    }
+
+    // Trim the curves to the number of records.
+    float[][] logs = _logs;
+    if (logs[0].length != _numRecords) {
+      logs = new float[_numCurves][_numRecords];
+      for (int i = 0; i < _numCurves; i++) {
+        System.arraycopy(_logs[i], 0, logs[i], 0, _numRecords);
+      }
+    }
+    _logs = null;
+    return logs;
+  }
+
+  /**
+   * Sets a value of the current record, growing the curves if necessary.
+   */
+  private void setValue(final int curve, final float value) {
+    if (_numRecords >= _logs[curve].length) {
+      int capacity = Math.max(_numRecords + 1, _logs[0].length + (_logs[0].length >> 1));
+      for (int i = 0; i < _numCurves; i++) {
+        float[] log = new float[capacity];
+        System.arraycopy(_logs[i], 0, log, 0, _logs[i].length);
+        _logs[i] = log;
+      }
+    }
+    _logs[curve][_numRecords] = value;
+  }
+
+  /**
+   * Parses a value from the bytes in the specified range.
+   * A value that cannot be parsed is returned as 0.
+   */
+  private float parseFloat(final int start, final int end) {
+    try {
+      return AsciiNumberReader.parseFloat(_buffer, start, end);
+    } catch (NumberFormatException ex) {
+      // could not parse the value.
+      return 0;
+    }
+  }
+
+  /**
+   * Skips the white space on the current line.
+   */
+  private void skipWhiteSpace() {
+    while (_position < _limit) {
+      byte b = _buffer.get(_position);
+      if (!isWhiteSpace(b) || isEndOfLine(b)) {
+        break;
+      }
+      _position++;
+    }
+  }
+
+  /**
+   * Skips to the start of the next line.
+   */
+  private void skipToEndOfLine() {
+    while (_position < _limit && _buffer.get(_position) != '\n') {
+      _position++;
+    }
+    _position++;
+  }
+
+  private static boolean isWhiteSpace(final byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+  }
+
+  private static boolean isEndOfLine(final byte b) {
+    return b == '\r' || b == '\n';
+  }
+}
@@ -5,15 +5,18 @@ package org.geocraft.io.las;
 
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.geocraft.core.common.io.TextFile;
 import org.geocraft.core.model.datatypes.Country;
 import org.geocraft.core.model.datatypes.Unit;
+import org.geocraft.io.util.AsciiNumberReader;
+import org.geocraft.io.util.SidecarCache;
 
 
 /**
@@ -51,6 +54,9 @@ public final class LasReader {
   /** Column of the "Association" in the header. */
   public static final int ASSOC = 5;
 
+  /** The variant of the cache entries of LAS log curves. */
+  private static final String CACHE_VARIANT = "LAS";
+
   /** Default to assuming the data is space delimited. */
   private Delimiter _delimiter = Delimiter.SPACE;
 
@@ -143,30 +149,59 @@ public final class LasReader {
       throw new RuntimeException("Cannot acces the LAS file: " + filePath);
     }
 
-    TextFile tf = new TextFile(filePath);
-    load(tf);
-    tf = null;
+    try {
+      load(AsciiNumberReader.map(file), file);
+    } catch (IOException ex) {
+      throw new RuntimeException("Cannot read the LAS file: " + filePath, ex);
+    }
   }
 
   public LasReader(final List<String> tf) {
-    load(tf);
+    StringBuilder builder = new StringBuilder();
+    for (String record : tf) {
+      builder.append(record).append('\n');
+    }
+    byte[] bytes = new byte[builder.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) builder.charAt(i);
+    }
+    load(ByteBuffer.wrap(bytes), null);
   }
 
   /**
-   * Loads the contents of an LAS file that has been parsed into a collection of strings.
+   * Loads the contents of an LAS file from a byte buffer.
+   * The header records are read as strings, up to and including the "~A" record, and
+   * the data records are then parsed directly from the buffer into the log curves, unless
+   * they were cached by a previous load of the same file.
    * 
-   * @param recordList the collection of records.
+   * @param buffer the buffer containing the file contents.
+   * @param source the LAS file, or <i>null</i> if the contents are not from a file (and are not cached).
    */
-  private void load(final List<String> recordList) {
+  private void load(final ByteBuffer buffer, final File source) {
     List<String> validRecords = new ArrayList<String>();
 
-    // Validate and store each of the records that are
+    // Validate and store each of the header records that are
     // greater than zero in length. 
-    for (String record : recordList) {
-      if (record.trim().length() > 0) {
-        validRecords.add(record.trim());
+    StringBuilder builder = new StringBuilder();
+    boolean foundData = false;
+    int limit = buffer.limit();
+    int position = buffer.position();
+    while (position < limit && !foundData) {
+      builder.setLength(0);
+      while (position < limit) {
+        byte b = buffer.get(position++);
+        if (b == '\n') {
+          break;
+        }
+        builder.append((char) (b & 0xff));
+      }
+      String record = builder.toString().trim();
+      if (record.length() > 0) {
+        validRecords.add(record);
+        foundData = record.startsWith("~A");
       }
     }
+    buffer.position(position);
 
     String[] records = validRecords.toArray(new String[validRecords.size()]);
     validRecords = null;
@@ -175,7 +210,26 @@ public final class LasReader {
     parseHeader(records);
 
     // Parse the data records.
-    parseLasData(records);
+    int numCurves = getColumnNames().length;
+    SidecarCache.Entry entry = null;
+    if (foundData && source != null) {
+      entry = SidecarCache.read(source, CACHE_VARIANT);
+    }
+    if (entry != null && entry.getFloatArrays().length == numCurves) {
+      _logs = entry.getFloatArrays();
+    } else if (foundData) {
+      int expectedNumRecords = 0;
+      // The step can be negative (e.g. for depths decreasing upwards).
+      if ((_stop - _start) / _step > 0) {
+        expectedNumRecords = getExpectedNumberOfSamples();
+      }
+      _logs = LasDataParser.parse(buffer, numCurves, _delimiter, _wrapped, _nullValue, expectedNumRecords);
+      if (source != null) {
+        SidecarCache.write(source, CACHE_VARIANT, _logs, new double[0][]);
+      }
+    } else {
+      _logs = new float[numCurves][0];
+    }
   }
 
   /**
@@ -682,62 +736,6 @@ public final class LasReader {
     return result;
   }
 
-  /**
-   * Parse the LAS well log data records.
-   */
-  private void parseLasData(final String[] records) {
-
-    List<String[]> foo = null;
-
-    if (_wrapped) {
-      // Parse the records from the "wrapped" format.
-      for (int i = 0; i < records.length; i++) {
-        if (records[i].startsWith("~A")) {
-          foo = parseWrappedDataRecords(records, getColumnNames().length, i + 1, _delimiter, _nullValue);
-          break;
-        }
-      }
-    } else {
-      // Parse the records from the "non-wrapped" format.
-      for (int i = 0; i < records.length; i++) {
-        if (records[i].startsWith("~A")) {
-          foo = parseNonWrappedDataRecords(records, getColumnNames().length, i + 1, _delimiter, _nullValue);
-        }
-      }
-    }
-
-    // Convert the list of data records to log data arrays.
-    _logs = parseRecordListArray(foo, getColumnNames().length);
-  }
-
-  /**
-   * Parses an array of "non-wrapped" data records.
-   * 
-   * @param records the array of records to parse.
-   * @param numTraces the number of curves in the record.
-   * @param firstDataRecord the index of the first record to parse.
-   * @return the collection of parsed records.
-   */
-  private static List<String[]> parseNonWrappedDataRecords(final String[] records, final int numTraces,
-      final int firstDataRecord, final Delimiter delimiter, final float nullValue) {
-
-    List<String[]> list = new ArrayList<String[]>();
-    String[] data = null;
-
-    for (int i = firstDataRecord; i < records.length; i++) {
-      if (delimiter == Delimiter.SPACE || delimiter == Delimiter.UNSPECIFIED || delimiter == Delimiter.INVALID) {
-        data = parseDataRecordsBySpaces(records[i], numTraces);
-      } else if (delimiter == Delimiter.TAB) {
-        data = parseDataRecordsByRegex(records[i], numTraces, "\\t", nullValue);
-      } else if (delimiter == Delimiter.COMMA) {
-        data = parseDataRecordsByRegex(records[i], numTraces, ",", nullValue);
-      }
-      list.add(data);
-    }
-
-    return list;
-  }
-
   public static float[][] parseRecordListArray(final List<String[]> data, final int numTraces) {
 
     float[][] logs = new float[numTraces][data.size()];
@@ -80,74 +80,76 @@ public class WellLoadTask extends ImportTask {
     // Create the well entity.
     Well well = new Well(_mapperModel.getWellName(), wellMapper);
 
-    // Check if the well entity already exists in the repository...
-    ISpecification filter = new TypeSpecification(Well.class);
-    Map<String, Object> map = repository.get(filter);
-    Collection<Object> objects = map.values();
-    boolean foundWell = false;
-    for (Object object : objects) {
-      Well temp = (Well) object;
-      if (temp.getUniqueID().equals(well.getUniqueID())) {
-        foundWell = true;
-        well = temp;
+    synchronized (repository) {
+      // Check if the well entity already exists in the repository...
+      ISpecification filter = new TypeSpecification(Well.class);
+      Map<String, Object> map = repository.get(filter);
+      Collection<Object> objects = map.values();
+      boolean foundWell = false;
+      for (Object object : objects) {
+        Well temp = (Well) object;
+        if (temp.getUniqueID().equals(well.getUniqueID())) {
+          foundWell = true;
+          well = temp;
+        }
       }
-    }
-    // If so, then log a warning.
-    // If not, then add it.
-    if (foundWell) {
-      logger.warn(well.getDisplayName() + " already exists in the repository.");
-    } else {
-      repository.add(well);
-    }
-    monitor.worked(1);
+      // If so, then log a warning.
+      // If not, then add it.
+      if (foundWell) {
+        logger.warn(well.getDisplayName() + " already exists in the repository.");
+      } else {
+        repository.add(well);
+      }
+      monitor.worked(1);
 
-    // Create the well bore.
-    WellBore wellBore = well.getWellBore();
+      // Create the well bore.
+      WellBore wellBore = well.getWellBore();
 
-    monitor.worked(1);
+      monitor.worked(1);
 
-    // Add the well log traces.
-    List<WellLogTrace> wellLogsToAdd = new ArrayList<WellLogTrace>();
+      // Add the well log traces.
+      List<WellLogTrace> wellLogsToAdd = new ArrayList<WellLogTrace>();
 
-    String[] logs = _mapperModel.getColumnNames();
-    String[] selectedLogs = _mapperModel.getSelectedColumnNames();
+      String[] logs = _mapperModel.getColumnNames();
+      String[] selectedLogs = _mapperModel.getSelectedColumnNames();
 
-    for (String log : logs) {
-      System.out.println("LOG NAME: " + log);
-      //      String nameWithoutUnits = log.substring(0, log.lastIndexOf('(')).trim();
-      String nameWithoutUnits = log;
-      WellLogTraceMapperModel traceMapperModel = new WellLogTraceMapperModel();
-      traceMapperModel.setValueObject(WellLogTraceMapperModel.TRACE_DISPLAY_NAME, nameWithoutUnits);
-      traceMapperModel.setValueObject(WellLogTraceMapperModel.WELL_MAPPER_MODEL, _mapperModel);
-      WellLogTraceMapper wellLogMapper = new WellLogTraceMapper(traceMapperModel);
-      WellLogTrace wellLog = WellLogTraceFactory.create(nameWithoutUnits, wellLogMapper, well);
-      if (!isStringInArray(log, selectedLogs)) {
-        wellMapper.hideUnselectedLog(wellLog);
+      for (String log : logs) {
+        System.out.println("LOG NAME: " + log);
+        //      String nameWithoutUnits = log.substring(0, log.lastIndexOf('(')).trim();
+        String nameWithoutUnits = log;
+        WellLogTraceMapperModel traceMapperModel = new WellLogTraceMapperModel();
+        traceMapperModel.setValueObject(WellLogTraceMapperModel.TRACE_DISPLAY_NAME, nameWithoutUnits);
+        traceMapperModel.setValueObject(WellLogTraceMapperModel.WELL_MAPPER_MODEL, _mapperModel);
+        WellLogTraceMapper wellLogMapper = new WellLogTraceMapper(traceMapperModel);
+        WellLogTrace wellLog = WellLogTraceFactory.create(nameWithoutUnits, wellLogMapper, well);
+        if (!isStringInArray(log, selectedLogs)) {
+          wellMapper.hideUnselectedLog(wellLog);
 
-        //if the log trace was not selected do nothing further with it
-        continue;
-      }
+          //if the log trace was not selected do nothing further with it
+          continue;
+        }
 
-      // Check if the well log entity already exists in the repository...
-      filter = new TypeSpecification(WellLogTrace.class);
-      map = repository.get(filter);
-      objects = map.values();
-      boolean foundWellLog = false;
-      for (Object object : objects) {
-        WellLogTrace temp = (WellLogTrace) object;
-        if (temp.getUniqueID().equals(wellLog.getUniqueID())) {
-          foundWellLog = true;
+        // Check if the well log entity already exists in the repository...
+        filter = new TypeSpecification(WellLogTrace.class);
+        map = repository.get(filter);
+        objects = map.values();
+        boolean foundWellLog = false;
+        for (Object object : objects) {
+          WellLogTrace temp = (WellLogTrace) object;
+          if (temp.getUniqueID().equals(wellLog.getUniqueID())) {
+            foundWellLog = true;
+          }
+        }
+        // If so, then log a warning.
+        // If not, then add it.
+        if (foundWellLog) {
+          logger.warn(wellLog.getDisplayName() + " already exists in the repository.");
+        } else {
+          wellLogsToAdd.add(wellLog);
         }
       }
-      // If so, then log a warning.
-      // If not, then add it.
-      if (foundWellLog) {
-        logger.warn(wellLog.getDisplayName() + " already exists in the repository.");
-      } else {
-        wellLogsToAdd.add(wellLog);
-      }
+      String[] names = repository.add(wellLogsToAdd.toArray(new WellLogTrace[0]));
     }
-    String[] names = repository.add(wellLogsToAdd.toArray(new WellLogTrace[0]));
 
     //    // Add the well picks.
     //    List<WellPick> wellPicksToAdd = new ArrayList<WellPick>();
@@ -36,13 +36,23 @@ public class WellMapper extends AbstractMapper<Well> {
 
   private final WellMapperModel _model;
 
-  private final LasReader _reader;
+  /** The reader of the LAS file, created when the well is first read. */
+  private LasReader _reader;
 
   private final List<WellLogTrace> _hiddenLogTraces = new ArrayList<WellLogTrace>();
 
   public WellMapper(final WellMapperModel model) {
     _model = model;
-    _reader = new LasReader(_model.getDirectory(), _model.getFileName());
+  }
+
+  /**
+   * Returns the reader of the LAS file, parsing the file on the first call.
+   */
+  private synchronized LasReader getReader() {
+    if (_reader == null) {
+      _reader = new LasReader(_model.getDirectory(), _model.getFileName());
+    }
+    return _reader;
   }
 
   @Override
@@ -78,12 +88,13 @@ public class WellMapper extends AbstractMapper<Well> {
 
   @Override
   protected void readFromStore(final Well well) throws IOException {
-    setWellProperties(_reader, well);
-    setWellBoreProperties(_reader, well.getWellBore());
+    LasReader reader = getReader();
+    setWellProperties(reader, well);
+    setWellBoreProperties(reader, well.getWellBore());
   }
 
   void readLogTrace(final WellLogTrace logTrace) throws IOException {
-    setWellLogTraceProperties(_reader, logTrace);
+    setWellLogTraceProperties(getReader(), logTrace);
   }
 
   @Override
@@ -149,6 +160,9 @@ public class WellMapper extends AbstractMapper<Well> {
     }
 
     LasReader reader = new LasReader(_model.getDirectory(), _model.getFileName());
+    synchronized (this) {
+      _reader = reader;
+    }
     String[] colNamesWithUnits = WellSelector.processColNames(reader);
     _model.setValueObject(WellMapperModel.COLUMN_NAMES, colNamesWithUnits);
 
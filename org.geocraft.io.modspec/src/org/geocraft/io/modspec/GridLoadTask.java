@@ -57,25 +57,27 @@ public class GridLoadTask extends ImportTask {
     Grid3d grid = new Grid3d(gridName, gridMapper);
     monitor.worked(1);
 
-    // Check if grid already exists in repository.
-    monitor.subTask("Checking repository");
-    ISpecification filter = new TypeSpecification(Grid3d.class);
-    Map<String, Object> map = repository.get(filter);
-    for (Object object : map.values()) {
-      Grid3d temp = (Grid3d) object;
-      if (gridID.equals(temp.getUniqueID())) {
-        monitor.done();
-        throw new CoreException(
-            new Status(IStatus.ERROR, "org.geocraft.io.modspec", getAlreadyExistsErrorMessage(grid)));
+    synchronized (repository) {
+      // Check if grid already exists in repository.
+      monitor.subTask("Checking repository");
+      ISpecification filter = new TypeSpecification(Grid3d.class);
+      Map<String, Object> map = repository.get(filter);
+      for (Object object : map.values()) {
+        Grid3d temp = (Grid3d) object;
+        if (gridID.equals(temp.getUniqueID())) {
+          monitor.done();
+          throw new CoreException(
+              new Status(IStatus.ERROR, "org.geocraft.io.modspec", getAlreadyExistsErrorMessage(grid)));
+        }
       }
-    }
-    monitor.worked(1);
+      monitor.worked(1);
 
-    grid.setDisplayColor(new RGB(255, 0, 0));
+      grid.setDisplayColor(new RGB(255, 0, 0));
 
-    // Add the grid to the repository.
-    monitor.subTask("Adding grid to repository");
-    repository.add(grid);
+      // Add the grid to the repository.
+      monitor.subTask("Adding grid to repository");
+      repository.add(grid);
+    }
     monitor.worked(1);
 
     // Task is done.
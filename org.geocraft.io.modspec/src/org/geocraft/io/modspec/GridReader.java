@@ -11,6 +11,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
@@ -37,6 +38,8 @@ import org.geocraft.core.service.ServiceProvider;
 import org.geocraft.core.service.logging.ILogger;
 import org.geocraft.internal.io.modspec.ModSpecGridConstants;
 import org.geocraft.internal.io.modspec.ServiceComponent;
+import org.geocraft.io.util.AsciiNumberReader;
+import org.geocraft.io.util.SidecarCache;
 
 
 /**
@@ -50,6 +53,9 @@ public class GridReader implements ModSpecGridConstants {
     DATA
   }
 
+  /** The variant of the cache entries of ASCII ModSpec grids. */
+  private static final String ASCII_CACHE_VARIANT = "ModSpecAscii";
+
   /** The unit preferences. */
   private static final UnitPreferences UNIT_PREFS = UnitPreferences.getInstance();
 
@@ -99,53 +105,34 @@ public class GridReader implements ModSpecGridConstants {
    * @param filePath the grid file path.
    * @throws IOException thrown on read error.
    */
-  public void readAsciiFormat(final BufferedReader reader, final Grid3d grid, final String filePath,
+  public void readAsciiFormat(final AsciiNumberReader reader, final Grid3d grid, final String filePath,
       final IProgressMonitor monitor) throws IOException {
-    // We cannot use the StreamTokenizer because in 1.5 Java does not support
-    // exponential numbers which can occur in the header (body also?).
+    // The numbers are scanned in place from the mapped file, rather than with a
+    // StreamTokenizer, because exponential numbers can occur in the header (body also?).
 
     // Read the first line, which contains the x,y origin.
-    StringTokenizer tokenizer = new StringTokenizer(reader.readLine());
-    double x0 = Double.parseDouble(tokenizer.nextToken());
-    double y0 = Double.parseDouble(tokenizer.nextToken());
+    double x0 = reader.nextDouble();
+    double y0 = reader.nextDouble();
+    reader.nextLine();
 
     // Read the second line, which contains the delta x,y values.
-    tokenizer = new StringTokenizer(reader.readLine());
-    double dx = Double.parseDouble(tokenizer.nextToken());
-    double dy = Double.parseDouble(tokenizer.nextToken());
+    double dx = reader.nextDouble();
+    double dy = reader.nextDouble();
+    reader.nextLine();
 
     // Read the third line, which contains the number of rows and columns.
-    tokenizer = new StringTokenizer(reader.readLine());
-    int nx = Integer.parseInt(tokenizer.nextToken());
-    int ny = Integer.parseInt(tokenizer.nextToken());
+    int nx = reader.nextInt();
+    int ny = reader.nextInt();
+    reader.nextLine();
 
     // Read the fourth line, which contains the rotation angle and null values.
-    tokenizer = new StringTokenizer(reader.readLine());
-    double angle = Double.parseDouble(tokenizer.nextToken()); // angle
-    float znon = Float.parseFloat(tokenizer.nextToken());
-
-    // If the application x,y units are undefined, then set them
-    // to the units of this mapper.
-    Unit appUnitXY = UNIT_PREFS.getHorizontalDistanceUnit();
-    if (appUnitXY.equals(Unit.UNDEFINED)) {
-      UNIT_PREFS.setHorizontalDistanceUnit(_model.getXyUnit());
-      appUnitXY = _model.getXyUnit();
-    }
-
-    // Convert the x,y origin and the delta x,y values.
-    x0 = Unit.convert(x0, _model.getXyUnit(), appUnitXY);
-    y0 = Unit.convert(y0, _model.getXyUnit(), appUnitXY);
-    dx = Unit.convert(dx, _model.getXyUnit(), appUnitXY);
-    dy = Unit.convert(dy, _model.getXyUnit(), appUnitXY);
+    double angle = reader.nextDouble(); // angle
+    float znon = reader.nextFloat();
+    reader.nextLine();
 
     // Note: this is not like the row ordered fortran style array!
     // Note: ny = number of rows, nx = number of columns.
     double[][] data = new double[ny][nx];
-    // This looks inefficient.
-    // There must be a better way to cram the data into the array.
-    // The StreamTokenizer looks cleaner but there might be exponential numbers
-    // in the data so we can't use it.
-    // Dan: maybe consider using java.util.Scanner instead of StringTokenizer
     // Compute the number of lines in the file.
     // (e.g. 265 / 8.0f points per row = 33.125 = 34 records of 8 data points).
     // This presumes the old modspec format that had "8F10.2" per line.
@@ -155,19 +142,14 @@ public class GridReader implements ModSpecGridConstants {
 
     int x = 0;
     int y = ny - 1;
-    // Tried to optimize this code by splitting records manually and not using
-    // a tokenizer but it made no difference.
-    String dataPoint = "";
     for (int record = 0; record < numLines && !monitor.isCanceled(); record++) {
-      if (!reader.ready()) {
+      if (!reader.hasMoreLines()) {
         // added this code to allow one to read fewer lines with more tokens per line than 8.
         break;
       }
-      tokenizer = new StringTokenizer(reader.readLine());
-      int numTokens = tokenizer.countTokens(); // by using num_tokens we can read more than 8 tokens per line.
-      for (int j = 0; j < numTokens; j++) {
-        dataPoint = tokenizer.nextToken();
-        data[y][x] = Double.parseDouble(dataPoint);
+      // Read all the tokens of the line, so we can read more than 8 tokens per line.
+      while (reader.hasMoreTokens()) {
+        data[y][x] = reader.nextDouble();
         // Increment the column number.
         y--;
         // If we are at the top of this column go to next column.
@@ -177,12 +159,82 @@ public class GridReader implements ModSpecGridConstants {
           break;
         }
       }
+      reader.nextLine();
       if (record % ny2 == 0) {
         // avoid so many calls on this
         monitor.worked(1);
       }
     }
 
+    double[] header = { x0, y0, dx, dy, nx, ny, angle, znon };
+    if (!monitor.isCanceled()) {
+      // Cache the parsed header and data, so that the file is not parsed again.
+      double[][] arrays = new double[ny + 1][];
+      arrays[0] = header;
+      System.arraycopy(data, 0, arrays, 1, ny);
+      SidecarCache.write(new File(filePath), ASCII_CACHE_VARIANT, new float[0][], arrays);
+    }
+
+    loadAsciiFormat(grid, filePath, header, data, monitor);
+  }
+
+  /**
+   * Reads the ASCII format of a ModSpec grid from the values cached by a previous read, if any.
+   * 
+   * @param grid the grid.
+   * @param filePath the grid file path.
+   * @return <i>true</i> if the grid was read from the cache; <i>false</i> if the file must be parsed.
+   * @throws IOException thrown on read error.
+   */
+  public boolean readCachedAsciiFormat(final Grid3d grid, final String filePath, final IProgressMonitor monitor) throws IOException {
+    SidecarCache.Entry entry = SidecarCache.read(new File(filePath), ASCII_CACHE_VARIANT);
+    if (entry == null) {
+      return false;
+    }
+    double[][] arrays = entry.getDoubleArrays();
+    if (arrays.length == 0 || arrays[0].length != 8 || arrays.length != (int) arrays[0][5] + 1) {
+      return false;
+    }
+    double[] header = arrays[0];
+    int ny = arrays.length - 1;
+    double[][] data = new double[ny][];
+    System.arraycopy(arrays, 1, data, 0, ny);
+    monitor.beginTask("Loading " + grid.getDisplayName(), ny);
+    loadAsciiFormat(grid, filePath, header, data, monitor);
+    return true;
+  }
+
+  /**
+   * Updates the grid with the header and data read from the ASCII format of a ModSpec grid.
+   * 
+   * @param header the x,y origin, the delta x,y values, the number of columns and rows, the rotation angle and the null value.
+   * @param data the data array.
+   */
+  private void loadAsciiFormat(final Grid3d grid, final String filePath, final double[] header, final double[][] data,
+      final IProgressMonitor monitor) throws IOException {
+    double x0 = header[0];
+    double y0 = header[1];
+    double dx = header[2];
+    double dy = header[3];
+    int nx = (int) header[4];
+    int ny = (int) header[5];
+    double angle = header[6];
+    float znon = (float) header[7];
+
+    // If the application x,y units are undefined, then set them
+    // to the units of this mapper.
+    Unit appUnitXY = UNIT_PREFS.getHorizontalDistanceUnit();
+    if (appUnitXY.equals(Unit.UNDEFINED)) {
+      UNIT_PREFS.setHorizontalDistanceUnit(_model.getXyUnit());
+      appUnitXY = _model.getXyUnit();
+    }
+
+    // Convert the x,y origin and the delta x,y values.
+    x0 = Unit.convert(x0, _model.getXyUnit(), appUnitXY);
+    y0 = Unit.convert(y0, _model.getXyUnit(), appUnitXY);
+    dx = Unit.convert(dx, _model.getXyUnit(), appUnitXY);
+    dy = Unit.convert(dy, _model.getXyUnit(), appUnitXY);
+
     // Update the grid geometry.
     updateGridGeometry(grid, x0, y0, dx, dy, nx, ny, angle);
 
@@ -414,15 +466,23 @@ public class GridReader implements ModSpecGridConstants {
 
     public void read(final ILogger logger, final IProgressMonitor monitor) throws CoreException {
       try {
-        // Create a buffered reader.
-        BufferedReader reader = createBufferedReader(_filePath);
         try {
           if (_model.getFileFormat() == GridFileFormat.ASCII) {
-            // Read the grid in ASCII format.
-            readAsciiFormat(reader, _grid, _filePath, monitor);
+            // Read the grid in ASCII format, from the cache or directly from the mapped file.
+            if (!readCachedAsciiFormat(_grid, _filePath, monitor)) {
+              ByteBuffer buffer = AsciiNumberReader.map(new File(_filePath));
+              readAsciiFormat(new AsciiNumberReader(buffer), _grid, _filePath, monitor);
+            }
           } else if (_model.getFileFormat() == GridFileFormat.BINARY) {
-            // Read the grid in binary format.
-            readBinaryFormat(reader, _grid, _filePath, monitor);
+            // Create a buffered reader.
+            BufferedReader reader = createBufferedReader(_filePath);
+            try {
+              // Read the grid in binary format.
+              readBinaryFormat(reader, _grid, _filePath, monitor);
+            } finally {
+              // Close the buffered reader.
+              reader.close();
+            }
           } else {
             throw new CoreException(new Status(IStatus.ERROR, ServiceComponent.PLUGIN_ID,
                 "Invalid ModSpec file format: " + _model.getFileFormat() + "."));
@@ -431,11 +491,6 @@ public class GridReader implements ModSpecGridConstants {
           // Throw an I/O exception so that the app can handle it.
           throw new CoreException(new Status(IStatus.WARNING, ServiceComponent.PLUGIN_ID,
               "Unable to parse number in ModSpec grid.", ex));
-        } finally {
-          // Close the buffered reader, if it was opened.
-          if (reader != null) {
-            reader.close();
-          }
         }
       } catch (IOException ex) {
         throw new CoreException(new Status(IStatus.WARNING, ServiceComponent.PLUGIN_ID, "Unable to load ModSpec grid",
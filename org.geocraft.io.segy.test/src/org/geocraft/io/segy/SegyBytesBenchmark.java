@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.segy;
+
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+
+/**
+ * A micro-benchmark of the SEG-Y sample conversions, for all the supported sample
+ * formats in both directions. Run it as a Java application and compare the reported
+ * throughputs between builds to catch performance regressions.
+ * <p>
+ * Each conversion is warmed up before timing, so the JIT compiler has a chance to
+ * compile (and vectorize) the conversion loops. The bulk conversions are timed on
+ * both heap and direct buffers, since mapped SEG-Y files are read through the latter.
+ */
+public class SegyBytesBenchmark {
+
+  /** The number of samples per trace. */
+  private static final int NUM_SAMPLES = 1500;
+
+  /** The number of traces converted per timed iteration. */
+  private static final int NUM_TRACES = 2000;
+
+  /** The number of warm-up iterations. */
+  private static final int NUM_WARMUPS = 10;
+
+  /** The number of timed iterations. */
+  private static final int NUM_ITERATIONS = 20;
+
+  private static final int[] FORMATS = { SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM,
+      SegyBytes.SAMPLE_FORMAT_CODE_FIXED_4BYTE, SegyBytes.SAMPLE_FORMAT_CODE_FIXED_2BYTE,
+      SegyBytes.SAMPLE_FORMAT_CODE_FIXED_4BYTE_WITH_GAIN, SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IEEE,
+      SegyBytes.SAMPLE_FORMAT_CODE_FIXED_1BYTE };
+
+  public static void main(final String[] args) {
+    Random random = new Random(42);
+    float[] floats = new float[NUM_SAMPLES];
+    for (int i = 0; i < NUM_SAMPLES; i++) {
+      floats[i] = (float) (random.nextGaussian() * 100);
+    }
+
+    System.out.println("Format, Direction, Buffer, Msamples/s");
+    for (int format : FORMATS) {
+      int numBytes = NUM_SAMPLES * SegyUtil.getNumBytesPerSample(format);
+      ByteBuffer heap = ByteBuffer.allocate(numBytes);
+      ByteBuffer direct = ByteBuffer.allocateDirect(numBytes);
+      SegyBytes.putFloatsToBuffer(format, floats, 0, NUM_SAMPLES, heap);
+      SegyBytes.putFloatsToBuffer(format, floats, 0, NUM_SAMPLES, direct);
+
+      report(format, "read", "heap", timeRead(format, heap, floats));
+      report(format, "read", "direct", timeRead(format, direct, floats));
+      report(format, "write", "heap", timeWrite(format, heap, floats));
+      report(format, "write", "direct", timeWrite(format, direct, floats));
+    }
+  }
+
+  private static long timeRead(final int format, final ByteBuffer buffer, final float[] floats) {
+    for (int i = 0; i < NUM_WARMUPS; i++) {
+      for (int j = 0; j < NUM_TRACES; j++) {
+        SegyBytes.getFloatsFromBuffer(format, buffer, floats, 0, NUM_SAMPLES);
+      }
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < NUM_ITERATIONS; i++) {
+      for (int j = 0; j < NUM_TRACES; j++) {
+        SegyBytes.getFloatsFromBuffer(format, buffer, floats, 0, NUM_SAMPLES);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static long timeWrite(final int format, final ByteBuffer buffer, final float[] floats) {
+    for (int i = 0; i < NUM_WARMUPS; i++) {
+      for (int j = 0; j < NUM_TRACES; j++) {
+        SegyBytes.putFloatsToBuffer(format, floats, 0, NUM_SAMPLES, buffer);
+      }
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < NUM_ITERATIONS; i++) {
+      for (int j = 0; j < NUM_TRACES; j++) {
+        SegyBytes.putFloatsToBuffer(format, floats, 0, NUM_SAMPLES, buffer);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static void report(final int format, final String direction, final String bufferType, final long nanos) {
+    double numSamples = (double) NUM_SAMPLES * NUM_TRACES * NUM_ITERATIONS;
+    double rate = numSamples / (nanos / 1e9) / 1e6;
+    System.out.println(SegyUtil.getSampleFormatString(format) + ", " + direction + ", " + bufferType + ", "
+        + Math.round(rate));
+  }
+}
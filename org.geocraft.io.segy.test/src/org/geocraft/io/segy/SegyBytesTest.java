@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.segy;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests the bulk sample conversions in <code>SegyBytes</code> for all the
+ * supported SEG-Y sample formats, in both directions.
+ */
+public class SegyBytesTest extends TestCase {
+
+  private static final int[] FORMATS = { SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM,
+      SegyBytes.SAMPLE_FORMAT_CODE_FIXED_4BYTE, SegyBytes.SAMPLE_FORMAT_CODE_FIXED_2BYTE,
+      SegyBytes.SAMPLE_FORMAT_CODE_FIXED_4BYTE_WITH_GAIN, SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IEEE,
+      SegyBytes.SAMPLE_FORMAT_CODE_FIXED_1BYTE };
+
+  /**
+   * Tests the IBM conversion of a known value (from the SEG-Y rev 1 specification).
+   */
+  public void testIbmKnownValue() {
+    byte[] bytes = { (byte) 0xC2, (byte) 0x76, (byte) 0xA0, (byte) 0x00 };
+    float[] floats = new float[1];
+    SegyBytes.getFloatsFromBytes(SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM, 1, bytes, floats,
+        ByteOrder.BIG_ENDIAN);
+    assertEquals(-118.625f, floats[0]);
+
+    byte[] result = new byte[4];
+    SegyBytes.putFloatsToBytes(SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM, 1, floats, result, ByteOrder.BIG_ENDIAN);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(bytes[i], result[i]);
+    }
+  }
+
+  /**
+   * Tests the IBM to IEEE conversion matches the shift-loop implementation.
+   */
+  public void testIbmToFloatsMatchesLoop() {
+    Random random = new Random(1234);
+    int count = 5000;
+    byte[] bytes = new byte[count * 4];
+    random.nextBytes(bytes);
+    // Include zero and the smallest/largest exponents.
+    ByteBuffer.wrap(bytes).putInt(0, 0).putInt(4, 0x00100000).putInt(8, 0x7fffffff).putInt(12, 0xc1100000);
+
+    float[] expected = new float[count];
+    float[] actual = new float[count];
+    SegyBytes.getFloatsFrom4BytesFloatIBMcps(count, bytes, expected, 0, true);
+    SegyBytes.getFloatsFromBuffer(SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM, ByteBuffer.wrap(bytes), actual, 0,
+        count);
+    for (int i = 0; i < count; i++) {
+      if ((ByteBuffer.wrap(bytes).getInt(i * 4) & 0x00ffffff) != 0) {
+        assertEquals("Sample " + i, expected[i], actual[i]);
+      }
+    }
+  }
+
+  /**
+   * Tests the IEEE to IBM conversion matches the shift-loop implementation.
+   */
+  public void testFloatsToIbmMatchesLoop() {
+    Random random = new Random(5678);
+    int count = 5000;
+    float[] floats = new float[count];
+    for (int i = 0; i < count; i++) {
+      floats[i] = (float) (random.nextGaussian() * Math.pow(10, random.nextInt(20) - 10));
+    }
+    floats[0] = 0;
+
+    byte[] expected = new byte[count * 4];
+    byte[] actual = new byte[count * 4];
+    SegyBytes.putFloatsTo4BytesFloatIBMcps(count, floats, expected, 0, true);
+    SegyBytes.putFloatsToBuffer(SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM, floats, 0, count, ByteBuffer
+        .wrap(actual));
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals("Byte " + i, expected[i], actual[i]);
+    }
+  }
+
+  /**
+   * Tests that integral values round-trip through each of the sample formats.
+   */
+  public void testRoundTripAllFormats() {
+    float[] floats = { 0, 1, -1, 7, -100, 127, -128, 55 };
+    for (int format : FORMATS) {
+      int numBytesPerSample = SegyUtil.getNumBytesPerSample(format);
+      ByteBuffer buffer = ByteBuffer.allocate(2 + floats.length * numBytesPerSample);
+      buffer.position(2);
+      SegyBytes.putFloatsToBuffer(format, floats, 0, floats.length, buffer);
+      assertEquals(2, buffer.position());
+
+      float[] result = new float[floats.length + 1];
+      SegyBytes.getFloatsFromBuffer(format, buffer, result, 1, floats.length);
+      for (int i = 0; i < floats.length; i++) {
+        assertEquals("Format " + format + ", sample " + i, floats[i], result[i + 1]);
+      }
+
+      // The byte array methods should produce the same bytes as the buffer methods.
+      byte[] bytes = new byte[floats.length * numBytesPerSample];
+      SegyBytes.putFloatsToBytes(format, floats.length, floats, bytes, ByteOrder.BIG_ENDIAN);
+      for (int i = 0; i < bytes.length; i++) {
+        assertEquals(buffer.get(2 + i), bytes[i]);
+      }
+    }
+  }
+
+  /**
+   * Tests that IEEE values round-trip exactly.
+   */
+  public void testIeeeExact() {
+    float[] floats = { 0.1f, -3.14159f, Float.MAX_VALUE, Float.MIN_VALUE, 1e-30f };
+    byte[] bytes = new byte[floats.length * 4];
+    SegyBytes.putFloatsToBytes(SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IEEE, floats.length, floats, bytes,
+        ByteOrder.BIG_ENDIAN);
+    float[] result = new float[floats.length];
+    SegyBytes.getFloatsFromBytes(SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IEEE, floats.length, bytes, result,
+        ByteOrder.BIG_ENDIAN);
+    for (int i = 0; i < floats.length; i++) {
+      assertEquals(floats[i], result[i]);
+    }
+  }
+
+  /**
+   * Tests conversions longer than the internal chunk size, starting at a byte index.
+   */
+  public void testLargeCountWithIndex() {
+    int count = 3000;
+    float[] floats = new float[count];
+    for (int i = 0; i < count; i++) {
+      floats[i] = i - 1500;
+    }
+    byte[] bytes = new byte[8 + count * 4];
+    SegyBytes.putFloatsToBytes(SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM, count, floats, bytes, 8,
+        ByteOrder.BIG_ENDIAN);
+    float[] result = new float[count];
+    SegyBytes.getFloatsFromBytes(SegyBytes.SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM, count, bytes, result, 8,
+        ByteOrder.BIG_ENDIAN);
+    for (int i = 0; i < count; i++) {
+      assertEquals(floats[i], result[i]);
+    }
+  }
+}
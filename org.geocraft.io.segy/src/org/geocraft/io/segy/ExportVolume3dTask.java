@@ -149,9 +149,9 @@ public class ExportVolume3dTask extends ExportTask {
             Trace traceOut = new Trace(traceIn);
             int offset = 0;
             Header hdr = traceIn.getHeader();
-            if (hdr instanceof SegyTraceHeader) {
-              traceOut.setHeader(hdr);
-            } else {
+            // Headers read from a SEG-Y volume already have the SEG-Y definition,
+            // so the copy made above is written as is.
+            if (!hdr.getHeaderDefinition().equals(SegyTraceHeader.POSTSTACK3D_HEADER_DEF)) {
               HeaderDefinition hdrDef = hdr.getHeaderDefinition();
               if (hdrDef.contains(SegyTraceHeaderCatalog.SOURCE_RECEIVER_DISTANCE)) {
                 offset = hdr.getInteger(SegyTraceHeaderCatalog.SOURCE_RECEIVER_DISTANCE);
@@ -153,19 +153,21 @@ public class LoadVolume2dTask extends ImportTask implements SegyTraceIndexerList
         seismicSurvey, lineName, lineNumber, ps2d);
     ps2d.addPostStack2dLine(lineNumber, poststackLine);
 
-    // Check if the poststack2d entity already exists in the repository.
-    ISpecification filter = new TypeSpecification(PostStack2d.class);
-    Map<String, Object> map = repository.get(filter);
-    Collection<Object> objects = map.values();
-    for (Object object : objects) {
-      PostStack2d temp = (PostStack2d) object;
-      if (temp.getUniqueID().equals(ps2d.getUniqueID())) {
-        monitor.done();
-        throw new RuntimeException(getAlreadyExistsErrorMessage(ps2d));
+    synchronized (repository) {
+      // Check if the poststack2d entity already exists in the repository.
+      ISpecification filter = new TypeSpecification(PostStack2d.class);
+      Map<String, Object> map = repository.get(filter);
+      Collection<Object> objects = map.values();
+      for (Object object : objects) {
+        PostStack2d temp = (PostStack2d) object;
+        if (temp.getUniqueID().equals(ps2d.getUniqueID())) {
+          monitor.done();
+          throw new RuntimeException(getAlreadyExistsErrorMessage(ps2d));
+        }
       }
-    }
 
-    repository.add(ps2d);
-    repository.add(poststackLine);
+      repository.add(ps2d);
+      repository.add(poststackLine);
+    }
   }
 }
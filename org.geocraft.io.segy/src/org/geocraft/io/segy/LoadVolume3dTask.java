@@ -132,19 +132,21 @@ public class LoadVolume3dTask extends ImportTask implements SegyTraceIndexerList
     // Create the prestack3d entity.
     PreStack3d ps3d = PreStack3dFactory.create(mapperModel.getFileName(), mapper);
 
-    // Check if the prestack3d entity already exists in the repository.
-    ISpecification filter = new TypeSpecification(PreStack3d.class);
-    Map<String, Object> map = repository.get(filter);
-    Collection<Object> objects = map.values();
-    for (Object object : objects) {
-      PreStack3d temp = (PreStack3d) object;
-      if (temp.getUniqueID().equals(ps3d.getUniqueID())) {
-        monitor.done();
-        throw new RuntimeException(getAlreadyExistsErrorMessage(ps3d));
+    synchronized (repository) {
+      // Check if the prestack3d entity already exists in the repository.
+      ISpecification filter = new TypeSpecification(PreStack3d.class);
+      Map<String, Object> map = repository.get(filter);
+      Collection<Object> objects = map.values();
+      for (Object object : objects) {
+        PreStack3d temp = (PreStack3d) object;
+        if (temp.getUniqueID().equals(ps3d.getUniqueID())) {
+          monitor.done();
+          throw new RuntimeException(getAlreadyExistsErrorMessage(ps3d));
+        }
       }
-    }
 
-    repository.add(ps3d);
+      repository.add(ps3d);
+    }
   }
 
   private void createPostStack3d(final Volume3dMapperModel mapperModel, IProgressMonitor monitor, IRepository repository) {
@@ -155,18 +157,20 @@ public class LoadVolume3dTask extends ImportTask implements SegyTraceIndexerList
     // Create the poststack3d entity.
     PostStack3d ps3d = PostStack3dFactory.create(mapperModel.getFileName(), mapper);
 
-    // Check if the poststack3d entity already exists in the repository.
-    ISpecification filter = new TypeSpecification(PostStack3d.class);
-    Map<String, Object> map = repository.get(filter);
-    Collection<Object> objects = map.values();
-    for (Object object : objects) {
-      PostStack3d temp = (PostStack3d) object;
-      if (temp.getUniqueID().equals(ps3d.getUniqueID())) {
-        monitor.done();
-        throw new RuntimeException(getAlreadyExistsErrorMessage(ps3d));
+    synchronized (repository) {
+      // Check if the poststack3d entity already exists in the repository.
+      ISpecification filter = new TypeSpecification(PostStack3d.class);
+      Map<String, Object> map = repository.get(filter);
+      Collection<Object> objects = map.values();
+      for (Object object : objects) {
+        PostStack3d temp = (PostStack3d) object;
+        if (temp.getUniqueID().equals(ps3d.getUniqueID())) {
+          monitor.done();
+          throw new RuntimeException(getAlreadyExistsErrorMessage(ps3d));
+        }
       }
-    }
 
-    repository.add(ps3d);
+      repository.add(ps3d);
+    }
   }
 }
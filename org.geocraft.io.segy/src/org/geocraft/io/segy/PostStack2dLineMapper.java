@@ -11,6 +11,7 @@ import java.sql.Timestamp;
 import org.geocraft.core.model.datatypes.CoordinateSeries;
 import org.geocraft.core.model.datatypes.CoordinateSystem;
 import org.geocraft.core.model.datatypes.Domain;
+import org.geocraft.core.model.datatypes.Header;
 import org.geocraft.core.model.datatypes.HeaderDefinition;
 import org.geocraft.core.model.datatypes.IntRange;
 import org.geocraft.core.model.datatypes.Point3d;
@@ -386,12 +387,12 @@ public class PostStack2dLineMapper extends SegyMapper<PostStack2dLine> implement
     synchronized (getSynchronizeToken()) {
       int numTraces = traceData.getNumTraces();
       float[] cdps = new float[numTraces];
-      Trace[] traces = traceData.getTraces();
+      // Read the trace statuses and headers directly, so the traces of a flat trace collection are not created.
       for (int i = 0; i < numTraces; i++) {
-        if (traces[i].isMissing()) {
+        if (traceData.getStatus(i).equals(Trace.Status.Missing)) {
           cdps[i] = 0;
         } else {
-          cdps[i] = traces[i].getHeader().getInteger(TraceHeaderCatalog.CDP_NO);
+          cdps[i] = traceData.getHeader(i).getInteger(TraceHeaderCatalog.CDP_NO);
         }
       }
       float zStart = traceData.getStartZ();
@@ -436,12 +437,11 @@ public class PostStack2dLineMapper extends SegyMapper<PostStack2dLine> implement
 
         // Loop over each trace being written.
         for (int i = 0; i < numTraces; i++) {
-          Trace trace = traces[i];
-
           // Check the trace status. If 'Missing', do not write.
-          if (trace.getStatus().equals(Trace.Status.Missing)) {
+          if (traceData.getStatus(i).equals(Trace.Status.Missing)) {
             continue;
           }
+          Header traceHeader = traceData.getHeader(i);
           int cdp = Math.round(cdps[i]);
           keys[0] = cdp;
           int x = (int) Math.round(points[i].getX());
@@ -465,8 +465,8 @@ public class PostStack2dLineMapper extends SegyMapper<PostStack2dLine> implement
 
           // Update the trace header with the offset.
           int offset = 0;
-          if (trace.getHeader().getHeaderDefinition().contains(TraceHeaderCatalog.OFFSET)) {
-            offset = Math.round(trace.getHeader().getFloat(TraceHeaderCatalog.OFFSET));
+          if (traceHeader.getHeaderDefinition().contains(TraceHeaderCatalog.OFFSET)) {
+            offset = Math.round(traceHeader.getFloat(TraceHeaderCatalog.OFFSET));
             segyTraceHeader.putInteger(SegyTraceHeaderCatalog.SOURCE_RECEIVER_DISTANCE, offset);
           }
 
@@ -493,7 +493,7 @@ public class PostStack2dLineMapper extends SegyMapper<PostStack2dLine> implement
           getFileAccessor().writeByteBuffer(hdrBuffer);
 
           // Write the trace data.
-          System.arraycopy(trace.getDataReference(), 0, data, iz0, numSamples);
+          traceData.getTraceBuffer(i).get(data, iz0, numSamples);
           buffer.position(0);
           getFileAccessor().putFloatsToBytes(data.length, data, buffer.array());
           buffer.position(0);
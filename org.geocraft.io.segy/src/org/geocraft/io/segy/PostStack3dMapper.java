@@ -17,6 +17,8 @@ import org.geocraft.core.model.datatypes.CoordinateSystem;
 import org.geocraft.core.model.datatypes.CornerPointsSeries;
 import org.geocraft.core.model.datatypes.Domain;
 import org.geocraft.core.model.datatypes.FloatRange;
+import org.geocraft.core.model.datatypes.Header;
+import org.geocraft.core.model.datatypes.HeaderBlock;
 import org.geocraft.core.model.datatypes.HeaderDefinition;
 import org.geocraft.core.model.datatypes.Point3d;
 import org.geocraft.core.model.datatypes.PolygonUtil;
@@ -189,6 +191,10 @@ public class PostStack3dMapper extends SegyMapper<PostStack3d> implements IPostS
 
   /**
    * Gets traces from the SEG-Y file.
+   * <p>
+   * If the SEG-Y file can be memory-mapped, the traces are read from the mapping
+   * without blocking, so multiple threads can read from the same volume concurrently.
+   * Otherwise the traces are read through the file channel, blocking other access.
    * 
    * @param ps3d the poststack3d mapped to the SEG-Y file.
    * @param inlines the array of inlines.
@@ -198,119 +204,175 @@ public class PostStack3dMapper extends SegyMapper<PostStack3d> implements IPostS
    */
   public TraceData getTraces(final PostStack3d ps3d, final float[] inlines, final float[] xlines, final float zStart,
       final float zEnd) {
+    if (inlines.length != xlines.length) {
+      throw new IllegalArgumentException("Number of inlines (" + inlines.length + ") and xlines (" + xlines.length
+          + ") do not match.");
+    }
+
+    // Read from the memory mapping, if available.
+    if (getFileAccessor().openForMappedRead()) {
+      return readTraces(ps3d, inlines, xlines, zStart, zEnd, true);
+    }
 
     // Synchronize to prevent other access.
     synchronized (getSynchronizeToken()) {
-      if (inlines.length != xlines.length) {
-        throw new IllegalArgumentException("Number of inlines (" + inlines.length + ") and xlines (" + xlines.length
-            + ") do not match.");
-      }
-
       // Open the file accessor.
       getFileAccessor().openForRead();
-      int numTraces = inlines.length;
-      int numSamples = 0;
-      CoordinateSeries coords = null;
-      float deltaZ = ps3d.getZDelta();
-      Unit zUnits = ps3d.getZUnit();
-
-      // Allocate arrays for the output trace and trace headers.
-      Trace[] traces = new Trace[numTraces];
-      SegyTraceHeader[] traceHeaders = new SegyTraceHeader[numTraces];
-
-      try {
-        // Compute the requested start/end z-indices (in storage units).
-        float startz = Unit.convert(zStart, zUnits, _model.getUnitOfZ());
-        float endz = Unit.convert(zEnd, zUnits, _model.getUnitOfZ());
-        int iz0 = Math.round(startz / _model.getSampleRate());
-        int iz1 = Math.round(endz / _model.getSampleRate());
-
-        // Compute the volume start/end z-indices (in storage units).
-        int jz0 = Math.round(Unit.convert(ps3d.getZStart(), ps3d.getZUnit(), _model.getUnitOfZ())
-            / _model.getSampleRate());
-        int jz1 = Math.round(Unit.convert(ps3d.getZEnd(), ps3d.getZUnit(), _model.getUnitOfZ())
-            / _model.getSampleRate());
-        numSamples = iz1 - iz0 + 1;
-        ByteBuffer buffer = ByteBuffer.allocate(ps3d.getNumSamplesPerTrace() * 4);
-        int[] keys = new int[2];
-        float[] traceData = new float[ps3d.getNumSamplesPerTrace()];
-        coords = ps3d.getSurvey().transformInlineXlineToXY(inlines, xlines);
-
-        // Loop over the required number of traces.
-        for (int i = 0; i < numTraces; i++) {
+      return readTraces(ps3d, inlines, xlines, zStart, zEnd, false);
+    }
+  }
 
-          // Create the header for this trace.
-          traceHeaders[i] = new SegyTraceHeader(_headerDef);
-          traceHeaders[i].getBuffer().position(0);
-          int iln = Math.round(inlines[i]);
-          int xln = Math.round(xlines[i]);
-          keys[0] = iln;
-          keys[1] = xln;
-          long tracePos = _traceIndex.getTracePosition(keys);
+  /**
+   * Reads traces from the SEG-Y file.
+   * If not reading from the memory mapping, the caller must hold the synchronization token.
+   * 
+   * @param ps3d the poststack3d mapped to the SEG-Y file.
+   * @param inlines the array of inlines.
+   * @param xlines the array of xlines.
+   * @param zStart the starting z value.
+   * @param zEnd the ending z value.
+   * @param mapped <i>true</i> to read from the memory mapping; <i>false</i> to read from the file channel.
+   */
+  private TraceData readTraces(final PostStack3d ps3d, final float[] inlines, final float[] xlines,
+      final float zStart, final float zEnd, final boolean mapped) {
+    int numTraces = inlines.length;
+    int numSamples = 0;
+    CoordinateSeries coords = null;
+    float deltaZ = ps3d.getZDelta();
+    Unit zUnits = ps3d.getZUnit();
+
+    // Allocate arrays for the output trace statuses and headers.
+    // The samples are stored in a single array, once the number of samples is known.
+    float[] samples = null;
+    Trace.Status[] statuses = new Trace.Status[numTraces];
+    HeaderBlock headers = new HeaderBlock(_headerDef, numTraces);
+    SegyTraceHeader traceHeader = new SegyTraceHeader(_headerDef);
 
-          // Determine the number of traces to read.
-          // In the event that the trace index contains more
-          // than 1 trace for a given inline,xline location,
-          // simply read the 1st trace. If the trace index does
-          // not contain an entry for the inline,xline location,
-          // then no traces will be read.
-          int numTracesToRead = tracePos == 0 ? 0 : 1;
+    try {
+      // Compute the requested start/end z-indices (in storage units).
+      float startz = Unit.convert(zStart, zUnits, _model.getUnitOfZ());
+      float endz = Unit.convert(zEnd, zUnits, _model.getUnitOfZ());
+      int iz0 = Math.round(startz / _model.getSampleRate());
+      int iz1 = Math.round(endz / _model.getSampleRate());
+
+      // Compute the volume start/end z-indices (in storage units).
+      int jz0 = Math.round(Unit.convert(ps3d.getZStart(), ps3d.getZUnit(), _model.getUnitOfZ())
+          / _model.getSampleRate());
+      int jz1 = Math.round(Unit.convert(ps3d.getZEnd(), ps3d.getZUnit(), _model.getUnitOfZ())
+          / _model.getSampleRate());
+      numSamples = iz1 - iz0 + 1;
+      samples = new float[numTraces * numSamples];
+      ByteBuffer buffer = ByteBuffer.allocate(ps3d.getNumSamplesPerTrace() * 4);
+      int numBytesToRead = ps3d.getNumSamplesPerTrace()
+          * SegyUtil.getNumBytesPerSample(getFileAccessor().getSampleFormatCode());
+      int[] keys = new int[2];
+      float[] traceData = new float[ps3d.getNumSamplesPerTrace()];
+      coords = ps3d.getSurvey().transformInlineXlineToXY(inlines, xlines);
+
+      // Loop over the required number of traces.
+      for (int i = 0; i < numTraces; i++) {
 
-          for (int j = 0; j < numTracesToRead; j++) {
+        // Reuse the SEG-Y header buffer for this trace.
+        traceHeader.getBuffer().position(0);
+        int iln = Math.round(inlines[i]);
+        int xln = Math.round(xlines[i]);
+        keys[0] = iln;
+        keys[1] = xln;
+        long tracePos = _traceIndex.getTracePosition(keys);
+
+        // Determine the number of traces to read.
+        // In the event that the trace index contains more
+        // than 1 trace for a given inline,xline location,
+        // simply read the 1st trace. If the trace index does
+        // not contain an entry for the inline,xline location,
+        // then no traces will be read.
+        int numTracesToRead = tracePos == 0 ? 0 : 1;
+
+        for (int j = 0; j < numTracesToRead; j++) {
+          if (mapped) {
+            // Read the trace header from the memory mapping, and convert the trace data directly from it.
+            ByteBuffer hdrBuffer = traceHeader.getBuffer();
+            long dataPos = tracePos + hdrBuffer.capacity();
+            if (!getFileAccessor().readMapped(tracePos, hdrBuffer.array(), 0, hdrBuffer.capacity())) {
+              // The trace lies beyond the mapping, so fall back to the file channel.
+              readTrace(tracePos, hdrBuffer, buffer);
+              getFileAccessor().getFloatsFromBytes(ps3d.getNumSamplesPerTrace(), buffer.array(), traceData);
+            } else if (!getFileAccessor().readMappedFloats(dataPos, ps3d.getNumSamplesPerTrace(), traceData)) {
+              // The trace data crosses a window boundary (or lies beyond the mapping), so copy it out.
+              if (!getFileAccessor().readMapped(dataPos, buffer.array(), 0, numBytesToRead)) {
+                readTrace(tracePos, hdrBuffer, buffer);
+              }
+              getFileAccessor().getFloatsFromBytes(ps3d.getNumSamplesPerTrace(), buffer.array(), traceData);
+            }
+          } else {
             // Read the trace header.
             getFileAccessor().setFilePosition(tracePos);
-            getFileAccessor().readByteBuffer(traceHeaders[i].getBuffer());
+            getFileAccessor().readByteBuffer(traceHeader.getBuffer());
 
             // Read the trace data.
             buffer.position(0);
             getFileAccessor().readByteBuffer(buffer);
             getFileAccessor().getFloatsFromBytes(ps3d.getNumSamplesPerTrace(), buffer.array(), traceData);
-            if (iz0 >= jz0 && iz1 <= jz1) {
-              // Flag the trace as 'Live' or 'Dead', depending on if
-              // there are any non-zero values.
-              float[] tempData = new float[numSamples];
-              System.arraycopy(traceData, iz0 - jz0, tempData, 0, numSamples);
-              Trace.Status status = Trace.Status.Dead;
-              for (int k = 0; k < numSamples; k++) {
-                if (traceData[iz0 - jz0 + k] != 0f) {
-                  status = Trace.Status.Live;
-                  break;
-                }
+          }
+          if (iz0 >= jz0 && iz1 <= jz1) {
+            // Flag the trace as 'Live' or 'Dead', depending on if
+            // there are any non-zero values.
+            System.arraycopy(traceData, iz0 - jz0, samples, i * numSamples, numSamples);
+            Trace.Status status = Trace.Status.Dead;
+            for (int k = 0; k < numSamples; k++) {
+              if (traceData[iz0 - jz0 + k] != 0f) {
+                status = Trace.Status.Live;
+                break;
               }
-
-              // Create an output trace.
-              traces[i] = new Trace(zStart, deltaZ, zUnits, coords.getX(i), coords.getY(i), tempData, status);
-            } else {
-              String msg = "Requested z coordinates outside of extents (" + zStart + "-" + zEnd + " " + zUnits + ").";
-              getLogger().error(msg);
-              throw new Exception(msg);
             }
-          }
-          // If no traces were found, then create a 'Missing' trace.
-          if (tracePos == 0) {
-            traces[i] = new Trace(zStart, deltaZ, zUnits, coords.getX(i), coords.getY(i), new float[numSamples],
-                Trace.Status.Missing);
+            statuses[i] = status;
+
+            // Decode the trace header into the header block.
+            traceHeader.updateHeaderFromBuffer(headers.getHeader(i));
+          } else {
+            String msg = "Requested z coordinates outside of extents (" + zStart + "-" + zEnd + " " + zUnits + ").";
+            getLogger().error(msg);
+            throw new Exception(msg);
           }
         }
-      } catch (Exception ex) {
-        throw new RuntimeException(ex.toString(), ex);
+        // If no traces were found, then flag a 'Missing' trace (its samples are left as zeros).
+        if (tracePos == 0) {
+          statuses[i] = Trace.Status.Missing;
+        }
       }
+    } catch (Exception ex) {
+      throw new RuntimeException(ex.toString(), ex);
+    }
 
-      // Set the trace headers.
-      for (int i = 0; i < numTraces; i++) {
-        // Update the header from the byte buffer.
-        traceHeaders[i].updateHeaderFromBuffer();
+    // Set the trace headers.
+    for (int i = 0; i < numTraces; i++) {
+      // Override the header values for inline,xline with the requested values.
+      headers.putInteger(i, TraceHeaderCatalog.INLINE_NO, Math.round(inlines[i]));
+      headers.putInteger(i, TraceHeaderCatalog.XLINE_NO, Math.round(xlines[i]));
 
-        // Override the header values for inline,xline with the requested values.
-        traceHeaders[i].putInteger(TraceHeaderCatalog.INLINE_NO, Math.round(inlines[i]));
-        traceHeaders[i].putInteger(TraceHeaderCatalog.XLINE_NO, Math.round(xlines[i]));
+      // Override the x,y values with those calculated from the seismic geometry.
+      headers.putDouble(i, TraceHeaderCatalog.X, coords.getX(i));
+      headers.putDouble(i, TraceHeaderCatalog.Y, coords.getY(i));
+    }
+    return new TraceData(samples, numSamples, zStart, deltaZ, zUnits, statuses, headers.getHeaders());
+  }
 
-        // Override the x,y values with those calculated from the seismic geometry.
-        traceHeaders[i].putDouble(TraceHeaderCatalog.X, coords.getX(i));
-        traceHeaders[i].putDouble(TraceHeaderCatalog.Y, coords.getY(i));
-        traces[i].setHeader(traceHeaders[i]);
-      }
-      return new TraceData(traces);
+  /**
+   * Reads a single trace header and its data through the file channel, blocking other access.
+   * Used when a trace lies outside the memory mapping of the SEG-Y file.
+   * 
+   * @param tracePos the file position of the trace.
+   * @param hdrBuffer the buffer into which to read the trace header.
+   * @param buffer the buffer into which to read the trace data.
+   * @throws IOException thrown on I/O error.
+   */
+  private void readTrace(final long tracePos, final ByteBuffer hdrBuffer, final ByteBuffer buffer) throws IOException {
+    synchronized (getSynchronizeToken()) {
+      getFileAccessor().openForRead();
+      hdrBuffer.position(0);
+      getFileAccessor().readByteBuffer(hdrBuffer, tracePos);
+      buffer.position(0);
+      getFileAccessor().readByteBuffer(buffer, tracePos + hdrBuffer.capacity());
     }
   }
 
@@ -322,14 +384,14 @@ public class PostStack3dMapper extends SegyMapper<PostStack3d> implements IPostS
       int numTraces = traceData.getNumTraces();
       float[] inlines = new float[numTraces];
       float[] xlines = new float[numTraces];
-      Trace[] traces = traceData.getTraces();
+      // Read the trace statuses and headers directly, so the traces of a flat trace collection are not created.
       for (int i = 0; i < numTraces; i++) {
-        if (traces[i].isMissing()) {
+        if (traceData.getStatus(i).equals(Trace.Status.Missing)) {
           inlines[i] = 0;
           xlines[i] = 0;
         } else {
-          inlines[i] = traces[i].getInline();
-          xlines[i] = traces[i].getXline();
+          inlines[i] = traceData.getHeader(i).getInteger(TraceHeaderCatalog.INLINE_NO);
+          xlines[i] = traceData.getHeader(i).getInteger(TraceHeaderCatalog.XLINE_NO);
         }
       }
       float zStart = traceData.getStartZ();
@@ -374,12 +436,11 @@ public class PostStack3dMapper extends SegyMapper<PostStack3d> implements IPostS
 
         // Loop over each trace being written.
         for (int i = 0; i < numTraces; i++) {
-          Trace trace = traces[i];
-
           // Check the trace status. If 'Missing', do not write.
-          if (trace.getStatus().equals(Trace.Status.Missing)) {
+          if (traceData.getStatus(i).equals(Trace.Status.Missing)) {
             continue;
           }
+          Header traceHeader = traceData.getHeader(i);
           int iln = Math.round(inlines[i]);
           int xln = Math.round(xlines[i]);
           keys[0] = iln;
@@ -405,8 +466,8 @@ public class PostStack3dMapper extends SegyMapper<PostStack3d> implements IPostS
 
           // Update the trace header with the offset.
           int offset = 0;
-          if (trace.getHeader().getHeaderDefinition().contains(TraceHeaderCatalog.OFFSET)) {
-            offset = Math.round(trace.getHeader().getFloat(TraceHeaderCatalog.OFFSET));
+          if (traceHeader.getHeaderDefinition().contains(TraceHeaderCatalog.OFFSET)) {
+            offset = Math.round(traceHeader.getFloat(TraceHeaderCatalog.OFFSET));
             segyTraceHeader.putInteger(SegyTraceHeaderCatalog.SOURCE_RECEIVER_DISTANCE, offset);
           }
 
@@ -434,7 +495,7 @@ public class PostStack3dMapper extends SegyMapper<PostStack3d> implements IPostS
           getFileAccessor().writeByteBuffer(hdrBuffer);
 
           // Write the trace data.
-          System.arraycopy(trace.getDataReference(), 0, data, iz0, numSamples);
+          traceData.getTraceBuffer(i).get(data, iz0, numSamples);
           buffer.position(0);
           getFileAccessor().putFloatsToBytes(data.length, data, buffer.array());
           buffer.position(0);
@@ -974,105 +1035,83 @@ public class PostStack3dMapper extends SegyMapper<PostStack3d> implements IPostS
    * @param xlineStart the starting xline.
    * @param xlineEnd the ending xline.
    * @param order the order of the data to return.
+   * @param missingValue the value to use for missing traces.
    */
   public float[] getSlice(final PostStack3d ps3d, final float z, final float inlineStart, final float inlineEnd,
       final float xlineStart, final float xlineEnd, final SliceBufferOrder order, final float missingValue) {
-    StorageOrder storageOrder = getStorageOrder(ps3d);
-    synchronized (getSynchronizeToken()) {
-      getFileAccessor().openForRead();
-      int numInlines = 1 + Math.round((inlineEnd - inlineStart) / ps3d.getInlineDelta());
-      int numXlines = 1 + Math.round((xlineEnd - xlineStart) / ps3d.getXlineDelta());
-      int numTraces = numInlines * numXlines;
-      float[] sliceData = new float[numTraces];
+    return getSlices(ps3d, new float[] { z }, inlineStart, inlineEnd, xlineStart, xlineEnd, order, missingValue)[0];
+  }
+
+  /**
+   * Gets multiple slices of data from the SEG-Y file in a single pass.
+   * <p>
+   * Only the bytes of the requested samples are read from each trace,
+   * rather than the full trace. See <code>SegySliceReader</code> for details.
+   * 
+   * @param ps3d the poststack3d mapped to the SEG-Y file.
+   * @param zs the slice z values.
+   * @param inlineStart the starting inline.
+   * @param inlineEnd the ending inline.
+   * @param xlineStart the starting xline.
+   * @param xlineEnd the ending xline.
+   * @param order the order of the data to return.
+   * @param missingValue the value to use for missing traces.
+   * @return the array of slices, one for each z value.
+   */
+  public float[][] getSlices(final PostStack3d ps3d, final float[] zs, final float inlineStart,
+      final float inlineEnd, final float xlineStart, final float xlineEnd, final SliceBufferOrder order,
+      final float missingValue) {
+    int numInlines = 1 + Math.round((inlineEnd - inlineStart) / ps3d.getInlineDelta());
+    int numXlines = 1 + Math.round((xlineEnd - xlineStart) / ps3d.getXlineDelta());
+    int numTraces = numInlines * numXlines;
+    float[][] sliceData = new float[zs.length][numTraces];
+    for (float[] slice : sliceData) {
       for (int i = 0; i < numTraces; i++) {
-        sliceData[i] = missingValue;
+        slice[i] = missingValue;
       }
-      Unit zUnits = ps3d.getZUnit();
-      try {
-        // Compute the requested start/end z-indices (in storage units).
-        float startz = Unit.convert(z, zUnits, _model.getUnitOfZ());
+    }
+    Unit zUnits = ps3d.getZUnit();
+    try {
+      // Compute the volume start/end z-indices (in storage units).
+      int jz0 = Math.round(Unit.convert(ps3d.getZStart(), ps3d.getZUnit(), _model.getUnitOfZ())
+          / _model.getSampleRate());
+      int jz1 = Math.round(Unit.convert(ps3d.getZEnd(), ps3d.getZUnit(), _model.getUnitOfZ())
+          / _model.getSampleRate());
+
+      // Compute the requested z-indices (in storage units), relative to the start of the trace.
+      int[] sampleIndices = new int[zs.length];
+      for (int k = 0; k < zs.length; k++) {
+        float startz = Unit.convert(zs[k], zUnits, _model.getUnitOfZ());
         int iz = Math.round(startz / _model.getSampleRate());
+        if (iz < jz0 || iz > jz1) {
+          String msg = "Requested z coordinate outside of extents (" + zs[k] + " " + zUnits + ").";
+          getLogger().error(msg);
+          throw new Exception(msg);
+        }
+        sampleIndices[k] = iz - jz0;
+      }
 
-        // Compute the volume start/end z-indices (in storage units).
-        int jz0 = Math.round(Unit.convert(ps3d.getZStart(), ps3d.getZUnit(), _model.getUnitOfZ())
-            / _model.getSampleRate());
-        int jz1 = Math.round(Unit.convert(ps3d.getZEnd(), ps3d.getZUnit(), _model.getUnitOfZ())
-            / _model.getSampleRate());
-        ByteBuffer buffer = ByteBuffer.allocate(ps3d.getNumSamplesPerTrace() * 4);
-        int[] keys = new int[2];
-        float[] traceData = new float[ps3d.getNumSamplesPerTrace()];
-        float inline;
-        float xline;
-
-        if (storageOrder.equals(StorageOrder.INLINE_XLINE_Z)) {
-          for (int i = 0; i < numInlines; i++) {
-            inline = inlineStart + i * ps3d.getInlineDelta();
-            for (int j = 0; j < numXlines; j++) {
-              xline = xlineStart + j * ps3d.getXlineDelta();
-              int iln = Math.round(inline);
-              int xln = Math.round(xline);
-              keys[0] = iln;
-              keys[1] = xln;
-              long tracePos = _traceIndex.getTracePosition(keys);
-              int numTracesToRead = tracePos == 0 ? 0 : 1;
-              for (int k = 0; k < numTracesToRead; k++) {
-                // Skip past the trace header.
-                getFileAccessor().setFilePosition(tracePos + 240);
-                buffer.position(0);
-                getFileAccessor().readByteBuffer(buffer);
-                buffer.position(0);
-                getFileAccessor().getFloatsFromBytes(ps3d.getNumSamplesPerTrace(), buffer.array(), traceData);
-                if (iz >= jz0 && iz <= jz1) {
-                  if (order.equals(SliceBufferOrder.INLINE_XLINE)) {
-                    sliceData[i * numXlines + j] = traceData[iz - jz0];
-                  } else if (order.equals(SliceBufferOrder.XLINE_INLINE)) {
-                    sliceData[j * numInlines + i] = traceData[iz - jz0];
-                  }
-                } else {
-                  String msg = "Requested z coordinate outside of extents (" + z + " " + zUnits + ").";
-                  getLogger().error(msg);
-                  throw new Exception(msg);
-                }
-              }
-            }
-          }
-        } else if (storageOrder.equals(StorageOrder.XLINE_INLINE_Z)) {
-          for (int i = 0; i < numXlines; i++) {
-            xline = xlineStart + i * ps3d.getXlineDelta();
-            for (int j = 0; j < numInlines; j++) {
-              inline = inlineStart + j * ps3d.getInlineDelta();
-              int iln = Math.round(inline);
-              int xln = Math.round(xline);
-              keys[0] = iln;
-              keys[1] = xln;
-              long tracePos = _traceIndex.getTracePosition(keys);
-              int numTracesToRead = tracePos == 0 ? 0 : 1;
-              for (int k = 0; k < numTracesToRead; k++) {
-                // Skip past the trace header.
-                getFileAccessor().setFilePosition(tracePos + 240);
-                buffer.position(0);
-                getFileAccessor().readByteBuffer(buffer);
-                getFileAccessor().getFloatsFromBytes(ps3d.getNumSamplesPerTrace(), buffer.array(), traceData);
-                if (iz >= jz0 && iz <= jz1) {
-                  if (order.equals(SliceBufferOrder.INLINE_XLINE)) {
-                    sliceData[j * numXlines + i] = traceData[iz - jz0];
-                  } else if (order.equals(SliceBufferOrder.XLINE_INLINE)) {
-                    sliceData[i * numInlines + j] = traceData[iz - jz0];
-                  }
-                } else {
-                  String msg = "Requested z coordinates outside of extents (" + z + " " + zUnits + ").";
-                  getLogger().error(msg);
-                  throw new Exception(msg);
-                }
-              }
-            }
-          }
+      // Look up the trace positions, in the order of the data to return.
+      // The slice reader visits the traces in file order, so the storage order is not needed.
+      long[] tracePositions = new long[numTraces];
+      int[] keys = new int[2];
+      for (int i = 0; i < numInlines; i++) {
+        keys[0] = Math.round(inlineStart + i * ps3d.getInlineDelta());
+        for (int j = 0; j < numXlines; j++) {
+          keys[1] = Math.round(xlineStart + j * ps3d.getXlineDelta());
+          int index = order.equals(SliceBufferOrder.INLINE_XLINE) ? i * numXlines + j : j * numInlines + i;
+          tracePositions[index] = _traceIndex.getTracePosition(keys);
         }
-      } catch (Exception ex) {
-        getLogger().error(ex.toString(), ex);
       }
-      return sliceData;
+
+      // Read from the memory mapping, if available.
+      getFileAccessor().openForMappedRead();
+      SegySliceReader sliceReader = new SegySliceReader(getFileAccessor(), ps3d.getNumSamplesPerTrace());
+      sliceReader.readSlices(tracePositions, sampleIndices, sliceData);
+    } catch (Exception ex) {
+      getLogger().error(ex.toString(), ex);
     }
+    return sliceData;
   }
 
   /**
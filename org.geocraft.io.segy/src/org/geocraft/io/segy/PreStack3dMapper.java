@@ -16,6 +16,8 @@ import org.geocraft.core.model.datatypes.CoordinateSystem;
 import org.geocraft.core.model.datatypes.CornerPointsSeries;
 import org.geocraft.core.model.datatypes.Domain;
 import org.geocraft.core.model.datatypes.FloatRange;
+import org.geocraft.core.model.datatypes.Header;
+import org.geocraft.core.model.datatypes.HeaderBlock;
 import org.geocraft.core.model.datatypes.HeaderDefinition;
 import org.geocraft.core.model.datatypes.Point3d;
 import org.geocraft.core.model.datatypes.PolygonUtil;
@@ -308,21 +310,29 @@ public class PreStack3dMapper extends SegyMapper<PreStack3d> implements IPreStac
     int xlineEnd = traceIndex.getTraceKeyMax(1);
     int[] ilines = { ilineStart, ilineEnd, ilineEnd, ilineStart };
     int[] xlines = { xlineStart, xlineStart, xlineEnd, xlineEnd };
+    long[] tracePositions = new long[4];
+    traceIndex.getTracePositions(ilines, xlines, tracePositions);
     for (int i = 0; i < 4; i++) {
       keys[0] = ilines[i];
       keys[1] = xlines[i];
-      long[] pos = new long[0];// TODO traceIndex.getTracePosition(keys);
-      fileChannel.position(pos[0] + 70);
+      long pos = tracePositions[i];
+      // If any corner point does not exist in the trace index,
+      // then the geometry cannot be determined, so throw an exception.
+      if (pos == 0) {
+        randomAccessFile.close();
+        throw new IOException("One or more corner points missing: inline " + keys[0] + ", xline " + keys[1] + ".");
+      }
+      fileChannel.position(pos + 70);
       byteBuffer.position(0);
       fileChannel.read(byteBuffer);
       byteBuffer.position(0);
       short scalar = byteBuffer.getShort();
-      fileChannel.position(pos[0] + xCoordByteLoc - 1);
+      fileChannel.position(pos + xCoordByteLoc - 1);
       byteBuffer.position(0);
       fileChannel.read(byteBuffer);
       byteBuffer.position(0);
       double x = byteBuffer.getInt(0);
-      fileChannel.position(pos[0] + yCoordByteLoc - 1);
+      fileChannel.position(pos + yCoordByteLoc - 1);
       byteBuffer.position(0);
       fileChannel.read(byteBuffer);
       byteBuffer.position(0);
@@ -441,8 +451,10 @@ public class PreStack3dMapper extends SegyMapper<PreStack3d> implements IPreStac
       CoordinateSeries coords = null;
       float deltaZ = ps3d.getZDelta();
       Unit zUnits = ps3d.getZUnit();
-      Trace[] traces = new Trace[numTraces];
-      SegyTraceHeader[] traceHeaders = new SegyTraceHeader[numTraces];
+      float[] samples = null;
+      Trace.Status[] statuses = new Trace.Status[numTraces];
+      HeaderBlock headers = new HeaderBlock(_headerDef, numTraces);
+      SegyTraceHeader traceHeader = new SegyTraceHeader(_headerDef);
       try {
         // Compute the requested start/end z-indices (in storage units).
         float startz = Unit.convert(zStart, zUnits, _model.getUnitOfZ());
@@ -455,32 +467,33 @@ public class PreStack3dMapper extends SegyMapper<PreStack3d> implements IPreStac
         int jz1 = Math.round(Unit.convert(ps3d.getZEnd(), ps3d.getZUnit(), _model.getUnitOfZ())
             / _model.getSampleRate());
         numSamples = iz1 - iz0 + 1;
+        samples = new float[numTraces * numSamples];
         ByteBuffer buffer = ByteBuffer.allocate(ps3d.getNumSamplesPerTrace() * 4);
         int[] keys = new int[3];
         float[] traceData = new float[ps3d.getNumSamplesPerTrace()];
         coords = ps3d.getSurvey().transformInlineXlineToXY(inlines, xlines);
         for (int i = 0; i < numTraces; i++) {
-          // Create the header for this trace.
-          traceHeaders[i] = new SegyTraceHeader(_headerDef);
-          traceHeaders[i].getBuffer().position(0);
+          // Reuse the SEG-Y header buffer for this trace.
+          traceHeader.getBuffer().position(0);
           int inline = Math.round(inlines[i]);
           int xline = Math.round(xlines[i]);
           int offset = Math.round(offsets[i]);
           keys[0] = inline;
           keys[1] = xline;
           keys[2] = offset;
-          long[] tracePos = new long[0]; // TODO _traceIndex.getTracePosition(keys);
+          long tracePosition = _traceIndex.getTracePosition(keys);
+          long[] tracePos = tracePosition != 0 ? new long[] { tracePosition } : new long[0];
           for (int j = 0; j < Math.min(1, tracePos.length); j++) {
             // Read the trace header.
             getFileAccessor().setFilePosition(tracePos[j]);
-            getFileAccessor().readByteBuffer(traceHeaders[i].getBuffer());
+            getFileAccessor().readByteBuffer(traceHeader.getBuffer());
+            traceHeader.updateHeaderFromBuffer(headers.getHeader(i));
             // Read the trace data.
             buffer.position(0);
             getFileAccessor().readByteBuffer(buffer);
             getFileAccessor().getFloatsFromBytes(ps3d.getNumSamplesPerTrace(), buffer.array(), traceData);
             if (iz0 >= jz0 && iz1 <= jz1) {
-              float[] tempData = new float[numSamples];
-              System.arraycopy(traceData, iz0 - jz0, tempData, 0, numSamples);
+              System.arraycopy(traceData, iz0 - jz0, samples, i * numSamples, numSamples);
               Trace.Status status = Trace.Status.Dead;
               for (int k = 0; k < numSamples; k++) {
                 if (traceData[iz0 - jz0 + k] != 0f) {
@@ -488,7 +501,7 @@ public class PreStack3dMapper extends SegyMapper<PreStack3d> implements IPreStac
                   break;
                 }
               }
-              traces[i] = new Trace(zStart, deltaZ, zUnits, coords.getX(i), coords.getY(i), tempData, status);
+              statuses[i] = status;
             } else {
               String msg = "Requested z coordinates outside of extents (" + zStart + "-" + zEnd + " " + zUnits + ").";
               getLogger().error(msg);
@@ -497,29 +510,33 @@ public class PreStack3dMapper extends SegyMapper<PreStack3d> implements IPreStac
           }
           // If no traces were found, them create a 'missing' trace.
           if (tracePos.length < 1) {
-            traces[i] = new Trace(zStart, deltaZ, zUnits, coords.getX(i), coords.getY(i), new float[numSamples],
-                Trace.Status.Missing);
+            statuses[i] = Trace.Status.Missing;
           }
         }
       } catch (Exception ex) {
         getLogger().error(ex.toString(), ex);
       }
+      // Flag any traces not read (due to an error) as 'missing'.
+      if (samples == null) {
+        samples = new float[numTraces * numSamples];
+      }
+      for (int i = 0; i < numTraces; i++) {
+        if (statuses[i] == null) {
+          statuses[i] = Trace.Status.Missing;
+        }
+      }
       // Set the trace headers.
       for (int i = 0; i < numTraces; i++) {
-        // Update the header from the byte buffer.
-        traceHeaders[i].updateHeaderFromBuffer();
-
         // Override the header values for inline,xline,offset with the requested values.
-        traceHeaders[i].putInteger(TraceHeaderCatalog.INLINE_NO, Math.round(inlines[i]));
-        traceHeaders[i].putInteger(TraceHeaderCatalog.XLINE_NO, Math.round(xlines[i]));
-        traceHeaders[i].putFloat(TraceHeaderCatalog.OFFSET, offsets[i]);
+        headers.putInteger(i, TraceHeaderCatalog.INLINE_NO, Math.round(inlines[i]));
+        headers.putInteger(i, TraceHeaderCatalog.XLINE_NO, Math.round(xlines[i]));
+        headers.putFloat(i, TraceHeaderCatalog.OFFSET, offsets[i]);
 
         // Override the x,y values with those calculated from the seismic geometry.
-        traceHeaders[i].putDouble(TraceHeaderCatalog.X, coords.getX(i));
-        traceHeaders[i].putDouble(TraceHeaderCatalog.Y, coords.getY(i));
-        traces[i].setHeader(traceHeaders[i]);
+        headers.putDouble(i, TraceHeaderCatalog.X, coords.getX(i));
+        headers.putDouble(i, TraceHeaderCatalog.Y, coords.getY(i));
       }
-      return new TraceData(traces);
+      return new TraceData(samples, numSamples, zStart, deltaZ, zUnits, statuses, headers.getHeaders());
     }
   }
 
@@ -584,10 +601,10 @@ public class PreStack3dMapper extends SegyMapper<PreStack3d> implements IPreStac
       int numTraces = traceData.getNumTraces();
       float[] inlines = new float[numTraces];
       float[] xlines = new float[numTraces];
-      Trace[] traces = traceData.getTraces();
+      // Read the trace statuses and headers directly, so the traces of a flat trace collection are not created.
       for (int i = 0; i < numTraces; i++) {
-        inlines[i] = traces[i].getInline();
-        xlines[i] = traces[i].getXline();
+        inlines[i] = traceData.getHeader(i).getInteger(TraceHeaderCatalog.INLINE_NO);
+        xlines[i] = traceData.getHeader(i).getInteger(TraceHeaderCatalog.XLINE_NO);
       }
       float zStart = traceData.getStartZ();
       float zEnd = traceData.getEndZ();
@@ -618,11 +635,11 @@ public class PreStack3dMapper extends SegyMapper<PreStack3d> implements IPreStac
         SegyTraceHeader segyTraceHeader = new SegyTraceHeader(_headerDef);
         Point3d[] points = ps3d.getSurvey().transformInlineXlineToXY(inlines, xlines).getPointsDirect();
         for (int i = 0; i < numTraces; i++) {
-          Trace trace = traces[i];
           // Check the trace status. If missing, do not write.
-          if (trace.getStatus().equals(Trace.Status.Missing)) {
+          if (traceData.getStatus(i).equals(Trace.Status.Missing)) {
             continue;
           }
+          Header traceHeader = traceData.getHeader(i);
           int iln = Math.round(inlines[i]);
           int xln = Math.round(xlines[i]);
           keys[0] = iln;
@@ -640,7 +657,7 @@ public class PreStack3dMapper extends SegyMapper<PreStack3d> implements IPreStac
           segyTraceHeader.putShort(SegyTraceHeaderCatalog.SAMPLE_INTERVAL.getKey(), (short) (deltaz * 1000));
 
           // Update the trace header with the offset.
-          int offset = Math.round(trace.getHeader().getFloat(TraceHeaderCatalog.OFFSET));
+          int offset = Math.round(traceHeader.getFloat(TraceHeaderCatalog.OFFSET));
           segyTraceHeader.putInteger(SegyTraceHeaderCatalog.SOURCE_RECEIVER_DISTANCE.getKey(), offset);
 
           // Update the byte buffer from the header.
@@ -662,7 +679,7 @@ public class PreStack3dMapper extends SegyMapper<PreStack3d> implements IPreStac
           getFileAccessor().writeByteBuffer(hdrBuffer);
 
           // Write the trace data.
-          System.arraycopy(trace.getDataReference(), 0, data, iz0, numSamples);
+          traceData.getTraceBuffer(i).get(data, iz0, numSamples);
           buffer.position(0);
           getFileAccessor().putFloatsToBytes(data.length, data, buffer.array());
           buffer.position(0);
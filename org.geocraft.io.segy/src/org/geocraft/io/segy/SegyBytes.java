@@ -4,7 +4,10 @@
 package org.geocraft.io.segy;
 
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 
 import org.geocraft.core.service.ServiceProvider;
 import org.geocraft.core.service.logging.ILogger;
@@ -61,6 +64,9 @@ public class SegyBytes {
 
   private static final int IEEE2IBM = 1;
 
+  /** The number of samples converted per chunk by the bulk buffer conversions. */
+  private static final int CHUNK_SIZE = 1024;
+
   private static int[][] _m1 = new int[512][2];
 
   private static float[][] _r1 = new float[512][2];
@@ -75,51 +81,220 @@ public class SegyBytes {
 
   public static final void getFloatsFromBytes(final int format, final int count, final byte[] bs, final float[] fs,
       final int index, final ByteOrder byteOrder) {
+    // SEG-Y samples are always stored big-endian, regardless of the byte order argument.
+    ByteBuffer bb = ByteBuffer.wrap(bs, index, bs.length - index).order(ByteOrder.BIG_ENDIAN);
+    getFloatsFromBuffer(format, bb, fs, 0, count);
+  }
 
-    //boolean swapBytes = !byteOrder.equals(ByteOrder.nativeOrder());
+  /**
+   * Converts samples in a byte buffer to an array of floats.
+   * <p>
+   * The samples are read directly from the buffer (or an int/short view of it), starting at the
+   * current position of the buffer, without copying them into an intermediate byte array. The byte
+   * order of the buffer is used, and its position is not modified. The conversion loops operate on
+   * primitive arrays without branches or lookup tables, so they can be vectorized by the JIT compiler.
+   * 
+   * @param format the SEG-Y sample format code.
+   * @param bb the buffer containing the samples.
+   * @param fs the array in which to store the float values.
+   * @param offset the offset in the float array at which to start.
+   * @param count the number of samples to convert.
+   */
+  public static final void getFloatsFromBuffer(final int format, final ByteBuffer bb, final float[] fs,
+      final int offset, final int count) {
     switch (format) {
-
       case SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM:
-        //if(swapBytes) {
-        //  swapBytes(bs, 4);
-        //}
-        getFloatsFrom4BytesFloatIBMcps(count, bs, fs, index, true);
-        break;
-
       case SAMPLE_FORMAT_CODE_FIXED_4BYTE:
-        //if(swapBytes) {
-        //  swapBytes(bs, 4);
-        //}
-        getFloatsFrom4BytesFixed(count, bs, fs, index);
+      case SAMPLE_FORMAT_CODE_FIXED_4BYTE_WITH_GAIN:
+      case SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IEEE:
+        IntBuffer ib = bb.asIntBuffer();
+        int[] ibits = new int[Math.min(count, CHUNK_SIZE)];
+        for (int start = 0; start < count; start += CHUNK_SIZE) {
+          int n = Math.min(CHUNK_SIZE, count - start);
+          ib.get(ibits, 0, n);
+          if (format == SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM) {
+            ibmToFloats(ibits, fs, offset + start, n);
+          } else if (format == SAMPLE_FORMAT_CODE_FIXED_4BYTE) {
+            fixedToFloats(ibits, fs, offset + start, n);
+          } else if (format == SAMPLE_FORMAT_CODE_FIXED_4BYTE_WITH_GAIN) {
+            fixedWithGainToFloats(ibits, fs, offset + start, n);
+          } else {
+            ieeeToFloats(ibits, fs, offset + start, n);
+          }
+        }
         break;
 
       case SAMPLE_FORMAT_CODE_FIXED_2BYTE:
-        //if(swapBytes) {
-        //  swapBytes(bs, 2);
-        //}
-        getFloatsFrom2BytesFixed(count, bs, fs, index);
+        ShortBuffer sb = bb.asShortBuffer();
+        short[] sbits = new short[Math.min(count, CHUNK_SIZE)];
+        for (int start = 0; start < count; start += CHUNK_SIZE) {
+          int n = Math.min(CHUNK_SIZE, count - start);
+          sb.get(sbits, 0, n);
+          for (int k = 0; k < n; k++) {
+            fs[offset + start + k] = sbits[k];
+          }
+        }
         break;
 
-      case SAMPLE_FORMAT_CODE_FIXED_4BYTE_WITH_GAIN:
-        //if(swapBytes) {
-        //  swapBytes(bs, 4);
-        //}
-        getFloatsFrom4BytesFixedWithGain(count, bs, fs, index);
+      case SAMPLE_FORMAT_CODE_FIXED_1BYTE:
+        int position = bb.position();
+        for (int k = 0; k < count; k++) {
+          fs[offset + k] = bb.get(position + k);
+        }
         break;
 
+      default:
+        throw new IllegalArgumentException("Error: This format cannot currently be read!");
+    }
+  }
+
+  /**
+   * Converts an array of floats to samples in a byte buffer.
+   * <p>
+   * The samples are written directly into the buffer (or an int/short view of it), starting at the
+   * current position of the buffer. The byte order of the buffer is used, and its position is not
+   * modified. See <code>getFloatsFromBuffer</code> for details.
+   * 
+   * @param format the SEG-Y sample format code.
+   * @param fs the array of float values.
+   * @param offset the offset in the float array at which to start.
+   * @param count the number of samples to convert.
+   * @param bb the buffer in which to store the samples.
+   */
+  public static final void putFloatsToBuffer(final int format, final float[] fs, final int offset, final int count,
+      final ByteBuffer bb) {
+    switch (format) {
+      case SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM:
+      case SAMPLE_FORMAT_CODE_FIXED_4BYTE:
+      case SAMPLE_FORMAT_CODE_FIXED_4BYTE_WITH_GAIN:
       case SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IEEE:
-        //if(swapBytes) {
-        //  swapBytes(bs, 4);
-        //}
-        getFloatsFrom4BytesFloatIEEE(count, bs, fs, index);
+        IntBuffer ib = bb.asIntBuffer();
+        int[] ibits = new int[Math.min(count, CHUNK_SIZE)];
+        for (int start = 0; start < count; start += CHUNK_SIZE) {
+          int n = Math.min(CHUNK_SIZE, count - start);
+          if (format == SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM) {
+            floatsToIbm(fs, offset + start, ibits, n);
+          } else if (format == SAMPLE_FORMAT_CODE_FIXED_4BYTE) {
+            floatsToFixed(fs, offset + start, ibits, n);
+          } else if (format == SAMPLE_FORMAT_CODE_FIXED_4BYTE_WITH_GAIN) {
+            floatsToFixedWithGain(fs, offset + start, ibits, n);
+          } else {
+            floatsToIeee(fs, offset + start, ibits, n);
+          }
+          ib.put(ibits, 0, n);
+        }
+        break;
+
+      case SAMPLE_FORMAT_CODE_FIXED_2BYTE:
+        ShortBuffer sb = bb.asShortBuffer();
+        short[] sbits = new short[Math.min(count, CHUNK_SIZE)];
+        for (int start = 0; start < count; start += CHUNK_SIZE) {
+          int n = Math.min(CHUNK_SIZE, count - start);
+          for (int k = 0; k < n; k++) {
+            sbits[k] = (short) Math.round(fs[offset + start + k]);
+          }
+          sb.put(sbits, 0, n);
+        }
         break;
 
       case SAMPLE_FORMAT_CODE_FIXED_1BYTE:
-        getFloatsFrom1BytesFixed(count, bs, fs, index);
+        int position = bb.position();
+        for (int k = 0; k < count; k++) {
+          float f = fs[offset + k];
+          bb.put(position + k, (byte) (f > 0 ? f + 0.5 : f - 0.5));
+        }
         break;
 
       default:
-        throw new IllegalArgumentException("Error: This format cannot currently be read!");
+        String msg = "Error: This format cannot currently be written!";
+        LOGGER.debug(msg);
+        throw new IllegalArgumentException(msg);
+    }
+  }
+
+  /**
+   * Converts IBM floating point bit patterns to floats.
+   * <p>
+   * The IBM value is 0.fraction * 16^(exponent - 64), with a 24-bit fraction. The fraction is
+   * normalized using its count of leading zeros, rather than a shift loop or lookup table.
+   * Values too large for IEEE are clamped to the largest float, and values too small are flushed
+   * to zero, as in <code>getFloatsFrom4BytesFloatIBMcps</code>.
+   */
+  private static void ibmToFloats(final int[] ibits, final float[] fs, final int offset, final int count) {
+    for (int k = 0; k < count; k++) {
+      int bits = ibits[k];
+      int sign = bits & 0x80000000;
+      int fraction = bits & 0x00ffffff;
+      int shift = Integer.numberOfLeadingZeros(fraction) - 8;
+      int exponent = (bits >>> 22 & 0x1fc) - 130 - shift;
+      int ieee = sign | exponent << 23 | fraction << shift & 0x007fffff;
+      ieee = exponent > 254 ? sign | 0x7f7fffff : ieee;
+      ieee = exponent <= 0 || fraction == 0 ? 0 : ieee;
+      fs[offset + k] = Float.intBitsToFloat(ieee);
+    }
+  }
+
+  /**
+   * Converts floats to IBM floating point bit patterns.
+   * <p>
+   * The IEEE exponent is rounded up to a multiple of 4 by shifting the fraction right by
+   * 0-3 bits, computed directly rather than in a loop, as in <code>putFloatsTo4BytesFloatIBMcps</code>.
+   */
+  private static void floatsToIbm(final float[] fs, final int offset, final int[] ibits, final int count) {
+    for (int k = 0; k < count; k++) {
+      int bits = Float.floatToRawIntBits(fs[offset + k]);
+      int exponent = ((bits & 0x7f800000) >> 23) - 126;
+      int shift = 4 - (exponent & 0x3) & 0x3;
+      int fraction = (bits & 0x007fffff | 0x00800000) >> shift;
+      int ibm = bits & 0x80000000 | (exponent + shift >> 2) + 64 << 24 | fraction;
+      ibits[k] = bits == 0 ? 0 : ibm;
+    }
+  }
+
+  private static void ieeeToFloats(final int[] ibits, final float[] fs, final int offset, final int count) {
+    for (int k = 0; k < count; k++) {
+      fs[offset + k] = Float.intBitsToFloat(ibits[k]);
+    }
+  }
+
+  private static void floatsToIeee(final float[] fs, final int offset, final int[] ibits, final int count) {
+    for (int k = 0; k < count; k++) {
+      ibits[k] = Float.floatToIntBits(fs[offset + k]);
+    }
+  }
+
+  private static void fixedToFloats(final int[] ibits, final float[] fs, final int offset, final int count) {
+    for (int k = 0; k < count; k++) {
+      fs[offset + k] = ibits[k];
+    }
+  }
+
+  private static void floatsToFixed(final float[] fs, final int offset, final int[] ibits, final int count) {
+    for (int k = 0; k < count; k++) {
+      ibits[k] = Math.round(fs[offset + k]);
+    }
+  }
+
+  /**
+   * Converts fixed point w/gain bit patterns to floats.
+   * The 2nd byte is the gain, and the low-order 2 bytes are the signed value,
+   * as in <code>getFloatsFrom4BytesFixedWithGain</code>.
+   */
+  private static void fixedWithGainToFloats(final int[] ibits, final float[] fs, final int offset, final int count) {
+    for (int k = 0; k < count; k++) {
+      int bits = ibits[k];
+      fs[offset + k] = (short) bits * ((byte) (bits >> 16) & 0x0000FFFF);
+    }
+  }
+
+  /**
+   * Converts floats to fixed point w/gain bit patterns, using a gain of 1.
+   * Values are clamped to the range of the signed 2-byte value.
+   */
+  private static void floatsToFixedWithGain(final float[] fs, final int offset, final int[] ibits, final int count) {
+    for (int k = 0; k < count; k++) {
+      int value = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(fs[offset + k])));
+      ibits[k] = 0x00010000 | value & 0x0000FFFF;
     }
   }
 
@@ -300,57 +475,9 @@ public class SegyBytes {
 
   public static final void putFloatsToBytes(final int format, final int count, final float[] fs, final byte[] bs,
       final int index, final ByteOrder byteOrder) {
-
-    //boolean swapBytes = !byteOrder.equals(ByteOrder.nativeOrder());
-    switch (format) {
-
-      case SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IBM:
-        putFloatsTo4BytesFloatIBMcps(count, fs, bs, index, true);
-        //if(swapBytes) {
-        //  swapBytes(bs, 4);
-        //}
-        break;
-
-      case SAMPLE_FORMAT_CODE_FIXED_4BYTE:
-        putFloatsTo4BytesFixed(count, fs, bs, index);
-        //if(swapBytes) {
-        //  swapBytes(bs, 4);
-        //}
-        break;
-
-      case SAMPLE_FORMAT_CODE_FIXED_2BYTE:
-        putFloatsTo2BytesFixed(count, fs, bs, index);
-        //if(swapBytes) {
-        //  swapBytes(bs, 2);
-        //}
-        break;
-
-      case SAMPLE_FORMAT_CODE_FIXED_4BYTE_WITH_GAIN:
-
-        // TODO
-        // getFloatsFrom4BytesFixedWithGain(count, bs, fs, index);
-        //if(swapBytes) {
-        //  int[] ibytes = bs.asIntBuffer().array();
-        //  swapBytes(ibytes);
-        //}
-        break;
-
-      case SAMPLE_FORMAT_CODE_FLOAT_4BYTE_IEEE:
-        putFloatsTo4BytesFloatIEEE(count, fs, bs, index);
-        //if(swapBytes) {
-        //  swapBytes(bs, 4);
-        //}
-        break;
-
-      case SAMPLE_FORMAT_CODE_FIXED_1BYTE:
-        putFloatsTo1BytesFixed(count, fs, bs, index);
-        break;
-
-      default:
-        String msg = "Error: This format cannot currently be written!";
-        LOGGER.debug(msg);
-        throw new IllegalArgumentException(msg);
-    }
+    // SEG-Y samples are always stored big-endian, regardless of the byte order argument.
+    ByteBuffer bb = ByteBuffer.wrap(bs, index, bs.length - index).order(ByteOrder.BIG_ENDIAN);
+    putFloatsToBuffer(format, fs, 0, count, bb);
   }
 
   public static final void putFloatsTo4BytesFloatIBMorig(final int count, final float[] fs, final byte[] bs,
@@ -10,8 +10,14 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.geocraft.core.common.util.FileUtil;
 import org.geocraft.core.model.datatypes.Domain;
 import org.geocraft.core.model.datatypes.Unit;
 import org.geocraft.core.model.preferences.UnitPreferences;
@@ -41,6 +47,89 @@ public class SegyFileAccessor {
     OPEN_FOR_WRITE;
   }
 
+  /** The size (in bytes) of each memory-mapped window of the SEG-Y file. */
+  public static final long MAPPED_WINDOW_SIZE = 1L << 30;
+
+  /** The minimum time (in milliseconds) before mapping a window is retried after it failed. */
+  private static final long MAPPED_RETRY_INTERVAL = 10000;
+
+  /**
+   * Defines a read-only memory-mapped window of the SEG-Y file.
+   * The file is mapped in windows of <code>MAPPED_WINDOW_SIZE</code> bytes,
+   * which gets around the 2GB limit of a single <code>MappedByteBuffer</code>.
+   * <p>
+   * A window is released once it is discarded and no read is using it,
+   * so that the file can be deleted or replaced (which Windows refuses while it is mapped).
+   */
+  private static class MappedWindow {
+
+    /** The file position of the start of the window. */
+    private final long _start;
+
+    /** The memory-mapped buffer. */
+    private final MappedByteBuffer _buffer;
+
+    /** The number of references to the window: one held by the accessor, plus one per read in progress. */
+    private final AtomicInteger _references = new AtomicInteger(1);
+
+    /** The flag set once the accessor has discarded the window. */
+    private final AtomicBoolean _discarded = new AtomicBoolean(false);
+
+    MappedWindow(final long start, final MappedByteBuffer buffer) {
+      _start = start;
+      _buffer = buffer;
+    }
+
+    /**
+     * Returns the file position just past the end of the window.
+     */
+    long getEnd() {
+      return _start + _buffer.limit();
+    }
+
+    /**
+     * Acquires a reference for a read, which keeps the window mapped until it is released.
+     * 
+     * @return <i>true</i> if acquired; <i>false</i> if the window has already been released.
+     */
+    boolean acquire() {
+      while (true) {
+        int references = _references.get();
+        if (references == 0) {
+          return false;
+        }
+        if (_references.compareAndSet(references, references + 1)) {
+          return true;
+        }
+      }
+    }
+
+    /**
+     * Releases a reference, releasing the window once there are none left.
+     */
+    void release() {
+      if (_references.decrementAndGet() == 0) {
+        FileUtil.unmap(_buffer);
+      }
+    }
+
+    /**
+     * Releases the reference held by the accessor (once only).
+     */
+    void discard() {
+      if (_discarded.compareAndSet(false, true)) {
+        release();
+      }
+    }
+
+    /**
+     * Returns a duplicate of the window buffer, so concurrent callers do not share buffer positions.
+     */
+    ByteBuffer duplicate() {
+      return _buffer.duplicate();
+    }
+  }
+
   /** The synchronization token for thread safety. */
   public final Object _synchronizeToken = new Object();
 
@@ -87,6 +176,21 @@ public class SegyFileAccessor {
 
   private OpenClose _openStatus = OpenClose.CLOSE;
 
+  /** The flag indicating if memory-mapped reads are allowed. */
+  private boolean _mappedReadsEnabled = true;
+
+  /** The flag indicating if the SEG-Y file is open for memory-mapped reading. */
+  private volatile boolean _mapped;
+
+  /** The memory-mapped windows of the SEG-Y file, keyed by window index. Windows are mapped on first use. */
+  private final ConcurrentHashMap<Integer, MappedWindow> _windows = new ConcurrentHashMap<Integer, MappedWindow>();
+
+  /** The times (in milliseconds) at which mapping a window last failed, keyed by window index. */
+  private final ConcurrentHashMap<Integer, Long> _windowFailures = new ConcurrentHashMap<Integer, Long>();
+
+  /** The lock held while mapping a window. */
+  private final Object _windowLock = new Object();
+
   /**
    * The lone argument is simply a properties instance, which contains the data storage properties used for
    * mapping of the entity to a SEG-Y file on disk. These properties will either come from a data store properties panel when data
@@ -127,7 +231,7 @@ public class SegyFileAccessor {
    */
   public void openForRead() {
     if (_openStatus.equals(OpenClose.OPEN_FOR_WRITE)) {
-      close();
+      closeChannel();
     }
     if (_channel == null) {
       try {
@@ -165,10 +269,14 @@ public class SegyFileAccessor {
 
   protected void openForWrite(boolean reset) {
     if (_openStatus.equals(OpenClose.OPEN_FOR_READ)) {
-      close();
+      closeChannel();
     }
     if (_channel == null) {
       try {
+        if (reset) {
+          // The file is about to be truncated, which Windows refuses while it is mapped.
+          discardMapping();
+        }
         _raf = new RandomAccessFile(_storeFilePath, "rw");
         if (reset) {
           if (_raf.length() >= 3600) {
@@ -203,8 +311,17 @@ public class SegyFileAccessor {
 
   /**
    * Closes the SEG-Y file on disk from I/O access.
+   * The memory mapping, if any, is discarded.
    */
   public void close() {
+    closeChannel();
+    discardMapping();
+  }
+
+  /**
+   * Closes the file channel, leaving the memory mapping in place.
+   */
+  private void closeChannel() {
     if (_channel != null) {
       synchronized (_synchronizeToken) {
         try {
@@ -219,6 +336,233 @@ public class SegyFileAccessor {
     _openStatus = OpenClose.CLOSE;
   }
 
+  /**
+   * Discards the memory mapping, if any. Its windows are released as soon as no read is using them.
+   */
+  private void discardMapping() {
+    synchronized (_windowLock) {
+      _mapped = false;
+      for (Integer windowIndex : _windows.keySet()) {
+        discardWindow(windowIndex);
+      }
+      _windowFailures.clear();
+    }
+  }
+
+  /**
+   * Discards the mapped windows overlapping a region of the file, so that the region is mapped
+   * again on its next read. The remaining windows are left in place.
+   * 
+   * @param position the file position of the start of the region.
+   * @param length the length of the region.
+   */
+  private void discardMapping(final long position, final long length) {
+    if (length <= 0 || _windows.isEmpty()) {
+      return;
+    }
+    int firstIndex = (int) (position / MAPPED_WINDOW_SIZE);
+    int lastIndex = (int) ((position + length - 1) / MAPPED_WINDOW_SIZE);
+    for (int windowIndex = firstIndex; windowIndex <= lastIndex; windowIndex++) {
+      discardWindow(windowIndex);
+    }
+  }
+
+  /**
+   * Discards a mapped window. It is released as soon as no read is using it.
+   */
+  private void discardWindow(final int windowIndex) {
+    MappedWindow window = _windows.remove(windowIndex);
+    if (window != null) {
+      window.discard();
+    }
+  }
+
+  /**
+   * Opens the SEG-Y file on disk for memory-mapped reading.
+   * <p>
+   * Once mapped, bytes can be read using <code>readMapped</code> without
+   * holding the synchronization token, which allows multiple threads to
+   * read traces concurrently. Windows of the file are mapped on first use,
+   * and a window that fails to map is read through the file channel until
+   * mapping it is retried. Writes discard only the windows they overlap.
+   * The mapping is discarded, and released once no read is using it, when
+   * the file is closed.
+   * 
+   * @return <i>true</i> if the file is mapped; <i>false</i> if mapped reads are disabled.
+   */
+  public boolean openForMappedRead() {
+    if (!_mappedReadsEnabled) {
+      return false;
+    }
+    _mapped = true;
+    return true;
+  }
+
+  /**
+   * Acquires the mapped window containing a file position, mapping it if needed, and
+   * ensuring it extends to a given position (the last window grows with the file).
+   * The window must be released once the read is done.
+   * 
+   * @param windowIndex the window index.
+   * @param end the file position to which the window must extend.
+   * @return the acquired window, or <i>null</i> if the range cannot be mapped.
+   */
+  private MappedWindow acquireWindow(final int windowIndex, final long end) {
+    MappedWindow window = _windows.get(windowIndex);
+    if (window != null && window.getEnd() >= end && window.acquire()) {
+      return window;
+    }
+    synchronized (_windowLock) {
+      if (!_mapped) {
+        return null;
+      }
+      window = _windows.get(windowIndex);
+      if (window != null && window.getEnd() >= end && window.acquire()) {
+        return window;
+      }
+      Long failureTime = _windowFailures.get(windowIndex);
+      if (failureTime != null && System.currentTimeMillis() - failureTime < MAPPED_RETRY_INTERVAL) {
+        return null;
+      }
+      RandomAccessFile raf = null;
+      try {
+        raf = new RandomAccessFile(_storeFilePath, "r");
+        FileChannel channel = raf.getChannel();
+        long start = windowIndex * MAPPED_WINDOW_SIZE;
+        long size = Math.min(MAPPED_WINDOW_SIZE, channel.size() - start);
+        if (start + size < end) {
+          // The range lies beyond the end of the file.
+          return null;
+        }
+        MappedWindow mappedWindow = new MappedWindow(start, channel.map(MapMode.READ_ONLY, start, size));
+        mappedWindow.acquire();
+        discardWindow(windowIndex);
+        _windows.put(windowIndex, mappedWindow);
+        _windowFailures.remove(windowIndex);
+        return mappedWindow;
+      } catch (IOException ex) {
+        // Read this window through the file channel until mapping it is retried.
+        _windowFailures.put(windowIndex, System.currentTimeMillis());
+        LOGGER.warn("Unable to memory-map window " + windowIndex + " of the SEG-Y file " + _storeFilePath + ": "
+            + ex.toString());
+        return null;
+      } finally {
+        // The mapping remains valid after the channel is closed.
+        if (raf != null) {
+          try {
+            raf.close();
+          } catch (IOException e) {
+            LOGGER.error(e.toString());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a sequence of bytes from the memory-mapped SEG-Y file into a byte array.
+   * This method only blocks while a window is being mapped, and may be called concurrently from multiple threads.
+   * 
+   * @param position the file position at which to read.
+   * @param bytes the array into which to put the bytes.
+   * @param offset the offset in the array at which to start.
+   * @param length the number of bytes to read.
+   * @return <i>true</i> if the bytes were read; <i>false</i> if the file is not mapped or
+   *         the range cannot be mapped (e.g. it extends beyond the end of the file).
+   */
+  public boolean readMapped(final long position, final byte[] bytes, final int offset, final int length) {
+    if (!_mapped || position < 0) {
+      return false;
+    }
+    long filePosition = position;
+    int arrayOffset = offset;
+    int remaining = length;
+    while (remaining > 0) {
+      int windowIndex = (int) (filePosition / MAPPED_WINDOW_SIZE);
+      long windowEnd = (windowIndex + 1) * MAPPED_WINDOW_SIZE;
+      int count = (int) Math.min(remaining, windowEnd - filePosition);
+      MappedWindow window = acquireWindow(windowIndex, filePosition + count);
+      if (window == null) {
+        return false;
+      }
+      try {
+        ByteBuffer buffer = window.duplicate();
+        buffer.position((int) (filePosition - window._start));
+        buffer.get(bytes, arrayOffset, count);
+      } finally {
+        window.release();
+      }
+      filePosition += count;
+      arrayOffset += count;
+      remaining -= count;
+    }
+    return true;
+  }
+
+  /**
+   * Reads trace samples from the memory-mapped SEG-Y file, converting them directly
+   * from the mapping into an array of floats without an intermediate byte array.
+   * This method only blocks while a window is being mapped, and may be called concurrently from multiple threads.
+   * 
+   * @param position the file position of the first sample.
+   * @param numSamples the number of samples.
+   * @param floats the array of float values.
+   * @return <i>true</i> if the samples were read; <i>false</i> if the file is not mapped or the
+   *         samples are not contained in a single mapped window (use <code>readMapped</code> instead).
+   */
+  public boolean readMappedFloats(final long position, final int numSamples, final float[] floats) {
+    if (!_mapped || position < 0) {
+      return false;
+    }
+    int length = numSamples * SegyUtil.getNumBytesPerSample(_sampleFormatCode);
+    int windowIndex = (int) (position / MAPPED_WINDOW_SIZE);
+    if (position + length > (windowIndex + 1) * MAPPED_WINDOW_SIZE) {
+      return false;
+    }
+    MappedWindow window = acquireWindow(windowIndex, position + length);
+    if (window == null) {
+      return false;
+    }
+    try {
+      ByteBuffer view = window.duplicate();
+      int windowOffset = (int) (position - window._start);
+      view.position(windowOffset);
+      view.limit(windowOffset + length);
+      // SEG-Y samples are always stored big-endian (see SegyBytes).
+      SegyBytes.getFloatsFromBuffer(_sampleFormatCode, view.slice().order(ByteOrder.BIG_ENDIAN), floats, 0, numSamples);
+      return true;
+    } finally {
+      window.release();
+    }
+  }
+
+  /**
+   * Returns <i>true</i> if the SEG-Y file is currently open for memory-mapped reading; otherwise <i>false</i>.
+   */
+  public boolean isMapped() {
+    return _mapped;
+  }
+
+  /**
+   * Returns <i>true</i> if memory-mapped reads are allowed; otherwise <i>false</i>.
+   */
+  public boolean getMappedReadsEnabled() {
+    return _mappedReadsEnabled;
+  }
+
+  /**
+   * Sets the flag indicating if memory-mapped reads are allowed.
+   * If disabled, all reads go through the synchronized file channel.
+   * 
+   * @param enabled <i>true</i> to allow memory-mapped reads; <i>false</i> to disallow.
+   */
+  public void setMappedReadsEnabled(final boolean enabled) {
+    _mappedReadsEnabled = enabled;
+    if (!enabled) {
+      discardMapping();
+    }
+  }
+
   /**
    * Closes the SEG-Y file access.
    */
@@ -239,6 +583,9 @@ public class SegyFileAccessor {
    * Deletes the SEG-Y file on disk.
    */
   public void delete() {
+    // Release the memory mapping, which would otherwise prevent deletion on Windows.
+    discardMapping();
+
     // Delete the SEG-Y file.
     File file = new File(_storeFilePath);
     if (file.exists()) {
@@ -475,6 +822,33 @@ public class SegyFileAccessor {
     _channel.read(buffer, position);
   }
 
+  /**
+   * Reads a sequence of bytes from the channel into a subsequence of the byte buffers,
+   * starting at the specified file position. This allows multiple non-contiguous
+   * regions of the file to be read with a single scattering read.
+   * 
+   * @param buffers the buffers into which to put the bytes.
+   * @param offset the index of the first buffer into which to put bytes.
+   * @param length the number of buffers into which to put bytes.
+   * @param position the file position at which to read.
+   * @throws IOException thrown on I/O error.
+   */
+  public void readByteBuffers(final ByteBuffer[] buffers, final int offset, final int length, final long position)
+      throws IOException {
+    _channel.position(position);
+    long remaining = 0;
+    for (int i = offset; i < offset + length; i++) {
+      remaining += buffers[i].remaining();
+    }
+    while (remaining > 0) {
+      long numBytesRead = _channel.read(buffers, offset, length);
+      if (numBytesRead < 0) {
+        throw new IOException("Unexpected end of SEG-Y file " + _storeFilePath + ".");
+      }
+      remaining -= numBytesRead;
+    }
+  }
+
   /**
    * Writes a sequence of bytes to the channel from the byte buffer.
    * 
@@ -482,7 +856,10 @@ public class SegyFileAccessor {
    * @throws IOException thrown on I/O error.
    */
   public void writeByteBuffer(final ByteBuffer buffer) throws IOException {
-    _channel.write(buffer);
+    long position = _channel.position();
+    int length = _channel.write(buffer);
+    // Remap only the windows holding the bytes just written.
+    discardMapping(position, length);
   }
 
   /**
@@ -502,6 +879,19 @@ public class SegyFileAccessor {
    * @param floats the array of float values.
    */
   public void getFloatsFromBytes(final int numSamples, final byte[] bytes, final float[] floats) {
+    getFloatsFromBytes(numSamples, bytes, 0, floats);
+  }
+
+  /**
+   * Transfers an array of byte data, starting at the specified byte index, to an array of float data.
+   * This is used when reading partial trace data from the SEG-Y file on disk.
+   * 
+   * @param numSamples the number of samples.
+   * @param bytes the array of byte values.
+   * @param byteIndex the index of the first byte to transfer.
+   * @param floats the array of float values.
+   */
+  public void getFloatsFromBytes(final int numSamples, final byte[] bytes, final int byteIndex, final float[] floats) {
     ByteOrder byteOrder = ByteOrder.nativeOrder();
     if (_model.getByteOrder().equals(ByteOrder.BIG_ENDIAN.toString())) {
       byteOrder = ByteOrder.BIG_ENDIAN;
@@ -510,7 +900,7 @@ public class SegyFileAccessor {
     } else {
       throw new RuntimeException("Invalid byte order (" + byteOrder + ").");
     }
-    SegyBytes.getFloatsFromBytes(_sampleFormatCode, numSamples, bytes, floats, byteOrder);
+    SegyBytes.getFloatsFromBytes(_sampleFormatCode, numSamples, bytes, floats, byteIndex, byteOrder);
   }
 
   /**
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.segy;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * Extracts constant-z slices from a SEG-Y file by reading only the bytes of the
+ * requested samples, rather than the full sample buffer of each trace.
+ * <p>
+ * The requested samples are located directly at their byte offset within each trace
+ * (240-byte trace header + sample index * bytes-per-sample). Multiple slices are
+ * extracted in a single pass, by reading the span of bytes covering all the requested
+ * samples and converting each span in one call. If the SEG-Y file is memory-mapped,
+ * the spans are copied straight from the mapping. Otherwise the traces are visited in
+ * file order, and runs of traces that are adjacent on disk are gathered with a single
+ * scattering read.
+ */
+public class SegySliceReader {
+
+  /** The size (in bytes) of a SEG-Y trace header. */
+  private static final int TRACE_HEADER_SIZE = 240;
+
+  /** The maximum number of unused bytes between spans for traces to be gathered in the same read. */
+  private static final int MAX_GAP_BYTES = 64 * 1024;
+
+  /** The maximum number of traces gathered in a single scattering read. */
+  private static final int MAX_TRACES_PER_READ = 256;
+
+  /** The SEG-Y file accessor. */
+  private final SegyFileAccessor _accessor;
+
+  /** The number of samples per trace in the SEG-Y file. */
+  private final int _numSamplesPerTrace;
+
+  /** The number of bytes per sample in the SEG-Y file. */
+  private final int _numBytesPerSample;
+
+  /** The size (in bytes) of a trace, including its header. */
+  private final int _traceSize;
+
+  /**
+   * Constructs a slice reader for the SEG-Y file.
+   *
+   * @param accessor the SEG-Y file accessor.
+   * @param numSamplesPerTrace the number of samples per trace in the SEG-Y file.
+   */
+  public SegySliceReader(final SegyFileAccessor accessor, final int numSamplesPerTrace) {
+    _accessor = accessor;
+    _numSamplesPerTrace = numSamplesPerTrace;
+    _numBytesPerSample = SegyUtil.getNumBytesPerSample(accessor.getSampleFormatCode());
+    _traceSize = TRACE_HEADER_SIZE + numSamplesPerTrace * _numBytesPerSample;
+  }
+
+  /**
+   * Reads the samples at the specified sample indices from each of the specified traces.
+   * <p>
+   * If the file accessor is memory-mapped, this method does not block. Otherwise the
+   * traces are read through the file channel while holding the synchronization token
+   * of the file accessor.
+   *
+   * @param tracePositions the file positions of the traces (a position of 0 indicates a missing trace).
+   * @param sampleIndices the sample indices (relative to the start of the trace) of the slices.
+   * @param slices the output slices, sized [# of sample indices][# of trace positions];
+   *        the values for missing traces are left unchanged.
+   * @throws IOException thrown on I/O error.
+   */
+  public void readSlices(final long[] tracePositions, final int[] sampleIndices, final float[][] slices)
+      throws IOException {
+    if (sampleIndices.length == 0) {
+      return;
+    }
+
+    // Determine the span of bytes within each trace that covers all the requested samples.
+    int minIndex = sampleIndices[0];
+    int maxIndex = sampleIndices[0];
+    for (int sampleIndex : sampleIndices) {
+      if (sampleIndex < 0 || sampleIndex >= _numSamplesPerTrace) {
+        throw new IllegalArgumentException("Invalid sample index (" + sampleIndex + ").");
+      }
+      minIndex = Math.min(minIndex, sampleIndex);
+      maxIndex = Math.max(maxIndex, sampleIndex);
+    }
+    int spanOffset = TRACE_HEADER_SIZE + minIndex * _numBytesPerSample;
+    int spanLength = (maxIndex - minIndex + 1) * _numBytesPerSample;
+    int[] spanIndices = new int[sampleIndices.length];
+    for (int i = 0; i < sampleIndices.length; i++) {
+      spanIndices[i] = sampleIndices[i] - minIndex;
+    }
+
+    Integer[] order = sortByPosition(tracePositions);
+    if (_accessor.isMapped()) {
+      readMapped(tracePositions, order, spanOffset, spanLength, spanIndices, slices);
+    } else {
+      // Synchronize to prevent other access.
+      synchronized (_accessor.getSynchronizeToken()) {
+        _accessor.openForRead();
+        readGathered(tracePositions, order, spanOffset, spanLength, spanIndices, slices);
+      }
+    }
+  }
+
+  /**
+   * Reads the spans of each trace from the memory mapping, falling back to the
+   * file channel for any trace lying beyond the mapping.
+   */
+  private void readMapped(final long[] tracePositions, final Integer[] order, final int spanOffset,
+      final int spanLength, final int[] spanIndices, final float[][] slices) throws IOException {
+    byte[] span = new byte[spanLength];
+    float[] values = new float[spanLength / _numBytesPerSample];
+    for (Integer traceIndex : order) {
+      long position = tracePositions[traceIndex] + spanOffset;
+      if (!_accessor.readMapped(position, span, 0, spanLength)) {
+        synchronized (_accessor.getSynchronizeToken()) {
+          _accessor.openForRead();
+          _accessor.readByteBuffer(ByteBuffer.wrap(span), position);
+        }
+      }
+      extractSamples(span, 0, spanIndices, values, slices, traceIndex);
+    }
+  }
+
+  /**
+   * Reads the spans of each trace through the file channel, gathering runs of
+   * traces that are adjacent on disk into a single scattering read.
+   */
+  private void readGathered(final long[] tracePositions, final Integer[] order, final int spanOffset,
+      final int spanLength, final int[] spanIndices, final float[][] slices) throws IOException {
+    int gapLength = _traceSize - spanLength;
+    int maxTracesPerRead = gapLength <= MAX_GAP_BYTES ? MAX_TRACES_PER_READ : 1;
+    byte[] spans = new byte[maxTracesPerRead * spanLength];
+    ByteBuffer gap = ByteBuffer.allocate(gapLength);
+    ByteBuffer[] buffers = new ByteBuffer[2 * maxTracesPerRead - 1];
+    float[] values = new float[spanLength / _numBytesPerSample];
+
+    int start = 0;
+    while (start < order.length) {
+      // Find the run of traces that are adjacent on disk.
+      int end = start + 1;
+      while (end < order.length && end - start < maxTracesPerRead
+          && tracePositions[order[end]] == tracePositions[order[end - 1]] + _traceSize) {
+        end++;
+      }
+      int numTraces = end - start;
+
+      // Scatter the spans into the span array, and the bytes between them into the gap buffer.
+      for (int i = 0; i < numTraces; i++) {
+        buffers[2 * i] = ByteBuffer.wrap(spans, i * spanLength, spanLength).slice();
+        if (i < numTraces - 1) {
+          gap.clear();
+          buffers[2 * i + 1] = gap.duplicate();
+        }
+      }
+      _accessor.readByteBuffers(buffers, 0, 2 * numTraces - 1, tracePositions[order[start]] + spanOffset);
+
+      for (int i = 0; i < numTraces; i++) {
+        extractSamples(spans, i * spanLength, spanIndices, values, slices, order[start + i]);
+      }
+      start = end;
+    }
+  }
+
+  /**
+   * Converts a span of bytes into the buffer of span values, and copies the requested samples into the output slices.
+   */
+  private void extractSamples(final byte[] spans, final int spanStart, final int[] spanIndices, final float[] values,
+      final float[][] slices, final int traceIndex) {
+    _accessor.getFloatsFromBytes(values.length, spans, spanStart, values);
+    for (int i = 0; i < spanIndices.length; i++) {
+      slices[i][traceIndex] = values[spanIndices[i]];
+    }
+  }
+
+  /**
+   * Returns the indices of the non-missing traces, sorted by their file position.
+   */
+  private static Integer[] sortByPosition(final long[] tracePositions) {
+    int numFound = 0;
+    for (long tracePosition : tracePositions) {
+      if (tracePosition != 0) {
+        numFound++;
+      }
+    }
+    Integer[] order = new Integer[numFound];
+    int index = 0;
+    for (int i = 0; i < tracePositions.length; i++) {
+      if (tracePositions[i] != 0) {
+        order[index++] = i;
+      }
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+
+      public int compare(final Integer index1, final Integer index2) {
+        long position1 = tracePositions[index1];
+        long position2 = tracePositions[index2];
+        return position1 < position2 ? -1 : position1 == position2 ? 0 : 1;
+      }
+    });
+    return order;
+  }
+}
@@ -73,21 +73,33 @@ public class SegyTraceHeader extends Header {
   }
 
   public void updateHeaderFromBuffer() {
+    updateHeaderFromBuffer(this);
+  }
+
+  /**
+   * Decodes the header buffer into the given header, which must have the same header definition.
+   * <p>
+   * This allows a single SEG-Y trace header (and its buffer) to be reused to decode the headers
+   * of many traces, e.g. into the views of a <code>HeaderBlock</code>.
+   * 
+   * @param header the header into which to decode the buffer.
+   */
+  public void updateHeaderFromBuffer(final Header header) {
     for (HeaderEntry headerEntry : getHeaderDefinition().getEntries()) {
       int byteOffset = SegyTraceHeaderCatalog.getByteOffset(headerEntry);
       if (byteOffset != -1) {
         switch (headerEntry.getFormat()) {
           case SHORT:
-            putShort(headerEntry, getFromBufferAsShort(byteOffset));
+            header.putShort(headerEntry, getFromBufferAsShort(byteOffset));
             break;
           case INTEGER:
-            putInteger(headerEntry, getFromBufferAsInt(byteOffset));
+            header.putInteger(headerEntry, getFromBufferAsInt(byteOffset));
             break;
           case FLOAT:
-            putFloat(headerEntry, getFromBufferAsFloat(byteOffset));
+            header.putFloat(headerEntry, getFromBufferAsFloat(byteOffset));
             break;
           case DOUBLE:
-            putDouble(headerEntry, getFromBufferAsDouble(byteOffset));
+            header.putDouble(headerEntry, getFromBufferAsDouble(byteOffset));
             break;
           default:
             throw new RuntimeException("Invalid entry for SEG-Y trace header: " + headerEntry);
@@ -8,20 +8,30 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.channels.FileChannel.MapMode;
 
 import org.geocraft.core.service.ServiceProvider;
 
 
 /**
  * A trace index for reading/writing SEG-Y files, which allows for random access into the SEG-Y data file.
+ * <p>
+ * The index file contains a small header describing the range of each trace key, followed by a dense
+ * array of trace positions with one slot for every combination of trace key values (e.g. inline,xline
+ * or inline,xline,offset). A slot value of 0 indicates no trace exists for that combination. The array
+ * is memory-mapped, so looking up a trace position is a single computed load, and the positions of all
+ * the traces for a 1st trace key value (e.g. an inline) are contiguous.
  */
 public class SegyTraceIndex {
 
   private static final int VERSION = 101;
 
+  /** The number of trace position slots in each memory-mapped window of the index file. */
+  private static final int SLOTS_PER_WINDOW = 1 << 27;
+
   //private static boolean _debug = true;
 
   public static enum IndexType {
@@ -90,9 +100,6 @@ public class SegyTraceIndex {
   /** Internal byte buffer. */
   private final ByteBuffer _intBuffer;
 
-  /** Internal byte buffer. */
-  private final ByteBuffer _longBuffer;
-
   private int _numTraceKeys;
 
   private String[] _traceKeyNames;
@@ -119,6 +126,12 @@ public class SegyTraceIndex {
 
   private boolean _openForRead;
 
+  /** The memory-mapped windows of trace position slots. */
+  private MappedByteBuffer[] _mappedWindows;
+
+  /** The trace position slots, as long views of the memory-mapped windows. */
+  private LongBuffer[] _tracePositions;
+
   /**
    * The constructor used when creating a trace index file.
    * @param path the full path to the trace index file.
@@ -150,7 +163,6 @@ public class SegyTraceIndex {
     _path = path;
     _indexType = indexType;
     _intBuffer = ByteBuffer.allocate(4);
-    _longBuffer = ByteBuffer.allocate(8);
     _openForRead = false;
   }
 
@@ -202,6 +214,15 @@ public class SegyTraceIndex {
       _traceKeySizes[i] = 1 + (_traceKeyMaxs[i] - _traceKeyMins[i]) / _traceKeyIncs[i];
     }
     _internalMapPosition = _channel.position();
+    long numSlots = 1;
+    for (int i = 0; i < numKeys; i++) {
+      numSlots *= _traceKeySizes[i];
+    }
+    if (_channel.size() < _internalMapPosition + numSlots * 8) {
+      _channel.close();
+      throw new IOException("The trace index file is truncated.");
+    }
+    mapTracePositions(_internalMapPosition, numSlots);
     _openForRead = true;
     System.out.println(toString());
   }
@@ -284,10 +305,10 @@ public class SegyTraceIndex {
       numBins *= numBinsForKey[j];
     }
     position = _channel.position();
-    for (int i = 0; i < numBins; i++) {
-      writeLong(0);
-    }
-    _channel.position(position);
+
+    // Extend the file with a zeroed slot for every bin, and fill in the trace positions through the mapping.
+    _raf.setLength(position + numBins * 8);
+    mapTracePositions(position, numBins);
     for (int traceIndex = 0; traceIndex < numTraces; traceIndex++) {
       long tracePosition = traceIndexModel.getTracePosition(traceIndex);
       int[] traceKeyValues = traceIndexModel.getTraceKeyValues(traceIndex);
@@ -301,8 +322,7 @@ public class SegyTraceIndex {
           }
           traceOffset += localOffset;
         }
-        _channel.position(position + traceOffset * 8);
-        writeLong(tracePosition);
+        putSlot(traceOffset, tracePosition);
         //        System.out.println("traceKeyVals: " + traceKeyValues[0] + " " + traceKeyValues[1] + " pos=" + tracePosition
         //            + " offset=" + traceOffset);
       }
@@ -310,17 +330,6 @@ public class SegyTraceIndex {
     close();
   }
 
-  /**
-   * Internal method for reading a long value.
-   * @return the long value.
-   * @throws IOException thrown on IO error.
-   */
-  private long readLong() throws IOException {
-    _longBuffer.position(0);
-    _channel.read(_longBuffer);
-    return _longBuffer.getLong(0);
-  }
-
   /**
    * Internal method for reading an integer value.
    * @return the integer value.
@@ -338,10 +347,78 @@ public class SegyTraceIndex {
     _channel.write(_intBuffer);
   }
 
-  private void writeLong(final long value) throws IOException {
-    _longBuffer.putLong(0, value);
-    _longBuffer.position(0);
-    _channel.write(_longBuffer);
+  /**
+   * Memory-maps the trace position slots of the index file, in windows of <code>SLOTS_PER_WINDOW</code>.
+   * @param position the file position of the 1st slot.
+   * @param numSlots the number of slots.
+   * @throws IOException thrown on IO error.
+   */
+  private void mapTracePositions(final long position, final long numSlots) throws IOException {
+    int numWindows = (int) ((numSlots + SLOTS_PER_WINDOW - 1) / SLOTS_PER_WINDOW);
+    _mappedWindows = new MappedByteBuffer[numWindows];
+    _tracePositions = new LongBuffer[numWindows];
+    for (int i = 0; i < numWindows; i++) {
+      long firstSlot = (long) i * SLOTS_PER_WINDOW;
+      long numWindowSlots = Math.min(SLOTS_PER_WINDOW, numSlots - firstSlot);
+      _mappedWindows[i] = _channel.map(MapMode.READ_WRITE, position + firstSlot * 8, numWindowSlots * 8);
+      _tracePositions[i] = _mappedWindows[i].asLongBuffer();
+    }
+  }
+
+  /**
+   * Internal method for reading the trace position in a slot.
+   * @param slot the slot index.
+   * @return the trace position.
+   */
+  private long getSlot(final long slot) {
+    return _tracePositions[(int) (slot / SLOTS_PER_WINDOW)].get((int) (slot % SLOTS_PER_WINDOW));
+  }
+
+  /**
+   * Internal method for storing the trace position in a slot.
+   * @param slot the slot index.
+   * @param tracePosition the trace position.
+   */
+  private void putSlot(final long slot, final long tracePosition) {
+    _tracePositions[(int) (slot / SLOTS_PER_WINDOW)].put((int) (slot % SLOTS_PER_WINDOW), tracePosition);
+  }
+
+  /**
+   * Computes the slot index for an array of trace key values.
+   * @param traceKeyVals the array of trace key values.
+   * @return the slot index, or -1 if any of the trace key values are outside the index range.
+   */
+  private long computeSlot(final int[] traceKeyVals) {
+    long slot = 0;
+    for (int i = 0; i < _numTraceKeys; i++) {
+      int index = computeKeyIndex(i, traceKeyVals[i]);
+      if (index < 0) {
+        return -1;
+      }
+      slot = slot * _traceKeySizes[i] + index;
+    }
+    return slot;
+  }
+
+  /**
+   * Computes the index of a trace key value within the range of the trace key.
+   * @param key the trace key index.
+   * @param traceKeyVal the trace key value.
+   * @return the index, or -1 if the trace key value is outside the range or between increments.
+   */
+  private int computeKeyIndex(final int key, final int traceKeyVal) {
+    int delta = traceKeyVal - _traceKeyMins[key];
+    if (delta != 0 && Integer.signum(delta) != Integer.signum(_traceKeyIncs[key])) {
+      return -1;
+    }
+    if (delta % _traceKeyIncs[key] != 0) {
+      return -1;
+    }
+    int index = delta / _traceKeyIncs[key];
+    if (index >= _traceKeySizes[key]) {
+      return -1;
+    }
+    return index;
   }
 
   /**
@@ -367,157 +444,66 @@ public class SegyTraceIndex {
   }
 
   /**
-   * Gets the byte positions of the traces of the gather at the specified trace
-   * key values.
-   * @param traceKeyVals the trace key values of the gather for which to get
-   *           trace byte positions.
-   * @return the byte positions of the traces.
+   * Gets the byte position of the trace at the specified trace key values.
+   * This is a single lookup into the memory-mapped index, and is safe to call
+   * from multiple threads.
+   * @param traceKeyVals the trace key values of the trace.
+   * @return the byte position of the trace, or 0 if no trace exists.
    */
   public long getTracePosition(final int[] traceKeyVals) throws IOException {
     if (traceKeyVals.length != _numTraceKeys) {
       return 0;
     }
-    long traceOffset = 0;
-    for (int i = 0; i < _numTraceKeys; i++) {
-      long localOffset = (traceKeyVals[i] - _traceKeyMins[i]) / _traceKeyIncs[i];
-      for (int j = i + 1; j < _numTraceKeys; j++) {
-        localOffset *= _traceKeySizes[j];
-      }
-      traceOffset += localOffset;
-    }
-    long newPos = _internalMapPosition + traceOffset * 8;
-    if (newPos < 0) {
+    long slot = computeSlot(traceKeyVals);
+    if (slot < 0) {
       return 0;
     }
-    _channel.position(_internalMapPosition + traceOffset * 8);
-    long tracePosition = readLong();
-    return tracePosition;
+    return getSlot(slot);
   }
 
-  private int[] getEntryIndices(final int traceKey0) {
-    int[] traceKeys = new int[_numTraceKeys];
-    for (int i = 0; i < _numTraceKeys; i++) {
-      traceKeys[i] = -999;
-    }
-
-    List<Integer> indices = new ArrayList<Integer>();
-
-    int traceKeyIndex0 = (traceKey0 - _traceKeyMins[0]) / _traceKeyIncs[0];
-
-    int[] traceKeyIndices0 = { traceKeyIndex0 };
-    if (traceKeyIndex0 < 0) {
-      traceKeyIndices0 = new int[_traceKeySizes[0]];
-      for (int i = 0; i < _traceKeySizes[0]; i++) {
-        traceKeyIndices0[i] = i;
+  /**
+   * Gets the byte positions of the traces at the specified pairs of 1st and 2nd trace key values
+   * (e.g. the inline,xline locations of a PostStack3d). The traces for a PreStack3d are the 1st
+   * trace present in each gather, which need not be the one at the minimum offset.
+   * @param traceKeys0 the array of 1st trace key values.
+   * @param traceKeys1 the array of 2nd trace key values.
+   * @param positions the array in which to store the byte positions (0 where no trace exists).
+   */
+  public void getTracePositions(final int[] traceKeys0, final int[] traceKeys1, final long[] positions) {
+    int stride = 1;
+    for (int i = 2; i < _numTraceKeys; i++) {
+      stride *= _traceKeySizes[i];
+    }
+    for (int i = 0; i < positions.length; i++) {
+      int index0 = computeKeyIndex(0, traceKeys0[i]);
+      int index1 = computeKeyIndex(1, traceKeys1[i]);
+      if (index0 < 0 || index1 < 0) {
+        positions[i] = 0;
+      } else {
+        long firstSlot = ((long) index0 * _traceKeySizes[1] + index1) * stride;
+        positions[i] = 0;
+        for (int j = 0; j < stride && positions[i] == 0; j++) {
+          positions[i] = getSlot(firstSlot + j);
+        }
       }
     }
-
-    for (int index0 : traceKeyIndices0) {
-      int entryIndex = index0;
-      indices.add(new Integer(entryIndex));
-    }
-
-    int[] entryIndices = new int[indices.size()];
-    for (int i = 0; i < entryIndices.length; i++) {
-      entryIndices[i] = indices.get(i).intValue();
-    }
-    return entryIndices;
   }
 
-  private int[] getEntryIndices(final int traceKey0, final int traceKey1) {
-    int[] traceKeys = new int[_numTraceKeys];
-    for (int i = 0; i < _numTraceKeys; i++) {
-      traceKeys[i] = -999;
-    }
-
-    List<Integer> indices = new ArrayList<Integer>();
-
-    int traceKeyIndex0 = (traceKey0 - _traceKeyMins[0]) / _traceKeyIncs[0];
-    int traceKeyIndex1 = (traceKey1 - _traceKeyMins[1]) / _traceKeyIncs[1];
-
-    int[] traceKeyIndices0 = { traceKeyIndex0 };
-    if (traceKeyIndex0 < 0) {
-      traceKeyIndices0 = new int[_traceKeySizes[0]];
-      for (int i = 0; i < _traceKeySizes[0]; i++) {
-        traceKeyIndices0[i] = i;
-      }
-    }
-    int[] traceKeyIndices1 = { traceKeyIndex1 };
-    if (traceKeyIndex1 < 0) {
-      traceKeyIndices1 = new int[_traceKeySizes[1]];
-      for (int i = 0; i < _traceKeySizes[1]; i++) {
-        traceKeyIndices1[i] = i;
-      }
-    }
-
-    for (int index0 : traceKeyIndices0) {
-      int temp0 = index0 * _traceKeySizes[1];
-      for (int index1 : traceKeyIndices1) {
-        int entryIndex = temp0 + index1;
-        indices.add(new Integer(entryIndex));
-      }
-    }
-
-    int[] entryIndices = new int[indices.size()];
-    for (int i = 0; i < entryIndices.length; i++) {
-      entryIndices[i] = indices.get(i).intValue();
-    }
-    return entryIndices;
+  /**
+   * Gets the number of values in the range of a trace key.
+   * @param index the trace key index.
+   * @return the number of trace key values.
+   */
+  public int getTraceKeySize(final int index) {
+    return _traceKeySizes[index];
   }
 
-  private int[] getEntryIndices(final int traceKey0, final int traceKey1, final int traceKey2) {
-    int[] traceKeys = new int[_numTraceKeys];
-    for (int i = 0; i < _numTraceKeys; i++) {
-      traceKeys[i] = -999;
-    }
-
-    List<Integer> indices = new ArrayList<Integer>();
-
-    int traceKeyIndex0 = (traceKey0 - _traceKeyMins[0]) / _traceKeyIncs[0];
-    int traceKeyIndex1 = (traceKey1 - _traceKeyMins[1]) / _traceKeyIncs[1];
-    int traceKeyIndex2 = (traceKey2 - _traceKeyMins[2]) / _traceKeyIncs[2];
-
-    int[] traceKeyIndices0 = { traceKeyIndex0 };
-    if (traceKeyIndex0 < 0) {
-      traceKeyIndices0 = new int[_traceKeySizes[0]];
-      for (int i = 0; i < _traceKeySizes[0]; i++) {
-        traceKeyIndices0[i] = i;
-      }
-    }
-    int[] traceKeyIndices1 = { traceKeyIndex1 };
-    if (traceKeyIndex1 < 0) {
-      traceKeyIndices1 = new int[_traceKeySizes[1]];
-      for (int i = 0; i < _traceKeySizes[1]; i++) {
-        traceKeyIndices1[i] = i;
-      }
-    }
-    int[] traceKeyIndices2 = { traceKeyIndex2 };
-    if (traceKeyIndex2 < 0) {
-      traceKeyIndices2 = new int[_traceKeySizes[2]];
-      for (int i = 0; i < _traceKeySizes[2]; i++) {
-        traceKeyIndices2[i] = i;
-      }
-    }
-
-    for (int index0 : traceKeyIndices0) {
-      int temp0 = index0 * _traceKeySizes[1] * _traceKeySizes[2];
-      for (int index1 : traceKeyIndices1) {
-        int temp1 = temp0 + index1 * _traceKeySizes[2];
-        for (int index2 : traceKeyIndices2) {
-          int entryIndex = temp1 + index2;
-          indices.add(new Integer(entryIndex));
-        }
+  public void close() throws IOException {
+    if (_mappedWindows != null) {
+      for (MappedByteBuffer mappedWindow : _mappedWindows) {
+        mappedWindow.force();
       }
     }
-
-    int[] entryIndices = new int[indices.size()];
-    for (int i = 0; i < entryIndices.length; i++) {
-      entryIndices[i] = indices.get(i).intValue();
-    }
-    return entryIndices;
-  }
-
-  public void close() throws IOException {
     if (_raf != null) {
       _raf.close();
     }
@@ -528,6 +514,8 @@ public class SegyTraceIndex {
     close();
     _raf = null;
     _channel = null;
+    _mappedWindows = null;
+    _tracePositions = null;
 
     // Also delete the SEG-Y index file.
     File ndxFile = new File(_path);
@@ -558,16 +546,10 @@ public class SegyTraceIndex {
    * @throws IOException thrown on I/O error.
    */
   public void mapTrace(int[] traceKeyVals, long tracePosition) throws IOException {
-    long traceOffset = 0;
-    for (int i = 0; i < _numTraceKeys; i++) {
-      long localOffset = (traceKeyVals[i] - _traceKeyMins[i]) / _traceKeyIncs[i];
-      for (int j = i + 1; j < _numTraceKeys; j++) {
-        int numBinsForKey = 1 + (_traceKeyMaxs[j] - _traceKeyMins[j]) / _traceKeyIncs[j];
-        localOffset *= numBinsForKey;
-      }
-      traceOffset += localOffset;
+    long slot = computeSlot(traceKeyVals);
+    if (slot < 0) {
+      throw new IOException("The trace key values are outside the range of the trace index.");
     }
-    _channel.position(_internalMapPosition + traceOffset * 8);
-    writeLong(tracePosition);
+    putSlot(slot, tracePosition);
   }
 }
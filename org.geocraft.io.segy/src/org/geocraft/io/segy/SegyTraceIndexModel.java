@@ -8,9 +8,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.nio.channels.FileChannel;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.geocraft.core.service.ServiceProvider;
 
@@ -36,7 +35,7 @@ public class SegyTraceIndexModel {
   private final int[] _traceKeyByteLocs;
 
   /** The list of trace byte positions. */
-  private final List<Long> _tracePosition;
+  private long[] _tracePositions;
 
   private int[][] _traceKeyValues;
 
@@ -52,6 +51,9 @@ public class SegyTraceIndexModel {
   /** The list of trace key range sizes. */
   private final int[] _traceKeySizes;
 
+  /** The list of temporary file paths. */
+  private File[] _tempFilePaths;
+
   /** The list of temporary files. */
   private RandomAccessFile[] _tempFiles;
 
@@ -71,7 +73,7 @@ public class SegyTraceIndexModel {
   public SegyTraceIndexModel(final String name, final String[] traceKeyNames, final int[] traceKeyByteLocs, final int[] traceKeyMinVals, final int[] traceKeyMaxVals, int[] traceKeyIncVals) {
     _name = name;
     _numTraces = 0;
-    _tracePosition = new ArrayList<Long>();
+    _tracePositions = new long[1024];
     _numTraceKeys = traceKeyNames.length;
     _traceKeyNames = new String[_numTraceKeys];
     _traceKeyByteLocs = new int[_numTraceKeys];
@@ -98,7 +100,7 @@ public class SegyTraceIndexModel {
   public SegyTraceIndexModel(final String name, final String[] traceKeyNames, final int[] traceKeyByteLocs) {
     _name = name;
 
-    _tracePosition = new ArrayList<Long>();
+    _tracePositions = new long[1024];
     _numTraceKeys = traceKeyNames.length;
     _traceKeyNames = new String[_numTraceKeys];
     _traceKeyByteLocs = new int[_numTraceKeys];
@@ -114,13 +116,16 @@ public class SegyTraceIndexModel {
       _traceKeyIncVals[i] = 1;
       _traceKeySizes[i] = 0;
     }
+    _tempFilePaths = new File[_numTraceKeys];
     _tempFiles = new RandomAccessFile[_numTraceKeys];
     _tempChannels = new FileChannel[_numTraceKeys];
     for (int i = 0; i < _numTraceKeys; i++) {
       String traceKeyName = _traceKeyNames[i];
-      File file = new File(_name + "." + traceKeyName + ".trace.map");
-      file.deleteOnExit();
       try {
+        // Use a unique file in the temporary directory, as files of the same name may be indexed concurrently.
+        File file = File.createTempFile(_name + "." + traceKeyName + ".", ".trace.map");
+        file.deleteOnExit();
+        _tempFilePaths[i] = file;
         _tempFiles[i] = new RandomAccessFile(file, "rw");
         _tempChannels[i] = _tempFiles[i].getChannel();
       } catch (Exception ex) {
@@ -193,8 +198,9 @@ public class SegyTraceIndexModel {
    */
   public void storeTrace(final int[] traceKeyVals, final long tracePosition) throws Exception {
 
+    ensureCapacity(_numTraces + 1);
+    _tracePositions[_numTraces] = tracePosition;
     _numTraces++;
-    _tracePosition.add(tracePosition);
 
     ByteBuffer buffer4 = ByteBuffer.allocate(4);
 
@@ -259,42 +265,106 @@ public class SegyTraceIndexModel {
     buffer4.clear();
   }
 
+  /**
+   * Stores a block of consecutive traces, along with the range statistics of their trace key values.
+   * This is used to merge the blocks of traces scanned in parallel, and must be called in file order.
+   * @param tracePositions the trace byte positions.
+   * @param traceKeyVals the trace key values, indexed by trace key and then trace.
+   * @param numTraces the number of traces in the block.
+   * @param traceKeyMinVals the trace key minimums of the block.
+   * @param traceKeyMaxVals the trace key maximums of the block.
+   * @param traceKeyIncVals the trace key increments of the block (0 if all the values are equal).
+   */
+  public void storeTraces(final long[] tracePositions, final int[][] traceKeyVals, final int numTraces,
+      final int[] traceKeyMinVals, final int[] traceKeyMaxVals, final int[] traceKeyIncVals) throws Exception {
+    if (numTraces == 0) {
+      return;
+    }
+    ensureCapacity(_numTraces + numTraces);
+    System.arraycopy(tracePositions, 0, _tracePositions, _numTraces, numTraces);
+
+    ByteBuffer buffer = ByteBuffer.allocate(numTraces * 4);
+    for (int i = 0; i < _numTraceKeys; i++) {
+      if (_numTraces == 0) {
+        _traceKeyMinVals[i] = traceKeyMinVals[i];
+        _traceKeyMaxVals[i] = traceKeyMaxVals[i];
+        _traceKeyIncVals[i] = traceKeyIncVals[i];
+      } else {
+        // The increment is the greatest common divisor of the differences between all the values.
+        int inc = gcd(_traceKeyIncVals[i], traceKeyIncVals[i]);
+        _traceKeyIncVals[i] = gcd(inc, Math.abs(traceKeyMinVals[i] - _traceKeyMinVals[i]));
+        _traceKeyMinVals[i] = Math.min(_traceKeyMinVals[i], traceKeyMinVals[i]);
+        _traceKeyMaxVals[i] = Math.max(_traceKeyMaxVals[i], traceKeyMaxVals[i]);
+      }
+      _traceKeySizes[i] = 1;
+      if (_traceKeyIncVals[i] != 0) {
+        _traceKeySizes[i] += (_traceKeyMaxVals[i] - _traceKeyMinVals[i]) / _traceKeyIncVals[i];
+      }
+
+      buffer.clear();
+      buffer.asIntBuffer().put(traceKeyVals[i], 0, numTraces);
+      _tempChannels[i].write(buffer);
+    }
+    _numTraces += numTraces;
+  }
+
   /**
    * Maps the stored traces into gathers.
    */
   public void mapTraces() throws Exception {
 
-    ByteBuffer buffer = ByteBuffer.allocate(4);
+    // Read the trace key values back in chunks, rather than one value at a time.
+    int chunkSize = 64 * 1024;
+    ByteBuffer buffer = ByteBuffer.allocate(chunkSize * 4);
+    IntBuffer intBuffer = buffer.asIntBuffer();
 
     _traceKeyValues = new int[_numTraces][_numTraceKeys];
-    for (int traceIndex = 0; traceIndex < _numTraces; traceIndex++) {
-      for (int traceKeyIndex = 0; traceKeyIndex < _numTraceKeys; traceKeyIndex++) {
-        int traceKeyMinVal = _traceKeyMinVals[traceKeyIndex];
-        int traceKeyMaxVal = _traceKeyMaxVals[traceKeyIndex];
-
-        long position = traceIndex * 4;
-
-        int traceKeyVal = -1;
-        buffer.position(0);
+    for (int traceKeyIndex = 0; traceKeyIndex < _numTraceKeys; traceKeyIndex++) {
+      int traceKeyMinVal = _traceKeyMinVals[traceKeyIndex];
+      int traceKeyMaxVal = _traceKeyMaxVals[traceKeyIndex];
+      for (int start = 0; start < _numTraces; start += chunkSize) {
+        int count = Math.min(chunkSize, _numTraces - start);
+        buffer.clear();
+        buffer.limit(count * 4);
+        long position = start * 4L;
         try {
-          _tempChannels[traceKeyIndex].read(buffer, position);
-          buffer.position(0);
-          traceKeyVal = buffer.getInt();
+          while (buffer.hasRemaining()) {
+            if (_tempChannels[traceKeyIndex].read(buffer, position + buffer.position()) < 0) {
+              throw new IOException("Unexpected end of temporary trace map file.");
+            }
+          }
         } catch (IOException e) {
-          _traceKeyValues[traceIndex] = new int[0];
-          break;
+          for (int traceIndex = start; traceIndex < start + count; traceIndex++) {
+            _traceKeyValues[traceIndex] = new int[0];
+          }
+          continue;
         }
-        if (traceKeyVal < traceKeyMinVal || traceKeyVal > traceKeyMaxVal) {
-          _traceKeyValues[traceIndex] = new int[0];
-          break;
+        for (int i = 0; i < count; i++) {
+          int traceIndex = start + i;
+          if (_traceKeyValues[traceIndex].length == 0) {
+            continue;
+          }
+          int traceKeyVal = intBuffer.get(i);
+          if (traceKeyVal < traceKeyMinVal || traceKeyVal > traceKeyMaxVal) {
+            _traceKeyValues[traceIndex] = new int[0];
+            continue;
+          }
+          _traceKeyValues[traceIndex][traceKeyIndex] = traceKeyVal;
         }
-        _traceKeyValues[traceIndex][traceKeyIndex] = traceKeyVal;
+      }
+    }
+
+    // A trace key with only a single value has no increment, so default it to 1.
+    for (int i = 0; i < _numTraceKeys; i++) {
+      if (_traceKeyIncVals[i] == 0) {
+        _traceKeyIncVals[i] = 1;
       }
     }
 
     for (int i = 0; i < _numTraceKeys; i++) {
       _tempChannels[i].close();
       _tempFiles[i].close();
+      _tempFilePaths[i].delete();
     }
     _tempFiles = null;
     _tempChannels = null;
@@ -307,7 +377,55 @@ public class SegyTraceIndexModel {
    * @return the byte position of the trace.
    */
   public long getTracePosition(final int traceIndex) throws Exception {
-    return _tracePosition.get(traceIndex).longValue();
+    if (traceIndex < 0 || traceIndex >= _numTraces) {
+      throw new IndexOutOfBoundsException("Invalid trace index (" + traceIndex + ").");
+    }
+    return _tracePositions[traceIndex];
+  }
+
+  /**
+   * Grows the array of trace positions to hold at least the specified number of traces.
+   * @param numTraces the number of traces.
+   */
+  private void ensureCapacity(final int numTraces) {
+    if (numTraces > _tracePositions.length) {
+      long[] tracePositions = new long[Math.max(numTraces, 2 * _tracePositions.length)];
+      System.arraycopy(_tracePositions, 0, tracePositions, 0, _numTraces);
+      _tracePositions = tracePositions;
+    }
+  }
+
+  /**
+   * Closes and deletes the temporary files of trace key values, discarding the stored traces.
+   */
+  public void dispose() {
+    if (_tempFiles != null) {
+      for (int i = 0; i < _numTraceKeys; i++) {
+        try {
+          _tempFiles[i].close();
+        } catch (IOException ex) {
+          ServiceProvider.getLoggingService().getLogger(getClass()).warn(ex.toString());
+        }
+        _tempFilePaths[i].delete();
+      }
+      _tempFiles = null;
+      _tempChannels = null;
+    }
+    _numTraces = 0;
+  }
+
+  /**
+   * Computes the greatest common divisor of 2 non-negative values, where 0 is treated as "no value".
+   */
+  static int gcd(final int a, final int b) {
+    int x = a;
+    int y = b;
+    while (y != 0) {
+      int r = x % y;
+      x = y;
+      y = r;
+    }
+    return x;
   }
 
   /**
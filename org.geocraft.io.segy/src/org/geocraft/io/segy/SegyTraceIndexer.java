@@ -7,9 +7,16 @@ package org.geocraft.io.segy;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.geocraft.core.common.progress.BackgroundTask;
@@ -23,9 +30,20 @@ import org.geocraft.io.segy.SegyTraceIndex.IndexType;
  * A class for indexing SEG-Y index files, as either 2D or 3D.
  * 2D files are indexed by CDP #.
  * 3D files are indexex by Inline,X-line #.
+ * <p>
+ * If all the traces in the file are the same length, the file is split into blocks of
+ * traces whose headers are scanned in parallel, using positional reads of only the
+ * trace headers. The key statistics of each block are merged in file order. Otherwise
+ * the traces are scanned sequentially.
  */
 public class SegyTraceIndexer extends BackgroundTask {
 
+  /** The number of traces scanned by each parallel task. */
+  private static final int TRACES_PER_BLOCK = 32 * 1024;
+
+  /** The byte offset of the sample count in the trace header. */
+  private static final int NUM_SAMPLES_OFFSET = 114;
+
   /** The full path of the SEG-Y file. */
   private final String _filePath;
 
@@ -52,6 +70,9 @@ public class SegyTraceIndexer extends BackgroundTask {
 
   private final List<SegyTraceIndexerListener> _listeners;
 
+  /** The number of threads used to scan the trace headers. */
+  private final int _numThreads = Runtime.getRuntime().availableProcessors();
+
   public static SegyTraceIndexer createPostStack2dIndexer(final VolumeMapperModel mapperModel) {
     return new SegyTraceIndexer(mapperModel, IndexType.POSTSTACK_2D);
   }
@@ -105,9 +126,6 @@ public class SegyTraceIndexer extends BackgroundTask {
     monitor.beginTask("Indexing SEG-Y file: " + shortName, 100);
     SegyTraceIndexModel traceIndexModel = null;
     try {
-      // Map the traces, to allow access by row-column, inline-xline, etc.
-      HeaderDefinition traceHeaderDef = SegyTraceHeader.PRESTACK3D_HEADER_DEF;
-
       // Open the random-access-file.
       RandomAccessFile randomAccessFile = new RandomAccessFile(_filePath, "r");
       FileChannel fileChannel = randomAccessFile.getChannel();
@@ -143,6 +161,7 @@ public class SegyTraceIndexer extends BackgroundTask {
       long fullHeaderSize = position;
 
       int sampleCountGlobal = 0;
+      int sampleCountFirst = 0;
       int numBytesPerSample = 4;
       try {
         // Gets the sample format, sample count and sample rate from the binary header.
@@ -164,6 +183,10 @@ public class SegyTraceIndexer extends BackgroundTask {
           fileChannel.read(traceHeader.getBuffer(), position);
           traceHeader.getBuffer().position(0);
           traceHeader.updateHeaderFromBuffer();
+          sampleCountFirst = traceHeader.getShort(SegyTraceHeaderCatalog.NUM_SAMPLES);
+        }
+        if (sampleCountFirst == 0) {
+          sampleCountFirst = sampleCountGlobal;
         }
 
       } catch (Exception ex) {
@@ -184,68 +207,28 @@ public class SegyTraceIndexer extends BackgroundTask {
 
       // Scan and index the traces.
       boolean hasTraces = fileLength > fullHeaderSize;
-      int[] traceKeyVals = new int[3];
       if (hasTraces) {
-        int count = 0;
-        SegyTraceHeader traceHeader = new SegyTraceHeader(traceHeaderDef);
         monitor.subTask("Scanning traces...");
         monitor.worked(5);
-        int percentComplete = 10;
-        while (position < fileLength && (monitor == null || !monitor.isCanceled())) {
-          int oldPercentComplete = percentComplete;
-          percentComplete = 10 + (int) (50 * (float) position / fileLength);
-          int work = percentComplete - oldPercentComplete;
-          monitor.worked(work);
-          traceHeader.getBuffer().position(0);
-          fileChannel.read(traceHeader.getBuffer(), position);
-          traceHeader.getBuffer().position(0);
-          traceHeader.updateHeaderFromBuffer();
-          int sampleCountLocal = traceHeader.getShort(SegyTraceHeaderCatalog.NUM_SAMPLES);
-          int cdp = traceHeader.getFromBufferAsInt(_cdpByteLoc - 1);
-          int inline = traceHeader.getFromBufferAsInt(_inlineByteLoc - 1);
-          int xline = traceHeader.getFromBufferAsInt(_xlineByteLoc - 1);
-          int offset = traceHeader.getFromBufferAsInt(_offsetByteLoc - 1);
-
-          // If local sample count == 0, then assume the trace header has not been filled properly
-          // and default to the sample count from the binary header.
-          if (sampleCountLocal == 0) {
-            sampleCountLocal = sampleCountGlobal;
-          }
-          if (sampleCountLocal > 0) {
-            switch (_indexType) {
-              case POSTSTACK_2D:
-                // Add the CDP number to the trace header definition.
-                traceKeyVals[0] = cdp;
-                if (traceKeyVals[0] != 0) {
-                  System.out.println("Storing " + traceKeyVals[0]);
-                  traceIndexModel.storeTrace(traceKeyVals, position);
-                }
-                break;
-              case POSTSTACK_3D:
-                // Add the inline and crossline numbers to the trace header definition.
-                traceKeyVals[0] = inline;
-                traceKeyVals[1] = xline;
-                if (traceKeyVals[0] != 0 && traceKeyVals[1] != 0) {
-                  traceIndexModel.storeTrace(traceKeyVals, position);
-                }
-                break;
-              case PRESTACK_3D:
-                // Add the inline, crossline and offset numbers to the trace header definition.
-                traceKeyVals[0] = inline;
-                traceKeyVals[1] = xline;
-                traceKeyVals[2] = offset;
-                if (traceKeyVals[0] != 0 && traceKeyVals[1] != 0) {
-                  traceIndexModel.storeTrace(traceKeyVals, position);
-                }
-                break;
-              default:
-                throw new RuntimeException("The index type \'" + _indexType + "\' is not supported.");
-            }
+
+        // If the file divides into traces of the same length as the 1st trace, then scan the trace headers in parallel.
+        boolean scanned = false;
+        long traceSize = SegyTraceHeader.SEGY_TRACE_HEADER_SIZE + (long) sampleCountFirst * numBytesPerSample;
+        long dataLength = fileLength - fullHeaderSize;
+        if (_numThreads > 1 && sampleCountFirst > 0 && dataLength % traceSize == 0
+            && dataLength / traceSize > TRACES_PER_BLOCK) {
+          scanned = scanParallel(fileChannel, fullHeaderSize, dataLength / traceSize, (int) traceSize,
+              sampleCountFirst, sampleCountGlobal, traceIndexModel, monitor);
+          if (!scanned && !monitor.isCanceled()) {
+            // The traces are not all the same length, so start over with a sequential scan.
+            logger.info("Variable length traces found in " + shortName + ". Indexing sequentially.");
+            traceIndexModel.dispose();
+            traceIndexModel = getTraceIndexModel(shortName);
           }
-          position += SegyTraceHeader.SEGY_TRACE_HEADER_SIZE;
-          position += sampleCountLocal * numBytesPerSample;
-          fileChannel.position(position);
-          count++;
+        }
+        if (!scanned) {
+          scanSequential(fileChannel, fullHeaderSize, fileLength, sampleCountGlobal, numBytesPerSample,
+              traceIndexModel, monitor);
         }
 
         // Map the traces.
@@ -274,6 +257,231 @@ public class SegyTraceIndexer extends BackgroundTask {
     return traceIndexModel;
   }
 
+  /**
+   * Scans the trace headers sequentially, which allows for traces of varying length.
+   */
+  private void scanSequential(final FileChannel fileChannel, final long dataStart, final long fileLength,
+      final int sampleCountGlobal, final int numBytesPerSample, final SegyTraceIndexModel traceIndexModel,
+      final IProgressMonitor monitor) throws Exception {
+    // Map the traces, to allow access by row-column, inline-xline, etc.
+    HeaderDefinition traceHeaderDef = SegyTraceHeader.PRESTACK3D_HEADER_DEF;
+    SegyTraceHeader traceHeader = new SegyTraceHeader(traceHeaderDef);
+    int[] traceKeyVals = new int[3];
+    long position = dataStart;
+    int percentComplete = 10;
+    while (position < fileLength && !monitor.isCanceled()) {
+      int oldPercentComplete = percentComplete;
+      percentComplete = 10 + (int) (50 * (float) position / fileLength);
+      monitor.worked(percentComplete - oldPercentComplete);
+      traceHeader.getBuffer().position(0);
+      fileChannel.read(traceHeader.getBuffer(), position);
+      traceHeader.getBuffer().position(0);
+      traceHeader.updateHeaderFromBuffer();
+      int sampleCountLocal = traceHeader.getShort(SegyTraceHeaderCatalog.NUM_SAMPLES);
+
+      // If local sample count == 0, then assume the trace header has not been filled properly
+      // and default to the sample count from the binary header.
+      if (sampleCountLocal == 0) {
+        sampleCountLocal = sampleCountGlobal;
+      }
+      if (sampleCountLocal > 0 && getTraceKeyValues(traceHeader.getBuffer(), traceKeyVals)) {
+        traceIndexModel.storeTrace(traceKeyVals, position);
+      }
+      position += SegyTraceHeader.SEGY_TRACE_HEADER_SIZE;
+      position += sampleCountLocal * numBytesPerSample;
+    }
+  }
+
+  /**
+   * Scans the trace headers in parallel, for a file containing traces of the same length.
+   * The blocks of traces are merged into the trace map in file order.
+   * @return <i>true</i> if the scan completed; <i>false</i> if it was canceled or found a trace of a different length.
+   */
+  private boolean scanParallel(final FileChannel fileChannel, final long dataStart, final long numTraces,
+      final int traceSize, final int sampleCount, final int sampleCountGlobal,
+      final SegyTraceIndexModel traceIndexModel, final IProgressMonitor monitor) throws Exception {
+    int numBlocks = (int) ((numTraces + TRACES_PER_BLOCK - 1) / TRACES_PER_BLOCK);
+
+    // Limit the number of scanned blocks waiting to be merged.
+    int maxBlocksInFlight = 4 * _numThreads;
+    ExecutorService executor = Executors.newFixedThreadPool(_numThreads);
+    LinkedList<Future<TraceBlock>> futures = new LinkedList<Future<TraceBlock>>();
+    try {
+      int nextBlock = 0;
+      int percentComplete = 10;
+      for (int block = 0; block < numBlocks; block++) {
+        while (nextBlock < numBlocks && futures.size() < maxBlocksInFlight) {
+          long firstTrace = (long) nextBlock * TRACES_PER_BLOCK;
+          int count = (int) Math.min(TRACES_PER_BLOCK, numTraces - firstTrace);
+          futures.add(executor.submit(new BlockScanner(fileChannel, dataStart + firstTrace * traceSize, count,
+              traceSize, sampleCount, sampleCountGlobal, traceIndexModel.getNumKeys())));
+          nextBlock++;
+        }
+        if (monitor.isCanceled()) {
+          return false;
+        }
+        TraceBlock traceBlock = null;
+        try {
+          traceBlock = futures.removeFirst().get();
+        } catch (ExecutionException ex) {
+          if (ex.getCause() instanceof Exception) {
+            throw (Exception) ex.getCause();
+          }
+          throw ex;
+        }
+        if (traceBlock == null) {
+          return false;
+        }
+        traceIndexModel.storeTraces(traceBlock._tracePositions, traceBlock._traceKeyVals, traceBlock._numTraces,
+            traceBlock._traceKeyMins, traceBlock._traceKeyMaxs, traceBlock._traceKeyIncs);
+
+        int oldPercentComplete = percentComplete;
+        percentComplete = 10 + 50 * (block + 1) / numBlocks;
+        monitor.worked(percentComplete - oldPercentComplete);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return true;
+  }
+
+  /**
+   * Gets the trace key values from a trace header buffer, based on the index type.
+   * @param buffer the trace header buffer.
+   * @param traceKeyVals the array in which to store the trace key values.
+   * @return <i>true</i> if the trace key values are valid (non-zero); otherwise <i>false</i>.
+   */
+  private boolean getTraceKeyValues(final ByteBuffer buffer, final int[] traceKeyVals) {
+    switch (_indexType) {
+      case POSTSTACK_2D:
+        // Add the CDP number to the trace header definition.
+        traceKeyVals[0] = buffer.getInt(_cdpByteLoc - 1);
+        return traceKeyVals[0] != 0;
+      case POSTSTACK_3D:
+        // Add the inline and crossline numbers to the trace header definition.
+        traceKeyVals[0] = buffer.getInt(_inlineByteLoc - 1);
+        traceKeyVals[1] = buffer.getInt(_xlineByteLoc - 1);
+        return traceKeyVals[0] != 0 && traceKeyVals[1] != 0;
+      case PRESTACK_3D:
+        // Add the inline, crossline and offset numbers to the trace header definition.
+        traceKeyVals[0] = buffer.getInt(_inlineByteLoc - 1);
+        traceKeyVals[1] = buffer.getInt(_xlineByteLoc - 1);
+        traceKeyVals[2] = buffer.getInt(_offsetByteLoc - 1);
+        return traceKeyVals[0] != 0 && traceKeyVals[1] != 0;
+      default:
+        throw new RuntimeException("The index type \'" + _indexType + "\' is not supported.");
+    }
+  }
+
+  /**
+   * The trace positions, trace key values and trace key statistics of a block of traces.
+   */
+  private static class TraceBlock {
+
+    private final long[] _tracePositions;
+
+    /** The trace key values, indexed by trace key and then trace. */
+    private final int[][] _traceKeyVals;
+
+    private final int[] _traceKeyMins;
+
+    private final int[] _traceKeyMaxs;
+
+    private final int[] _traceKeyIncs;
+
+    private int _numTraces;
+
+    TraceBlock(final int maxTraces, final int numKeys) {
+      _tracePositions = new long[maxTraces];
+      _traceKeyVals = new int[numKeys][maxTraces];
+      _traceKeyMins = new int[numKeys];
+      _traceKeyMaxs = new int[numKeys];
+      _traceKeyIncs = new int[numKeys];
+    }
+
+    void add(final long tracePosition, final int[] traceKeyVals) {
+      for (int i = 0; i < _traceKeyMins.length; i++) {
+        int traceKeyVal = traceKeyVals[i];
+        _traceKeyVals[i][_numTraces] = traceKeyVal;
+        if (_numTraces == 0) {
+          _traceKeyMins[i] = traceKeyVal;
+          _traceKeyMaxs[i] = traceKeyVal;
+        } else {
+          // The increment is the greatest common divisor of the differences from the 1st value.
+          _traceKeyIncs[i] = SegyTraceIndexModel.gcd(_traceKeyIncs[i], Math.abs(traceKeyVal - _traceKeyVals[i][0]));
+          _traceKeyMins[i] = Math.min(_traceKeyMins[i], traceKeyVal);
+          _traceKeyMaxs[i] = Math.max(_traceKeyMaxs[i], traceKeyVal);
+        }
+      }
+      _tracePositions[_numTraces] = tracePosition;
+      _numTraces++;
+    }
+  }
+
+  /**
+   * Scans the headers of a block of traces of the same length.
+   * Each scanner reads only the trace headers, using positional reads on the shared file channel.
+   */
+  private class BlockScanner implements Callable<TraceBlock> {
+
+    private final FileChannel _fileChannel;
+
+    private final long _startPosition;
+
+    private final int _numTraces;
+
+    private final int _traceSize;
+
+    private final int _sampleCount;
+
+    /** The sample count from the binary header, used for traces whose header has a sample count of 0. */
+    private final int _sampleCountGlobal;
+
+    private final int _numKeys;
+
+    BlockScanner(final FileChannel fileChannel, final long startPosition, final int numTraces, final int traceSize,
+        final int sampleCount, final int sampleCountGlobal, final int numKeys) {
+      _fileChannel = fileChannel;
+      _startPosition = startPosition;
+      _numTraces = numTraces;
+      _traceSize = traceSize;
+      _sampleCount = sampleCount;
+      _sampleCountGlobal = sampleCountGlobal;
+      _numKeys = numKeys;
+    }
+
+    /**
+     * Scans the block of traces.
+     * @return the scanned traces, or <i>null</i> if a trace of a different length is found.
+     */
+    public TraceBlock call() throws IOException {
+      TraceBlock traceBlock = new TraceBlock(_numTraces, _numKeys);
+      ByteBuffer buffer = ByteBuffer.allocate(SegyTraceHeader.SEGY_TRACE_HEADER_SIZE);
+      int[] traceKeyVals = new int[3];
+      for (int i = 0; i < _numTraces; i++) {
+        long position = _startPosition + (long) i * _traceSize;
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+          if (_fileChannel.read(buffer, position + buffer.position()) < 0) {
+            throw new IOException("Unexpected end of file at trace header position " + position + ".");
+          }
+        }
+        // As in the sequential scan, a sample count of 0 defaults to the sample count from the binary header.
+        int sampleCountLocal = buffer.getShort(NUM_SAMPLES_OFFSET);
+        if (sampleCountLocal == 0) {
+          sampleCountLocal = _sampleCountGlobal;
+        }
+        if (sampleCountLocal != _sampleCount) {
+          return null;
+        }
+        if (getTraceKeyValues(buffer, traceKeyVals)) {
+          traceBlock.add(position, traceKeyVals);
+        }
+      }
+      return traceBlock;
+    }
+  }
+
   public void buildTraceIndex(final SegyTraceIndexModel traceIndexModel) throws Exception {
     switch (_indexType) {
       case POSTSTACK_2D:
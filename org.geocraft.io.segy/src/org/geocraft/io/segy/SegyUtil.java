@@ -39,6 +39,7 @@ public class SegyUtil {
       case 1:
       case 2:
       case 4:
+      case 5:
         numBytesPerSample = 4;
         break;
       case 3:
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util;
+
+
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+
+public class AsciiColumnReaderTestCase extends TestCase {
+
+  public void testReadColumns() {
+    String text = "X Y Z\n# comment\n1 10 100 1000\n\n2 20 200 2000\n3 30\n4 40 400 4000";
+    AsciiColumnReader reader = new AsciiColumnReader(2, new int[] { 1, 2, 4 }, false);
+    reader.read(toBuffer(text));
+    assertEquals(3, reader.getNumRows());
+    assertEquals(1, reader.getNumSkippedLines());
+    assertEquals(4f, reader.getFloatColumn(0)[2]);
+    assertEquals(20f, reader.getFloatColumn(1)[1]);
+    assertEquals(1000f, reader.getFloatColumn(2)[0]);
+  }
+
+  public void testChunksKeepFileOrder() {
+    // Large enough to be split into several chunks.
+    int numRows = 200000;
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < numRows; i++) {
+      builder.append(i).append(' ').append(500000.25 + i).append(' ').append(i * 0.5).append("\r\n");
+    }
+    AsciiColumnReader reader = new AsciiColumnReader(1, new int[] { 1, 2, 3 }, true);
+    reader.read(toBuffer(builder.toString()));
+    assertEquals(numRows, reader.getNumRows());
+    for (int i = 0; i < numRows; i++) {
+      assertEquals(i, reader.getDoubleColumn(0)[i], 0);
+      assertEquals(500000.25 + i, reader.getDoubleColumn(1)[i], 0);
+      assertEquals(i * 0.5, reader.getDoubleColumn(2)[i], 0);
+    }
+  }
+
+  private static ByteBuffer toBuffer(final String text) {
+    byte[] bytes = new byte[text.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) text.charAt(i);
+    }
+    return ByteBuffer.wrap(bytes);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util;
+
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+
+public class AsciiNumberReaderTestCase extends TestCase {
+
+  public void testParseMatchesJdk() {
+    String[] values = { "0", "-0", "1", "+5", "1.", ".5", "-12.5", "7800.0000", "0.0085", "2.3152", "-999.25",
+        "123456789", "1234567891", "1.25E+3", "1e-5", "3.4028235E38", "1.4E-45", "0.1", "16777217",
+        "123456.789012345", "1e23", "9007199254740993", "0.000000000000000000001", "NaN", "Infinity", "1.5f" };
+    for (String value : values) {
+      ByteBuffer buffer = toBuffer(value);
+      assertEquals(value, Float.parseFloat(value), AsciiNumberReader.parseFloat(buffer, 0, value.length()));
+      assertEquals(value, Double.parseDouble(value), AsciiNumberReader.parseDouble(buffer, 0, value.length()));
+    }
+  }
+
+  public void testParseMatchesJdkForRandomValues() {
+    Random random = new Random(1);
+    for (int i = 0; i < 100000; i++) {
+      String value;
+      if (i % 3 == 0) {
+        value = Float.toString(Float.intBitsToFloat(random.nextInt()));
+      } else if (i % 3 == 1) {
+        value = Double.toString((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 10));
+      } else {
+        value = (random.nextInt(2000000) - 1000000) + "." + random.nextInt(100000);
+      }
+      if (value.equals("NaN")) {
+        continue;
+      }
+      ByteBuffer buffer = toBuffer(value);
+      assertEquals(value, Float.parseFloat(value), AsciiNumberReader.parseFloat(buffer, 0, value.length()));
+      assertEquals(value, Double.parseDouble(value), AsciiNumberReader.parseDouble(buffer, 0, value.length()));
+    }
+  }
+
+  public void testInvalidNumbers() {
+    String[] values = { "", "-", ".", "1e", "1e+", "abc", "1.2.3" };
+    for (String value : values) {
+      try {
+        AsciiNumberReader.parseDouble(toBuffer(value), 0, value.length());
+        fail("Parsed " + value);
+      } catch (NumberFormatException ex) {
+        // Expected.
+      }
+    }
+  }
+
+  public void testLines() {
+    AsciiNumberReader reader = new AsciiNumberReader(toBuffer("# comment\r\n 1  2.5\t-3\r\n\r\nPVRTX 4 x\n5"));
+    assertTrue(reader.lineStartsWith("#"));
+    reader.nextLine();
+    assertEquals(1, reader.nextInt());
+    assertEquals(2.5f, reader.nextFloat());
+    assertEquals(-3.0, reader.nextDouble());
+    assertFalse(reader.hasMoreTokens());
+    try {
+      reader.nextDouble();
+      fail("Read past the end of the line");
+    } catch (NoSuchElementException ex) {
+      // Expected.
+    }
+    reader.nextLine();
+    assertTrue(reader.hasMoreLines());
+    assertFalse(reader.hasMoreTokens());
+    reader.nextLine();
+    assertTrue(reader.lineStartsWith("PVRTX"));
+    reader.skipToken();
+    assertEquals("4", reader.nextToken());
+    assertEquals("x", reader.nextToken());
+    reader.nextLine();
+    assertEquals(5.0, reader.nextDouble());
+    reader.nextLine();
+    assertFalse(reader.hasMoreLines());
+  }
+
+  private static ByteBuffer toBuffer(final String text) {
+    byte[] bytes = new byte[text.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) text.charAt(i);
+    }
+    return ByteBuffer.wrap(bytes);
+  }
+}
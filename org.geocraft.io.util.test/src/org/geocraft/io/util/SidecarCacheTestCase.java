@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util;
+
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import junit.framework.TestCase;
+
+
+public class SidecarCacheTestCase extends TestCase {
+
+  private File _source;
+
+  private File _cacheFile;
+
+  @Override
+  protected void setUp() throws Exception {
+    _source = File.createTempFile("sidecar", ".txt");
+    _cacheFile = new File(_source.getAbsolutePath() + SidecarCache.EXTENSION);
+    writeSource("1 2 3\n4 5 6\n");
+  }
+
+  @Override
+  protected void tearDown() {
+    _source.delete();
+    _cacheFile.delete();
+  }
+
+  public void testRoundTrip() {
+    float[][] floats = { { 1.5f, -2, Float.NaN }, {}, { 7 } };
+    double[][] doubles = { { Math.PI, -1e300 }, { 0.1 } };
+    SidecarCache.write(_cacheFile, _source, "columns 1 2", floats, doubles);
+    assertTrue(_cacheFile.exists());
+
+    SidecarCache.Entry entry = SidecarCache.read(_cacheFile, _source, "columns 1 2");
+    assertNotNull(entry);
+    assertEquals(3, entry.getFloatArrays().length);
+    assertEquals(2, entry.getDoubleArrays().length);
+    for (int i = 0; i < floats.length; i++) {
+      assertEquals(floats[i].length, entry.getFloatArrays()[i].length);
+      for (int j = 0; j < floats[i].length; j++) {
+        assertEquals(Float.floatToIntBits(floats[i][j]), Float.floatToIntBits(entry.getFloatArrays()[i][j]));
+      }
+    }
+    for (int i = 0; i < doubles.length; i++) {
+      assertEquals(doubles[i].length, entry.getDoubleArrays()[i].length);
+      for (int j = 0; j < doubles[i].length; j++) {
+        assertEquals(doubles[i][j], entry.getDoubleArrays()[i][j], 0);
+      }
+    }
+  }
+
+  public void testVariantMismatch() {
+    SidecarCache.write(_cacheFile, _source, "columns 1 2", new float[][] { { 1 } }, new double[0][]);
+    assertNull(SidecarCache.read(_cacheFile, _source, "columns 1 3"));
+  }
+
+  public void testSourceChanged() throws IOException {
+    SidecarCache.write(_cacheFile, _source, "columns 1 2", new float[][] { { 1 } }, new double[0][]);
+    writeSource("1 2 3\n4 5 6\n7 8 9\n");
+    assertNull(SidecarCache.read(_cacheFile, _source, "columns 1 2"));
+  }
+
+  public void testCorruptLength() throws IOException {
+    SidecarCache.write(_cacheFile, _source, "columns 1 2", new float[][] { { 1 } }, new double[0][]);
+    // Overwrite the length of the float array, which follows the header and the key.
+    int keyLength = (_source.getCanonicalPath() + "\ncolumns 1 2").getBytes("UTF-8").length;
+    RandomAccessFile raf = new RandomAccessFile(_cacheFile, "rw");
+    try {
+      raf.seek(4 + 4 + 8 + 8 + 4 + keyLength + 4 + 4);
+      raf.writeInt(Integer.reverseBytes(Integer.MAX_VALUE));
+    } finally {
+      raf.close();
+    }
+    assertNull(SidecarCache.read(_cacheFile, _source, "columns 1 2"));
+  }
+
+  public void testRewriteAfterRead() {
+    SidecarCache.write(_cacheFile, _source, "columns 1 2", new float[][] { { 1 } }, new double[0][]);
+    assertNotNull(SidecarCache.read(_cacheFile, _source, "columns 1 2"));
+    // The cache file is no longer mapped, so it can be replaced.
+    SidecarCache.write(_cacheFile, _source, "columns 1 2", new float[][] { { 2 } }, new double[0][]);
+    assertEquals(2f, SidecarCache.read(_cacheFile, _source, "columns 1 2").getFloatArrays()[0][0], 0);
+  }
+
+  public void testMissingCacheFile() {
+    assertNull(SidecarCache.read(_cacheFile, _source, "columns 1 2"));
+  }
+
+  private void writeSource(final String text) throws IOException {
+    FileWriter writer = new FileWriter(_source);
+    try {
+      writer.write(text);
+    } finally {
+      writer.close();
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util.volume;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.geocraft.io.util.volume.TracePipeline.Stage;
+
+
+/**
+ * Test case for the <code>TracePipeline</code> class.
+ */
+public class TracePipelineTestCase extends TestCase {
+
+  private static final int NUM_ITEMS = 200;
+
+  /**
+   * Reads the sequence numbers as items, up to <code>NUM_ITEMS</code>.
+   */
+  private final IPipelineReader<Integer> _reader = new IPipelineReader<Integer>() {
+
+    public Integer read(final int sequence) throws Exception {
+      if (sequence % 7 == 0) {
+        Thread.sleep(1);
+      }
+      return sequence < NUM_ITEMS ? sequence : null;
+    }
+  };
+
+  /**
+   * Tests that a single writer receives the items in read order,
+   * with multiple reader and processor threads.
+   */
+  public void testOrderedWrite() throws Exception {
+    IPipelineProcessor<Integer, String> processor = new IPipelineProcessor<Integer, String>() {
+
+      public String process(final Integer item) throws Exception {
+        if (item % 5 == 0) {
+          Thread.sleep(2);
+        }
+        return "Item " + item;
+      }
+    };
+    final List<Integer> sequences = new ArrayList<Integer>();
+    final List<String> items = new ArrayList<String>();
+    IPipelineWriter<String> writer = new IPipelineWriter<String>() {
+
+      public void write(final int sequence, final String item) {
+        sequences.add(sequence);
+        items.add(item);
+      }
+    };
+    TracePipeline<Integer, String> pipeline = new TracePipeline<Integer, String>("Test", _reader, 3, processor, 4,
+        writer, 1, 4);
+    pipeline.run(new NullProgressMonitor());
+
+    assertEquals(NUM_ITEMS, items.size());
+    for (int i = 0; i < NUM_ITEMS; i++) {
+      assertEquals(i, sequences.get(i).intValue());
+      assertEquals("Item " + i, items.get(i));
+    }
+    assertEquals(NUM_ITEMS, pipeline.getItemCount(Stage.READ));
+    assertEquals(NUM_ITEMS, pipeline.getItemCount(Stage.PROCESS));
+    assertEquals(NUM_ITEMS, pipeline.getItemCount(Stage.WRITE));
+  }
+
+  /**
+   * Tests that multiple writers receive every item exactly once.
+   */
+  public void testUnorderedWrite() throws Exception {
+    final boolean[] written = new boolean[NUM_ITEMS];
+    IPipelineWriter<Integer> writer = new IPipelineWriter<Integer>() {
+
+      public void write(final int sequence, final Integer item) {
+        synchronized (written) {
+          assertFalse(written[item]);
+          written[item] = true;
+        }
+      }
+    };
+    TracePipeline<Integer, Integer> pipeline = new TracePipeline<Integer, Integer>("Test", _reader, 2, null, 0,
+        writer, 3, 4);
+    pipeline.run(null);
+    for (boolean w : written) {
+      assertTrue(w);
+    }
+  }
+
+  /**
+   * Tests reading the items of an iterator ahead of the consumer.
+   */
+  public void testPrefetcher() {
+    List<Integer> list = new ArrayList<Integer>();
+    for (int i = 0; i < NUM_ITEMS; i++) {
+      list.add(i);
+    }
+    Iterator<Integer> iterator = TracePipeline.createPrefetcher("Test", list.iterator(), 2).iterator();
+    for (int i = 0; i < NUM_ITEMS; i++) {
+      assertTrue(iterator.hasNext());
+      assertEquals(i, iterator.next().intValue());
+    }
+    assertFalse(iterator.hasNext());
+  }
+
+  /**
+   * Tests that a slow item holds back the readers, so the items read ahead of it
+   * (and held in the reorder buffer) are bounded.
+   */
+  public void testBoundedReadAhead() throws Exception {
+    final TracePipeline<?, ?>[] pipelines = new TracePipeline<?, ?>[1];
+    final long[] numReadWhileSlow = new long[1];
+    IPipelineProcessor<Integer, Integer> processor = new IPipelineProcessor<Integer, Integer>() {
+
+      public Integer process(final Integer item) throws Exception {
+        if (item == 0) {
+          Thread.sleep(500);
+          numReadWhileSlow[0] = pipelines[0].getItemCount(Stage.READ);
+        }
+        return item;
+      }
+    };
+    final List<Integer> sequences = new ArrayList<Integer>();
+    IPipelineWriter<Integer> writer = new IPipelineWriter<Integer>() {
+
+      public void write(final int sequence, final Integer item) {
+        sequences.add(sequence);
+      }
+    };
+    TracePipeline<Integer, Integer> pipeline = new TracePipeline<Integer, Integer>("Test", _reader, 2, processor, 4,
+        writer, 1, 4);
+    pipelines[0] = pipeline;
+    pipeline.run(null);
+
+    // Both queues, plus the items held by the 2 readers and 4 processors.
+    assertTrue(numReadWhileSlow[0] <= 2 * 4 + 2 + 4);
+    assertEquals(NUM_ITEMS, sequences.size());
+    for (int i = 0; i < NUM_ITEMS; i++) {
+      assertEquals(i, sequences.get(i).intValue());
+    }
+  }
+
+  /**
+   * Tests that closing an iterator abandoned before the end stops the reading ahead.
+   */
+  public void testCloseIterator() throws Exception {
+    final AtomicInteger numRead = new AtomicInteger(0);
+    Iterator<Integer> endless = new Iterator<Integer>() {
+
+      public boolean hasNext() {
+        return true;
+      }
+
+      public Integer next() {
+        return numRead.getAndIncrement();
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+    TracePipeline<Integer, Integer> pipeline = TracePipeline.createPrefetcher("Test", endless, 2);
+    TracePipeline.PipelineIterator<Integer> iterator = pipeline.iterator();
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i, iterator.next().intValue());
+    }
+    iterator.close();
+    assertTrue(pipeline.isCanceled());
+    assertFalse(iterator.hasNext());
+
+    Thread.sleep(300);
+    int numReadAfterClose = numRead.get();
+    Thread.sleep(300);
+    assertEquals(numReadAfterClose, numRead.get());
+  }
+
+  /**
+   * Tests that an exception thrown by a stage is rethrown by the pipeline.
+   */
+  public void testFailure() {
+    IPipelineProcessor<Integer, Integer> processor = new IPipelineProcessor<Integer, Integer>() {
+
+      public Integer process(final Integer item) {
+        if (item == 50) {
+          throw new IllegalStateException("Failed on " + item);
+        }
+        return item;
+      }
+    };
+    IPipelineWriter<Integer> writer = new IPipelineWriter<Integer>() {
+
+      public void write(final int sequence, final Integer item) {
+        // Discard the item.
+      }
+    };
+    TracePipeline<Integer, Integer> pipeline = new TracePipeline<Integer, Integer>("Test", _reader, 1, processor, 2,
+        writer, 1, 4);
+    try {
+      pipeline.run(null);
+      fail("The processor exception was not rethrown.");
+    } catch (Exception ex) {
+      assertEquals("Failed on 50", ex.getMessage());
+    }
+  }
+
+  /**
+   * Tests that the pipeline stops when the progress monitor is canceled,
+   * even though the reader never runs out of items.
+   */
+  public void testCancel() throws Exception {
+    IPipelineReader<int[]> reader = new IPipelineReader<int[]>() {
+
+      public int[] read(final int sequence) {
+        return new int[] { sequence };
+      }
+    };
+    final NullProgressMonitor monitor = new NullProgressMonitor();
+    final List<Integer> sequences = new ArrayList<Integer>();
+    IPipelineWriter<int[]> writer = new IPipelineWriter<int[]>() {
+
+      public void write(final int sequence, final int[] item) {
+        sequences.add(sequence);
+        if (sequence == 100) {
+          monitor.setCanceled(true);
+        }
+      }
+    };
+    TracePipeline<int[], int[]> pipeline = new TracePipeline<int[], int[]>("Test", reader, 2, null, 0, writer, 1, 4);
+    pipeline.run(monitor);
+    assertTrue(pipeline.isCanceled());
+    assertTrue(sequences.size() >= 101);
+    assertEquals(Arrays.asList(0, 1, 2), sequences.subList(0, 3));
+  }
+}
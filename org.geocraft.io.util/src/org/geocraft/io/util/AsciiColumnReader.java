@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util;
+
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * Reads columns of numbers from an ASCII file of white-space delimited records (e.g. X,Y,Z text exports),
+ * one record per line.
+ * <p>
+ * The lines are scanned in place with an {@link AsciiNumberReader}. Large files are split into chunks at
+ * line boundaries, which are parsed concurrently and then joined in file order. Lines starting with "#"
+ * and blank lines are ignored, and lines that do not contain all the requested columns are skipped
+ * (and counted).
+ */
+public final class AsciiColumnReader {
+
+  /** The minimum number of bytes in a chunk parsed by its own thread. */
+  private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+  /** The executor shared by all the column readers. */
+  private static ExecutorService _executor;
+
+  /** The number of the first line to read (starting at 1). */
+  private final int _firstLineNum;
+
+  /** The numbers of the columns to read (starting at 1). */
+  private final int[] _columnNums;
+
+  /** The flag for reading the values as doubles, rather than as floats. */
+  private final boolean _doublePrecision;
+
+  /** The values read as floats, by column and row. */
+  private float[][] _floatColumns;
+
+  /** The values read as doubles, by column and row. */
+  private double[][] _doubleColumns;
+
+  /** The number of records read. */
+  private int _numRows;
+
+  /** The number of non-blank lines skipped because they did not contain all the requested columns. */
+  private int _numSkippedLines;
+
+  /**
+   * Constructs a column reader.
+   *
+   * @param firstLineNum the number of the first line to read (starting at 1), e.g. to skip a header.
+   * @param columnNums the numbers of the columns to read (starting at 1).
+   * @param doublePrecision <i>true</i> to read the values as doubles, <i>false</i> to read them as floats.
+   */
+  public AsciiColumnReader(final int firstLineNum, final int[] columnNums, final boolean doublePrecision) {
+    for (int columnNum : columnNums) {
+      if (columnNum < 1) {
+        throw new IllegalArgumentException("Invalid column number: " + columnNum + ".");
+      }
+    }
+    _firstLineNum = firstLineNum;
+    _columnNums = columnNums.clone();
+    _doublePrecision = doublePrecision;
+  }
+
+  /**
+   * Reads the columns from the current position of a buffer to its limit.
+   *
+   * @param buffer the buffer containing the ASCII records.
+   * @throws NumberFormatException thrown if a value in a requested column is not a number.
+   */
+  public void read(final ByteBuffer buffer) {
+    // Skip the lines before the first line.
+    AsciiNumberReader reader = new AsciiNumberReader(buffer);
+    for (int lineNum = 1; lineNum < _firstLineNum && reader.hasMoreLines(); lineNum++) {
+      reader.nextLine();
+    }
+    int start = reader.getPosition();
+    int end = buffer.limit();
+
+    // Split the remaining lines into chunks, one per core at most.
+    int numChunks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), (end - start) / MIN_CHUNK_SIZE));
+    List<Chunk> chunks = new ArrayList<Chunk>();
+    int chunkStart = start;
+    for (int i = 1; i <= numChunks; i++) {
+      int chunkEnd = end;
+      if (i < numChunks) {
+        // Move the end of the chunk to the start of the next line.
+        chunkEnd = Math.max(chunkStart, start + (int) ((long) (end - start) * i / numChunks));
+        while (chunkEnd < end && buffer.get(chunkEnd - 1) != '\n') {
+          chunkEnd++;
+        }
+      }
+      chunks.add(new Chunk(buffer, chunkStart, chunkEnd));
+      chunkStart = chunkEnd;
+    }
+
+    // Parse the chunks (concurrently, if there are several).
+    if (chunks.size() == 1) {
+      chunks.get(0).call();
+    } else {
+      List<Future<Chunk>> futures = new ArrayList<Future<Chunk>>();
+      for (Chunk chunk : chunks) {
+        futures.add(getExecutor().submit(chunk));
+      }
+      for (Future<Chunk> future : futures) {
+        waitFor(future);
+      }
+    }
+
+    // Join the chunks, in file order.
+    _numRows = 0;
+    _numSkippedLines = 0;
+    for (Chunk chunk : chunks) {
+      _numRows += chunk._chunkRows;
+      _numSkippedLines += chunk._chunkSkippedLines;
+    }
+    int numColumns = _columnNums.length;
+    if (_doublePrecision) {
+      _doubleColumns = new double[numColumns][_numRows];
+    } else {
+      _floatColumns = new float[numColumns][_numRows];
+    }
+    int row = 0;
+    for (Chunk chunk : chunks) {
+      for (int i = 0; i < numColumns; i++) {
+        if (_doublePrecision) {
+          System.arraycopy(chunk._chunkDoubleColumns[i], 0, _doubleColumns[i], row, chunk._chunkRows);
+        } else {
+          System.arraycopy(chunk._chunkFloatColumns[i], 0, _floatColumns[i], row, chunk._chunkRows);
+        }
+      }
+      row += chunk._chunkRows;
+    }
+  }
+
+  /**
+   * Returns the number of records read.
+   */
+  public int getNumRows() {
+    return _numRows;
+  }
+
+  /**
+   * Returns the number of non-blank lines skipped because they did not contain all the requested columns.
+   */
+  public int getNumSkippedLines() {
+    return _numSkippedLines;
+  }
+
+  /**
+   * Returns the values of a column read as floats.
+   *
+   * @param index the index of the column in the requested column numbers.
+   * @return the values, one per record.
+   */
+  public float[] getFloatColumn(final int index) {
+    if (_doublePrecision) {
+      throw new IllegalStateException("The columns were read as doubles.");
+    }
+    return _floatColumns[index];
+  }
+
+  /**
+   * Returns the values of a column read as doubles.
+   *
+   * @param index the index of the column in the requested column numbers.
+   * @return the values, one per record.
+   */
+  public double[] getDoubleColumn(final int index) {
+    if (!_doublePrecision) {
+      throw new IllegalStateException("The columns were read as floats.");
+    }
+    return _doubleColumns[index];
+  }
+
+  /**
+   * Waits for a chunk to be parsed, rethrowing any exception from its thread.
+   */
+  private static void waitFor(final Future<Chunk> future) {
+    try {
+      future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while reading the ASCII file.", ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+  /**
+   * Returns the executor shared by all the column readers, with a daemon thread per core.
+   */
+  private static synchronized ExecutorService getExecutor() {
+    if (_executor == null) {
+      _executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+
+        private int _threadCount;
+
+        public synchronized Thread newThread(final Runnable runnable) {
+          Thread thread = new Thread(runnable, "ASCII column reader " + ++_threadCount);
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return _executor;
+  }
+
+  /**
+   * Parses the lines in a range of the buffer into its own columns.
+   */
+  private class Chunk implements Callable<Chunk> {
+
+    private final ByteBuffer _buffer;
+
+    private final int _start;
+
+    private final int _end;
+
+    private float[][] _chunkFloatColumns;
+
+    private double[][] _chunkDoubleColumns;
+
+    private int _chunkRows;
+
+    private int _chunkSkippedLines;
+
+    Chunk(final ByteBuffer buffer, final int start, final int end) {
+      _buffer = buffer;
+      _start = start;
+      _end = end;
+    }
+
+    public Chunk call() {
+      int numColumns = _columnNums.length;
+      int maxColumnNum = 0;
+      for (int columnNum : _columnNums) {
+        maxColumnNum = Math.max(maxColumnNum, columnNum);
+      }
+      // Guess the number of rows, assuming about 8 bytes per column.
+      int capacity = (_end - _start) / (8 * maxColumnNum) + 1;
+      if (_doublePrecision) {
+        _chunkDoubleColumns = new double[numColumns][capacity];
+      } else {
+        _chunkFloatColumns = new float[numColumns][capacity];
+      }
+
+      AsciiNumberReader reader = new AsciiNumberReader(_buffer, _start, _end);
+      while (reader.hasMoreLines()) {
+        if (reader.lineStartsWith("#") || !reader.hasMoreTokens()) {
+          reader.nextLine();
+          continue;
+        }
+        if (_chunkRows == capacity) {
+          capacity = Math.max(capacity + 1, capacity + (capacity >> 1));
+          grow(capacity);
+        }
+        int numFound = 0;
+        for (int columnNum = 1; columnNum <= maxColumnNum && reader.hasMoreTokens(); columnNum++) {
+          int index = indexOf(columnNum);
+          if (index < 0) {
+            reader.skipToken();
+            continue;
+          }
+          if (_doublePrecision) {
+            double value = reader.nextDouble();
+            for (int i = index; i < numColumns; i++) {
+              if (_columnNums[i] == columnNum) {
+                _chunkDoubleColumns[i][_chunkRows] = value;
+                numFound++;
+              }
+            }
+          } else {
+            float value = reader.nextFloat();
+            for (int i = index; i < numColumns; i++) {
+              if (_columnNums[i] == columnNum) {
+                _chunkFloatColumns[i][_chunkRows] = value;
+                numFound++;
+              }
+            }
+          }
+        }
+        if (numFound == numColumns) {
+          _chunkRows++;
+        } else {
+          _chunkSkippedLines++;
+        }
+        reader.nextLine();
+      }
+      return this;
+    }
+
+    /**
+     * Returns the index of the first requested column with the specified number, or -1 if none.
+     */
+    private int indexOf(final int columnNum) {
+      for (int i = 0; i < _columnNums.length; i++) {
+        if (_columnNums[i] == columnNum) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private void grow(final int capacity) {
+      for (int i = 0; i < _columnNums.length; i++) {
+        if (_doublePrecision) {
+          double[] column = new double[capacity];
+          System.arraycopy(_chunkDoubleColumns[i], 0, column, 0, _chunkRows);
+          _chunkDoubleColumns[i] = column;
+        } else {
+          float[] column = new float[capacity];
+          System.arraycopy(_chunkFloatColumns[i], 0, column, 0, _chunkRows);
+          _chunkFloatColumns[i] = column;
+        }
+      }
+    }
+  }
+}
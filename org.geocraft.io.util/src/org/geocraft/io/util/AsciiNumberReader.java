@@ -0,0 +1,407 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Reads the numbers of an ASCII file directly from a byte buffer (e.g. a memory-mapped file).
+ * <p>
+ * The reader is a cursor over the lines of the buffer: tokens are separated by white space and
+ * are scanned in place, without creating a string per line or per token. Most numbers are converted
+ * by hand-written decimal parsers that return the same result as <code>Float.parseFloat</code> and
+ * <code>Double.parseDouble</code>; any other number falls back to them.
+ * <p>
+ * A reader is not thread-safe, but several readers can scan different ranges of the same buffer at once.
+ */
+public final class AsciiNumberReader {
+
+  /** The maximum number of significant digits converted to a float without falling back to the JDK. */
+  private static final int MAX_FLOAT_DIGITS = 9;
+
+  /** The maximum power of ten applied to a float without falling back to the JDK. */
+  private static final int MAX_FLOAT_EXPONENT = 8;
+
+  /** The maximum number of significant digits converted to a double without falling back to the JDK. */
+  private static final int MAX_DOUBLE_DIGITS = 15;
+
+  /** The maximum power of ten applied to a double without falling back to the JDK. */
+  private static final int MAX_DOUBLE_EXPONENT = 22;
+
+  /** The powers of ten, from 10^0 to 10^MAX_FLOAT_EXPONENT. */
+  private static final long[] LONG_POWERS_OF_TEN = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+      100000000L };
+
+  /** The powers of ten, from 10^0 to 10^MAX_DOUBLE_EXPONENT (all exactly representable). */
+  private static final double[] DOUBLE_POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+      1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+  /** The number of bits of a decoded number used for its exponent. */
+  private static final int EXPONENT_BITS = 11;
+
+  /** The bias added to the exponent of a decoded number. */
+  private static final int EXPONENT_BIAS = 1 << (EXPONENT_BITS - 1);
+
+  /** The decoded value of a number that must be parsed by the JDK. */
+  private static final long NOT_DECODED = -1;
+
+  /** The buffer containing the ASCII data. */
+  private final ByteBuffer _buffer;
+
+  /** The position after the last byte to read. */
+  private final int _end;
+
+  /** The current position in the buffer. */
+  private int _position;
+
+  /**
+   * Constructs a reader of the bytes from the current position of a buffer to its limit.
+   *
+   * @param buffer the buffer containing the ASCII data.
+   */
+  public AsciiNumberReader(final ByteBuffer buffer) {
+    this(buffer, buffer.position(), buffer.limit());
+  }
+
+  /**
+   * Constructs a reader of the bytes in the specified range of a buffer.
+   * The buffer's position and limit are not used, so readers of different ranges can share it.
+   *
+   * @param buffer the buffer containing the ASCII data.
+   * @param start the position of the first byte to read.
+   * @param end the position after the last byte to read.
+   */
+  public AsciiNumberReader(final ByteBuffer buffer, final int start, final int end) {
+    _buffer = buffer;
+    _position = start;
+    _end = end;
+  }
+
+  /**
+   * Returns the contents of a file in a byte buffer.
+   * The file is memory-mapped if possible, otherwise it is read into the heap.
+   *
+   * @param file the file.
+   * @return the buffer containing the file contents.
+   * @throws IOException thrown on read error.
+   */
+  public static ByteBuffer map(final File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("The file is too large: " + file.getAbsolutePath() + " (" + size + " bytes)");
+      }
+      try {
+        return channel.map(MapMode.READ_ONLY, 0, size);
+      } catch (IOException ex) {
+        // Mapping is not supported (or out of address space), so read the file instead.
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+          // Keep reading.
+        }
+        buffer.flip();
+        return buffer;
+      }
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Returns the current position in the buffer.
+   */
+  public int getPosition() {
+    return _position;
+  }
+
+  /**
+   * Returns <i>true</i> if there are more lines to read.
+   */
+  public boolean hasMoreLines() {
+    return _position < _end;
+  }
+
+  /**
+   * Moves to the start of the next line, skipping the rest of the current line.
+   */
+  public void nextLine() {
+    while (_position < _end && _buffer.get(_position) != '\n') {
+      _position++;
+    }
+    if (_position < _end) {
+      _position++;
+    }
+  }
+
+  /**
+   * Returns <i>true</i> if the rest of the current line starts with the specified prefix.
+   * This is used at the start of a line, to check for keywords or comments.
+   *
+   * @param prefix the prefix (ASCII characters only).
+   */
+  public boolean lineStartsWith(final String prefix) {
+    int length = prefix.length();
+    if (_position + length > _end) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (_buffer.get(_position + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns <i>true</i> if there are more tokens on the current line.
+   */
+  public boolean hasMoreTokens() {
+    while (_position < _end) {
+      byte b = _buffer.get(_position);
+      if (b == '\n') {
+        return false;
+      } else if (!isWhiteSpace(b)) {
+        return true;
+      }
+      _position++;
+    }
+    return false;
+  }
+
+  /**
+   * Skips the next token on the current line.
+   *
+   * @throws NoSuchElementException thrown if there are no more tokens on the line.
+   */
+  public void skipToken() {
+    scanToken();
+  }
+
+  /**
+   * Returns the next token on the current line.
+   *
+   * @throws NoSuchElementException thrown if there are no more tokens on the line.
+   */
+  public String nextToken() {
+    int start = scanToken();
+    return toString(_buffer, start, _position);
+  }
+
+  /**
+   * Parses the next token on the current line as an integer.
+   *
+   * @throws NoSuchElementException thrown if there are no more tokens on the line.
+   * @throws NumberFormatException thrown if the token is not an integer.
+   */
+  public int nextInt() {
+    return Integer.parseInt(nextToken());
+  }
+
+  /**
+   * Parses the next token on the current line as a float.
+   *
+   * @throws NoSuchElementException thrown if there are no more tokens on the line.
+   * @throws NumberFormatException thrown if the token is not a number.
+   */
+  public float nextFloat() {
+    int start = scanToken();
+    return parseFloat(_buffer, start, _position);
+  }
+
+  /**
+   * Parses the next token on the current line as a double.
+   *
+   * @throws NoSuchElementException thrown if there are no more tokens on the line.
+   * @throws NumberFormatException thrown if the token is not a number.
+   */
+  public double nextDouble() {
+    int start = scanToken();
+    return parseDouble(_buffer, start, _position);
+  }
+
+  /**
+   * Parses a float from the bytes in the specified range of a buffer.
+   * The result is the same as <code>Float.parseFloat</code> on the equivalent string.
+   *
+   * @param buffer the buffer.
+   * @param start the position of the first byte.
+   * @param end the position after the last byte.
+   * @return the parsed value.
+   * @throws NumberFormatException thrown if the bytes are not a number.
+   */
+  public static float parseFloat(final ByteBuffer buffer, final int start, final int end) {
+    long decoded = decode(buffer, start, end, MAX_FLOAT_DIGITS);
+    if (decoded != NOT_DECODED) {
+      long mantissa = decoded >>> EXPONENT_BITS;
+      int exponent = (int) (decoded & (1 << EXPONENT_BITS) - 1) - EXPONENT_BIAS;
+      float value = Float.NaN;
+      if (mantissa == 0) {
+        value = 0;
+      } else if (exponent >= 0 && exponent <= MAX_FLOAT_EXPONENT) {
+        // The product is exact, and the conversion from long is correctly rounded.
+        value = mantissa * LONG_POWERS_OF_TEN[exponent];
+      } else if (exponent < 0 && exponent >= -MAX_FLOAT_EXPONENT) {
+        // The quotient is correctly rounded to a double, which is too close to the
+        // exact value for the conversion to float to round differently.
+        value = (float) ((double) mantissa / LONG_POWERS_OF_TEN[-exponent]);
+      }
+      if (!Float.isNaN(value)) {
+        return buffer.get(start) == '-' ? -value : value;
+      }
+    }
+    return Float.parseFloat(toString(buffer, start, end));
+  }
+
+  /**
+   * Parses a double from the bytes in the specified range of a buffer.
+   * The result is the same as <code>Double.parseDouble</code> on the equivalent string.
+   *
+   * @param buffer the buffer.
+   * @param start the position of the first byte.
+   * @param end the position after the last byte.
+   * @return the parsed value.
+   * @throws NumberFormatException thrown if the bytes are not a number.
+   */
+  public static double parseDouble(final ByteBuffer buffer, final int start, final int end) {
+    long decoded = decode(buffer, start, end, MAX_DOUBLE_DIGITS);
+    if (decoded != NOT_DECODED) {
+      long mantissa = decoded >>> EXPONENT_BITS;
+      int exponent = (int) (decoded & (1 << EXPONENT_BITS) - 1) - EXPONENT_BIAS;
+      double value = Double.NaN;
+      if (mantissa == 0) {
+        value = 0;
+      } else if (exponent >= 0 && exponent <= MAX_DOUBLE_EXPONENT) {
+        // The mantissa and the power of ten are exact, so the product is correctly rounded.
+        value = mantissa * DOUBLE_POWERS_OF_TEN[exponent];
+      } else if (exponent < 0 && exponent >= -MAX_DOUBLE_EXPONENT) {
+        value = mantissa / DOUBLE_POWERS_OF_TEN[-exponent];
+      }
+      if (!Double.isNaN(value)) {
+        return buffer.get(start) == '-' ? -value : value;
+      }
+    }
+    return Double.parseDouble(toString(buffer, start, end));
+  }
+
+  /**
+   * Decodes a plain decimal number (e.g. "-12.5" or "1.25E+3") into its significant digits and
+   * its power of ten, ignoring the sign. The two are packed into a long, with the biased exponent
+   * in the low bits.
+   *
+   * @return the decoded number, or <code>NOT_DECODED</code> if the number has too many significant
+   *         digits, or is not a plain decimal number.
+   */
+  private static long decode(final ByteBuffer buffer, final int start, final int end, final int maxDigits) {
+    int i = start;
+    if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+      i++;
+    }
+    long mantissa = 0;
+    int numDigits = 0;
+    int numZeros = 0;
+    int exponent = 0;
+    boolean hasDigits = false;
+    boolean fraction = false;
+    byte b = 0;
+    for (; i < end; i++) {
+      b = buffer.get(i);
+      if (b >= '0' && b <= '9') {
+        hasDigits = true;
+        if (fraction) {
+          exponent--;
+        }
+        if (b == '0') {
+          // Defer the zeros, so that trailing zeros do not count as significant digits.
+          if (mantissa != 0) {
+            numZeros++;
+          }
+        } else {
+          numDigits += numZeros + 1;
+          if (numDigits > maxDigits) {
+            return NOT_DECODED;
+          }
+          for (; numZeros > 0; numZeros--) {
+            mantissa *= 10;
+          }
+          mantissa = mantissa * 10 + b - '0';
+        }
+      } else if (b == '.' && !fraction) {
+        fraction = true;
+      } else {
+        break;
+      }
+    }
+    if (!hasDigits) {
+      return NOT_DECODED;
+    }
+    if (i < end) {
+      // Decode the exponent.
+      if ((b != 'e' && b != 'E') || ++i == end) {
+        return NOT_DECODED;
+      }
+      boolean negativeExponent = buffer.get(i) == '-';
+      if (buffer.get(i) == '-' || buffer.get(i) == '+') {
+        if (++i == end) {
+          return NOT_DECODED;
+        }
+      }
+      int value = 0;
+      for (; i < end; i++) {
+        b = buffer.get(i);
+        if (b < '0' || b > '9' || value > EXPONENT_BIAS) {
+          return NOT_DECODED;
+        }
+        value = value * 10 + b - '0';
+      }
+      exponent += negativeExponent ? -value : value;
+    }
+    exponent += numZeros;
+    if (exponent < -EXPONENT_BIAS || exponent >= EXPONENT_BIAS) {
+      return NOT_DECODED;
+    }
+    return (mantissa << EXPONENT_BITS) | (exponent + EXPONENT_BIAS);
+  }
+
+  /**
+   * Scans the next token on the current line.
+   *
+   * @return the start of the token (the current position is then its end).
+   */
+  private int scanToken() {
+    if (!hasMoreTokens()) {
+      throw new NoSuchElementException("No more tokens on the line.");
+    }
+    int start = _position;
+    while (_position < _end) {
+      byte b = _buffer.get(_position);
+      if (b == '\n' || isWhiteSpace(b)) {
+        break;
+      }
+      _position++;
+    }
+    return start;
+  }
+
+  private static boolean isWhiteSpace(final byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+  }
+
+  private static String toString(final ByteBuffer buffer, final int start, final int end) {
+    char[] chars = new char[end - start];
+    for (int i = start; i < end; i++) {
+      chars[i - start] = (char) (buffer.get(i) & 0xff);
+    }
+    return new String(chars);
+  }
+}
@@ -18,6 +18,9 @@ import org.geocraft.core.model.datatypes.Trace.Status;
 import org.geocraft.core.model.seismic.PostStack2dLine;
 import org.geocraft.core.model.seismic.PostStack3d;
 import org.geocraft.core.model.seismic.PostStack3d.StorageOrder;
+import org.geocraft.io.util.volume.IPipelineProcessor;
+import org.geocraft.io.util.volume.IPipelineReader;
+import org.geocraft.io.util.volume.TracePipeline;
 
 
 /**
@@ -32,9 +35,16 @@ import org.geocraft.core.model.seismic.PostStack3d.StorageOrder;
  * traces and extract the <i>nearest</i> traces from the secondary volumes.
  * Another option is to take the x,y coordinates from the primary traces and
  * generate <i>interpolated</i> traces from the secondary volumes.
+ * <p>
+ * The blocks of traces are read ahead of the consumer (thru a <code>TracePipeline</code>),
+ * with the primary traces of the next block read while the secondary traces of the current
+ * one are matched. Call <code>cancel</code> if the iteration is abandoned before the last block.
  */
 public class MultiVolumeTraceIterator implements Iterator {
 
+  /** The maximum number of blocks read ahead of the consumer. */
+  private static final int PREFETCH_CAPACITY = 2;
+
   /**
    * Enumeration for the strategy of obtaining traces from the secondary
    * volumes.
@@ -55,6 +65,12 @@ public class MultiVolumeTraceIterator implements Iterator {
   /** The trace retrieval strategies for the secondary volumes. */
   private final List<ITraceReadStrategy> _secnStrategies;
 
+  /** The pipeline reading the blocks ahead (<i>null</i> until the 1st block is requested). */
+  private TracePipeline<TraceData, TraceData[]> _pipeline;
+
+  /** The iterator over the blocks read ahead (<i>null</i> until the 1st block is requested). */
+  private Iterator<TraceData[]> _blocks;
+
   /**
    * Constructs a multi-volume trace iterator for stacked 3D seismic, using the given area-of-interest.
    * <p>
@@ -185,14 +201,59 @@ public class MultiVolumeTraceIterator implements Iterator {
     }
   }
 
-  public boolean hasNext() {
-    return _primIterator.hasNext();
+  public synchronized boolean hasNext() {
+    return getBlocks().hasNext();
+  }
+
+  public synchronized TraceData[] next() {
+    return getBlocks().next();
+  }
+
+  /**
+   * Stops reading ahead. Call this if the iteration is abandoned before the last block.
+   */
+  public synchronized void cancel() {
+    if (_pipeline != null) {
+      _pipeline.cancel();
+    }
   }
 
-  public TraceData[] next() {
-    // Get the trace data from the primary volume.
-    TraceData primTraceData = _primIterator.next();
+  /**
+   * Returns the iterator over the blocks, starting the reading ahead on the 1st call.
+   * The primary traces are read by the read stage and the matching secondary traces
+   * by the process stage, each on a single thread.
+   */
+  private Iterator<TraceData[]> getBlocks() {
+    if (_blocks == null) {
+      // The pipeline reads ahead, so the primary iterator must not read ahead itself.
+      _primIterator.prefetch(false);
+      IPipelineReader<TraceData> reader = new IPipelineReader<TraceData>() {
+
+        public TraceData read(final int sequence) {
+          return _primIterator.hasNext() ? _primIterator.next() : null;
+        }
+      };
+      IPipelineProcessor<TraceData, TraceData[]> processor = new IPipelineProcessor<TraceData, TraceData[]>() {
+
+        public TraceData[] process(final TraceData primTraceData) {
+          return readSecondaryTraces(primTraceData);
+        }
+      };
+      _pipeline = new TracePipeline<TraceData, TraceData[]>(getClass().getSimpleName(), reader, 1, processor, 1, null,
+          0, PREFETCH_CAPACITY);
+      _pipeline.start(null);
+      _blocks = _pipeline.iterator();
+    }
+    return _blocks;
+  }
 
+  /**
+   * Reads the traces of the secondary volumes matching a block of primary traces.
+   * 
+   * @param primTraceData the trace data from the primary volume.
+   * @return the array of the primary trace data, followed by that of each secondary volume.
+   */
+  private TraceData[] readSecondaryTraces(final TraceData primTraceData) {
     // Allocate the trace data array to return.
     TraceData[] allTraceData = new TraceData[1 + _secnStrategies.size()];
     allTraceData[0] = primTraceData;
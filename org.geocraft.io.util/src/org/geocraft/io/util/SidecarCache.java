@@ -0,0 +1,375 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.geocraft.core.common.preferences.PreferencesUtil;
+import org.geocraft.core.common.util.FileUtil;
+import org.geocraft.core.model.preferences.NullEclipsePreferences;
+import org.geocraft.core.service.ServiceProvider;
+
+
+/**
+ * A binary cache of the arrays parsed from a text file (e.g. an ASCII horizon, a ModSpec grid or an LAS well),
+ * so that reopening the file does not parse it again.
+ * <p>
+ * The arrays are stored in a compact little-endian sidecar file, either next to the text file or in the
+ * directory set by the {@link #DIRECTORY} preference, and the sidecar file is memory-mapped when it is read.
+ * The mapping is released as soon as the arrays are copied out of it, so the file can then be replaced.
+ * Each entry is keyed by the path, size and last-modified time of the text file, plus a variant string for
+ * any parameters that change how it is parsed (e.g. the columns read). An entry that does not match is ignored,
+ * and is replaced the next time the file is parsed.
+ * <p>
+ * The cache is best-effort: a sidecar file that cannot be read or written (e.g. in a read-only directory)
+ * is simply skipped.
+ */
+public final class SidecarCache {
+
+  /** The plug-in ID, used for the preferences. */
+  public static final String PLUGIN_ID = "org.geocraft.io.util";
+
+  /** The preference key for enabling the cache (true by default). */
+  public static final String ENABLED = "sidecarCacheEnabled";
+
+  /** The preference key for the cache directory (empty by default, to store each cache file next to its text file). */
+  public static final String DIRECTORY = "sidecarCacheDirectory";
+
+  /** The extension of the cache files. */
+  public static final String EXTENSION = ".gccache";
+
+  /** The magic number at the start of a cache file ("GCBC"). */
+  private static final int MAGIC = 0x47434243;
+
+  /** The version of the cache file format. */
+  private static final int VERSION = 1;
+
+  /** The size of the buffer used to write a cache file. */
+  private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+  /** The character set of the key. */
+  private static final String CHARSET = "UTF-8";
+
+  /**
+   * The arrays of a cache entry.
+   */
+  public static final class Entry {
+
+    private final float[][] _floatArrays;
+
+    private final double[][] _doubleArrays;
+
+    private Entry(final float[][] floatArrays, final double[][] doubleArrays) {
+      _floatArrays = floatArrays;
+      _doubleArrays = doubleArrays;
+    }
+
+    /**
+     * Returns the float arrays, in the order they were written.
+     */
+    public float[][] getFloatArrays() {
+      return _floatArrays;
+    }
+
+    /**
+     * Returns the double arrays, in the order they were written.
+     */
+    public double[][] getDoubleArrays() {
+      return _doubleArrays;
+    }
+  }
+
+  private SidecarCache() {
+    // Prevent instantiation.
+  }
+
+  /**
+   * Returns <i>true</i> if the cache is enabled in the preferences.
+   */
+  public static boolean isEnabled() {
+    return getPreferences().getBoolean(ENABLED, true);
+  }
+
+  /**
+   * Returns the cache file for a text file.
+   * It is in the cache directory if one is set in the preferences, otherwise next to the text file.
+   *
+   * @param source the text file.
+   * @return the cache file.
+   */
+  public static File getCacheFile(final File source) {
+    String directory = getPreferences().get(DIRECTORY, "").trim();
+    if (directory.length() == 0) {
+      return new File(source.getAbsolutePath() + EXTENSION);
+    }
+    // Add a hash of the path, to tell apart text files with the same name in different directories.
+    String hash = Integer.toHexString(getPath(source).hashCode());
+    return new File(directory, source.getName() + "-" + hash + EXTENSION);
+  }
+
+  /**
+   * Reads the cached arrays for a text file.
+   *
+   * @param source the text file.
+   * @param variant the parameters used to parse the text file.
+   * @return the cached arrays, or <i>null</i> if the cache is disabled or there is no valid entry.
+   */
+  public static Entry read(final File source, final String variant) {
+    if (!isEnabled()) {
+      return null;
+    }
+    return read(getCacheFile(source), source, variant);
+  }
+
+  /**
+   * Reads the cached arrays for a text file from the specified cache file.
+   */
+  static Entry read(final File cacheFile, final File source, final String variant) {
+    if (!cacheFile.exists()) {
+      return null;
+    }
+    try {
+      RandomAccessFile raf = new RandomAccessFile(cacheFile, "r");
+      ByteBuffer buffer = null;
+      try {
+        FileChannel channel = raf.getChannel();
+        buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return readEntry(buffer, source, variant);
+      } finally {
+        // Release the mapping, otherwise the cache file cannot be replaced on Windows until it is collected.
+        FileUtil.unmap(buffer);
+        raf.close();
+      }
+    } catch (Exception ex) {
+      // A truncated or unreadable cache file is treated as a miss.
+      ServiceProvider.getLoggingService().getLogger(SidecarCache.class).debug(
+          "Ignoring the cache file " + cacheFile + ": " + ex.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Writes the arrays parsed from a text file to the cache.
+   * The cache file is written under a temporary name and then renamed, so that readers never see part of it.
+   *
+   * @param source the text file.
+   * @param variant the parameters used to parse the text file.
+   * @param floatArrays the float arrays to cache.
+   * @param doubleArrays the double arrays to cache.
+   */
+  public static void write(final File source, final String variant, final float[][] floatArrays,
+      final double[][] doubleArrays) {
+    if (isEnabled()) {
+      write(getCacheFile(source), source, variant, floatArrays, doubleArrays);
+    }
+  }
+
+  /**
+   * Writes the arrays parsed from a text file to the specified cache file.
+   */
+  static void write(final File cacheFile, final File source, final String variant, final float[][] floatArrays,
+      final double[][] doubleArrays) {
+    File tempFile = null;
+    try {
+      byte[] key = getKey(source, variant);
+      int headerSize = 4 * 4 + 2 * 8 + 4 + key.length + 4 * (floatArrays.length + doubleArrays.length);
+      long size = align(headerSize);
+      for (float[] array : floatArrays) {
+        size += 4L * array.length;
+      }
+      size = align(size);
+      for (double[] array : doubleArrays) {
+        size += 8L * array.length;
+      }
+      if (size > Integer.MAX_VALUE) {
+        return;
+      }
+
+      File directory = cacheFile.getAbsoluteFile().getParentFile();
+      directory.mkdirs();
+      tempFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+      RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+      try {
+        // Write the header and the arrays through a small buffer.
+        FileChannel channel = raf.getChannel();
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.max(WRITE_BUFFER_SIZE, align(headerSize)));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(source.length());
+        buffer.putLong(source.lastModified());
+        buffer.putInt(key.length);
+        buffer.put(key);
+        buffer.putInt(floatArrays.length);
+        buffer.putInt(doubleArrays.length);
+        for (float[] array : floatArrays) {
+          buffer.putInt(array.length);
+        }
+        for (double[] array : doubleArrays) {
+          buffer.putInt(array.length);
+        }
+        buffer.position((int) align(buffer.position()));
+        for (float[] array : floatArrays) {
+          for (float value : array) {
+            if (buffer.remaining() < 4) {
+              flush(channel, buffer);
+            }
+            buffer.putFloat(value);
+          }
+        }
+        flush(channel, buffer);
+        channel.position(align(channel.position()));
+        for (double[] array : doubleArrays) {
+          for (double value : array) {
+            if (buffer.remaining() < 8) {
+              flush(channel, buffer);
+            }
+            buffer.putDouble(value);
+          }
+        }
+        flush(channel, buffer);
+        raf.setLength(size);
+      } finally {
+        raf.close();
+      }
+      // Replace any previous cache file (renaming onto an existing file fails on Windows).
+      if ((cacheFile.exists() && !cacheFile.delete()) || !tempFile.renameTo(cacheFile)) {
+        throw new IOException("Cannot rename " + tempFile + " to " + cacheFile);
+      }
+      tempFile = null;
+    } catch (Exception ex) {
+      ServiceProvider.getLoggingService().getLogger(SidecarCache.class).debug(
+          "Unable to write the cache file " + cacheFile + ": " + ex.getMessage());
+    } finally {
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+    }
+  }
+
+  /**
+   * Writes the contents of a buffer to a channel, and clears the buffer.
+   */
+  private static void flush(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Reads an entry from a mapped cache file, if it matches the text file and variant.
+   * The lengths stored in the file are checked against its size before any array is allocated,
+   * so a corrupt file is rejected rather than exhausting the heap.
+   */
+  private static Entry readEntry(final ByteBuffer buffer, final File source, final String variant) throws IOException {
+    if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+      return null;
+    }
+    if (buffer.getLong() != source.length() || buffer.getLong() != source.lastModified()) {
+      return null;
+    }
+    byte[] expectedKey = getKey(source, variant);
+    if (buffer.getInt() != expectedKey.length || expectedKey.length > buffer.remaining()) {
+      return null;
+    }
+    byte[] key = new byte[expectedKey.length];
+    buffer.get(key);
+    for (int i = 0; i < key.length; i++) {
+      if (key[i] != expectedKey[i]) {
+        return null;
+      }
+    }
+    int numFloatArrays = buffer.getInt();
+    int numDoubleArrays = buffer.getInt();
+    if (numFloatArrays < 0 || numDoubleArrays < 0 || 4L * (numFloatArrays + numDoubleArrays) > buffer.remaining()) {
+      throw new IOException("Invalid number of arrays.");
+    }
+    int[] floatLengths = new int[numFloatArrays];
+    int[] doubleLengths = new int[numDoubleArrays];
+    long dataSize = 0;
+    for (int i = 0; i < numFloatArrays; i++) {
+      floatLengths[i] = readLength(buffer);
+      dataSize += 4L * floatLengths[i];
+    }
+    dataSize = align(dataSize);
+    for (int i = 0; i < numDoubleArrays; i++) {
+      doubleLengths[i] = readLength(buffer);
+      dataSize += 8L * doubleLengths[i];
+    }
+    buffer.position((int) align(buffer.position()));
+    if (dataSize > buffer.remaining()) {
+      throw new IOException("The cache file is truncated.");
+    }
+    float[][] floatArrays = new float[numFloatArrays][];
+    for (int i = 0; i < numFloatArrays; i++) {
+      floatArrays[i] = new float[floatLengths[i]];
+    }
+    double[][] doubleArrays = new double[numDoubleArrays][];
+    for (int i = 0; i < numDoubleArrays; i++) {
+      doubleArrays[i] = new double[doubleLengths[i]];
+    }
+    for (float[] array : floatArrays) {
+      buffer.asFloatBuffer().get(array);
+      buffer.position(buffer.position() + 4 * array.length);
+    }
+    buffer.position((int) align(buffer.position()));
+    for (double[] array : doubleArrays) {
+      buffer.asDoubleBuffer().get(array);
+      buffer.position(buffer.position() + 8 * array.length);
+    }
+    return new Entry(floatArrays, doubleArrays);
+  }
+
+  /**
+   * Reads the length of an array, which must not be negative.
+   */
+  private static int readLength(final ByteBuffer buffer) throws IOException {
+    int length = buffer.getInt();
+    if (length < 0) {
+      throw new IOException("Invalid array length: " + length);
+    }
+    return length;
+  }
+
+  /**
+   * Returns the key of a cache entry: the path of the text file and the variant.
+   */
+  private static byte[] getKey(final File source, final String variant) throws IOException {
+    return (getPath(source) + "\n" + variant).getBytes(CHARSET);
+  }
+
+  private static String getPath(final File source) {
+    try {
+      return source.getCanonicalPath();
+    } catch (IOException ex) {
+      return source.getAbsolutePath();
+    }
+  }
+
+  /**
+   * Rounds a size up to a multiple of 8 bytes, so that the arrays are aligned.
+   */
+  private static long align(final long size) {
+    return (size + 7) & ~7L;
+  }
+
+  private static IEclipsePreferences getPreferences() {
+    try {
+      return PreferencesUtil.getPreferencesStore(PLUGIN_ID);
+    } catch (NullPointerException ex) {
+      return new NullEclipsePreferences();
+    }
+  }
+}
@@ -18,6 +18,7 @@ import org.geocraft.core.model.seismic.PostStack2dLine;
 import org.geocraft.core.model.seismic.PostStack3d;
 import org.geocraft.core.model.seismic.PreStack3d;
 import org.geocraft.core.model.seismic.PostStack3d.StorageOrder;
+import org.geocraft.io.util.volume.TracePipeline;
 
 
 /**
@@ -25,9 +26,17 @@ import org.geocraft.core.model.seismic.PostStack3d.StorageOrder;
  * data returned is based upon the preferred direction of the input volume, as
  * well as the specified area-of-interest. If no area-of-interest is specified,
  * then it is based solely on the preferred direction of the input volume.
+ * <p>
+ * The blocks of traces can be read ahead of the consumer on a background thread
+ * (thru a <code>TracePipeline</code>), so the reading of the next blocks overlaps the
+ * processing of the current one. This is off by default; a consumer that turns it on
+ * must call <code>cancel</code> if it abandons the iteration before the last block.
  */
 public class TraceIterator implements Iterator {
 
+  /** The maximum number of blocks read ahead of the consumer. */
+  private static final int PREFETCH_CAPACITY = 2;
+
   /** The iterator read strategy. */
   private ITraceIteratorStrategy _readStrategy;
 
@@ -37,6 +46,15 @@ public class TraceIterator implements Iterator {
   /** The flag indicating if "missing" traces are to be omitted. */
   private boolean _omitMissingTraces;
 
+  /** The flag indicating if the blocks are read ahead on a background thread. */
+  private boolean _prefetch;
+
+  /** The pipeline reading the blocks ahead (<i>null</i> until the 1st block is requested). */
+  private TracePipeline<TraceData, TraceData> _pipeline;
+
+  /** The iterator over the blocks (<i>null</i> until the 1st block is requested). */
+  private Iterator<TraceData> _blocks;
+
   public TraceIterator(final ITraceIteratorStrategy strat) {
     _readStrategy = strat;
   }
@@ -133,15 +151,82 @@ public class TraceIterator implements Iterator {
     updateNextTraces();
   }
 
-  public boolean hasNext() {
+  public synchronized boolean hasNext() {
+    return getBlocks().hasNext();
+  }
+
+  public synchronized TraceData next() {
+    return getBlocks().next();
+  }
+
+  public void remove() {
+    throw new UnsupportedOperationException("Cannot remove traces.");
+  }
+
+  /**
+   * Stops reading ahead. Call this if the iteration is abandoned before the last block.
+   */
+  public synchronized void cancel() {
+    if (_pipeline != null) {
+      _pipeline.cancel();
+    }
+  }
+
+  /**
+   * Sets the flag indicating if the blocks are read ahead on a background thread.
+   * This must be called before the 1st block is requested.
+   * 
+   * @param prefetch <i>true</i> to read the blocks ahead on a background thread; <i>false</i> to read them on demand.
+   */
+  public void prefetch(final boolean prefetch) {
+    _prefetch = prefetch;
+  }
+
+  /**
+   * Returns the iterator over the blocks, starting the reading ahead (if enabled) on the 1st call.
+   */
+  private Iterator<TraceData> getBlocks() {
+    if (_blocks == null) {
+      Iterator<TraceData> blocks = new Iterator<TraceData>() {
+
+        public boolean hasNext() {
+          return hasNextBlock();
+        }
+
+        public TraceData next() {
+          return nextBlock();
+        }
+
+        public void remove() {
+          throw new UnsupportedOperationException("Cannot remove traces.");
+        }
+      };
+      if (_prefetch) {
+        _pipeline = TracePipeline.createPrefetcher(getClass().getSimpleName(), blocks, PREFETCH_CAPACITY);
+        _pipeline.start(null);
+        _blocks = _pipeline.iterator();
+      } else {
+        _blocks = blocks;
+      }
+    }
+    return _blocks;
+  }
+
+  /**
+   * Returns <i>true</i> if there are more blocks to read.
+   */
+  private boolean hasNextBlock() {
     if (_nextTraces == null) {
       init();
     }
     return _nextTraces.size() > 0;
   }
 
-  public TraceData next() {
-    if (hasNext()) {
+  /**
+   * Reads the next block of traces.
+   */
+  private TraceData nextBlock() {
+    if (hasNextBlock()) {
       // Extract the traces from the next array.
       Trace[] traces = _nextTraces.toArray(new Trace[0]);
       // Update the next array.
@@ -152,10 +237,6 @@ public class TraceIterator implements Iterator {
     throw new NoSuchElementException("No more traces.");
   }
 
-  public void remove() {
-    throw new UnsupportedOperationException("Cannot remove traces.");
-  }
-
   /**
    * Gets the iterator status message.
    * 
@@ -4,13 +4,12 @@
 package org.geocraft.io.util.subvolume;
 
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.Queue;
 
 import org.geocraft.core.model.aoi.AreaOfInterest;
 import org.geocraft.core.model.datatypes.Trace;
@@ -18,8 +17,14 @@ import org.geocraft.core.model.seismic.PostStack3d;
 import org.geocraft.core.model.seismic.SeismicSurvey3d;
 
 
-public abstract class AbstractSubVolumeIteratorThreadStrategy extends AbstractSubVolumeIteratorStrategy implements
-    Runnable {
+/**
+ * The abstract base class for the sub-volume iterator strategies that read a window of lines
+ * at a time, and cut the window into sub-volumes.
+ * <p>
+ * The strategy itself reads sequentially; the <code>SubVolumeIterator</code> runs it ahead
+ * of the consumer on a background thread.
+ */
+public abstract class AbstractSubVolumeIteratorThreadStrategy extends AbstractSubVolumeIteratorStrategy {
 
   /** The primary volume. */
   protected PostStack3d _primVolume;
@@ -33,7 +38,8 @@ public abstract class AbstractSubVolumeIteratorThreadStrategy extends AbstractSu
   /** The number of xlines in each sub-volume. */
   protected int _numXlinesInSubVolume;
 
-  protected BlockingQueue<Trace[][][]> _buffer;
+  /** The sub-volumes cut from the current window, waiting to be consumed. */
+  protected Queue<Trace[][][]> _buffer;
 
   protected int _inlineIndex;
 
@@ -43,17 +49,12 @@ public abstract class AbstractSubVolumeIteratorThreadStrategy extends AbstractSu
 
   protected int _xlineIncrement;
 
-  protected volatile boolean _isDone = false;
-
-  protected volatile boolean _threadDone = false;
-
-  protected final static int BUFFER_LENGTH = 1;
+  /** The flag indicating if all the windows have been read. */
+  protected boolean _readDone = false;
 
   /** The temporary cache for read traces, used to prevent reading the same trace multiple times. */
   protected Map<PostStack3d, Map<Integer, Trace[]>> _traceMap;
 
-  private Thread _readerThread;
-
   public AbstractSubVolumeIteratorThreadStrategy(PostStack3d primVolume, AreaOfInterest aoi, int numInlinesInSubVolume, int numXlinesInSubVolume, float zStart, float zEnd, int windowIncrement, PostStack3d... secnVolumes) {
     this(primVolume, aoi, numInlinesInSubVolume, numXlinesInSubVolume, zStart, zEnd, windowIncrement, windowIncrement,
         secnVolumes);
@@ -81,17 +82,7 @@ public abstract class AbstractSubVolumeIteratorThreadStrategy extends AbstractSu
     _xlineIncrement = Math.min(window, xlineIncrement);
     _xlineIncrement = Math.max(1, _xlineIncrement);
 
-    _buffer = new ArrayBlockingQueue<Trace[][][]>(BUFFER_LENGTH);
-
-    //start the reader thread to populate buffer
-    _readerThread = new Thread(this);
-    _readerThread.start();
-
-  }
-
-  @Override
-  public void finalize() {
-    _threadDone = true;
+    _buffer = new ArrayDeque<Trace[][][]>();
   }
 
   public boolean containsAoi(AreaOfInterest aoi, PostStack3d primVol, PostStack3d[] secnVols, float[] inlines,
@@ -106,12 +97,11 @@ public abstract class AbstractSubVolumeIteratorThreadStrategy extends AbstractSu
     return false;
   }
 
-  /* (non-Javadoc)
-   * @see java.lang.Runnable#run()
+  /**
+   * Reads windows until at least 1 sub-volume is available, or all the windows have been read.
    */
-  @Override
-  public void run() {
-    while (!_threadDone) {
+  protected void fillBuffer() {
+    while (_buffer.isEmpty() && !_readDone) {
       readNextWindow();
       populateBuffer();
       dumpCurrentWindow();
@@ -120,7 +110,7 @@ public abstract class AbstractSubVolumeIteratorThreadStrategy extends AbstractSu
   }
 
   /**
-   * populate the buffer of cubes to be consumed by the iterator thread
+   * populate the buffer of cubes to be consumed by the iterator
    */
   public void populateBuffer() {
     while (isInnerIndexComplete()) {
@@ -131,7 +121,8 @@ public abstract class AbstractSubVolumeIteratorThreadStrategy extends AbstractSu
 
   @Override
   public boolean isDone() {
-    return _isDone;
+    fillBuffer();
+    return _buffer.isEmpty();
   }
 
   protected int getInlineIncrement() {
@@ -191,16 +182,12 @@ public abstract class AbstractSubVolumeIteratorThreadStrategy extends AbstractSu
   }
 
   /**
-   * adds the trace cube to the internal buffer for the iterator thread to consume
+   * adds the trace cube to the internal buffer for the iterator to consume
    */
   protected void addToBuffer() {
     Trace[][][] addme = processSubcubesFromCache();
-    if (addme != null && !isEmpty(addme) && !_buffer.offer(addme)) {
-      try {
-        _buffer.put(addme);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      }
+    if (addme != null && !isEmpty(addme)) {
+      _buffer.add(addme);
     }
   }
 
@@ -223,39 +210,11 @@ public abstract class AbstractSubVolumeIteratorThreadStrategy extends AbstractSu
    */
   @Override
   public Trace[][][] next() {
-    Trace[][][] result = new Trace[0][0][0];
-
-    try {
-      if (!_threadDone) {
-        result = _buffer.poll();
-        while (result == null && !_threadDone) {
-          result = _buffer.poll(10, TimeUnit.SECONDS);
-        }
-
-      } else if (!_buffer.isEmpty()) {
-        result = _buffer.poll();
-      }
-
-      if (_buffer.isEmpty() && _threadDone) {
-        //the buffer is empty at this point and the producer thread is finished so 
-        //set isDone in the iterator to be true
-        try {
-          if (result == null || result.length == 0) {
-            throw new NoSuchElementException("No more traces.. iterator is complete");
-          }
-          return result;
-        } finally {
-          _isDone = true;
-        }
-      }
-    } catch (InterruptedException e) {
-      e.printStackTrace();
-    }
-
-    if (result.length == 0) {
-      throw new NoSuchElementException("No more traces.. continuing");
+    fillBuffer();
+    if (_buffer.isEmpty()) {
+      throw new NoSuchElementException("No more traces.. iterator is complete");
     }
-    return result;
+    return _buffer.remove();
   }
 
   /* (non-Javadoc)
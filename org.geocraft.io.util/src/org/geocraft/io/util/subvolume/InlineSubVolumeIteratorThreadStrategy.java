@@ -115,7 +115,7 @@ public class InlineSubVolumeIteratorThreadStrategy extends AbstractSubVolumeIter
       }
 
       if (_inlineIndex >= _numInlines - 1) {
-        _threadDone = true;
+        _readDone = true;
         break;
       }
 
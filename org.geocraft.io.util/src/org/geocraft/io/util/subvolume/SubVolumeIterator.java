@@ -7,21 +7,43 @@ package org.geocraft.io.util.subvolume;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.geocraft.core.model.aoi.AreaOfInterest;
 import org.geocraft.core.model.aoi.ZRangeConstant;
 import org.geocraft.core.model.datatypes.Trace;
 import org.geocraft.core.model.seismic.PostStack3d;
 import org.geocraft.core.model.seismic.PostStack3d.StorageOrder;
+import org.geocraft.io.util.volume.TracePipeline;
 
 
 /**
  * This class defines an iterator for reading sub-volumes from one or more PostStack3d volumes.
+ * <p>
+ * The sub-volumes can be read ahead of the consumer on a background thread (thru a
+ * <code>TracePipeline</code>), so the reading of the next sub-volumes overlaps the
+ * processing of the current one. This is off by default; a consumer that turns it on
+ * must call <code>cancel</code> if it abandons the iteration before the last sub-volume.
  */
 public class SubVolumeIterator implements Iterator<Trace[][][]> {
 
+  /** The maximum number of sub-volumes read ahead of the consumer. */
+  private static final int PREFETCH_CAPACITY = 2;
+
   /** The iterator read strategy. */
   private ISubVolumeIteratorStrategy _readStrategy;
 
+  /** The flag indicating if the sub-volumes are read ahead on a background thread. */
+  private boolean _prefetch;
+
+  /** The pipeline reading the sub-volumes ahead (<i>null</i> until the 1st sub-volume is requested). */
+  private TracePipeline<Trace[][][], Trace[][][]> _pipeline;
+
+  /** The iterator over the sub-volumes read ahead. */
+  private Iterator<Trace[][][]> _subVolumes;
+
+  /** The progress monitor used to cancel the reading ahead (<i>null</i> for none). */
+  private IProgressMonitor _monitor;
+
   public SubVolumeIterator(final PostStack3d ps3d, final StorageOrder preferredOrder, final float startZ, final float endZ, final int numInlinesInSubVolume, final int numXlinesInSubVolume) {
     this(null, ps3d, preferredOrder, startZ, endZ, numInlinesInSubVolume, numXlinesInSubVolume);
 
@@ -177,23 +199,92 @@ public class SubVolumeIterator implements Iterator<Trace[][][]> {
     }
   }
 
+  /**
+   * Sets the flag indicating if the sub-volumes are read ahead on a background thread.
+   * This must be called before the 1st sub-volume is requested.
+   * 
+   * @param prefetch <i>true</i> to read the sub-volumes ahead on a background thread; <i>false</i> to read them on demand.
+   */
+  public void prefetch(final boolean prefetch) {
+    _prefetch = prefetch;
+  }
+
+  /**
+   * Sets the progress monitor used to cancel the reading ahead.
+   * This must be called before the 1st sub-volume is requested.
+   * 
+   * @param monitor the progress monitor.
+   */
+  public synchronized void setProgressMonitor(final IProgressMonitor monitor) {
+    _monitor = monitor;
+  }
+
+  /**
+   * Stops reading ahead. Call this if the iteration is abandoned before the last sub-volume.
+   */
+  public synchronized void cancel() {
+    if (_pipeline != null) {
+      _pipeline.cancel();
+    }
+  }
+
+  /**
+   * Returns the pipeline reading the sub-volumes ahead, for its throughput statistics.
+   * 
+   * @return the pipeline, or <i>null</i> if the sub-volumes are read on demand or not yet requested.
+   */
+  public synchronized TracePipeline<Trace[][][], Trace[][][]> getPipeline() {
+    return _pipeline;
+  }
+
   public synchronized boolean hasNext() {
-    return !_readStrategy.isDone();
+    return getSubVolumes().hasNext();
   }
 
   public synchronized Trace[][][] next() {
     if (hasNext()) {
-      return _readStrategy.next();
+      return getSubVolumes().next();
     }
     throw new NoSuchElementException("No more traces.");
   }
 
+  /**
+   * Returns the iterator over the sub-volumes, starting the reading ahead (if enabled) on the 1st call.
+   */
+  private Iterator<Trace[][][]> getSubVolumes() {
+    if (_subVolumes == null) {
+      Iterator<Trace[][][]> subVolumes = new Iterator<Trace[][][]>() {
+
+        public boolean hasNext() {
+          return !_readStrategy.isDone();
+        }
+
+        public Trace[][][] next() {
+          return _readStrategy.next();
+        }
+
+        public void remove() {
+          throw new UnsupportedOperationException("Cannot remove traces.");
+        }
+      };
+      if (_prefetch) {
+        _pipeline = TracePipeline.createPrefetcher("SubVolumeIterator", subVolumes, PREFETCH_CAPACITY);
+        _pipeline.start(_monitor);
+        _subVolumes = _pipeline.iterator();
+      } else {
+        _subVolumes = subVolumes;
+      }
+    }
+    return _subVolumes;
+  }
+
   public synchronized void remove() {
     throw new UnsupportedOperationException("Cannot remove traces.");
   }
 
   /**
    * Gets the iterator status message.
+   * This reflects the reading, which may be a few sub-volumes ahead of the consumer.
    * 
    * @return the iterator status message.
    */
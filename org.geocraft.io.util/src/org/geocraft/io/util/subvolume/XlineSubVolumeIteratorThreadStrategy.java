@@ -112,7 +112,7 @@ public class XlineSubVolumeIteratorThreadStrategy extends AbstractSubVolumeItera
       }
 
       if (_xlineIndex >= _numXlines - 1) {
-        _threadDone = true;
+        _readDone = true;
         break;
       }
 
@@ -0,0 +1,24 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util.volume;
+
+
+/**
+ * The interface for the process stage of a <code>TracePipeline</code>.
+ * If the pipeline has more than 1 processor thread, this method is called concurrently.
+ *
+ * @param <T> the type of items read.
+ * @param <R> the type of items processed.
+ */
+public interface IPipelineProcessor<T, R> {
+
+  /**
+   * Processes an item.
+   *
+   * @param item the item to process.
+   * @return the processed item, or <i>null</i> if there is nothing to write.
+   * @throws Exception thrown on processing error.
+   */
+  R process(T item) throws Exception;
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util.volume;
+
+
+/**
+ * The interface for the read stage of a <code>TracePipeline</code>.
+ *
+ * @param <T> the type of items read.
+ */
+public interface IPipelineReader<T> {
+
+  /**
+   * Reads the item with the specified sequence number.
+   * <p>
+   * The sequence numbers start at 0 and are claimed in increasing order by the reader threads.
+   * If the pipeline has more than 1 reader thread, this method is called concurrently and must
+   * read the item for the given sequence number (e.g. the block of traces at that index).
+   *
+   * @param sequence the sequence number of the item.
+   * @return the item, or <i>null</i> if there are no more items.
+   * @throws Exception thrown on read error.
+   */
+  T read(int sequence) throws Exception;
+}
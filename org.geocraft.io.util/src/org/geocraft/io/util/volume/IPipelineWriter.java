@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util.volume;
+
+
+/**
+ * The interface for the write stage of a <code>TracePipeline</code>.
+ * <p>
+ * If the pipeline has a single writer thread, the items are written in sequence order.
+ * Otherwise this method is called concurrently, in no particular order.
+ *
+ * @param <R> the type of items written.
+ */
+public interface IPipelineWriter<R> {
+
+  /**
+   * Writes an item.
+   *
+   * @param sequence the sequence number the item was read with.
+   * @param item the item to write.
+   * @throws Exception thrown on write error.
+   */
+  void write(int sequence, R item) throws Exception;
+}
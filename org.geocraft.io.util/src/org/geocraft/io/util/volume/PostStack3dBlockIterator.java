@@ -15,6 +15,9 @@ import org.geocraft.core.model.seismic.PostStack3d.StorageOrder;
  * <p>
  * The direction of process can either be specified or will be taken from
  * the primary volume.
+ * <p>
+ * The blocks are read ahead on a background thread, so the completion and
+ * message reflect the reading, which may be a few blocks ahead of the consumer.
  */
 public final class PostStack3dBlockIterator extends PostStack3dIterator<TraceBlock3d> {
 
@@ -53,11 +56,13 @@ public final class PostStack3dBlockIterator extends PostStack3dIterator<TraceBlo
     }
   }
 
-  public boolean hasNext() {
+  @Override
+  protected boolean hasNextBlock() {
     return !_iteratorStrategy.isDone();
   }
 
-  public TraceBlock3d next() {
+  @Override
+  protected TraceBlock3d nextBlock() {
     return _iteratorStrategy.next();
   }
 
@@ -6,16 +6,142 @@ package org.geocraft.io.util.volume;
 
 import java.util.Iterator;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+
 
 /**
  * The abstract base class for all PostStack3d trace iterators.
+ * <p>
+ * The blocks of traces can be read ahead of the consumer on a background thread
+ * (thru a <code>TracePipeline</code>), so the reading of the next blocks overlaps the
+ * processing of the current one. This is off by default; a consumer that turns it on
+ * must call <code>cancel</code> if it abandons the iteration before the last block.
+ * Subclasses implement the sequential reading of the blocks in <code>hasNextBlock</code>
+ * and <code>nextBlock</code>.
  */
 public abstract class PostStack3dIterator<T extends TraceBlock> implements Iterator<T> {
 
+  /** The maximum number of blocks read ahead of the consumer. */
+  private static final int PREFETCH_CAPACITY = 2;
+
+  /** The flag indicating if the blocks are read ahead on a background thread. */
+  private boolean _prefetch;
+
+  /** The pipeline reading the blocks ahead (<i>null</i> until the 1st block is requested). */
+  private TracePipeline<T, T> _pipeline;
+
+  /** The iterator over the blocks read ahead. */
+  private Iterator<T> _blocks;
+
+  /** The progress monitor used to cancel the reading ahead (<i>null</i> for none). */
+  private IProgressMonitor _monitor;
+
+  /**
+   * Constructs an iterator that reads the blocks on demand.
+   */
+  public PostStack3dIterator() {
+    this(false);
+  }
+
+  /**
+   * Constructs an iterator.
+   * 
+   * @param prefetch <i>true</i> to read the blocks ahead on a background thread; <i>false</i> to read them on demand.
+   */
+  protected PostStack3dIterator(final boolean prefetch) {
+    _prefetch = prefetch;
+  }
+
+  /**
+   * Sets the flag indicating if the blocks are read ahead on a background thread.
+   * This must be called before the 1st block is requested.
+   * 
+   * @param prefetch <i>true</i> to read the blocks ahead on a background thread; <i>false</i> to read them on demand.
+   */
+  public void prefetch(final boolean prefetch) {
+    _prefetch = prefetch;
+  }
+
+  /**
+   * Sets the progress monitor used to cancel the reading ahead.
+   * This must be called before the 1st block is requested.
+   * 
+   * @param monitor the progress monitor.
+   */
+  public void setProgressMonitor(final IProgressMonitor monitor) {
+    _monitor = monitor;
+  }
+
+  public synchronized boolean hasNext() {
+    return getBlocks().hasNext();
+  }
+
+  public synchronized T next() {
+    return getBlocks().next();
+  }
+
   public void remove() {
     throw new UnsupportedOperationException("Cannot remove traces.");
   }
 
+  /**
+   * Stops reading ahead. Call this if the iteration is abandoned before the last block.
+   */
+  public synchronized void cancel() {
+    if (_pipeline != null) {
+      _pipeline.cancel();
+    }
+  }
+
+  /**
+   * Returns the pipeline reading the blocks ahead, for its throughput statistics.
+   * 
+   * @return the pipeline, or <i>null</i> if the blocks are read on demand or not yet requested.
+   */
+  public synchronized TracePipeline<T, T> getPipeline() {
+    return _pipeline;
+  }
+
+  /**
+   * Returns the iterator over the blocks, starting the reading ahead (if enabled) on the 1st call.
+   */
+  private Iterator<T> getBlocks() {
+    if (_blocks == null) {
+      Iterator<T> blocks = new Iterator<T>() {
+
+        public boolean hasNext() {
+          return hasNextBlock();
+        }
+
+        public T next() {
+          return nextBlock();
+        }
+
+        public void remove() {
+          throw new UnsupportedOperationException("Cannot remove traces.");
+        }
+      };
+      if (_prefetch) {
+        _pipeline = TracePipeline.createPrefetcher(getClass().getSimpleName(), blocks, PREFETCH_CAPACITY);
+        _pipeline.start(_monitor);
+        _blocks = _pipeline.iterator();
+      } else {
+        _blocks = blocks;
+      }
+    }
+    return _blocks;
+  }
+
+  /**
+   * Returns <i>true</i> if there are more blocks to read.
+   */
+  protected abstract boolean hasNextBlock();
+
+  /**
+   * Reads the next block of traces.
+   */
+  protected abstract T nextBlock();
+
   public abstract int getCompletion();
 
   public abstract String getMessage();
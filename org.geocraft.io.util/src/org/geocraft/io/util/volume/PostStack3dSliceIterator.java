@@ -7,6 +7,7 @@ package org.geocraft.io.util.volume;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.geocraft.core.model.aoi.AreaOfInterest;
 import org.geocraft.core.model.datatypes.Trace;
 import org.geocraft.core.model.seismic.PostStack3d;
@@ -106,6 +107,8 @@ public class PostStack3dSliceIterator extends PostStack3dIterator<TraceBlock2d>
    * @param secnVolumes the optional array of secondary PostStack3d volumes.
    */
   private PostStack3dSliceIterator(final PostStack3d primVolume, final StorageOrder preferredOrder, final AreaOfInterest aoi, final int inlineIncrement, final int xlineIncrement, final float zStart, final float zEnd, final PostStack3d... secnVolumes) {
+    // Any reading ahead is done by the underlying block iterator, so read the slices on demand.
+    super(false);
     _numVolumes = 1 + secnVolumes.length;
     switch (preferredOrder) {
       case INLINE_XLINE_Z:
@@ -125,7 +128,23 @@ public class PostStack3dSliceIterator extends PostStack3dIterator<TraceBlock2d>
         inlineIncrement, xlineIncrement, zStart, zEnd, secnVolumes);
   }
 
-  public boolean hasNext() {
+  @Override
+  public void prefetch(final boolean prefetch) {
+    _blockIterator.prefetch(prefetch);
+  }
+
+  @Override
+  public void setProgressMonitor(final IProgressMonitor monitor) {
+    _blockIterator.setProgressMonitor(monitor);
+  }
+
+  @Override
+  public synchronized void cancel() {
+    _blockIterator.cancel();
+  }
+
+  @Override
+  protected boolean hasNextBlock() {
     return _blockIterator.hasNext();
   }
 
@@ -137,7 +156,8 @@ public class PostStack3dSliceIterator extends PostStack3dIterator<TraceBlock2d>
    * 
    * @return the next block of traces.
    */
-  public TraceBlock2d next() {
+  @Override
+  protected TraceBlock2d nextBlock() {
     // Get the next 3D block of traces from the underlying iterator.
     Trace[][][] blockTraces = _blockIterator.next().getTraces();
     Trace[][] sliceTraces = new Trace[_numVolumes][];
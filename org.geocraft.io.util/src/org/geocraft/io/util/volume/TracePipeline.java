@@ -0,0 +1,712 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.io.util.volume;
+
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+
+/**
+ * A staged pipeline for streaming blocks of traces (or any other items) through
+ * read, process and write stages, each run by its own number of threads.
+ * <p>
+ * The stages are connected by bounded queues, so a stage blocks when the stage after it
+ * falls behind, rather than buffering an unlimited number of items. Each item is tagged with
+ * the sequence number it was read with, so a single writer (or the pull iterator) receives
+ * the items in read order, even when more than 1 reader or processor thread is used.
+ * In that case the readers also block before reading an item too far ahead of the next one
+ * due in order, so a slow item cannot let the other threads run arbitrarily far ahead and
+ * fill the reorder buffer. (The readers block, rather than the processors, because blocked
+ * processors could be holding every item but the one due next.)
+ * <p>
+ * The end of the data is passed down the stages as a "poison pill". The pipeline is
+ * canceled by the progress monitor, by calling <code>cancel</code> (or <code>close</code>
+ * on its iterator), or by any stage throwing an exception (which is then rethrown to the caller).
+ * <p>
+ * The number of items handled and the time spent in each stage are counted, for measuring
+ * the throughput of each stage.
+ *
+ * @param <T> the type of items read.
+ * @param <R> the type of items processed and written.
+ */
+public class TracePipeline<T, R> {
+
+  /**
+   * Enumeration of the pipeline stages.
+   */
+  public enum Stage {
+    READ("Read"),
+    PROCESS("Process"),
+    WRITE("Write");
+
+    private final String _text;
+
+    Stage(final String text) {
+      _text = text;
+    }
+
+    @Override
+    public String toString() {
+      return _text;
+    }
+  }
+
+  /**
+   * An iterator over the items of a pipeline, which is closed to stop the pipeline
+   * if the iteration is abandoned before the last item.
+   *
+   * @param <E> the type of items.
+   */
+  public interface PipelineIterator<E> extends Iterator<E> {
+
+    /**
+     * Stops the pipeline, if still running. Further calls to <code>hasNext</code> return <i>false</i>.
+     */
+    void close();
+  }
+
+  /** The interval (in milliseconds) at which waiting threads check for cancellation. */
+  private static final long CANCEL_CHECK_INTERVAL = 100;
+
+  /** The name of the pipeline, used for naming its threads. */
+  private final String _name;
+
+  private final IPipelineReader<T> _reader;
+
+  private final int _numReaders;
+
+  /** The processor (<i>null</i> if the read items are passed straight to the write stage). */
+  private final IPipelineProcessor<T, R> _processor;
+
+  private final int _numProcessors;
+
+  /** The writer (<i>null</i> if the items are pulled thru the iterator). */
+  private final IPipelineWriter<R> _writer;
+
+  private final int _numWriters;
+
+  /** The queue between the read and process stages. */
+  private final BlockingQueue<Item<T>> _readQueue;
+
+  /** The queue between the process (or read) and write stages. */
+  private final BlockingQueue<Item<R>> _writeQueue;
+
+  /** The next sequence number to read. */
+  private final AtomicInteger _nextSequence;
+
+  /** The flag indicating if the items are consumed in sequence order (by a single writer or the iterator). */
+  private final boolean _isOrdered;
+
+  /** The maximum number of sequence numbers read ahead of the next item due in order. */
+  private final int _maxReadAhead;
+
+  /** The sequence number of the next item due in order. */
+  private final AtomicInteger _nextDueSequence;
+
+  /** The lock guarding the wait of the readers for the next item due in order to advance. */
+  private final Lock _readAheadLock;
+
+  /** The condition signaled when the next item due in order advances. */
+  private final Condition _readAheadAdvanced;
+
+  /** The number of reader threads still running. */
+  private final AtomicInteger _numActiveReaders;
+
+  /** The number of processor threads still running. */
+  private final AtomicInteger _numActiveProcessors;
+
+  /** The number of items handled by each stage. */
+  private final AtomicLong[] _itemCounts;
+
+  /** The time (in nanoseconds) spent in each stage. */
+  private final AtomicLong[] _busyTimes;
+
+  /** The executor running the stage threads. */
+  private ExecutorService _executor;
+
+  /** The progress monitor (<i>null</i> for none). */
+  private volatile IProgressMonitor _monitor;
+
+  private volatile boolean _isCanceled;
+
+  /** The 1st exception thrown by a stage. */
+  private volatile Throwable _failure;
+
+  /** The time (in nanoseconds) the pipeline was started. */
+  private long _startTime;
+
+  /** The time (in nanoseconds) the pipeline finished, or 0 if still running. */
+  private volatile long _endTime;
+
+  /**
+   * Constructs a pipeline that writes the processed items.
+   *
+   * @param name the name of the pipeline.
+   * @param reader the read stage.
+   * @param numReaders the number of reader threads.
+   * @param processor the process stage (<i>null</i> to write the items as read, in which case <code>R</code> must be <code>T</code>).
+   * @param numProcessors the number of processor threads.
+   * @param writer the write stage (<i>null</i> to pull the items thru the <code>iterator</code> method).
+   * @param numWriters the number of writer threads.
+   * @param capacity the capacity of each queue between the stages.
+   */
+  public TracePipeline(final String name, final IPipelineReader<T> reader, final int numReaders, final IPipelineProcessor<T, R> processor, final int numProcessors, final IPipelineWriter<R> writer, final int numWriters, final int capacity) {
+    if (numReaders < 1 || processor != null && numProcessors < 1 || writer != null && numWriters < 1) {
+      throw new IllegalArgumentException("Each pipeline stage requires at least 1 thread.");
+    }
+    _name = name;
+    _reader = reader;
+    _numReaders = numReaders;
+    _processor = processor;
+    _numProcessors = processor != null ? numProcessors : 0;
+    _writer = writer;
+    _numWriters = writer != null ? numWriters : 1;
+    _readQueue = new LinkedBlockingQueue<Item<T>>(capacity);
+    _writeQueue = new LinkedBlockingQueue<Item<R>>(capacity);
+    _nextSequence = new AtomicInteger(0);
+    _isOrdered = _numWriters == 1;
+    // Enough to fill both queues and every reader and processor thread, so the limit is only
+    // reached when an item holds up the items after it.
+    _maxReadAhead = 2 * capacity + _numReaders + _numProcessors;
+    _nextDueSequence = new AtomicInteger(0);
+    _readAheadLock = new ReentrantLock();
+    _readAheadAdvanced = _readAheadLock.newCondition();
+    _numActiveReaders = new AtomicInteger(_numReaders);
+    _numActiveProcessors = new AtomicInteger(_numProcessors);
+    _itemCounts = new AtomicLong[Stage.values().length];
+    _busyTimes = new AtomicLong[Stage.values().length];
+    for (int i = 0; i < _itemCounts.length; i++) {
+      _itemCounts[i] = new AtomicLong(0);
+      _busyTimes[i] = new AtomicLong(0);
+    }
+  }
+
+  /**
+   * Creates a pipeline that reads the items of an iterator ahead of the consumer, on a single
+   * background thread. The items are pulled thru the <code>iterator</code> method.
+   *
+   * @param name the name of the pipeline.
+   * @param iterator the iterator of items to read ahead.
+   * @param capacity the maximum number of items read ahead.
+   * @return the pipeline.
+   */
+  public static <T> TracePipeline<T, T> createPrefetcher(final String name, final Iterator<T> iterator, final int capacity) {
+    IPipelineReader<T> reader = new IPipelineReader<T>() {
+
+      public T read(final int sequence) {
+        return iterator.hasNext() ? iterator.next() : null;
+      }
+    };
+    return new TracePipeline<T, T>(name, reader, 1, null, 0, null, 0, capacity);
+  }
+
+  /**
+   * Starts the threads of each stage.
+   *
+   * @param monitor the progress monitor used for cancellation (<i>null</i> for none).
+   */
+  public synchronized void start(final IProgressMonitor monitor) {
+    if (_executor != null) {
+      throw new IllegalStateException("The pipeline has already been started.");
+    }
+    _monitor = monitor;
+    _startTime = System.nanoTime();
+    _executor = Executors.newFixedThreadPool(_numReaders + _numProcessors + (_writer != null ? _numWriters : 0),
+        new StageThreadFactory());
+    for (int i = 0; i < _numReaders; i++) {
+      _executor.execute(new ReadStage());
+    }
+    for (int i = 0; i < _numProcessors; i++) {
+      _executor.execute(new ProcessStage());
+    }
+    if (_writer != null) {
+      for (int i = 0; i < _numWriters; i++) {
+        _executor.execute(_numWriters == 1 ? new OrderedWriteStage() : new WriteStage());
+      }
+    }
+    _executor.shutdown();
+  }
+
+  /**
+   * Runs the pipeline to completion (or cancellation), blocking the calling thread.
+   *
+   * @param monitor the progress monitor used for cancellation (<i>null</i> for none).
+   * @throws Exception the 1st exception thrown by any stage.
+   */
+  public void run(final IProgressMonitor monitor) throws Exception {
+    if (_writer == null) {
+      throw new IllegalStateException("The pipeline has no write stage; use the iterator to pull the items.");
+    }
+    start(monitor);
+    try {
+      while (!_executor.awaitTermination(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+        if (isCanceled()) {
+          cancel();
+        }
+      }
+    } catch (InterruptedException ex) {
+      cancel();
+      Thread.currentThread().interrupt();
+    }
+    checkFailure();
+  }
+
+  /**
+   * Returns an iterator over the processed items, in read order.
+   * The pipeline is started (without a progress monitor) if not already started.
+   * The iterator ends early if the pipeline is canceled. Close the iterator if the
+   * iteration is abandoned before the last item, to stop the pipeline threads.
+   *
+   * @return the iterator over the processed items.
+   */
+  public PipelineIterator<R> iterator() {
+    if (_writer != null) {
+      throw new IllegalStateException("The pipeline items are consumed by its write stage.");
+    }
+    synchronized (this) {
+      if (_executor == null) {
+        start(null);
+      }
+    }
+    return new PipelineIterator<R>() {
+
+      private final Reorderer _reorderer = new Reorderer();
+
+      private Item<R> _next;
+
+      public boolean hasNext() {
+        if (_next == null) {
+          try {
+            _next = _reorderer.next();
+          } catch (InterruptedException ex) {
+            cancel();
+            Thread.currentThread().interrupt();
+          }
+          if (_next == null) {
+            checkFailureUnchecked();
+          }
+        }
+        return _next != null;
+      }
+
+      public R next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException("No more items.");
+        }
+        R value = _next._value;
+        _next = null;
+        return value;
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException("Cannot remove items.");
+      }
+
+      public void close() {
+        _next = null;
+        cancel();
+      }
+    };
+  }
+
+  /**
+   * Cancels the pipeline, interrupting the stage threads.
+   */
+  public synchronized void cancel() {
+    _isCanceled = true;
+    if (_executor != null) {
+      _executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns <i>true</i> if the pipeline has been canceled, either directly or by the progress monitor.
+   */
+  public boolean isCanceled() {
+    IProgressMonitor monitor = _monitor;
+    return _isCanceled || _failure != null || monitor != null && monitor.isCanceled();
+  }
+
+  /**
+   * Returns the number of items handled by a stage.
+   *
+   * @param stage the pipeline stage.
+   * @return the number of items.
+   */
+  public long getItemCount(final Stage stage) {
+    return _itemCounts[stage.ordinal()].get();
+  }
+
+  /**
+   * Returns the total time (in milliseconds) spent by the threads of a stage handling items.
+   * This excludes any time spent waiting on the other stages.
+   *
+   * @param stage the pipeline stage.
+   * @return the total time (in milliseconds).
+   */
+  public long getBusyTime(final Stage stage) {
+    return _busyTimes[stage.ordinal()].get() / 1000000;
+  }
+
+  /**
+   * Returns the throughput (in items per second) of a stage, since the pipeline was started.
+   *
+   * @param stage the pipeline stage.
+   * @return the throughput (in items per second).
+   */
+  public double getThroughput(final Stage stage) {
+    long endTime = _endTime != 0 ? _endTime : System.nanoTime();
+    double seconds = (endTime - _startTime) / 1e9;
+    return seconds > 0 ? getItemCount(stage) / seconds : 0;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder(_name);
+    for (Stage stage : Stage.values()) {
+      builder.append(" | " + stage + ": " + getItemCount(stage) + " items, " + Math.round(getThroughput(stage))
+          + " items/s, " + getBusyTime(stage) + " ms busy");
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Records the failure of a stage, and cancels the pipeline.
+   */
+  private void fail(final Throwable throwable) {
+    if (_failure == null) {
+      _failure = throwable;
+    }
+    cancel();
+  }
+
+  /**
+   * Rethrows the 1st exception thrown by any stage.
+   */
+  private void checkFailure() throws Exception {
+    Throwable failure = _failure;
+    if (failure instanceof Exception) {
+      throw (Exception) failure;
+    } else if (failure != null) {
+      throw new RuntimeException(failure);
+    }
+  }
+
+  /**
+   * Rethrows the 1st exception thrown by any stage, as an unchecked exception.
+   */
+  private void checkFailureUnchecked() {
+    Throwable failure = _failure;
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure != null) {
+      throw new RuntimeException(failure);
+    }
+  }
+
+  /**
+   * Adds the time since the specified start time to the counters of a stage.
+   */
+  private void count(final Stage stage, final long startTime) {
+    _itemCounts[stage.ordinal()].incrementAndGet();
+    _busyTimes[stage.ordinal()].addAndGet(System.nanoTime() - startTime);
+  }
+
+  /**
+   * Takes the next item from a queue, checking periodically for cancellation.
+   *
+   * @return the next item, or <i>null</i> if the pipeline has been canceled.
+   */
+  private <E> Item<E> take(final BlockingQueue<Item<E>> queue) throws InterruptedException {
+    Item<E> item = null;
+    while (item == null && !isCanceled()) {
+      item = queue.poll(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+    return item;
+  }
+
+  /**
+   * Puts an item into a queue, waiting for space and checking periodically for cancellation.
+   *
+   * @return <i>true</i> if the item was put; <i>false</i> if the pipeline has been canceled.
+   */
+  private <E> boolean put(final BlockingQueue<Item<E>> queue, final Item<E> item) throws InterruptedException {
+    while (!queue.offer(item, CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+      if (isCanceled()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Puts the end-of-data marker into a queue, once for each of the consuming threads.
+   */
+  @SuppressWarnings("unchecked")
+  private <E> void putEndOfData(final BlockingQueue<Item<E>> queue, final int numConsumers)
+      throws InterruptedException {
+    for (int i = 0; i < numConsumers; i++) {
+      if (!put(queue, (Item<E>) Item.END_OF_DATA)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Waits until a sequence number is within the read-ahead limit of the next item due in order.
+   *
+   * @return <i>true</i> if the item can be read; <i>false</i> if the pipeline has been canceled.
+   */
+  private boolean awaitReadAhead(final int sequence) throws InterruptedException {
+    if (!_isOrdered) {
+      return true;
+    }
+    while (sequence >= _nextDueSequence.get() + _maxReadAhead) {
+      if (isCanceled()) {
+        return false;
+      }
+      _readAheadLock.lock();
+      try {
+        if (sequence >= _nextDueSequence.get() + _maxReadAhead) {
+          _readAheadAdvanced.await(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+      } finally {
+        _readAheadLock.unlock();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Advances the next item due in order, releasing any reader waiting on it.
+   */
+  private void advanceDueSequence(final int sequence) {
+    _nextDueSequence.set(sequence);
+    _readAheadLock.lock();
+    try {
+      _readAheadAdvanced.signalAll();
+    } finally {
+      _readAheadLock.unlock();
+    }
+  }
+
+  /**
+   * An item in the pipeline, tagged with its sequence number.
+   */
+  private static class Item<E> {
+
+    /** The "poison pill" marking the end of the data. */
+    static final Item<Object> END_OF_DATA = new Item<Object>(-1, null);
+
+    final int _sequence;
+
+    final E _value;
+
+    Item(final int sequence, final E value) {
+      _sequence = sequence;
+      _value = value;
+    }
+  }
+
+  /**
+   * The read stage, which claims sequence numbers and reads the items.
+   */
+  private class ReadStage implements Runnable {
+
+    @SuppressWarnings("unchecked")
+    public void run() {
+      try {
+        while (!isCanceled()) {
+          int sequence = _nextSequence.getAndIncrement();
+          if (!awaitReadAhead(sequence)) {
+            break;
+          }
+          long startTime = System.nanoTime();
+          T value = _reader.read(sequence);
+          if (value == null) {
+            break;
+          }
+          count(Stage.READ, startTime);
+          boolean isPut = _processor != null ? put(_readQueue, new Item<T>(sequence, value)) : put(_writeQueue,
+              new Item<R>(sequence, (R) value));
+          if (!isPut) {
+            break;
+          }
+        }
+        if (_numActiveReaders.decrementAndGet() == 0 && !isCanceled()) {
+          if (_processor != null) {
+            putEndOfData(_readQueue, _numProcessors);
+          } else {
+            putEndOfData(_writeQueue, _numWriters);
+          }
+        }
+      } catch (InterruptedException ex) {
+        // The pipeline has been canceled.
+      } catch (Throwable t) {
+        fail(t);
+      }
+    }
+  }
+
+  /**
+   * The process stage, which processes the read items.
+   */
+  private class ProcessStage implements Runnable {
+
+    public void run() {
+      try {
+        while (true) {
+          Item<T> item = take(_readQueue);
+          if (item == null || item == Item.END_OF_DATA) {
+            break;
+          }
+          long startTime = System.nanoTime();
+          R value = _processor.process(item._value);
+          count(Stage.PROCESS, startTime);
+          if (!put(_writeQueue, new Item<R>(item._sequence, value))) {
+            break;
+          }
+        }
+        if (_numActiveProcessors.decrementAndGet() == 0 && !isCanceled()) {
+          putEndOfData(_writeQueue, _numWriters);
+        }
+      } catch (InterruptedException ex) {
+        // The pipeline has been canceled.
+      } catch (Throwable t) {
+        fail(t);
+      }
+    }
+  }
+
+  /**
+   * The write stage for multiple writer threads, which writes the items as they arrive.
+   */
+  private class WriteStage implements Runnable {
+
+    public void run() {
+      try {
+        while (true) {
+          Item<R> item = take(_writeQueue);
+          if (item == null || item == Item.END_OF_DATA) {
+            break;
+          }
+          if (item._value != null) {
+            long startTime = System.nanoTime();
+            _writer.write(item._sequence, item._value);
+            count(Stage.WRITE, startTime);
+          }
+        }
+      } catch (InterruptedException ex) {
+        // The pipeline has been canceled.
+      } catch (Throwable t) {
+        fail(t);
+      } finally {
+        _endTime = System.nanoTime();
+      }
+    }
+  }
+
+  /**
+   * The write stage for a single writer thread, which writes the items in sequence order.
+   */
+  private class OrderedWriteStage implements Runnable {
+
+    public void run() {
+      try {
+        Reorderer reorderer = new Reorderer();
+        Item<R> item = reorderer.next();
+        while (item != null) {
+          long startTime = System.nanoTime();
+          _writer.write(item._sequence, item._value);
+          count(Stage.WRITE, startTime);
+          item = reorderer.next();
+        }
+      } catch (InterruptedException ex) {
+        // The pipeline has been canceled.
+      } catch (Throwable t) {
+        fail(t);
+      } finally {
+        _endTime = System.nanoTime();
+      }
+    }
+  }
+
+  /**
+   * Restores the sequence order of the items arriving at the write stage,
+   * by holding any that arrive ahead of their turn. The readers are held back
+   * (see <code>awaitReadAhead</code>), so at most <code>_maxReadAhead</code> items are held.
+   */
+  private class Reorderer {
+
+    private final Map<Integer, Item<R>> _pending = new HashMap<Integer, Item<R>>();
+
+    private int _releaseSequence = 0;
+
+    private boolean _isEndOfData = false;
+
+    /**
+     * Returns the next non-null item in sequence order, or <i>null</i> at the end of the data
+     * (or if the pipeline has been canceled).
+     */
+    Item<R> next() throws InterruptedException {
+      while (true) {
+        Item<R> item = _pending.remove(_releaseSequence);
+        if (item != null) {
+          _releaseSequence++;
+          advanceDueSequence(_releaseSequence);
+          if (item._value != null) {
+            return item;
+          }
+          continue;
+        }
+        if (_isEndOfData) {
+          _endTime = System.nanoTime();
+          return null;
+        }
+        item = take(_writeQueue);
+        if (item == null) {
+          return null;
+        } else if (item == Item.END_OF_DATA) {
+          _isEndOfData = true;
+        } else {
+          if (_writer == null) {
+            // Count the items pulled thru the iterator as written.
+            _itemCounts[Stage.WRITE.ordinal()].incrementAndGet();
+          }
+          _pending.put(item._sequence, item);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates the daemon threads for the pipeline stages, so an abandoned pipeline does not prevent shutdown.
+   */
+  private class StageThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger _threadCount = new AtomicInteger(0);
+
+    public Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(runnable, _name + " pipeline-" + _threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -5,6 +5,8 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 
 import org.geocraft.internal.math.ComplexFloatTest;
+import org.geocraft.math.fft.FFTTest;
+import org.geocraft.math.fft.SpectralFilterTest;
 
 
 public class AllTests {
@@ -13,6 +15,8 @@ public class AllTests {
     TestSuite suite = new TestSuite("Test for org.geocraft.math");
     //$JUnit-BEGIN$
     suite.addTestSuite(ComplexFloatTest.class);
+    suite.addTestSuite(FFTTest.class);
+    suite.addTestSuite(SpectralFilterTest.class);
     //$JUnit-END$
     return suite;
   }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.math.fft;
+
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.geocraft.math.wavelet.WaveletFilter;
+
+
+public class FFTTest extends TestCase {
+
+  private static final int[] LENGTHS = { 1, 2, 3, 4, 5, 6, 7, 8, 12, 16, 18, 30, 49, 64, 96, 100, 121, 160, 250, 288 };
+
+  public void testForwardMatchesDFT() {
+    Random random = new Random(1);
+    for (int n : LENGTHS) {
+      float[] data = randomArray(random, 2 * n);
+      double[] expected = dft(data, n, -1);
+      FFT.getPlan(n).forward(data);
+      assertArrayEquals("n=" + n, expected, data, 1e-4 * n);
+    }
+  }
+
+  public void testInverseRestoresData() {
+    Random random = new Random(2);
+    for (int n : LENGTHS) {
+      float[] data = randomArray(random, 2 * n);
+      float[] copy = data.clone();
+      FFTPlan plan = FFT.getPlan(n);
+      plan.forward(data);
+      plan.inverse(data);
+      assertArrayEquals("n=" + n, toDouble(copy), data, 1e-5 * n);
+    }
+  }
+
+  public void testRealForwardMatchesComplex() {
+    Random random = new Random(3);
+    for (int n : LENGTHS) {
+      float[] samples = randomArray(random, n);
+      float[] complex = new float[2 * n];
+      for (int i = 0; i < n; i++) {
+        complex[2 * i] = samples[i];
+      }
+      double[] expected = dft(complex, n, -1);
+      FFTPlan plan = FFT.getPlan(n);
+      float[] spectrum = new float[2 * plan.getNumFrequencies()];
+      plan.realForward(samples, spectrum);
+      for (int k = 0; k < plan.getNumFrequencies(); k++) {
+        assertEquals("n=" + n + " k=" + k, expected[2 * k], spectrum[2 * k], 1e-4 * n);
+        assertEquals("n=" + n + " k=" + k, expected[2 * k + 1], spectrum[2 * k + 1], 1e-4 * n);
+      }
+    }
+  }
+
+  public void testRealInverseRestoresSamples() {
+    Random random = new Random(4);
+    for (int n : LENGTHS) {
+      float[] samples = randomArray(random, n);
+      FFTPlan plan = FFT.getPlan(n);
+      float[] spectrum = new float[2 * plan.getNumFrequencies()];
+      float[] result = new float[n];
+      plan.realForward(samples, spectrum);
+      plan.realInverse(spectrum, result);
+      assertArrayEquals("n=" + n, toDouble(samples), result, 1e-5 * n);
+    }
+  }
+
+  public void testBatch() {
+    Random random = new Random(5);
+    int n = 40;
+    float[][] traces = new float[7][];
+    float[][] spectra = new float[7][];
+    for (int i = 0; i < traces.length; i++) {
+      traces[i] = randomArray(random, n);
+      spectra[i] = new float[2 * (n / 2 + 1)];
+    }
+    FFTPlan plan = FFT.getPlan(n);
+    FFT.realForward(plan, traces, spectra);
+    for (int i = 0; i < traces.length; i++) {
+      float[] expected = FFT.realForward(traces[i]);
+      assertArrayEquals("trace=" + i, toDouble(expected), spectra[i], 0);
+    }
+    float[][] results = new float[7][n];
+    FFT.realInverse(plan, spectra, results);
+    for (int i = 0; i < traces.length; i++) {
+      assertArrayEquals("trace=" + i, toDouble(traces[i]), results[i], 1e-4);
+    }
+  }
+
+  public void testPlansAreCached() {
+    assertSame(FFT.getPlan(360), FFT.getPlan(360));
+  }
+
+  public void testComputeSize() {
+    assertEquals(2, FFT.computeSize(1));
+    assertEquals(64, FFT.computeSize(64));
+    assertEquals(72, FFT.computeSize(65));
+    assertEquals(80, FFT.computeSize(73));
+    assertEquals(96, FFT.computeSize(81));
+    assertEquals(128, FFT.computeSize(97));
+  }
+
+  public void testWaveletPhaseOfDelayedSpike() {
+    // A spike delayed by 1 sample lags by 360 * k / fn degrees at frequency index k.
+    int fn = 16;
+    float[] values = { 0, 1, 0, 0 };
+    float[] amplitude = new float[fn / 2 + 1];
+    float[] phase = new float[fn / 2 + 1];
+    WaveletFilter.computeSpectrum(values, amplitude, phase, values.length, 0, fn);
+    for (int k = 0; k < fn / 2; k++) {
+      assertEquals("k=" + k, 1, amplitude[k], 1e-5);
+      assertEquals("k=" + k, -360.0 * k / fn, phase[k], 1e-3);
+    }
+  }
+
+  public void testWaveletPhaseOfAsymmetricWavelet() {
+    // The phase spectrum keeps the sign convention of the wavelet viewer, which takes the negated
+    // phase of the exp(+i) transform.
+    int fn = 32;
+    float[] values = { 0.25f, 1, -0.5f, 0.125f, 0, 0 };
+    float[] amplitude = new float[fn / 2 + 1];
+    float[] phase = new float[fn / 2 + 1];
+    WaveletFilter.computeSpectrum(values, amplitude, phase, values.length, 0, fn);
+    float[] complex = new float[2 * fn];
+    for (int i = 0; i < values.length; i++) {
+      complex[2 * i] = values[i];
+    }
+    double[] spectrum = dft(complex, fn, 1);
+    // The phase at the Nyquist frequency is +/-180 degrees, depending on the sign of a zero imaginary part.
+    for (int k = 0; k < fn / 2; k++) {
+      double expected = -180 / Math.PI * Math.atan2(spectrum[2 * k + 1], spectrum[2 * k]);
+      assertEquals("k=" + k, Math.hypot(spectrum[2 * k], spectrum[2 * k + 1]), amplitude[k], 1e-5);
+      assertEquals("k=" + k, expected, phase[k], 1e-3);
+    }
+  }
+
+  private static float[] randomArray(final Random random, final int length) {
+    float[] array = new float[length];
+    for (int i = 0; i < length; i++) {
+      array[i] = random.nextFloat() * 2 - 1;
+    }
+    return array;
+  }
+
+  private static double[] toDouble(final float[] array) {
+    double[] result = new double[array.length];
+    for (int i = 0; i < array.length; i++) {
+      result[i] = array[i];
+    }
+    return result;
+  }
+
+  /**
+   * Computes the discrete Fourier transform directly, in double precision.
+   */
+  private static double[] dft(final float[] data, final int n, final int sign) {
+    double[] result = new double[2 * n];
+    for (int k = 0; k < n; k++) {
+      double sr = 0;
+      double si = 0;
+      for (int j = 0; j < n; j++) {
+        double angle = sign * 2 * Math.PI * ((long) j * k % n) / n;
+        double c = Math.cos(angle);
+        double s = Math.sin(angle);
+        sr += data[2 * j] * c - data[2 * j + 1] * s;
+        si += data[2 * j] * s + data[2 * j + 1] * c;
+      }
+      result[2 * k] = sr;
+      result[2 * k + 1] = si;
+    }
+    return result;
+  }
+
+  private static void assertArrayEquals(final String message, final double[] expected, final float[] actual,
+      final double tolerance) {
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(message + " i=" + i, expected[i], actual[i], tolerance);
+    }
+  }
+}
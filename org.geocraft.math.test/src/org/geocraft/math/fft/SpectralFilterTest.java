@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.math.fft;
+
+
+import junit.framework.TestCase;
+
+
+public class SpectralFilterTest extends TestCase {
+
+  public void testConvolutionMatchesDirect() {
+    int numSamples = 50;
+    float[] operator = { 0.25f, -1, 2, 0.5f, -0.75f };
+    int zeroIndex = 2;
+    float[] trace = new float[numSamples];
+    for (int i = 0; i < numSamples; i++) {
+      trace[i] = (float) Math.sin(i * 0.37) + (i % 7 == 0 ? 1 : 0);
+    }
+
+    // Direct convolution, with the zero-time sample of the operator aligned to each output sample.
+    float[] expected = new float[numSamples];
+    for (int i = 0; i < numSamples; i++) {
+      for (int j = 0; j < operator.length; j++) {
+        int k = i - (j - zeroIndex);
+        if (k >= 0 && k < numSamples) {
+          expected[i] += operator[j] * trace[k];
+        }
+      }
+    }
+
+    SpectralFilter filter = SpectralFilter.createConvolution(numSamples, operator, zeroIndex, false);
+    float[][] traces = { trace };
+    filter.apply(traces);
+    for (int i = 0; i < numSamples; i++) {
+      assertEquals("i=" + i, expected[i], traces[0][i], 1e-4);
+    }
+  }
+
+  public void testBandpass() {
+    int numSamples = 500;
+    float sampleInterval = 0.004f;
+    float[] inBand = new float[numSamples];
+    float[] outOfBand = new float[numSamples];
+    for (int i = 0; i < numSamples; i++) {
+      double t = i * sampleInterval;
+      inBand[i] = (float) Math.sin(2 * Math.PI * 30 * t);
+      outOfBand[i] = (float) Math.sin(2 * Math.PI * 100 * t);
+    }
+    float[][] traces = { inBand.clone(), outOfBand.clone() };
+    SpectralFilter filter = SpectralFilter.createBandpass(numSamples, sampleInterval, 10, 20, 40, 60);
+    filter.apply(traces);
+
+    // Compare away from the ends of the trace, where the truncated sinusoids leak.
+    for (int i = 100; i < 400; i++) {
+      assertEquals("i=" + i, inBand[i], traces[0][i], 0.05);
+      assertEquals("i=" + i, 0, traces[1][i], 0.05);
+    }
+  }
+
+  public void testDeconvolutionRecoversSpikes() {
+    int numSamples = 200;
+    float[] wavelet = { -0.2f, 0.5f, 1, 0.5f, -0.2f };
+    int zeroIndex = 2;
+    float[] reflectivity = new float[numSamples];
+    reflectivity[50] = 1;
+    reflectivity[120] = -0.5f;
+    float[][] traces = { reflectivity.clone() };
+    SpectralFilter.createConvolution(numSamples, wavelet, zeroIndex, false).apply(traces);
+    SpectralFilter.createDeconvolution(numSamples, wavelet, zeroIndex, 0.0001f).apply(traces);
+    for (int i = 0; i < numSamples; i++) {
+      assertEquals("i=" + i, reflectivity[i], traces[0][i], 0.05);
+    }
+  }
+
+  public void testPreserveRms() {
+    int numSamples = 64;
+    float[] trace = new float[numSamples];
+    for (int i = 0; i < numSamples; i++) {
+      trace[i] = (float) Math.cos(i * 0.5);
+    }
+    float[][] traces = { trace.clone() };
+    SpectralFilter.createConvolution(numSamples, new float[] { 3, 1 }, 0, true).apply(traces);
+    assertEquals(rms(trace), rms(traces[0]), 1e-4);
+  }
+
+  private static double rms(final float[] values) {
+    double sum = 0;
+    for (float value : values) {
+      sum += value * value;
+    }
+    return Math.sqrt(sum / values.length);
+  }
+}
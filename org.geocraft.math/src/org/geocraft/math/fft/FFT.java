@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.math.fft;
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Entry point to the fast Fourier transforms.
+ * <p>
+ * The plans are cached by length, so the factorization and twiddle factors of a length
+ * are only computed the first time it is used. The batch methods transform many traces
+ * of the same length with a single plan and without allocating any intermediate arrays.
+ * <p>
+ * See {@link FFTPlan} for the data layout and scaling conventions.
+ */
+public final class FFT {
+
+  /** The cached plans, by length. */
+  private static final Map<Integer, FFTPlan> PLANS = new HashMap<Integer, FFTPlan>();
+
+  private FFT() {
+    // Prevent instantiation.
+  }
+
+  /**
+   * Returns the plan for the specified length, creating and caching it if necessary.
+   *
+   * @param length the transform length.
+   * @return the plan.
+   */
+  public static FFTPlan getPlan(final int length) {
+    synchronized (PLANS) {
+      FFTPlan plan = PLANS.get(length);
+      if (plan == null) {
+        plan = new FFTPlan(length);
+        PLANS.put(length, plan);
+      }
+      return plan;
+    }
+  }
+
+  /**
+   * Clears the cached plans.
+   */
+  public static void clearPlans() {
+    synchronized (PLANS) {
+      PLANS.clear();
+    }
+  }
+
+  /**
+   * Computes an efficient transform length, at least as long as the specified number
+   * of samples. The length is the smallest of 2^k, 3*2^k, 5*2^k and 9*2^k that is large enough.
+   *
+   * @param numSamples the number of samples.
+   * @return the transform length.
+   */
+  public static int computeSize(final int numSamples) {
+    int i = 2;
+    while (i < numSamples) {
+      i <<= 1;
+    }
+    int size = i;
+    int altSize = i / 4 * 3;
+    if (altSize >= numSamples) {
+      size = altSize;
+    }
+    altSize = i / 8 * 5;
+    if (altSize >= numSamples) {
+      size = altSize;
+    }
+    altSize = i / 16 * 9;
+    if (altSize >= numSamples) {
+      size = altSize;
+    }
+    return size;
+  }
+
+  /**
+   * Computes the forward complex transform, in place.
+   *
+   * @param data the interleaved complex data, whose length is twice the transform length.
+   */
+  public static void forward(final float[] data) {
+    getPlan(data.length / 2).forward(data);
+  }
+
+  /**
+   * Computes the inverse complex transform (scaled by 1/n), in place.
+   *
+   * @param data the interleaved complex data, whose length is twice the transform length.
+   */
+  public static void inverse(final float[] data) {
+    getPlan(data.length / 2).inverse(data);
+  }
+
+  /**
+   * Computes the forward transform of real data.
+   *
+   * @param samples the real samples, whose length is the transform length.
+   * @return the interleaved complex spectrum of the non-negative frequencies.
+   */
+  public static float[] realForward(final float[] samples) {
+    FFTPlan plan = getPlan(samples.length);
+    float[] spectrum = new float[2 * plan.getNumFrequencies()];
+    plan.realForward(samples, spectrum);
+    return spectrum;
+  }
+
+  /**
+   * Computes the forward complex transforms of a batch of traces, in place.
+   *
+   * @param data the interleaved complex traces, all of the same length.
+   */
+  public static void forward(final float[][] data) {
+    if (data.length == 0) {
+      return;
+    }
+    FFTPlan plan = getPlan(data[0].length / 2);
+    for (float[] trace : data) {
+      plan.forward(trace);
+    }
+  }
+
+  /**
+   * Computes the inverse complex transforms (scaled by 1/n) of a batch of traces, in place.
+   *
+   * @param data the interleaved complex traces, all of the same length.
+   */
+  public static void inverse(final float[][] data) {
+    if (data.length == 0) {
+      return;
+    }
+    FFTPlan plan = getPlan(data[0].length / 2);
+    for (float[] trace : data) {
+      plan.inverse(trace);
+    }
+  }
+
+  /**
+   * Computes the forward transforms of a batch of real traces.
+   *
+   * @param plan the plan of the trace length.
+   * @param traces the real traces.
+   * @param spectra the output interleaved complex spectra, each of length 2*(n/2+1).
+   */
+  public static void realForward(final FFTPlan plan, final float[][] traces, final float[][] spectra) {
+    for (int i = 0; i < traces.length; i++) {
+      plan.realForward(traces[i], spectra[i]);
+    }
+  }
+
+  /**
+   * Computes the inverse transforms (scaled by 1/n) of a batch of spectra of real traces.
+   *
+   * @param plan the plan of the trace length.
+   * @param spectra the interleaved complex spectra, each of length 2*(n/2+1).
+   * @param traces the output real traces.
+   */
+  public static void realInverse(final FFTPlan plan, final float[][] spectra, final float[][] traces) {
+    for (int i = 0; i < spectra.length; i++) {
+      plan.realInverse(spectra[i], traces[i]);
+    }
+  }
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.math.fft;
+
+
+/**
+ * A plan for computing the discrete Fourier transform of a given length.
+ * <p>
+ * The plan holds the factorization of the length and a table of twiddle factors, so
+ * these are computed once per length rather than once per transform. Plans are immutable
+ * and can be shared by any number of threads; use {@link FFT#getPlan(int)} to get the
+ * cached plan for a length.
+ * <p>
+ * Complex data is stored in interleaved primitive arrays (real, imaginary, real, imaginary, ...).
+ * Any length is supported, using radix-4 and radix-2 butterflies where possible and a
+ * general butterfly for the remaining factors. The forward transform uses the exp(-i...)
+ * convention and is unscaled; the inverse transform is scaled by 1/n, so the inverse of
+ * a forward transform returns the original data.
+ * <p>
+ * The real transforms take n real samples to the n/2+1 non-negative frequencies
+ * (i.e. 2*(n/2+1) floats). For an even length, they are computed with a complex
+ * transform of half the length.
+ */
+public final class FFTPlan {
+
+  /** The scratch space of each thread, grown as needed. */
+  private static final ThreadLocal<float[]> SCRATCH = new ThreadLocal<float[]>();
+
+  /** The transform length. */
+  private final int _length;
+
+  /** The factors of the length, in the order the butterflies are applied. */
+  private final int[] _factors;
+
+  /** The cosine table: cos(2*PI*k/n). */
+  private final float[] _cos;
+
+  /** The sine table: sin(2*PI*k/n). */
+  private final float[] _sin;
+
+  /** The plan of half the length, used by the real transforms (lazily created). */
+  private volatile FFTPlan _halfPlan;
+
+  /**
+   * Constructs a plan for the specified length.
+   * Use {@link FFT#getPlan(int)} rather than constructing plans directly.
+   *
+   * @param length the transform length.
+   */
+  FFTPlan(final int length) {
+    if (length < 1) {
+      throw new IllegalArgumentException("Invalid FFT length: " + length);
+    }
+    _length = length;
+    _factors = factor(length);
+    _cos = new float[length];
+    _sin = new float[length];
+    for (int k = 0; k < length; k++) {
+      double angle = 2 * Math.PI * k / length;
+      _cos[k] = (float) Math.cos(angle);
+      _sin[k] = (float) Math.sin(angle);
+    }
+  }
+
+  /**
+   * Returns the transform length.
+   */
+  public int getLength() {
+    return _length;
+  }
+
+  /**
+   * Returns the number of non-negative frequencies of a real transform (n/2+1).
+   */
+  public int getNumFrequencies() {
+    return _length / 2 + 1;
+  }
+
+  /**
+   * Computes the forward complex transform, in place.
+   *
+   * @param data the interleaved complex data, of length 2*n.
+   */
+  public void forward(final float[] data) {
+    checkLength(data, 2 * _length);
+    float[] scratch = getScratch(2 * _length);
+    transform(data, 0, scratch, 0, -1);
+  }
+
+  /**
+   * Computes the inverse complex transform (scaled by 1/n), in place.
+   *
+   * @param data the interleaved complex data, of length 2*n.
+   */
+  public void inverse(final float[] data) {
+    checkLength(data, 2 * _length);
+    float[] scratch = getScratch(2 * _length);
+    transform(data, 0, scratch, 0, 1);
+    scale(data, 0, 2 * _length, 1f / _length);
+  }
+
+  /**
+   * Computes the forward transform of real data.
+   *
+   * @param samples the real samples, of length n.
+   * @param spectrum the output interleaved complex spectrum, of length 2*(n/2+1).
+   */
+  public void realForward(final float[] samples, final float[] spectrum) {
+    checkLength(samples, _length);
+    checkLength(spectrum, 2 * getNumFrequencies());
+    if (_length % 2 != 0) {
+      // Odd length: transform the samples as complex data with zero imaginary parts.
+      float[] scratch = getScratch(4 * _length);
+      for (int i = 0; i < _length; i++) {
+        scratch[2 * i] = samples[i];
+        scratch[2 * i + 1] = 0;
+      }
+      transform(scratch, 0, scratch, 2 * _length, -1);
+      System.arraycopy(scratch, 0, spectrum, 0, 2 * getNumFrequencies());
+      return;
+    }
+
+    // Even length: pack the even and odd samples as the real and imaginary parts
+    // of a complex sequence of half the length, then split its transform.
+    int half = _length / 2;
+    System.arraycopy(samples, 0, spectrum, 0, _length);
+    FFTPlan halfPlan = getHalfPlan();
+    halfPlan.transform(spectrum, 0, getScratch(_length), 0, -1);
+
+    float z0r = spectrum[0];
+    float z0i = spectrum[1];
+    spectrum[0] = z0r + z0i;
+    spectrum[1] = 0;
+    spectrum[_length] = z0r - z0i;
+    spectrum[_length + 1] = 0;
+    for (int k = 1; k <= half / 2; k++) {
+      int m = half - k;
+      float zkr = spectrum[2 * k];
+      float zki = spectrum[2 * k + 1];
+      float zmr = spectrum[2 * m];
+      float zmi = spectrum[2 * m + 1];
+      // E = (Z[k] + conj(Z[m])) / 2, O = (Z[k] - conj(Z[m])) / 2i.
+      float er = 0.5f * (zkr + zmr);
+      float ei = 0.5f * (zki - zmi);
+      float or = 0.5f * (zki + zmi);
+      float oi = -0.5f * (zkr - zmr);
+      // W*O, where W = exp(-2*PI*i*k/n).
+      float wr = _cos[k];
+      float wi = -_sin[k];
+      float tr = wr * or - wi * oi;
+      float ti = wr * oi + wi * or;
+      // X[k] = E + W*O, X[m] = conj(E - W*O).
+      spectrum[2 * k] = er + tr;
+      spectrum[2 * k + 1] = ei + ti;
+      spectrum[2 * m] = er - tr;
+      spectrum[2 * m + 1] = ti - ei;
+    }
+  }
+
+  /**
+   * Computes the inverse transform (scaled by 1/n) of the spectrum of real data.
+   * The spectrum is assumed to be that of real data, so the imaginary parts of the
+   * zero (and for an even length, the Nyquist) frequency are ignored.
+   *
+   * @param spectrum the interleaved complex spectrum, of length 2*(n/2+1).
+   * @param samples the output real samples, of length n.
+   */
+  public void realInverse(final float[] spectrum, final float[] samples) {
+    checkLength(spectrum, 2 * getNumFrequencies());
+    checkLength(samples, _length);
+    if (_length % 2 != 0) {
+      // Odd length: rebuild the full conjugate-symmetric spectrum and transform it.
+      float[] scratch = getScratch(4 * _length);
+      scratch[0] = spectrum[0];
+      scratch[1] = 0;
+      for (int k = 1; k < getNumFrequencies(); k++) {
+        scratch[2 * k] = spectrum[2 * k];
+        scratch[2 * k + 1] = spectrum[2 * k + 1];
+        scratch[2 * (_length - k)] = spectrum[2 * k];
+        scratch[2 * (_length - k) + 1] = -spectrum[2 * k + 1];
+      }
+      transform(scratch, 0, scratch, 2 * _length, 1);
+      float factor = 1f / _length;
+      for (int i = 0; i < _length; i++) {
+        samples[i] = scratch[2 * i] * factor;
+      }
+      return;
+    }
+
+    // Even length: rebuild the complex sequence of half the length, whose inverse
+    // transform holds the even and odd samples as its real and imaginary parts.
+    int half = _length / 2;
+    float x0 = spectrum[0];
+    float xh = spectrum[_length];
+    samples[0] = 0.5f * (x0 + xh);
+    samples[1] = 0.5f * (x0 - xh);
+    for (int k = 1; k <= half / 2; k++) {
+      int m = half - k;
+      float xkr = spectrum[2 * k];
+      float xki = spectrum[2 * k + 1];
+      float xmr = spectrum[2 * m];
+      float xmi = spectrum[2 * m + 1];
+      // E = (X[k] + conj(X[m])) / 2, W*O = (X[k] - conj(X[m])) / 2.
+      float er = 0.5f * (xkr + xmr);
+      float ei = 0.5f * (xki - xmi);
+      float tr = 0.5f * (xkr - xmr);
+      float ti = 0.5f * (xki + xmi);
+      // O = (W*O) * conj(W), where W = exp(-2*PI*i*k/n).
+      float wr = _cos[k];
+      float wi = _sin[k];
+      float or = tr * wr - ti * wi;
+      float oi = tr * wi + ti * wr;
+      // Z[k] = E + i*O, Z[m] = conj(E) + i*conj(O).
+      samples[2 * k] = er - oi;
+      samples[2 * k + 1] = ei + or;
+      samples[2 * m] = er + oi;
+      samples[2 * m + 1] = or - ei;
+    }
+    FFTPlan halfPlan = getHalfPlan();
+    halfPlan.transform(samples, 0, getScratch(_length), 0, 1);
+    scale(samples, 0, _length, 1f / half);
+  }
+
+  /**
+   * Returns the plan of half the length.
+   */
+  private FFTPlan getHalfPlan() {
+    FFTPlan halfPlan = _halfPlan;
+    if (halfPlan == null) {
+      halfPlan = FFT.getPlan(_length / 2);
+      _halfPlan = halfPlan;
+    }
+    return halfPlan;
+  }
+
+  /**
+   * Computes the unscaled complex transform, in place, using a self-sorting (Stockham)
+   * mixed-radix algorithm.
+   *
+   * @param data the interleaved complex data.
+   * @param dataOffset the offset of the data in its array.
+   * @param work the work array, with room for 2*n floats.
+   * @param workOffset the offset of the work space in its array.
+   * @param sign -1 for the forward transform; 1 for the inverse transform.
+   */
+  private void transform(final float[] data, final int dataOffset, final float[] work, final int workOffset, final int sign) {
+    float[] x = data;
+    int xo = dataOffset;
+    float[] y = work;
+    int yo = workOffset;
+    int stride = 1;
+    int length = _length;
+    for (int radix : _factors) {
+      int m = length / radix;
+      if (radix == 4) {
+        radix4(x, xo, y, yo, m, stride, sign);
+      } else if (radix == 2) {
+        radix2(x, xo, y, yo, m, stride, sign);
+      } else {
+        radixN(x, xo, y, yo, radix, m, stride, sign);
+      }
+      float[] t = x;
+      x = y;
+      y = t;
+      int to = xo;
+      xo = yo;
+      yo = to;
+      stride *= radix;
+      length = m;
+    }
+    if (x != data || xo != dataOffset) {
+      System.arraycopy(x, xo, data, dataOffset, 2 * _length);
+    }
+  }
+
+  private void radix2(final float[] x, final int xo, final float[] y, final int yo, final int m, final int s,
+      final int sign) {
+    for (int p = 0; p < m; p++) {
+      int t = p * s;
+      float wr = _cos[t];
+      float wi = sign * _sin[t];
+      for (int q = 0; q < s; q++) {
+        int i0 = xo + 2 * (q + s * p);
+        int i1 = i0 + 2 * s * m;
+        float ar = x[i0];
+        float ai = x[i0 + 1];
+        float br = x[i1];
+        float bi = x[i1 + 1];
+        int o0 = yo + 2 * (q + s * 2 * p);
+        int o1 = o0 + 2 * s;
+        y[o0] = ar + br;
+        y[o0 + 1] = ai + bi;
+        float dr = ar - br;
+        float di = ai - bi;
+        y[o1] = dr * wr - di * wi;
+        y[o1 + 1] = dr * wi + di * wr;
+      }
+    }
+  }
+
+  private void radix4(final float[] x, final int xo, final float[] y, final int yo, final int m, final int s,
+      final int sign) {
+    int step = 2 * s * m;
+    for (int p = 0; p < m; p++) {
+      int t = p * s;
+      float w1r = _cos[t];
+      float w1i = sign * _sin[t];
+      float w2r = _cos[2 * t];
+      float w2i = sign * _sin[2 * t];
+      float w3r = _cos[3 * t];
+      float w3i = sign * _sin[3 * t];
+      for (int q = 0; q < s; q++) {
+        int i0 = xo + 2 * (q + s * p);
+        int i1 = i0 + step;
+        int i2 = i1 + step;
+        int i3 = i2 + step;
+        float t0r = x[i0] + x[i2];
+        float t0i = x[i0 + 1] + x[i2 + 1];
+        float t1r = x[i0] - x[i2];
+        float t1i = x[i0 + 1] - x[i2 + 1];
+        float t2r = x[i1] + x[i3];
+        float t2i = x[i1 + 1] + x[i3 + 1];
+        // (a1 - a3) multiplied by sign*i.
+        float t3r = -sign * (x[i1 + 1] - x[i3 + 1]);
+        float t3i = sign * (x[i1] - x[i3]);
+
+        int o0 = yo + 2 * (q + s * 4 * p);
+        int o1 = o0 + 2 * s;
+        int o2 = o1 + 2 * s;
+        int o3 = o2 + 2 * s;
+        y[o0] = t0r + t2r;
+        y[o0 + 1] = t0i + t2i;
+        float br = t1r + t3r;
+        float bi = t1i + t3i;
+        y[o1] = br * w1r - bi * w1i;
+        y[o1 + 1] = br * w1i + bi * w1r;
+        br = t0r - t2r;
+        bi = t0i - t2i;
+        y[o2] = br * w2r - bi * w2i;
+        y[o2 + 1] = br * w2i + bi * w2r;
+        br = t1r - t3r;
+        bi = t1i - t3i;
+        y[o3] = br * w3r - bi * w3i;
+        y[o3 + 1] = br * w3i + bi * w3r;
+      }
+    }
+  }
+
+  private void radixN(final float[] x, final int xo, final float[] y, final int yo, final int radix, final int m,
+      final int s, final int sign) {
+    int rootStep = _length / radix;
+    float[] a = new float[2 * radix];
+    for (int p = 0; p < m; p++) {
+      for (int q = 0; q < s; q++) {
+        for (int j = 0; j < radix; j++) {
+          int i = xo + 2 * (q + s * (p + j * m));
+          a[2 * j] = x[i];
+          a[2 * j + 1] = x[i + 1];
+        }
+        for (int k = 0; k < radix; k++) {
+          float sr = a[0];
+          float si = a[1];
+          int jk = 0;
+          for (int j = 1; j < radix; j++) {
+            jk += k;
+            if (jk >= radix) {
+              jk -= radix;
+            }
+            int r = jk * rootStep;
+            float rr = _cos[r];
+            float ri = sign * _sin[r];
+            sr += a[2 * j] * rr - a[2 * j + 1] * ri;
+            si += a[2 * j] * ri + a[2 * j + 1] * rr;
+          }
+          int t = p * k * s;
+          float wr = _cos[t];
+          float wi = sign * _sin[t];
+          int o = yo + 2 * (q + s * (radix * p + k));
+          y[o] = sr * wr - si * wi;
+          y[o + 1] = sr * wi + si * wr;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the factors of the specified length: fours first, then a two, then the
+   * remaining prime factors in ascending order.
+   */
+  private static int[] factor(final int length) {
+    int[] factors = new int[32];
+    int numFactors = 0;
+    int n = length;
+    while (n % 4 == 0) {
+      factors[numFactors++] = 4;
+      n /= 4;
+    }
+    for (int f = 2; n > 1;) {
+      if (n % f == 0) {
+        factors[numFactors++] = f;
+        n /= f;
+      } else {
+        f = f == 2 ? 3 : f + 2;
+        if (f * f > n) {
+          f = n;
+        }
+      }
+    }
+    int[] result = new int[numFactors];
+    System.arraycopy(factors, 0, result, 0, numFactors);
+    return result;
+  }
+
+  private static void scale(final float[] data, final int offset, final int length, final float factor) {
+    for (int i = offset; i < offset + length; i++) {
+      data[i] *= factor;
+    }
+  }
+
+  private static void checkLength(final float[] array, final int length) {
+    if (array.length < length) {
+      throw new IllegalArgumentException("Array length " + array.length + " is less than the required " + length);
+    }
+  }
+
+  /**
+   * Returns the scratch space of the current thread, with room for at least the specified number of floats.
+   */
+  private static float[] getScratch(final int size) {
+    float[] scratch = SCRATCH.get();
+    if (scratch == null || scratch.length < size) {
+      scratch = new float[size];
+      SCRATCH.set(scratch);
+    }
+    return scratch;
+  }
+}
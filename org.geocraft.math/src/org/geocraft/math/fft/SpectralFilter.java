@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.math.fft;
+
+
+/**
+ * A zero-delay filter applied to traces in the frequency domain.
+ * <p>
+ * The filter is defined by its complex response at the non-negative frequencies of a
+ * transform length, chosen so that a trace padded with zeros to that length does not wrap
+ * around onto itself. Traces are filtered in batches: each trace is padded, transformed,
+ * multiplied by the response and transformed back, with a single cached plan.
+ * <p>
+ * A filter is immutable once created, so it can be applied by several threads at once.
+ */
+public final class SpectralFilter {
+
+  /** The number of samples per trace. */
+  private final int _numSamples;
+
+  /** The FFT plan of the padded trace length. */
+  private final FFTPlan _plan;
+
+  /** The filter response (interleaved complex, non-negative frequencies). */
+  private final float[] _response;
+
+  /** The flag for rescaling each filtered trace to the root-mean-square of its input. */
+  private final boolean _preserveRms;
+
+  private SpectralFilter(final int numSamples, final FFTPlan plan, final float[] response, final boolean preserveRms) {
+    _numSamples = numSamples;
+    _plan = plan;
+    _response = response;
+    _preserveRms = preserveRms;
+  }
+
+  /**
+   * Creates a zero-phase trapezoidal bandpass filter.
+   * The response is 0 below f1 and above f4, 1 between f2 and f3, and tapers linearly in between.
+   *
+   * @param numSamples the number of samples per trace.
+   * @param sampleInterval the sample interval (in seconds).
+   * @param f1 the low-cut frequency (in Hz).
+   * @param f2 the low-pass frequency (in Hz).
+   * @param f3 the high-pass frequency (in Hz).
+   * @param f4 the high-cut frequency (in Hz).
+   * @return the bandpass filter.
+   */
+  public static SpectralFilter createBandpass(final int numSamples, final float sampleInterval, final float f1,
+      final float f2, final float f3, final float f4) {
+    if (f1 < 0 || f2 < f1 || f3 < f2 || f4 < f3) {
+      throw new IllegalArgumentException("The bandpass frequencies must be increasing and non-negative.");
+    }
+    // Pad to twice the trace length, to keep the wrap-around of the long bandpass operator small.
+    FFTPlan plan = FFT.getPlan(FFT.computeSize(2 * numSamples));
+    int numFrequencies = plan.getNumFrequencies();
+    float frequencyDelta = 1f / (plan.getLength() * sampleInterval);
+    float[] response = new float[2 * numFrequencies];
+    for (int k = 0; k < numFrequencies; k++) {
+      float frequency = k * frequencyDelta;
+      float amplitude = 0;
+      if (frequency >= f2 && frequency <= f3) {
+        amplitude = 1;
+      } else if (frequency > f1 && frequency < f2) {
+        amplitude = (frequency - f1) / (f2 - f1);
+      } else if (frequency > f3 && frequency < f4) {
+        amplitude = (f4 - frequency) / (f4 - f3);
+      }
+      response[2 * k] = amplitude;
+    }
+    return new SpectralFilter(numSamples, plan, response, false);
+  }
+
+  /**
+   * Creates a filter that convolves the traces with an operator (e.g. a wavelet).
+   *
+   * @param numSamples the number of samples per trace.
+   * @param operator the operator samples.
+   * @param zeroIndex the index of the zero-time sample of the operator.
+   * @param preserveRms <i>true</i> to rescale each filtered trace to the root-mean-square of its input.
+   * @return the convolution filter.
+   */
+  public static SpectralFilter createConvolution(final int numSamples, final float[] operator, final int zeroIndex,
+      final boolean preserveRms) {
+    FFTPlan plan = FFT.getPlan(FFT.computeSize(numSamples + operator.length));
+    float[] response = computeOperatorSpectrum(plan, operator, zeroIndex);
+    return new SpectralFilter(numSamples, plan, response, preserveRms);
+  }
+
+  /**
+   * Creates a filter that removes an operator (e.g. a wavelet) from the traces, by dividing by
+   * its spectrum. The division is stabilized by adding white noise, as a fraction of the peak power
+   * of the operator.
+   *
+   * @param numSamples the number of samples per trace.
+   * @param operator the operator samples.
+   * @param zeroIndex the index of the zero-time sample of the operator.
+   * @param whiteNoise the white noise, as a fraction (e.g. 0.01 for 1%) of the peak power.
+   * @return the deconvolution filter.
+   */
+  public static SpectralFilter createDeconvolution(final int numSamples, final float[] operator, final int zeroIndex,
+      final float whiteNoise) {
+    if (whiteNoise <= 0) {
+      throw new IllegalArgumentException("The white noise must be > 0.");
+    }
+    FFTPlan plan = FFT.getPlan(FFT.computeSize(numSamples + operator.length));
+    float[] spectrum = computeOperatorSpectrum(plan, operator, zeroIndex);
+    float maxPower = 0;
+    for (int i = 0; i < spectrum.length; i += 2) {
+      maxPower = Math.max(maxPower, spectrum[i] * spectrum[i] + spectrum[i + 1] * spectrum[i + 1]);
+    }
+    float noise = whiteNoise * maxPower;
+    // The response is conj(W) / (|W|^2 + noise).
+    float[] response = new float[spectrum.length];
+    for (int i = 0; i < spectrum.length; i += 2) {
+      float power = spectrum[i] * spectrum[i] + spectrum[i + 1] * spectrum[i + 1] + noise;
+      if (power > 0) {
+        response[i] = spectrum[i] / power;
+        response[i + 1] = -spectrum[i + 1] / power;
+      }
+    }
+    return new SpectralFilter(numSamples, plan, response, false);
+  }
+
+  /**
+   * Returns the number of samples per trace.
+   */
+  public int getNumSamples() {
+    return _numSamples;
+  }
+
+  /**
+   * Returns the padded trace length used for the transforms.
+   */
+  public int getTransformLength() {
+    return _plan.getLength();
+  }
+
+  /**
+   * Filters a batch of traces, in place.
+   *
+   * @param traces the traces, each with at least the filter's number of samples.
+   */
+  public void apply(final float[][] traces) {
+    int numTraces = traces.length;
+    int length = _plan.getLength();
+    float[][] padded = new float[numTraces][length];
+    float[][] spectra = new float[numTraces][_response.length];
+    for (int i = 0; i < numTraces; i++) {
+      System.arraycopy(traces[i], 0, padded[i], 0, _numSamples);
+    }
+
+    FFT.realForward(_plan, padded, spectra);
+    for (float[] spectrum : spectra) {
+      for (int k = 0; k < spectrum.length; k += 2) {
+        float sr = spectrum[k];
+        float si = spectrum[k + 1];
+        float rr = _response[k];
+        float ri = _response[k + 1];
+        spectrum[k] = sr * rr - si * ri;
+        spectrum[k + 1] = sr * ri + si * rr;
+      }
+    }
+    FFT.realInverse(_plan, spectra, padded);
+
+    for (int i = 0; i < numTraces; i++) {
+      float scale = 1;
+      if (_preserveRms) {
+        float rmsOut = rms(padded[i], _numSamples);
+        scale = rmsOut > 0 ? rms(traces[i], _numSamples) / rmsOut : 0;
+      }
+      for (int j = 0; j < _numSamples; j++) {
+        traces[i][j] = padded[i][j] * scale;
+      }
+    }
+  }
+
+  /**
+   * Computes the spectrum of an operator, with its zero-time sample moved to the start
+   * and the samples before it wrapped around to the end.
+   */
+  private static float[] computeOperatorSpectrum(final FFTPlan plan, final float[] operator, final int zeroIndex) {
+    int length = plan.getLength();
+    if (zeroIndex < 0 || zeroIndex >= operator.length) {
+      throw new IllegalArgumentException("The zero-time index " + zeroIndex + " is outside the operator.");
+    }
+    float[] samples = new float[length];
+    for (int i = 0; i < operator.length; i++) {
+      samples[(i - zeroIndex + length) % length] = operator[i];
+    }
+    float[] spectrum = new float[2 * plan.getNumFrequencies()];
+    plan.realForward(samples, spectrum);
+    return spectrum;
+  }
+
+  private static float rms(final float[] values, final int numValues) {
+    double sum = 0;
+    for (int i = 0; i < numValues; i++) {
+      sum += values[i] * values[i];
+    }
+    return numValues > 0 ? (float) Math.sqrt(sum / numValues) : 0;
+  }
+}
@@ -9,8 +9,10 @@ import java.io.IOException;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.swt.SWT;
@@ -51,6 +53,7 @@ import org.geocraft.ui.plot.model.CoordinateTransform;
 import org.geocraft.ui.plot.model.ICoordinateTransform;
 import org.geocraft.ui.plot.model.IModelSpace;
 import org.geocraft.ui.plot.model.IModelSpaceCanvas;
+import org.geocraft.ui.plot.model.PlotPointIndex;
 import org.geocraft.ui.plot.object.IPlotMovableShape;
 import org.geocraft.ui.plot.object.IPlotPoint;
 import org.geocraft.ui.plot.object.IPlotPointGroup;
@@ -120,6 +123,9 @@ public class ModelSpaceCanvas extends Canvas implements IModelSpaceCanvas, ICanv
   /** The set of plot cursor listeners. */
   private final Set<ICursorListener> _cursorListeners;
 
+  /** The point indices used to find the nearest point, keyed by model space. */
+  private final Map<IModelSpace, PlotPointIndex> _pointIndices = new HashMap<IModelSpace, PlotPointIndex>();
+
   private final LineProperties _verticalGridLineProperties;
 
   private final LineProperties _horizontalGridLineProperties;
@@ -708,6 +714,12 @@ public class ModelSpaceCanvas extends Canvas implements IModelSpaceCanvas, ICanv
   @Override
   public void dispose() {
     _cursorListeners.clear();
+    synchronized (this) {
+      for (PlotPointIndex pointIndex : _pointIndices.values()) {
+        pointIndex.dispose();
+      }
+      _pointIndices.clear();
+    }
     _mouseAdapter.dispose();
     _verticalGridLineProperties.dispose();
     _horizontalGridLineProperties.dispose();
@@ -745,46 +757,37 @@ public class ModelSpaceCanvas extends Canvas implements IModelSpaceCanvas, ICanv
 
   public IPlotPoint getNearestPoint(final double px, final double py, final boolean mustBeSelectable) {
     IPlotPoint pointNearest = null;
-    double dist;
-    double minDist = 0;
-    boolean first = true;
+    double minDist = Double.MAX_VALUE;
     for (IModelSpace modelSpace : _plot.getModelSpaces()) {
-      for (IPlotLayer plotGroup : modelSpace.getLayers()) {
-        for (IPlotShape shape : plotGroup.getShapes()) {
-          ShapeType shapeType = shape.getShapeType();
-          if (!mustBeSelectable || mustBeSelectable && shape.isSelectable()) {
-            if (shapeType.equals(ShapeType.POINT_GROUP) || shapeType.equals(ShapeType.POLYLINE)
-                || shapeType.equals(ShapeType.POLYGON) || shapeType.equals(ShapeType.LINE)
-                || shapeType.equals(ShapeType.RECTANGLE)) {
-
-              for (IPlotPoint point : shape.getPoints()) {
-                IModelSpace ms = shape.getModelSpace();
-                Point2D.Double pixelCoord = new Point2D.Double(0, 0);
-                transformModelToPixel(shape.getModelSpace(), point.getX(), point.getY(), pixelCoord);
-                double dpx = pixelCoord.getX() - px;
-                double dpy = pixelCoord.getY() - py;
-
-                dist = Math.sqrt(dpx * dpx + dpy * dpy);
-                if (first) {
-                  pointNearest = point;
-                  minDist = dist;
-                  first = false;
-                } else {
-                  if (dist < minDist) {
-                    pointNearest = point;
-                    minDist = dist;
-                  }
-                }
-              }
-            }
-          }
-        }
+      IPlotPoint point = getPointIndex(modelSpace).getNearestPoint(_coordTransform, px, py, mustBeSelectable, minDist);
+      if (point != null) {
+        pointNearest = point;
+        Point2D.Double pixelCoord = new Point2D.Double(0, 0);
+        transformModelToPixel(modelSpace, point.getX(), point.getY(), pixelCoord);
+        double dpx = pixelCoord.getX() - px;
+        double dpy = pixelCoord.getY() - py;
+        minDist = Math.sqrt(dpx * dpx + dpy * dpy);
       }
     }
 
     return pointNearest;
   }
 
+  /**
+   * Returns the point index of the specified model space, creating it if necessary.
+   * 
+   * @param modelSpace the model space.
+   * @return the point index.
+   */
+  private synchronized PlotPointIndex getPointIndex(final IModelSpace modelSpace) {
+    PlotPointIndex pointIndex = _pointIndices.get(modelSpace);
+    if (pointIndex == null) {
+      pointIndex = new PlotPointIndex(modelSpace);
+      _pointIndices.put(modelSpace, pointIndex);
+    }
+    return pointIndex;
+  }
+
   public double computePixelDistance(final IModelSpace modelSpace, final double x0, final double y0, final double x1,
       final double y1) {
     Point2D.Double pixelCoord0 = new Point2D.Double(0, 0);
@@ -0,0 +1,412 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.ui.plot.model;
+
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.geocraft.ui.plot.axis.IAxis;
+import org.geocraft.ui.plot.defs.AxisScale;
+import org.geocraft.ui.plot.defs.Orientation;
+import org.geocraft.ui.plot.defs.PlotEventType;
+import org.geocraft.ui.plot.defs.ShapeType;
+import org.geocraft.ui.plot.event.ModelSpaceEvent;
+import org.geocraft.ui.plot.layer.IPlotLayer;
+import org.geocraft.ui.plot.listener.IModelSpaceListener;
+import org.geocraft.ui.plot.object.IPlotPoint;
+import org.geocraft.ui.plot.object.IPlotShape;
+
+
+/**
+ * A spatial index of the points of the shapes in a model space, used to find
+ * the point nearest to a pixel location without visiting every point.
+ * <p>
+ * The points are bucketed in a uniform grid over their bounds. The grid is laid out
+ * in the scaled coordinates of the axes (the logarithm of the model coordinate, for
+ * a log axis), in which the model-to-pixel transform is linear. A nearest point query
+ * therefore visits rings of cells around the cell containing the pixel location, and
+ * stops once no point in the remaining rings can be nearer than the nearest found.
+ * <p>
+ * The index listens to its model space. Shape and point events update only the points
+ * of the shape concerned, and are applied on the next query. Layer events, or model
+ * events that do not identify a shape (such as a redraw after shapes were changed with
+ * their events blocked), cause the index to be rebuilt on the next query.
+ */
+public class PlotPointIndex implements IModelSpaceListener {
+
+  /** The average number of points per grid cell. */
+  private static final int POINTS_PER_CELL = 4;
+
+  /** The maximum number of grid cells along each axis. */
+  private static final int MAX_CELLS_PER_AXIS = 2048;
+
+  /** The model space whose points are indexed. */
+  private final IModelSpace _modelSpace;
+
+  /** The indexed points of each shape. */
+  private final Map<IPlotShape, Entry[]> _entries;
+
+  /** The shapes whose points have changed since the index was last updated. */
+  private final Set<IPlotShape> _dirtyShapes;
+
+  /** <i>true</i> if the index must be rebuilt before the next query. */
+  private boolean _rebuild;
+
+  /** The axis scales the grid was built for. */
+  private AxisScale _xScale;
+
+  private AxisScale _yScale;
+
+  /** The scaled coordinate bounds of the grid. */
+  private double _uMin;
+
+  private double _vMin;
+
+  private double _uMax;
+
+  private double _vMax;
+
+  /** The size of a grid cell, in scaled coordinates. */
+  private double _cellWidth;
+
+  private double _cellHeight;
+
+  /** The number of grid cells along each axis. */
+  private int _numCellsX;
+
+  private int _numCellsY;
+
+  /** The grid cells, indexed by <i>row * numCellsX + column</i>, or <i>null</i> where empty. */
+  private List<Entry>[] _cells;
+
+  /**
+   * Constructs a point index for the specified model space, and registers it as a listener.
+   *
+   * @param modelSpace the model space whose points are indexed.
+   */
+  public PlotPointIndex(final IModelSpace modelSpace) {
+    _modelSpace = modelSpace;
+    _entries = new HashMap<IPlotShape, Entry[]>();
+    _dirtyShapes = new HashSet<IPlotShape>();
+    _rebuild = true;
+    _modelSpace.addListener(this);
+  }
+
+  /**
+   * Unregisters the index from its model space, and releases the indexed points.
+   */
+  public synchronized void dispose() {
+    _modelSpace.removeListener(this);
+    _entries.clear();
+    _dirtyShapes.clear();
+    _cells = null;
+    _rebuild = true;
+  }
+
+  /**
+   * Returns <i>true</i> if the points of the specified shape type are indexed.
+   *
+   * @param shapeType the shape type.
+   */
+  public static boolean isIndexed(final ShapeType shapeType) {
+    return shapeType.equals(ShapeType.POINT_GROUP) || shapeType.equals(ShapeType.POLYLINE)
+        || shapeType.equals(ShapeType.POLYGON) || shapeType.equals(ShapeType.LINE)
+        || shapeType.equals(ShapeType.RECTANGLE);
+  }
+
+  public synchronized void modelSpaceUpdated(final ModelSpaceEvent event) {
+    PlotEventType type = event.getEventType();
+    IPlotShape shape = event.getShape();
+    switch (type) {
+      case CURSOR:
+      case MOUSE:
+      case MOUSE_MOVE:
+      case LAYOUT_UPDATED:
+      case DEFAULT_BOUNDS_UPDATED:
+      case VIEWABLE_BOUNDS_UPDATED:
+      case PLOT_UPDATED:
+      case AXIS_UPDATED:
+      case LAYER_SELECTED:
+      case LAYER_DESELECTED:
+      case SHAPE_SELECTED:
+      case SHAPE_DESELECTED:
+      case POINT_SELECTED:
+      case POINT_DESELECTED:
+        // The points have not moved (an axis scale change is detected on the next query).
+        break;
+      default:
+        if (shape == null) {
+          _rebuild = true;
+        } else if (!_rebuild) {
+          _dirtyShapes.add(shape);
+        }
+        break;
+    }
+  }
+
+  /**
+   * Returns the point nearest to the specified pixel location, that is nearer than the
+   * specified distance.
+   *
+   * @param transform the coordinate transform of the canvas.
+   * @param px the pixel x coordinate.
+   * @param py the pixel y coordinate.
+   * @param mustBeSelectable <i>true</i> to consider only the points of selectable shapes.
+   * @param maxDistance the distance (in pixels) the point must be nearer than.
+   * @return the nearest point, or <i>null</i> if none is nearer than the distance.
+   */
+  public synchronized IPlotPoint getNearestPoint(final ICoordinateTransform transform, final double px,
+      final double py, final boolean mustBeSelectable, final double maxDistance) {
+    IAxis xAxis = _modelSpace.getAxisX();
+    IAxis yAxis = _modelSpace.getAxisY();
+    if (_rebuild || !xAxis.getScale().equals(_xScale) || !yAxis.getScale().equals(_yScale)) {
+      rebuild();
+    } else if (!_dirtyShapes.isEmpty()) {
+      update();
+    }
+    if (_cells == null) {
+      return null;
+    }
+
+    // The number of pixels per unit of scaled coordinate, along each axis.
+    double xPixelScale = getPixelScale(transform, xAxis);
+    double yPixelScale = getPixelScale(transform, yAxis);
+    double uQuery = scale(transform.transformPixelToModel(xAxis, px), _xScale);
+    double vQuery = scale(transform.transformPixelToModel(yAxis, py), _yScale);
+    int column = 0;
+    int row = 0;
+    // The minimum distance (in pixels) between cells one ring apart.
+    double ringDistance = 0;
+    if (!Double.isNaN(uQuery) && !Double.isNaN(vQuery)) {
+      column = clamp((int) Math.floor((uQuery - _uMin) / _cellWidth), _numCellsX);
+      row = clamp((int) Math.floor((vQuery - _vMin) / _cellHeight), _numCellsY);
+      ringDistance = Math.min(_cellWidth * xPixelScale, _cellHeight * yPixelScale);
+    }
+    int maxRing = Math.max(Math.max(column, _numCellsX - 1 - column), Math.max(row, _numCellsY - 1 - row));
+
+    IPlotPoint nearestPoint = null;
+    double minDistance = maxDistance;
+    Point2D.Double pixelCoord = new Point2D.Double(0, 0);
+    for (int ring = 0; ring <= maxRing; ring++) {
+      // Every point in this ring is at least (ring - 1) cells away, less a pixel for rounding.
+      if (ring > 1 && (ring - 1) * ringDistance - 1 >= minDistance) {
+        break;
+      }
+      int row0 = row - ring;
+      int row1 = row + ring;
+      int column0 = column - ring;
+      int column1 = column + ring;
+      for (int r = Math.max(row0, 0); r <= Math.min(row1, _numCellsY - 1); r++) {
+        boolean edgeRow = r == row0 || r == row1;
+        int step = edgeRow ? 1 : column1 - column0;
+        for (int c = column0; c <= column1; c += Math.max(step, 1)) {
+          if (c < 0 || c >= _numCellsX) {
+            continue;
+          }
+          List<Entry> cell = _cells[r * _numCellsX + c];
+          if (cell == null) {
+            continue;
+          }
+          for (Entry entry : cell) {
+            IPlotShape shape = entry._shape;
+            if (mustBeSelectable && !shape.isSelectable() || !isIndexed(shape.getShapeType())) {
+              continue;
+            }
+            IPlotPoint point = entry._point;
+            transform.transformModelToPixel(_modelSpace, point.getX(), point.getY(), pixelCoord);
+            double dpx = pixelCoord.getX() - px;
+            double dpy = pixelCoord.getY() - py;
+            double distance = Math.sqrt(dpx * dpx + dpy * dpy);
+            if (distance < minDistance) {
+              nearestPoint = point;
+              minDistance = distance;
+            }
+          }
+        }
+      }
+    }
+    return nearestPoint;
+  }
+
+  /**
+   * Returns the number of points currently indexed.
+   */
+  public synchronized int getNumPoints() {
+    int numPoints = 0;
+    for (Entry[] entries : _entries.values()) {
+      numPoints += entries.length;
+    }
+    return numPoints;
+  }
+
+  /**
+   * Rebuilds the index from all the shapes in the model space.
+   */
+  @SuppressWarnings("unchecked")
+  private void rebuild() {
+    _rebuild = false;
+    _dirtyShapes.clear();
+    _entries.clear();
+    _cells = null;
+    _xScale = _modelSpace.getAxisX().getScale();
+    _yScale = _modelSpace.getAxisY().getScale();
+
+    int numPoints = 0;
+    _uMin = Double.MAX_VALUE;
+    _vMin = Double.MAX_VALUE;
+    _uMax = -Double.MAX_VALUE;
+    _vMax = -Double.MAX_VALUE;
+    for (IPlotLayer layer : _modelSpace.getLayers()) {
+      for (IPlotShape shape : layer.getShapes()) {
+        Entry[] entries = createEntries(shape);
+        _entries.put(shape, entries);
+        numPoints += entries.length;
+        for (Entry entry : entries) {
+          _uMin = Math.min(_uMin, entry._u);
+          _uMax = Math.max(_uMax, entry._u);
+          _vMin = Math.min(_vMin, entry._v);
+          _vMax = Math.max(_vMax, entry._v);
+        }
+      }
+    }
+    if (numPoints == 0) {
+      return;
+    }
+
+    int numCellsPerAxis = (int) Math.ceil(Math.sqrt((double) numPoints / POINTS_PER_CELL));
+    numCellsPerAxis = Math.max(1, Math.min(numCellsPerAxis, MAX_CELLS_PER_AXIS));
+    _numCellsX = numCellsPerAxis;
+    _numCellsY = numCellsPerAxis;
+    _cellWidth = getCellSize(_uMin, _uMax, _numCellsX);
+    _cellHeight = getCellSize(_vMin, _vMax, _numCellsY);
+    _cells = new List[_numCellsX * _numCellsY];
+    for (Entry[] entries : _entries.values()) {
+      for (Entry entry : entries) {
+        addToCell(entry);
+      }
+    }
+  }
+
+  /**
+   * Re-indexes the points of the shapes that have changed, or rebuilds the index
+   * if a point has moved outside the grid.
+   */
+  private void update() {
+    Set<IPlotShape> shapesInModel = new HashSet<IPlotShape>();
+    for (IPlotLayer layer : _modelSpace.getLayers()) {
+      for (IPlotShape shape : layer.getShapes()) {
+        shapesInModel.add(shape);
+      }
+    }
+    for (IPlotShape shape : _dirtyShapes) {
+      Entry[] oldEntries = _entries.remove(shape);
+      if (oldEntries != null && _cells != null) {
+        for (Entry entry : oldEntries) {
+          List<Entry> cell = _cells[entry._cellIndex];
+          if (cell != null) {
+            cell.remove(entry);
+          }
+        }
+      }
+      if (shapesInModel.contains(shape)) {
+        Entry[] entries = createEntries(shape);
+        _entries.put(shape, entries);
+        for (Entry entry : entries) {
+          if (_cells == null || entry._u < _uMin || entry._u > _uMax || entry._v < _vMin || entry._v > _vMax) {
+            rebuild();
+            return;
+          }
+          addToCell(entry);
+        }
+      }
+    }
+    _dirtyShapes.clear();
+  }
+
+  private Entry[] createEntries(final IPlotShape shape) {
+    if (!isIndexed(shape.getShapeType())) {
+      return new Entry[0];
+    }
+    IPlotPoint[] points = shape.getPoints();
+    List<Entry> entries = new ArrayList<Entry>(points.length);
+    for (IPlotPoint point : points) {
+      double u = scale(point.getX(), _xScale);
+      double v = scale(point.getY(), _yScale);
+      if (!Double.isNaN(u) && !Double.isInfinite(u) && !Double.isNaN(v) && !Double.isInfinite(v)) {
+        entries.add(new Entry(shape, point, u, v));
+      }
+    }
+    return entries.toArray(new Entry[0]);
+  }
+
+  private void addToCell(final Entry entry) {
+    int column = clamp((int) ((entry._u - _uMin) / _cellWidth), _numCellsX);
+    int row = clamp((int) ((entry._v - _vMin) / _cellHeight), _numCellsY);
+    entry._cellIndex = row * _numCellsX + column;
+    List<Entry> cell = _cells[entry._cellIndex];
+    if (cell == null) {
+      cell = new ArrayList<Entry>(POINTS_PER_CELL);
+      _cells[entry._cellIndex] = cell;
+    }
+    cell.add(entry);
+  }
+
+  private static double getCellSize(final double min, final double max, final int numCells) {
+    double size = (max - min) / numCells;
+    return size > 0 ? size : 1;
+  }
+
+  private static int clamp(final int index, final int numCells) {
+    return Math.max(0, Math.min(index, numCells - 1));
+  }
+
+  /**
+   * Returns the scaled coordinate (in which the model-to-pixel transform is linear) of a model coordinate.
+   */
+  private static double scale(final double coord, final AxisScale scale) {
+    return scale.equals(AxisScale.LOG) ? Math.log(coord) : coord;
+  }
+
+  /**
+   * Returns the number of pixels per unit of scaled coordinate along the specified axis.
+   */
+  private static double getPixelScale(final ICoordinateTransform transform, final IAxis axis) {
+    AxisScale axisScale = axis.getScale();
+    double start = scale(axis.getViewableStart(), axisScale);
+    double end = scale(axis.getViewableEnd(), axisScale);
+    Orientation orientation = axis.getOrientation();
+    int numPixels = transform.getNumPixelsInModelCanvas(orientation);
+    return (numPixels - 1) / Math.abs(end - start);
+  }
+
+  /**
+   * An indexed point, with its scaled coordinates.
+   */
+  private static class Entry {
+
+    private final IPlotShape _shape;
+
+    private final IPlotPoint _point;
+
+    private final double _u;
+
+    private final double _v;
+
+    /** The index of the grid cell containing the point. */
+    private int _cellIndex;
+
+    Entry(final IPlotShape shape, final IPlotPoint point, final double u, final double v) {
+      _shape = shape;
+      _point = point;
+      _u = u;
+      _v = v;
+    }
+  }
+}
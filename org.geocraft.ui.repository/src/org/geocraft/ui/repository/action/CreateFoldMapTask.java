@@ -71,23 +71,27 @@ public class CreateFoldMapTask extends BackgroundTask {
     float[][] foldValues = new float[numRows][numCols];
     TraceIterator iterator = TraceIteratorFactory.create(ps3d);
     int previousWork = 0;
-    while (iterator.hasNext()) {
-      TraceData traceData = iterator.next();
-      Trace[] traces = traceData.getTraces();
-      for (int i = 0; i < traces.length; i++) {
-        if (!traces[i].isMissing()) {
-          double x = traces[i].getX();
-          double y = traces[i].getY();
-          double[] rowcol = geometry.transformXYToRowCol(x, y, true);
-          int row = (int) (rowcol[0] + 0.5);
-          int col = (int) (rowcol[1] + 0.5);
-          foldValues[row][col]++;
+    try {
+      while (iterator.hasNext()) {
+        TraceData traceData = iterator.next();
+        Trace[] traces = traceData.getTraces();
+        for (int i = 0; i < traces.length; i++) {
+          if (!traces[i].isMissing()) {
+            double x = traces[i].getX();
+            double y = traces[i].getY();
+            double[] rowcol = geometry.transformXYToRowCol(x, y, true);
+            int row = (int) (rowcol[0] + 0.5);
+            int col = (int) (rowcol[1] + 0.5);
+            foldValues[row][col]++;
+          }
         }
+        int currentWork = (int) iterator.getCompletion();
+        int work = currentWork - previousWork;
+        monitor.worked(work);
+        previousWork = currentWork;
       }
-      int currentWork = (int) iterator.getCompletion();
-      int work = currentWork - previousWork;
-      monitor.worked(work);
-      previousWork = currentWork;
+    } finally {
+      iterator.cancel();
     }
     Grid3d foldMap = Grid3dFactory.createInMemory(ps3d.getDisplayName() + "-FoldMap", geometry, Unit.UNDEFINED,
         foldValues, 0f);
@@ -114,23 +118,27 @@ public class CreateFoldMapTask extends BackgroundTask {
     float[][] foldValues = new float[numRows][numCols];
     TraceIterator iterator = TraceIteratorFactory.create(ps3d);
     int previousWork = 0;
-    while (iterator.hasNext()) {
-      TraceData traceData = iterator.next();
-      Trace[] traces = traceData.getTraces();
-      for (int i = 0; i < traces.length; i++) {
-        if (!traces[i].isMissing()) {
-          double x = traces[i].getX();
-          double y = traces[i].getY();
-          double[] rowcol = geometry.transformXYToRowCol(x, y, true);
-          int row = (int) (rowcol[0] + 0.5);
-          int col = (int) (rowcol[1] + 0.5);
-          foldValues[row][col]++;
+    try {
+      while (iterator.hasNext()) {
+        TraceData traceData = iterator.next();
+        Trace[] traces = traceData.getTraces();
+        for (int i = 0; i < traces.length; i++) {
+          if (!traces[i].isMissing()) {
+            double x = traces[i].getX();
+            double y = traces[i].getY();
+            double[] rowcol = geometry.transformXYToRowCol(x, y, true);
+            int row = (int) (rowcol[0] + 0.5);
+            int col = (int) (rowcol[1] + 0.5);
+            foldValues[row][col]++;
+          }
         }
+        int currentWork = (int) iterator.getCompletion();
+        int work = currentWork - previousWork;
+        monitor.worked(work);
+        previousWork = currentWork;
       }
-      int currentWork = (int) iterator.getCompletion();
-      int work = currentWork - previousWork;
-      monitor.worked(work);
-      previousWork = currentWork;
+    } finally {
+      iterator.cancel();
     }
     Grid3d foldMap = Grid3dFactory.createInMemory(ps3d.getDisplayName() + "-FoldMap", geometry, Unit.UNDEFINED,
         foldValues, 0f);
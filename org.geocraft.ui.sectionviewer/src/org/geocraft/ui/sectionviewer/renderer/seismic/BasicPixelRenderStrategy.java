@@ -56,7 +56,7 @@ public class BasicPixelRenderStrategy implements IPixelRenderStrategy {
    * @return the index in a 1D array.
    */
   private int getPixelIndex(final int xIndex, final int yIndex, final int numPixelsX, final int numPixelsY) {
-    if (xIndex < 0 || xIndex > numPixelsX || yIndex < 0 || yIndex > numPixelsY) {
+    if (xIndex < 0 || xIndex >= numPixelsX || yIndex < 0 || yIndex >= numPixelsY) {
       return -1;
     }
     return yIndex * numPixelsX + xIndex;
@@ -153,7 +153,7 @@ public class PostStack2dRenderer extends SeismicDatasetRenderer {
    * @see org.geocraft.ui.sectionviewer.renderer.seismic.SeismicDatasetRenderer#readTraces(org.eclipse.core.runtime.IProgressMonitor, org.geocraft.core.model.seismic.TraceSection)
    */
   @Override
-  public synchronized Trace[] readTraces(final IProgressMonitor monitor, final TraceSection section) {
+  public Trace[] readTraces(final IProgressMonitor monitor, final TraceSection section) {
     if (section == null) {
       return new Trace[0];
     }
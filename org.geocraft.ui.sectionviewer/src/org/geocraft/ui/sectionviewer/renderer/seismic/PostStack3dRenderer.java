@@ -16,6 +16,7 @@ import org.geocraft.core.model.datatypes.TraceAxisKey;
 import org.geocraft.core.model.event.DataSelection;
 import org.geocraft.core.model.seismic.PostStack3d;
 import org.geocraft.core.model.seismic.SeismicDataset;
+import org.geocraft.core.model.seismic.SeismicSurvey3d;
 import org.geocraft.core.model.seismic.TraceSection;
 import org.geocraft.core.model.seismic.TraceSection.SectionType;
 import org.geocraft.ui.viewer.IViewer;
@@ -61,7 +62,12 @@ public class PostStack3dRenderer extends SeismicDatasetRenderer {
   }
 
   @Override
-  public synchronized Trace[] readTraces(final IProgressMonitor monitor, final TraceSection section) {
+  protected SeismicSurvey3d getSurvey3d() {
+    return ((PostStack3d) _seismicDataset).getSurvey();
+  }
+
+  @Override
+  public Trace[] readTraces(final IProgressMonitor monitor, final TraceSection section) {
     PostStack3d poststack = (PostStack3d) _seismicDataset;
     int numTraces = section.getNumTraces();
 
@@ -18,6 +18,7 @@ import org.geocraft.core.model.datatypes.TraceData;
 import org.geocraft.core.model.event.DataSelection;
 import org.geocraft.core.model.seismic.PreStack3d;
 import org.geocraft.core.model.seismic.SeismicDataset;
+import org.geocraft.core.model.seismic.SeismicSurvey3d;
 import org.geocraft.core.model.seismic.TraceSection;
 import org.geocraft.core.model.seismic.TraceSection.SectionType;
 import org.geocraft.ui.viewer.IViewer;
@@ -66,7 +67,12 @@ public class PreStack3dRenderer extends SeismicDatasetRenderer {
   }
 
   @Override
-  public synchronized Trace[] readTraces(final IProgressMonitor monitor, final TraceSection section) {
+  protected SeismicSurvey3d getSurvey3d() {
+    return ((PreStack3d) _seismicDataset).getSurvey();
+  }
+
+  @Override
+  public Trace[] readTraces(final IProgressMonitor monitor, final TraceSection section) {
     PreStack3d prestack = (PreStack3d) _seismicDataset;
     int numTraces = section.getNumTraces();
     float[] inlines = new float[numTraces];
@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.ui.sectionviewer.renderer.seismic;
+
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.geocraft.core.model.datatypes.FloatRange;
+import org.geocraft.core.model.datatypes.Trace;
+import org.geocraft.core.model.datatypes.TraceAxisKey;
+import org.geocraft.core.model.seismic.SeismicSurvey3d;
+import org.geocraft.core.model.seismic.TraceSection;
+import org.geocraft.core.model.seismic.TraceSection.SectionType;
+
+
+/**
+ * Reads the traces of the sections displayed by a seismic renderer, reading ahead the
+ * sections the user is likely to step to next.
+ * <p>
+ * The traces read are kept in a bounded cache of recently used sections. When the user
+ * steps from one inline (or xline) section to another, the step is taken as the direction
+ * of travel, and the next few sections in that direction are read in a background job.
+ * Stepping through a survey one line at a time therefore finds each section already read.
+ * A section that is not a small step from the previous one is taken as a jump, and cancels
+ * the reading ahead of the sections no longer expected.
+ * <p>
+ * Only inline and xline sections of a 3D survey are read ahead and cached, as these are the
+ * only sections that can be compared and stepped through. All the reads of a renderer, in
+ * the foreground or background, are serialized so the dataset is read by one thread at a time.
+ */
+public class SectionPrefetcher {
+
+  /** The default number of sections read ahead. */
+  public static final int DEFAULT_READ_AHEAD = 3;
+
+  /** The default maximum number of sections cached. */
+  public static final int DEFAULT_CAPACITY = 8;
+
+  /** The largest step (in lines) between sections taken as stepping, rather than a jump. */
+  private static final int MAX_STEP = 10;
+
+  /** The renderer whose sections are read. */
+  private final SeismicDatasetRenderer _renderer;
+
+  /** The number of sections read ahead. */
+  private final int _readAhead;
+
+  /** The cached traces, keyed by section, in least-recently used order. */
+  private final LinkedHashMap<String, Trace[]> _cache;
+
+  /** The lock serializing the reads of the renderer. */
+  private final Object _readLock = new Object();
+
+  /** The section last requested. */
+  private TraceSection _lastSection;
+
+  /** The job reading ahead, or <i>null</i> if none. */
+  private ReadAheadJob _job;
+
+  /** The number of section requests served from the cache. */
+  private int _numHits;
+
+  /** The generation of the cache, incremented when it is cleared, so reads under way are not cached. */
+  private int _generation;
+
+  /**
+   * Constructs a section prefetcher with the default read-ahead and capacity.
+   *
+   * @param renderer the renderer whose sections are read.
+   */
+  public SectionPrefetcher(final SeismicDatasetRenderer renderer) {
+    this(renderer, DEFAULT_READ_AHEAD, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs a section prefetcher.
+   *
+   * @param renderer the renderer whose sections are read.
+   * @param readAhead the number of sections read ahead.
+   * @param capacity the maximum number of sections cached.
+   */
+  public SectionPrefetcher(final SeismicDatasetRenderer renderer, final int readAhead, final int capacity) {
+    _renderer = renderer;
+    _readAhead = readAhead;
+    final int maxSections = Math.max(capacity, readAhead + 1);
+    _cache = new LinkedHashMap<String, Trace[]>(16, 0.75f, true) {
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Trace[]> eldest) {
+        return size() > maxSections;
+      }
+    };
+  }
+
+  /**
+   * Returns the traces of the specified section, reading them if they are not cached,
+   * and starts reading ahead the sections expected next.
+   *
+   * @param monitor the progress monitor.
+   * @param section the section to read.
+   * @return the traces of the section.
+   */
+  public Trace[] getTraces(final IProgressMonitor monitor, final TraceSection section) {
+    Trace[] traces = read(monitor, section);
+    readAhead(section);
+    return traces;
+  }
+
+  /**
+   * Removes all the sections from the cache, and cancels any reading ahead.
+   * This must be called if the dataset may have changed.
+   */
+  public synchronized void clear() {
+    cancel();
+    _cache.clear();
+    _lastSection = null;
+    _generation++;
+  }
+
+  /**
+   * Returns the number of section requests served from the cache.
+   */
+  public synchronized int getNumHits() {
+    return _numHits;
+  }
+
+  /**
+   * Reads the traces of a section, unless they are cached.
+   */
+  private Trace[] read(final IProgressMonitor monitor, final TraceSection section) {
+    String key = getKey(section);
+    Trace[] traces = getCached(key);
+    if (traces != null) {
+      synchronized (this) {
+        _numHits++;
+      }
+      return traces;
+    }
+    synchronized (_readLock) {
+      // The section may have been read ahead while waiting for the lock.
+      traces = getCached(key);
+      if (traces == null) {
+        int generation = getGeneration();
+        traces = _renderer.readTraces(monitor, section);
+        if (!monitor.isCanceled()) {
+          putCached(key, traces, generation);
+        }
+      }
+    }
+    return traces;
+  }
+
+  /**
+   * Starts reading ahead the sections expected to follow the specified one,
+   * canceling any reading ahead already under way.
+   */
+  private synchronized void readAhead(final TraceSection section) {
+    TraceSection lastSection = _lastSection;
+    _lastSection = section;
+    cancel();
+    int step = getStep(lastSection, section);
+    if (step == 0) {
+      return;
+    }
+    List<TraceSection> sections = new ArrayList<TraceSection>();
+    for (int i = 1; i <= _readAhead; i++) {
+      TraceSection next = createSection(section, i * step);
+      if (next == null) {
+        break;
+      }
+      if (!_cache.containsKey(getKey(next))) {
+        sections.add(next);
+      }
+    }
+    if (!sections.isEmpty()) {
+      _job = new ReadAheadJob(sections);
+      _job.schedule();
+    }
+  }
+
+  private void cancel() {
+    if (_job != null) {
+      _job.cancel();
+      _job = null;
+    }
+  }
+
+  private synchronized Trace[] getCached(final String key) {
+    return key != null ? _cache.get(key) : null;
+  }
+
+  private synchronized int getGeneration() {
+    return _generation;
+  }
+
+  private synchronized void putCached(final String key, final Trace[] traces, final int generation) {
+    if (key != null && traces != null && generation == _generation) {
+      _cache.put(key, traces);
+    }
+  }
+
+  /**
+   * Returns the key of a section in the cache, or <i>null</i> if the section is not cached.
+   */
+  private static String getKey(final TraceSection section) {
+    if (section == null || getLineKey(section) == null) {
+      return null;
+    }
+    return section.toString();
+  }
+
+  /**
+   * Returns the trace axis key that varies between sections stepped through,
+   * or <i>null</i> if sections of the given type cannot be stepped through.
+   */
+  private static TraceAxisKey getLineKey(final TraceSection section) {
+    SectionType type = section.getSectionType();
+    if (type.equals(SectionType.INLINE_SECTION)) {
+      return TraceAxisKey.INLINE;
+    } else if (type.equals(SectionType.XLINE_SECTION)) {
+      return TraceAxisKey.XLINE;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the step (in lines) from one section to the next, or 0 if the second
+   * section is not a small step from the first.
+   */
+  private int getStep(final TraceSection section1, final TraceSection section2) {
+    if (section1 == null || section2 == null || getKey(section1) == null || getKey(section2) == null
+        || !section1.getSectionType().equals(section2.getSectionType())) {
+      return 0;
+    }
+    SeismicSurvey3d survey = _renderer.getSurvey3d();
+    if (survey == null) {
+      return 0;
+    }
+    TraceAxisKey lineKey = getLineKey(section2);
+    float line1 = section1.getTraceAxisKeyRanges(lineKey).getStart();
+    float line2 = section2.getTraceAxisKeyRanges(lineKey).getStart();
+    int step = Math.round((line2 - line1) / getLineDelta(survey, lineKey));
+    if (step == 0 || Math.abs(step) > MAX_STEP) {
+      return 0;
+    }
+    // Only a step if the sections differ in nothing but their line (e.g. not in z range).
+    TraceSection expected = createSection(section1, step);
+    if (expected == null || !getKey(expected).equals(getKey(section2))) {
+      return 0;
+    }
+    return step;
+  }
+
+  /**
+   * Creates the section a number of lines from the specified one,
+   * or returns <i>null</i> if it would be outside the survey.
+   */
+  private TraceSection createSection(final TraceSection section, final int numLines) {
+    SeismicSurvey3d survey = _renderer.getSurvey3d();
+    TraceAxisKey lineKey = getLineKey(section);
+    if (survey == null || lineKey == null) {
+      return null;
+    }
+    float lineStart = lineKey.equals(TraceAxisKey.INLINE) ? survey.getInlineStart() : survey.getXlineStart();
+    float lineDelta = getLineDelta(survey, lineKey);
+    int numSurveyLines = lineKey.equals(TraceAxisKey.INLINE) ? survey.getNumInlines() : survey.getNumXlines();
+    FloatRange lineRange = section.getTraceAxisKeyRanges(lineKey);
+    int lineIndex = Math.round((lineRange.getStart() - lineStart) / lineDelta) + numLines;
+    if (lineIndex < 0 || lineIndex >= numSurveyLines) {
+      return null;
+    }
+    float line = lineStart + lineIndex * lineDelta;
+    TraceAxisKey[] keys = section.getTraceAxisKeys();
+    FloatRange[] ranges = new FloatRange[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i].equals(lineKey)) {
+        ranges[i] = new FloatRange(line, line, lineRange.getDelta());
+      } else {
+        ranges[i] = section.getTraceAxisKeyRanges(keys[i]);
+      }
+    }
+    return new TraceSection(section.getSectionType(), survey, keys, ranges, section.getDomain(), section.getStartZ(),
+        section.getEndZ());
+  }
+
+  private static float getLineDelta(final SeismicSurvey3d survey, final TraceAxisKey lineKey) {
+    return lineKey.equals(TraceAxisKey.INLINE) ? survey.getInlineDelta() : survey.getXlineDelta();
+  }
+
+  /**
+   * The background job reading ahead a list of sections, in order.
+   * It stops before the next section once canceled.
+   */
+  private class ReadAheadJob extends Job {
+
+    private final List<TraceSection> _sections;
+
+    ReadAheadJob(final List<TraceSection> sections) {
+      super("Reading ahead " + _renderer.getName());
+      _sections = sections;
+      setSystem(true);
+      setPriority(Job.DECORATE);
+    }
+
+    @Override
+    protected IStatus run(final IProgressMonitor monitor) {
+      for (TraceSection section : _sections) {
+        if (monitor.isCanceled()) {
+          return Status.CANCEL_STATUS;
+        }
+        read(monitor, section);
+      }
+      return Status.OK_STATUS;
+    }
+  }
+}
@@ -0,0 +1,455 @@
+/*
+ * Copyright (C) ConocoPhillips 2010 All Rights Reserved.
+ */
+package org.geocraft.ui.sectionviewer.renderer.seismic;
+
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.eclipse.swt.graphics.Image;
+import org.geocraft.core.model.datatypes.Trace;
+import org.geocraft.ui.plot.object.IPlotImage;
+import org.geocraft.ui.sectionviewer.IPlotTrace;
+
+
+/**
+ * A multi-resolution cache of the rendered image tiles of a trace section.
+ * <p>
+ * The section is rendered as a grid of fixed-size tiles, anchored at the top-left
+ * pixel of the section, so panning at a fixed zoom only renders the tiles newly
+ * scrolled into view. The tiles are keyed by the zoom (the pixels per trace and
+ * per z unit) as well as their position, so returning to an earlier zoom reuses
+ * the tiles already rendered for it. Each tile keeps the color indices of its
+ * pixels as well as its image, so a change to the colors of the colormap only
+ * rebuilds the images of the visible tiles.
+ * <p>
+ * The traces are also kept as a pyramid of levels, each level decimating the traces
+ * of the previous one by 2, keeping the sample of largest magnitude of each pair.
+ * When zoomed out so far that several traces fall within a pixel, the tiles are
+ * rendered from the level with about 1 trace per pixel, which is both cheaper and
+ * preserves the peaks that skipping traces would alias away.
+ * <p>
+ * The number of pixels cached is bounded by a budget; the least recently used tiles
+ * not on display are discarded first, and their images disposed.
+ */
+public class SectionTileCache {
+
+  /** The width and height (in pixels) of a tile. */
+  public static final int TILE_SIZE = 256;
+
+  /** The default budget (in pixels) of the cache. */
+  public static final long DEFAULT_PIXEL_BUDGET = 32L * 1024 * 1024;
+
+  /** The maximum number of tiles cached. */
+  private final int _capacity;
+
+  /** The cached tiles, in least-recently used order. */
+  private final LinkedHashMap<TileKey, Tile> _tiles;
+
+  /** The levels of the trace pyramid; level 0 holds the traces themselves. */
+  private final List<LevelTrace[]> _levels = new ArrayList<LevelTrace[]>();
+
+  /**
+   * Constructs a tile cache with the default pixel budget.
+   */
+  public SectionTileCache() {
+    this(DEFAULT_PIXEL_BUDGET);
+  }
+
+  /**
+   * Constructs a tile cache with the specified pixel budget.
+   *
+   * @param pixelBudget the budget (in pixels) of the cache.
+   */
+  public SectionTileCache(final long pixelBudget) {
+    _capacity = (int) Math.max(1, pixelBudget / (TILE_SIZE * TILE_SIZE));
+    _tiles = new LinkedHashMap<TileKey, Tile>(16, 0.75f, true);
+  }
+
+  /**
+   * Sets the traces of the section, discarding the tiles and the trace pyramid of any earlier traces.
+   *
+   * @param traces the traces of the section.
+   */
+  public synchronized void setTraces(final IPlotTrace[] traces) {
+    clear();
+    _levels.clear();
+    LevelTrace[] level = new LevelTrace[traces.length];
+    for (int i = 0; i < traces.length; i++) {
+      IPlotTrace trace = traces[i];
+      level[i] = new LevelTrace(trace.getTraceNo(), trace.getTrace(), trace.getDataMinimum(), trace
+          .getDataMaximum(), trace.getDataAverage());
+    }
+    _levels.add(level);
+  }
+
+  /**
+   * Returns the level of the trace pyramid to render at the specified zoom.
+   * This is the coarsest level whose traces are at least a pixel apart.
+   *
+   * @param pixelsPerTrace the pixels per trace of the section.
+   * @return the level.
+   */
+  public synchronized int getLevel(final double pixelsPerTrace) {
+    int level = 0;
+    if (_levels.isEmpty()) {
+      return level;
+    }
+    double spacing = Math.abs(pixelsPerTrace);
+    int numTraces = _levels.get(0).length;
+    while (spacing * 2 <= 1 && numTraces > 1) {
+      spacing *= 2;
+      numTraces = (numTraces + 1) / 2;
+      level++;
+    }
+    return level;
+  }
+
+  /**
+   * Returns the number of original traces decimated into each trace of the specified level.
+   */
+  public static int getDecimation(final int level) {
+    return 1 << level;
+  }
+
+  /**
+   * Returns the traces of the specified level of the pyramid, building it if necessary.
+   * The trace number of each decimated trace is the number of the first trace it decimates.
+   *
+   * @param level the level.
+   * @return the traces of the level.
+   */
+  public synchronized LevelTrace[] getLevelTraces(final int level) {
+    if (_levels.isEmpty()) {
+      return new LevelTrace[0];
+    }
+    while (_levels.size() <= level) {
+      _levels.add(decimate(_levels.get(_levels.size() - 1)));
+    }
+    return _levels.get(level);
+  }
+
+  /**
+   * Returns the cached tile with the specified key, or <i>null</i> if it is not cached.
+   */
+  public synchronized Tile getTile(final TileKey key) {
+    return _tiles.get(key);
+  }
+
+  /**
+   * Adds a tile to the cache, discarding the least recently used tiles not on display
+   * if the cache is over its budget.
+   *
+   * @param tile the tile to add.
+   */
+  public synchronized void putTile(final Tile tile) {
+    _tiles.put(tile.getKey(), tile);
+    Iterator<Tile> iterator = _tiles.values().iterator();
+    while (_tiles.size() > _capacity && iterator.hasNext()) {
+      Tile eldest = iterator.next();
+      if (!eldest.isDisplayed()) {
+        eldest.dispose();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Removes all the tiles from the cache, disposing their images.
+   * The caller is responsible for removing any tiles on display from the plot first.
+   */
+  public synchronized void clear() {
+    for (Tile tile : _tiles.values()) {
+      tile.dispose();
+    }
+    _tiles.clear();
+  }
+
+  /**
+   * Returns the number of tiles cached.
+   */
+  public synchronized int getNumTiles() {
+    return _tiles.size();
+  }
+
+  /**
+   * Decimates the traces of a level by 2, keeping the sample of largest magnitude of each
+   * pair of live traces. A pair with no live traces is represented by its first trace.
+   */
+  private static LevelTrace[] decimate(final LevelTrace[] traces) {
+    LevelTrace[] decimated = new LevelTrace[(traces.length + 1) / 2];
+    for (int i = 0; i < decimated.length; i++) {
+      LevelTrace first = traces[2 * i];
+      LevelTrace second = 2 * i + 1 < traces.length ? traces[2 * i + 1] : null;
+      Trace trace1 = first.getTrace();
+      Trace trace2 = second != null ? second.getTrace() : null;
+      boolean live1 = !trace1.isMissing() && !trace1.isDead();
+      boolean live2 = trace2 != null && !trace2.isMissing() && !trace2.isDead()
+          && trace2.getNumSamples() == trace1.getNumSamples();
+      if (live1 && live2) {
+        float[] data1 = trace1.getDataReference();
+        float[] data2 = trace2.getDataReference();
+        float[] data = new float[data1.length];
+        for (int k = 0; k < data.length; k++) {
+          data[k] = Math.abs(data2[k]) > Math.abs(data1[k]) ? data2[k] : data1[k];
+        }
+        decimated[i] = new LevelTrace(first.getTraceNo(), new Trace(trace1, data), Math.min(first
+            .getDataMinimum(), second.getDataMinimum()), Math.max(first.getDataMaximum(), second.getDataMaximum()),
+            0.5f * (first.getDataAverage() + second.getDataAverage()));
+      } else if (live2) {
+        decimated[i] = new LevelTrace(first.getTraceNo(), second);
+      } else {
+        decimated[i] = new LevelTrace(first.getTraceNo(), first);
+      }
+    }
+    return decimated;
+  }
+
+  /**
+   * A trace of a level of the trace pyramid, and its data statistics.
+   */
+  public static class LevelTrace {
+
+    /** The number of the first trace of the section decimated into this trace. */
+    private final int _traceNo;
+
+    private final Trace _trace;
+
+    private final float _dataMin;
+
+    private final float _dataMax;
+
+    private final float _dataAvg;
+
+    LevelTrace(final int traceNo, final Trace trace, final float dataMin, final float dataMax, final float dataAvg) {
+      _traceNo = traceNo;
+      _trace = trace;
+      _dataMin = dataMin;
+      _dataMax = dataMax;
+      _dataAvg = dataAvg;
+    }
+
+    LevelTrace(final int traceNo, final LevelTrace trace) {
+      this(traceNo, trace._trace, trace._dataMin, trace._dataMax, trace._dataAvg);
+    }
+
+    public int getTraceNo() {
+      return _traceNo;
+    }
+
+    public Trace getTrace() {
+      return _trace;
+    }
+
+    public float getDataMinimum() {
+      return _dataMin;
+    }
+
+    public float getDataMaximum() {
+      return _dataMax;
+    }
+
+    public float getDataAverage() {
+      return _dataAvg;
+    }
+  }
+
+  /**
+   * The key of a tile: the zoom, the pyramid level and the position of the tile in the grid.
+   */
+  public static class TileKey {
+
+    private final int _pixelsPerTraceBits;
+
+    private final int _pixelsPerZBits;
+
+    private final int _level;
+
+    private final int _column;
+
+    private final int _row;
+
+    /**
+     * Constructs a tile key.
+     *
+     * @param pixelsPerTrace the pixels per trace of the section.
+     * @param pixelsPerZ the pixels per z unit of the section.
+     * @param level the level of the trace pyramid.
+     * @param column the column of the tile in the grid.
+     * @param row the row of the tile in the grid.
+     */
+    public TileKey(final double pixelsPerTrace, final double pixelsPerZ, final int level, final int column,
+        final int row) {
+      // Compare the zoom in single precision, so a pan that perturbs the transform
+      // in its last few bits still finds the tiles rendered before it.
+      _pixelsPerTraceBits = Float.floatToIntBits((float) pixelsPerTrace);
+      _pixelsPerZBits = Float.floatToIntBits((float) pixelsPerZ);
+      _level = level;
+      _column = column;
+      _row = row;
+    }
+
+    public int getColumn() {
+      return _column;
+    }
+
+    public int getRow() {
+      return _row;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+      if (!(object instanceof TileKey)) {
+        return false;
+      }
+      TileKey key = (TileKey) object;
+      return _pixelsPerTraceBits == key._pixelsPerTraceBits && _pixelsPerZBits == key._pixelsPerZBits
+          && _level == key._level && _column == key._column && _row == key._row;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = _pixelsPerTraceBits;
+      hash = 31 * hash + _pixelsPerZBits;
+      hash = 31 * hash + _level;
+      hash = 31 * hash + _column;
+      hash = 31 * hash + _row;
+      return hash;
+    }
+  }
+
+  /**
+   * A rendered tile: the color indices of its pixels, and the plot image built from them.
+   */
+  public static class Tile {
+
+    private final TileKey _key;
+
+    private final int _width;
+
+    private final int _height;
+
+    private final byte[] _colors;
+
+    private final byte _alpha;
+
+    /** The model coordinates of the top-left and bottom-right pixels of the tile. */
+    private final Point2D.Double _cornerPoint1;
+
+    private final Point2D.Double _cornerPoint2;
+
+    /** The plot image of the tile, or <i>null</i> if not yet built. */
+    private IPlotImage _plotImage;
+
+    /** The version of the colors used to build the image. */
+    private int _colorVersion = -1;
+
+    /** <i>true</i> if the tile is on display. */
+    private boolean _displayed;
+
+    /**
+     * Constructs a tile.
+     *
+     * @param key the key of the tile.
+     * @param width the width (in pixels) of the tile.
+     * @param height the height (in pixels) of the tile.
+     * @param colors the color indices of the pixels.
+     * @param alpha the alpha value of the pixels.
+     * @param cornerPoint1 the model coordinates of the top-left pixel.
+     * @param cornerPoint2 the model coordinates of the bottom-right pixel.
+     */
+    public Tile(final TileKey key, final int width, final int height, final byte[] colors, final byte alpha,
+        final Point2D.Double cornerPoint1, final Point2D.Double cornerPoint2) {
+      _key = key;
+      _width = width;
+      _height = height;
+      _colors = colors;
+      _alpha = alpha;
+      _cornerPoint1 = cornerPoint1;
+      _cornerPoint2 = cornerPoint2;
+    }
+
+    public TileKey getKey() {
+      return _key;
+    }
+
+    public int getWidth() {
+      return _width;
+    }
+
+    public int getHeight() {
+      return _height;
+    }
+
+    /**
+     * Returns the color indices of the pixels (not a copy).
+     */
+    public byte[] getColors() {
+      return _colors;
+    }
+
+    public byte getAlpha() {
+      return _alpha;
+    }
+
+    public Point2D.Double getCornerPoint1() {
+      return _cornerPoint1;
+    }
+
+    public Point2D.Double getCornerPoint2() {
+      return _cornerPoint2;
+    }
+
+    public IPlotImage getPlotImage() {
+      return _plotImage;
+    }
+
+    public int getColorVersion() {
+      return _colorVersion;
+    }
+
+    /**
+     * Sets the plot image of the tile, disposing the image it replaces.
+     *
+     * @param plotImage the plot image.
+     * @param colorVersion the version of the colors used to build the image.
+     */
+    public void setPlotImage(final IPlotImage plotImage, final int colorVersion) {
+      if (_plotImage != null && _plotImage != plotImage) {
+        disposeImage(_plotImage.getImage());
+      }
+      _plotImage = plotImage;
+      _colorVersion = colorVersion;
+    }
+
+    public boolean isDisplayed() {
+      return _displayed;
+    }
+
+    public void setDisplayed(final boolean displayed) {
+      _displayed = displayed;
+    }
+
+    /**
+     * Disposes the image of the tile.
+     */
+    void dispose() {
+      if (_plotImage != null) {
+        disposeImage(_plotImage.getImage());
+        _plotImage = null;
+      }
+      _colorVersion = -1;
+    }
+
+    private static void disposeImage(final Image image) {
+      if (image != null && !image.isDisposed()) {
+        image.dispose();
+      }
+    }
+  }
+
+}
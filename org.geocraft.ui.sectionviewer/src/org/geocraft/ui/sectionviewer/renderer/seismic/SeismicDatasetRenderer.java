@@ -6,6 +6,7 @@ package org.geocraft.ui.sectionviewer.renderer.seismic;
 
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -34,11 +35,11 @@ import org.geocraft.core.model.IModelListener;
 import org.geocraft.core.model.datatypes.Header;
 import org.geocraft.core.model.datatypes.Trace;
 import org.geocraft.core.model.datatypes.TraceHeaderCatalog;
+import org.geocraft.core.model.seismic.SeismicSurvey3d;
 import org.geocraft.core.model.seismic.TraceSection;
 import org.geocraft.core.service.logging.ILogger;
 import org.geocraft.ui.chartviewer.data.HistogramData;
 import org.geocraft.ui.model.ModelUI;
-import org.geocraft.ui.plot.axis.IAxis;
 import org.geocraft.ui.plot.defs.PlotEventType;
 import org.geocraft.ui.plot.defs.RenderLevel;
 import org.geocraft.ui.plot.event.ModelSpaceEvent;
@@ -64,17 +65,14 @@ import org.geocraft.ui.viewer.layer.ViewLayerEvent;
 public abstract class SeismicDatasetRenderer extends SectionViewRenderer implements ControlListener, ColorMapListener,
     IModelListener {
 
-  /** The plot image for the seismic dataset. */
-  protected IPlotImage _plotImage;
+  /** The cache of rendered image tiles, and decimated traces, for the section. */
+  protected SectionTileCache _tileCache = new SectionTileCache();
 
-  /** The width of the plot image. */
-  protected int _imageWidth;
+  /** The image tiles currently displayed. */
+  protected List<SectionTileCache.Tile> _displayedTiles = new ArrayList<SectionTileCache.Tile>();
 
-  /** The size of the plot image. */
-  protected int _imageHeight;
-
-  /** The byte array of image pixels. */
-  protected byte[] _imageColors;
+  /** The reader of the sections displayed, which also reads ahead the sections expected next. */
+  protected SectionPrefetcher _prefetcher = new SectionPrefetcher(this);
 
   /** The byte array of image alphas. */
   protected byte _imageAlpha = (byte) 0;
@@ -106,9 +104,18 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
   /** The list of traces in the section. */
   protected List<IPlotTrace> _traces;
 
-  /** Flag to indicate rebuild of pixel byte array is needed. */
+  /** Flag to indicate the rendered image tiles must be discarded and rebuilt. */
   protected boolean _rebuildPixels = true;
 
+  /** Flag to indicate the AGC and geometric gain must be reapplied to the traces. */
+  protected boolean _preProcessTraces = true;
+
+  /** The version of the colormap colors, incremented when they change. */
+  protected int _colorVersion;
+
+  /** The normalization min and max for the traces and display settings, or <i>null</i> if not computed. */
+  protected double[] _globalMinMax;
+
   /** The trace data minimum. */
   protected float _dataMinimum;
 
@@ -120,12 +127,6 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
 
   protected float[] _traceValues = null;
 
-  /** The corner point for anchoring the top-left of the rendered image. */
-  protected Point2D.Double _cornerPoint1;
-
-  /** The corner point for anchoring the bottom-right of the rendered image. */
-  protected Point2D.Double _cornerPoint2;
-
   protected ITraceInterpolationRenderStrategy _interpolationRenderStrategy;
 
   protected ITraceInterpolationRenderStrategy _linearInterpolationStrategy;
@@ -217,6 +218,10 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
       }
     */
     boolean readTraces = reload;
+    if (reload) {
+      // The dataset may have changed, so discard the sections already read.
+      _prefetcher.clear();
+    }
     if (section != null && _section == null) {
       readTraces = true;
     }
@@ -229,10 +234,9 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
       TaskRunner.runTask(readTracesTask, "Reading traces...", TaskRunner.INTERACTIVE);
 
     } else {
+      // Only the view has changed, so the cached image tiles are still valid.
       _section = section;
 
-      _rebuildPixels = true;
-
       renderImage();
     }
   }
@@ -255,6 +259,7 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
       public void run() {
         _section = result.getTraceSection();
 
+        _preProcessTraces = true;
         _rebuildPixels = true;
 
         renderImage();
@@ -332,6 +337,8 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
 
   /**
    * Reads the traces for the specified section from the associated seismic dataset.
+   * This is called by the section prefetcher, which serializes the reads, and may be
+   * called from a background job reading ahead, so it should not lock the renderer.
    * 
    * @param monitor the progress monitor.
    * @param section the section to be rendered.
@@ -339,8 +346,19 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
    */
   public abstract Trace[] readTraces(IProgressMonitor monitor, TraceSection section);
 
+  /**
+   * Returns the 3D survey of the associated seismic dataset, used to read ahead the
+   * inline and xline sections neighboring the one displayed.
+   * 
+   * @return the 3D survey; or <i>null</i> if the dataset is not 3D, in which case no sections are read ahead.
+   */
+  protected SeismicSurvey3d getSurvey3d() {
+    return null;
+  }
+
   @Override
   public void refresh() {
+    _preProcessTraces = true;
     _rebuildPixels = true;
     renderImage();
     //super.updated();
@@ -362,12 +380,9 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
 
   @Override
   public void dispose() {
-    if (_plotImage != null) {
-      Image image = _plotImage.getImage();
-      if (image != null) {
-        image.dispose();
-      }
-    }
+    _displayedTiles.clear();
+    _tileCache.clear();
+    _prefetcher.clear();
     Widget widget = _canvas.getComposite();
     if (!widget.isDisposed()) {
       _canvas.removeControlListener(this);
@@ -402,47 +417,6 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
     _traceValues = null;
   }
 
-  /**
-   * Colors the pixels in the image pixels array.
-   * 
-   * @param width the width of the image.
-   * @param height the height of the image.
-   */
-  public void colorPixels(final int width, final int height) {
-    // Create new actual image for drawing from the pixel byte array.
-    RGB[] rgbs = buildColorModel(_model.getColorBar());
-    PaletteData palette = new PaletteData(rgbs);
-    int depth = 8;
-    if (_model.getColorBar().getNumColors() >= 252) {
-      depth = 16;
-    }
-    int pw = width;
-    int ph = height;
-    //System.out.println("Creating image w=" + width + " h=" + height + " d=" + depth);
-    ImageData imageData = new ImageData(pw, ph, depth, palette, 1, _imageColors);
-    imageData.alpha = _imageAlpha;
-    Image image = new Image(_canvas.getComposite().getDisplay(), imageData);
-
-    _rebuildPixels = false;
-
-    if (_plotImage == null) {
-      _plotImage = new PlotImage(image, "", _cornerPoint1, _cornerPoint2);
-      _plotImage.setRenderLevel(RenderLevel.IMAGE_UNDER_GRID);
-      addShape(_plotImage);
-    } else {
-      _plotImage.blockUpdate();
-      Image oldImage = _plotImage.getImage();
-      _plotImage.getPoint(0).moveTo(_cornerPoint1.getX(), _cornerPoint1.getY());
-      _plotImage.getPoint(1).moveTo(_cornerPoint2.getX(), _cornerPoint2.getY());
-      _plotImage.setImage(image);
-      _plotImage.unblockUpdate();
-      if (oldImage != null) {
-        oldImage.dispose();
-      }
-      _plotImage.updated();
-    }
-  }
-
   /**
    * Computes the data statistics for the traces in the section.
    * This includes the minimum value, maximum value and average value.
@@ -528,7 +502,9 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
       //      super.updated();
       return;
     }
+    // Only the colors have changed, so rebuild the images of the tiles from their cached color indices.
     _model.getColorBar().setColors(event.getColorMapModel().getColors());
+    _colorVersion++;
     renderImage();
   }
 
@@ -539,6 +515,7 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
      */
   public void updateRendererModel(final SeismicDatasetRendererModel model) {
     _model.updateFrom(model);
+    _preProcessTraces = true;
     _rebuildPixels = true;
     redraw(false);
   }
@@ -586,32 +563,17 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
   }
 
   /**
-   * Initializes the arrays used to create the plot image.
-   * The arrays are initialized will the <i>null</i> color index and
-   * a transparent alpha value.
-   */
-  private void initializeImageArrays() {
-    int numColorBarColors = _model.getColorBar().getNumColors();
-    for (int i = 0; i < _imageColors.length; i++) {
-      _imageColors[i] = (byte) numColorBarColors; // The null color index.
-    }
-  }
-
-  /**
-   *  If the number of pixels per trace is too small, then decimate the wiggles 
-   *  that are drawn.
+   * Creates the wiggle decimation flags for the traces of a level of the trace pyramid.
+   * If the number of pixels per trace is too small, then decimate the wiggles that are
+   * drawn, so they are at least 4 pixels apart. The flags are indexed by the position of
+   * the trace in the level, so adjacent tiles agree on which wiggles are drawn.
    * 
-   * @param numTraces the number of traces to display.
+   * @param numTraces the number of traces in the level.
+   * @param pixelsPerTrace the number of pixels between the traces of the level.
    * @return an array of boolean flags indicating the display status of each traces wiggles.
    */
-  private boolean[] createWiggleDecimationFlags(final int numTraces) {
-
-    int decimation = 1;
-    float tracesPerPixel = (float) numTraces / _imageWidth;
-    while (tracesPerPixel > 0.25) {
-      decimation++;
-      tracesPerPixel = (float) (numTraces / decimation) / _imageWidth;
-    }
+  private boolean[] createWiggleDecimationFlags(final int numTraces, final double pixelsPerTrace) {
+    int decimation = Math.max(1, (int) Math.ceil(4 / Math.abs(pixelsPerTrace)));
     boolean[] drawWiggle = new boolean[numTraces];
     for (int i = 0; i < numTraces; i++) {
       drawWiggle[i] = i % decimation == 0;
@@ -620,7 +582,9 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
   }
 
   /**
-   * Renders the traces as a plot image.
+   * Renders the traces as a set of plot image tiles.
+   * Only the tiles in view are rendered; those already in the tile cache for the
+   * current zoom are reused as is.
    */
   protected synchronized void renderImage() {
     // If the model space has not yet been set, then simply return.
@@ -639,53 +603,180 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
       throw new RuntimeException("The seismic dataset should not be null.");
     }
 
-    preProcessTraces();
+    // Apply the AGC and geometric gain only if the traces or gain settings have changed.
+    if (_preProcessTraces) {
+      preProcessTraces();
+      _preProcessTraces = false;
+      _rebuildPixels = true;
+    }
+
+    // Discard the rendered tiles if the traces or display settings have changed.
+    if (_rebuildPixels) {
+      showTiles(new ArrayList<SectionTileCache.Tile>());
+      _tileCache.setTraces(getPlotTraces());
+      _globalMinMax = null;
+      _rebuildPixels = false;
+    }
+
+    if (_traces.isEmpty()) {
+      return;
+    }
 
     // Compute the image bounds, based on the trace section and viewable window.
-    Rectangle imageBounds = computeImageBounds(modelSpace);
+    Rectangle sectionBounds = computeSectionBounds(modelSpace);
+    Rectangle imageBounds = computeImageBounds(modelSpace, sectionBounds);
     // In the case where the section is outside the current view bounds, the image bounds
-    // returned have negative dimensions. If this happens, simply remove the plot image
-    // and null it out. It will be reconstructed when the section moves back into view.
+    // returned have negative dimensions. If this happens, simply remove the tiles on display.
+    // They will be redisplayed when the section moves back into view.
     if (imageBounds.width < 0 || imageBounds.height < 0) {
-      _rebuildPixels = false;
-      if (_plotImage != null) {
-        removeShape(_plotImage);
-        _plotImage = null;
-      }
+      showTiles(new ArrayList<SectionTileCache.Tile>());
       return;
     }
 
-    // Determine the max and max x,y model coordinates of the image to render.
+    setInterpolationRenderStrategy(modelSpace);
+
+    if (_globalMinMax == null) {
+      _globalMinMax = computeGlobalMinMax();
+    }
+
+    // Determine the zoom, and the level of the trace pyramid to render at that zoom.
+    Trace refTrace = _traces.get(0).getTrace();
+    Point2D.Double pixel0 = new Point2D.Double();
+    _canvas.transformModelToPixel(modelSpace, 1, refTrace.getZStart(), pixel0);
+    Point2D.Double pixel1 = new Point2D.Double();
+    _canvas.transformModelToPixel(modelSpace, 2, refTrace.getZStart() + 1, pixel1);
+    double pixelsPerTrace = pixel1.x - pixel0.x;
+    double pixelsPerZ = pixel1.y - pixel0.y;
+    int level = _tileCache.getLevel(pixelsPerTrace);
+    SectionTileCache.LevelTrace[] levelTraces = _tileCache.getLevelTraces(level);
+    int decimation = SectionTileCache.getDecimation(level);
+    boolean[] drawWiggle = createWiggleDecimationFlags(levelTraces.length, pixelsPerTrace * decimation);
+
+    // Collect the tiles in view, rendering those not already cached.
+    int tileSize = SectionTileCache.TILE_SIZE;
+    int columnStart = (imageBounds.x - sectionBounds.x) / tileSize;
+    int columnEnd = (imageBounds.x + imageBounds.width - 1 - sectionBounds.x) / tileSize;
+    int rowStart = (imageBounds.y - sectionBounds.y) / tileSize;
+    int rowEnd = (imageBounds.y + imageBounds.height - 1 - sectionBounds.y) / tileSize;
+    List<SectionTileCache.Tile> tiles = new ArrayList<SectionTileCache.Tile>();
+    for (int row = rowStart; row <= rowEnd; row++) {
+      for (int column = columnStart; column <= columnEnd; column++) {
+        SectionTileCache.TileKey key = new SectionTileCache.TileKey(pixelsPerTrace, pixelsPerZ, level, column, row);
+        SectionTileCache.Tile tile = _tileCache.getTile(key);
+        if (tile == null) {
+          tile = renderTile(key, modelSpace, sectionBounds, levelTraces, decimation, drawWiggle);
+          tile.setDisplayed(true);
+          _tileCache.putTile(tile);
+        } else {
+          tile.setDisplayed(true);
+        }
+        tiles.add(tile);
+      }
+    }
+
+    showTiles(tiles);
+  }
+
+  /**
+   * Renders a tile of the section image.
+   * 
+   * @param key the key of the tile.
+   * @param modelSpace the current plot model space.
+   * @param sectionBounds the bounds (in pixel coordinates) of the trace section.
+   * @param plotTraces the traces of the level of the trace pyramid to render.
+   * @param decimation the number of traces decimated into each trace of the level.
+   * @param drawWiggle the wiggle decimation flags of the level.
+   * @return the rendered tile.
+   */
+  private SectionTileCache.Tile renderTile(final SectionTileCache.TileKey key, final IModelSpace modelSpace,
+      final Rectangle sectionBounds, final SectionTileCache.LevelTrace[] plotTraces, final int decimation,
+      final boolean[] drawWiggle) {
+    int tileSize = SectionTileCache.TILE_SIZE;
+    int column = key.getColumn();
+    int row = key.getRow();
+    int pixelAnchorX = sectionBounds.x + column * tileSize;
+    int pixelAnchorY = sectionBounds.y + row * tileSize;
+    int width = Math.min(tileSize, sectionBounds.width - column * tileSize);
+    int height = Math.min(tileSize, sectionBounds.height - row * tileSize);
+
+    // Initialize the pixels to the null color index.
+    byte[] colors = new byte[width * height];
+    Arrays.fill(colors, (byte) _model.getColorBar().getNumColors());
+
+    // Determine the min and max x,y model coordinates of the tile.
     Point2D.Double temp1 = new Point2D.Double();
-    _canvas.transformPixelToModel(modelSpace, imageBounds.x, imageBounds.y, temp1);
+    _canvas.transformPixelToModel(modelSpace, pixelAnchorX, pixelAnchorY, temp1);
     Point2D.Double temp2 = new Point2D.Double();
-    _canvas.transformPixelToModel(modelSpace, imageBounds.x + imageBounds.width - 1, imageBounds.y + imageBounds.height
-        - 1, temp2);
-
-    _cornerPoint1 = new Point2D.Double(Math.min(temp1.x, temp2.x), Math.min(temp1.y, temp2.y));
-    _cornerPoint2 = new Point2D.Double(Math.max(temp1.x, temp2.x), Math.max(temp1.y, temp2.y));
-
-    // Create a new image if necessary (e.g. the plot was resized).
-    boolean updatePixelArray = false;
-    try {
-      updatePixelArray = createImagePixelArray(imageBounds.width, imageBounds.height);
-      _imageWidth = imageBounds.width;
-      _imageHeight = imageBounds.height;
-    } catch (Exception ex) {
-      throw new RuntimeException("Problem drawing seismic dataset " + ex.toString());
-    }
+    _canvas.transformPixelToModel(modelSpace, pixelAnchorX + width - 1, pixelAnchorY + height - 1, temp2);
+    Point2D.Double cornerPoint1 = new Point2D.Double(Math.min(temp1.x, temp2.x), Math.min(temp1.y, temp2.y));
+    Point2D.Double cornerPoint2 = new Point2D.Double(Math.max(temp1.x, temp2.x), Math.max(temp1.y, temp2.y));
 
-    setInterpolationRenderStrategy(modelSpace);
+    renderTraces(plotTraces, decimation, drawWiggle, cornerPoint1, cornerPoint2, pixelAnchorX, pixelAnchorY, width,
+        height, colors);
 
-    // Rebuild the pixels array only if a new one was allocated.
-    if (updatePixelArray) {
-      buildPixels();
-    }
+    return new SectionTileCache.Tile(key, width, height, colors, _imageAlpha, cornerPoint1, cornerPoint2);
+  }
 
-    // Always color the pixels array.
-    colorPixels(_imageWidth, _imageHeight);
+  /**
+   * Displays the specified tiles, removing any other tiles currently displayed from the plot.
+   * The image of a tile is (re)built if it does not yet exist, or if the colormap has changed.
+   * 
+   * @param tiles the tiles to display.
+   */
+  private void showTiles(final List<SectionTileCache.Tile> tiles) {
+    if (tiles.isEmpty() && _displayedTiles.isEmpty()) {
+      return;
+    }
+    block();
+    for (SectionTileCache.Tile tile : _displayedTiles) {
+      if (!tiles.contains(tile)) {
+        tile.setDisplayed(false);
+        if (tile.getPlotImage() != null) {
+          removeShape(tile.getPlotImage());
+        }
+      }
+    }
+    for (SectionTileCache.Tile tile : tiles) {
+      IPlotImage plotImage = tile.getPlotImage();
+      if (plotImage == null) {
+        plotImage = new PlotImage(createTileImage(tile), "", tile.getCornerPoint1(), tile.getCornerPoint2());
+        plotImage.setRenderLevel(RenderLevel.IMAGE_UNDER_GRID);
+        tile.setPlotImage(plotImage, _colorVersion);
+      } else if (tile.getColorVersion() != _colorVersion) {
+        plotImage.blockUpdate();
+        Image oldImage = plotImage.getImage();
+        plotImage.setImage(createTileImage(tile));
+        plotImage.unblockUpdate();
+        if (oldImage != null) {
+          oldImage.dispose();
+        }
+        tile.setPlotImage(plotImage, _colorVersion);
+      }
+      if (!_displayedTiles.contains(tile)) {
+        addShape(plotImage);
+      }
+    }
+    _displayedTiles = tiles;
+    unblock();
+    updated();
+  }
 
-    _rebuildPixels = false;
+  /**
+   * Creates the image of a tile from its pixel color indices, using the current colormap.
+   * 
+   * @param tile the tile.
+   * @return the image.
+   */
+  private Image createTileImage(final SectionTileCache.Tile tile) {
+    RGB[] rgbs = buildColorModel(_model.getColorBar());
+    PaletteData palette = new PaletteData(rgbs);
+    int depth = 8;
+    if (_model.getColorBar().getNumColors() >= 252) {
+      depth = 16;
+    }
+    ImageData imageData = new ImageData(tile.getWidth(), tile.getHeight(), depth, palette, 1, tile.getColors());
+    imageData.alpha = tile.getAlpha();
+    return new Image(_canvas.getComposite().getDisplay(), imageData);
   }
 
   /**
@@ -717,28 +808,13 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
   }
 
   /**
-   * Computes the bounds (in pixel coordinates) of the image that will be used to
-   * render the traces.
+   * Computes the bounds (in pixel coordinates) of the trace section.
+   * The tiles of the section image are anchored at the top-left of these bounds.
    * 
    * @param modelSpace the current plot model space.
-   * @return the rectangle containing the image bounds.
+   * @return the rectangle containing the section bounds.
    */
-  private Rectangle computeImageBounds(final IModelSpace modelSpace) {
-    // Determine the min and max x,y pixel coordinates of the viewable window.
-    ModelSpaceBounds bounds = modelSpace.getViewableBounds();
-    double xStart = bounds.getStartX();
-    double xEnd = bounds.getEndX();
-    double yStart = bounds.getStartY();
-    double yEnd = bounds.getEndY();
-    Point2D.Double pxy0 = new Point2D.Double();
-    _canvas.transformModelToPixel(modelSpace, xStart, yStart, pxy0);
-    Point2D.Double pxy1 = new Point2D.Double();
-    _canvas.transformModelToPixel(modelSpace, xEnd, yEnd, pxy1);
-    double windowMinX = Math.min(pxy0.x, pxy1.x);
-    double windowMaxX = Math.max(pxy0.x, pxy1.x);
-    double windowMinY = Math.min(pxy0.y, pxy1.y);
-    double windowMaxY = Math.max(pxy0.y, pxy1.y);
-
+  private Rectangle computeSectionBounds(final IModelSpace modelSpace) {
     // Determine the min and max x,y pixel coordinates of the trace section.
     double xmin = 1;
     double xmax = _section.getNumTraces();
@@ -753,85 +829,63 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
     int sectionMinY = (int) Math.floor(Math.min(sectionTopLeft.getY(), sectionTopRight.getY()));
     int sectionMaxY = (int) Math.ceil(Math.max(sectionTopLeft.getY(), sectionTopRight.getY()));
 
-    // Determine the min and max x,y pixel coordinates of the image to render.
-    int imageMinX = (int) Math.max(sectionMinX, windowMinX);
-    int imageMaxX = (int) Math.min(sectionMaxX, windowMaxX);
-    int imageMinY = (int) Math.max(sectionMinY, windowMinY);
-    int imageMaxY = (int) Math.min(sectionMaxY, windowMaxY);
-    int imageWidth = imageMaxX - imageMinX + 1;
-    int imageHeight = imageMaxY - imageMinY + 1;
-
-    return new Rectangle(imageMinX, imageMinY, imageWidth, imageHeight);
+    return new Rectangle(sectionMinX, sectionMinY, sectionMaxX - sectionMinX + 1, sectionMaxY - sectionMinY + 1);
   }
 
   /**
-   * Creates the image pixel array (if necessary) for the renderer.
+   * Computes the bounds (in pixel coordinates) of the part of the trace section in view.
    * 
-   * @param width the image width.
-   * @param height the image height.
-   * @return true if a new image was created; false if not.
-   */
-  private boolean createImagePixelArray(final int width, final int height) throws Exception {
-    // Compute the total # of pixels in the image.
-    int numPixels = width * height;
-    // Check if the image pixel arrays need to be reallocated.
-    // 1) If rebuildPixels flag is set.
-    // 2) If the imagePixels or imageAlphas arrays are null.
-    // 3) If the image width or height have changed.
-    if (_rebuildPixels || _imageColors == null || _imageWidth != width || _imageHeight != height
-        || numPixels != _imageColors.length) {
-      // Allocate new arrays for the image pixels and image alphas.
-      _imageColors = new byte[numPixels];
-      for (int index = 0; index < numPixels; index++) {
-        // The default pixel is the null.
-        _imageColors[index] = (byte) _model.getColorBar().getNumColors();
-      }
-      return true;
-    }
-    return false;
-  }
-
-  /**
-   * Builds the image pixels array for the seismic dataset.
+   * @param modelSpace the current plot model space.
+   * @param sectionBounds the bounds (in pixel coordinates) of the trace section.
+   * @return the rectangle containing the image bounds.
    */
-  private void buildPixels() {
-
-    // For debug timing purposes only.
-    //long start = System.currentTimeMillis();
-
-    // Initialize the pixel and alpha arrays.
-    initializeImageArrays();
-
-    // Determine the traces in the viewable range.
-    IAxis xAxis = getModelSpace().getAxisX();
-    IPlotTrace[] seisPlotTraces = getPlotTraces();
-    int traceStart = (int) Math.max(xAxis.getViewableStart() - 0.5, seisPlotTraces[0].getTraceNo());
-    int traceEnd = (int) Math.min(xAxis.getViewableEnd() + 0.5, seisPlotTraces[seisPlotTraces.length - 1].getTraceNo());
-    int numTraces = traceEnd - traceStart + 1;
-
-    // If there is not at least 1 trace to render, then simply return.
-    if (numTraces < 1) {
-      return;
-    }
-
-    // Render the traces.
-    int tracesRendered = renderTraces(seisPlotTraces, traceStart, traceEnd);
+  private Rectangle computeImageBounds(final IModelSpace modelSpace, final Rectangle sectionBounds) {
+    // Determine the min and max x,y pixel coordinates of the viewable window.
+    ModelSpaceBounds bounds = modelSpace.getViewableBounds();
+    double xStart = bounds.getStartX();
+    double xEnd = bounds.getEndX();
+    double yStart = bounds.getStartY();
+    double yEnd = bounds.getEndY();
+    Point2D.Double pxy0 = new Point2D.Double();
+    _canvas.transformModelToPixel(modelSpace, xStart, yStart, pxy0);
+    Point2D.Double pxy1 = new Point2D.Double();
+    _canvas.transformModelToPixel(modelSpace, xEnd, yEnd, pxy1);
+    double windowMinX = Math.min(pxy0.x, pxy1.x);
+    double windowMaxX = Math.max(pxy0.x, pxy1.x);
+    double windowMinY = Math.min(pxy0.y, pxy1.y);
+    double windowMaxY = Math.max(pxy0.y, pxy1.y);
 
-    _rebuildPixels = false;
+    // Determine the min and max x,y pixel coordinates of the image to render.
+    int imageMinX = (int) Math.max(sectionBounds.x, windowMinX);
+    int imageMaxX = (int) Math.min(sectionBounds.x + sectionBounds.width - 1, windowMaxX);
+    int imageMinY = (int) Math.max(sectionBounds.y, windowMinY);
+    int imageMaxY = (int) Math.min(sectionBounds.y + sectionBounds.height - 1, windowMaxY);
+    int imageWidth = imageMaxX - imageMinX + 1;
+    int imageHeight = imageMaxY - imageMinY + 1;
 
-    // For debug purposes only.
-    //System.out.println("Traces Rendered = " + tracesRendered + " in " + (System.currentTimeMillis() - start) + " ms");
+    return new Rectangle(imageMinX, imageMinY, imageWidth, imageHeight);
   }
 
   /**
-   * Renders the given traces in the plot.
+   * Renders the given traces into the pixels of a tile.
+   * Only the traces, and the samples of each trace, that fall within the tile (allowing for
+   * the excursion of the wiggles) are rendered.
    * 
-   * @param plotTraces the array of traces (wrapped in PlotTrace objects).
-   * @param traceStart the starting trace number.
-   * @param traceEnd the ending trace number.
+   * @param plotTraces the array of traces of a level of the trace pyramid.
+   * @param decimation the number of traces decimated into each trace of the level.
+   * @param drawWiggle the wiggle decimation flags of the level.
+   * @param cornerPoint1 the model coordinates of the top-left pixel of the tile.
+   * @param cornerPoint2 the model coordinates of the bottom-right pixel of the tile.
+   * @param pixelAnchorX the x pixel coordinate of the top-left of the tile.
+   * @param pixelAnchorY the y pixel coordinate of the top-left of the tile.
+   * @param imageWidth the width of the tile.
+   * @param imageHeight the height of the tile.
+   * @param imageColors the pixels of the tile.
    * @return the number of traces rendered.
    */
-  private int renderTraces(final IPlotTrace[] plotTraces, final int traceStart, final int traceEnd) {
+  private int renderTraces(final SectionTileCache.LevelTrace[] plotTraces, final int decimation, final boolean[] drawWiggle,
+      final Point2D.Double cornerPoint1, final Point2D.Double cornerPoint2, final int pixelAnchorX,
+      final int pixelAnchorY, final int imageWidth, final int imageHeight, final byte[] imageColors) {
 
     int xCenterPrev = -999;
     int tracesRendered = 0;
@@ -848,71 +902,28 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
     int alpha = Math.round(255 - transparency);
     _imageAlpha = (byte) alpha;
 
-    Point2D.Double pixelAnchor = new Point2D.Double();
-    _canvas.transformModelToPixel(_modelSpace, _cornerPoint1.x, _cornerPoint1.y, pixelAnchor);
-
-    int pixelAnchorX = (int) pixelAnchor.x;
-    int pixelAnchorY = (int) pixelAnchor.y;
-
     // Initialize the normalization min and max to the global trace statistics.
     NormalizationMethod normalization = _model.getNormalizationMethod();
-    double[] globalMinMax = computeGlobalMinMax();
-    double normalizationMin = globalMinMax[0];
-    double normalizationMax = globalMinMax[1];
+    double normalizationMin = _globalMinMax[0];
+    double normalizationMax = _globalMinMax[1];
     double normalizationOffset = 0.5 * _model.getTraceExaggeration();
 
-    int numTraces = traceEnd - traceStart + 1;
-    boolean[] drawWiggle = createWiggleDecimationFlags(numTraces);
-
     boolean byTraceNormalization = normalization.equals(NormalizationMethod.BY_TRACE_AVERAGE)
         || normalization.equals(NormalizationMethod.BY_TRACE_MAXIMUM);
     int traceClipping = _model.getTraceClipping();
 
-    //    // TODO: Implement this multi-threaded rendering?
-    //    long time1 = System.currentTimeMillis();
-    //    int numProcessors = Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
-    //    int numTracesPerThread = 1 + numTraces / numProcessors;
-    //    int numThreads = 0;
-    //    int numTracesTemp = 0;
-    //    List<Thread> threads = new ArrayList<Thread>();
-    //    int trcStart = 1;
-    //    int trcEnd = 1;
-    //    while (numTracesTemp < numTraces) {
-    //      trcEnd = trcStart + numTracesPerThread - 1;
-    //      if (trcEnd > numTraces) {
-    //        trcEnd = numTraces;
-    //      }
-    //      numTracesPerThread = trcEnd - trcStart + 1;
-    //      TraceRenderRunnable runnable = new TraceRenderRunnable(_canvas, getModelSpace(), isReversedRange,
-    //          numColorBarColors, alpha, plotTraces, trcStart, trcEnd, _interpolationRenderStrategy, true, false,
-    //          normalization, byTraceNormalization, traceClipping, normalizationMin, normalizationMax, normalizationOffset,
-    //          polarityScalar, drawWiggle, pixelAnchorX, pixelAnchorY, _imageWidth, _imageHeight, _imageColors);
-    //      Thread t = new Thread(runnable);
-    //      threads.add(t);
-    //      trcStart = trcEnd + 1;
-    //      numTracesTemp += numTracesPerThread;
-    //      numThreads++;
-    //    }
-    //    for (Thread t : threads.toArray(new Thread[0])) {
-    //      t.start();
-    //    }
-    //    for (Thread t : threads.toArray(new Thread[0])) {
-    //      try {
-    //        t.join();
-    //      } catch (InterruptedException e) {
-    //        // TODO Auto-generated catch block
-    //        e.printStackTrace();
-    //      }
-    //    }
-    //    long time2 = System.currentTimeMillis();
-    //    System.out.println(numThreads + "Thread: " + (time2 - time1) + " msec");
-
-    //long time3 = System.currentTimeMillis();
-    for (int traceNo = traceStart; traceNo <= traceEnd; traceNo++) {
-      int traceIndex = traceNo - traceStart;
-      IPlotTrace plotTrace = plotTraces[traceNo - 1];
+    // Determine the traces that can touch the tile, allowing for the wiggle excursions.
+    int numTracesTotal = _traces.size();
+    double margin = traceClipping + decimation;
+    int indexStart = (int) Math.max(0, Math.floor((cornerPoint1.x - margin - 1) / decimation));
+    int indexEnd = (int) Math.min(plotTraces.length - 1, Math.ceil((cornerPoint2.x + margin - 1) / decimation));
+
+    for (int traceIndex = indexStart; traceIndex <= indexEnd; traceIndex++) {
+      SectionTileCache.LevelTrace plotTrace = plotTraces[traceIndex];
       Trace trace = plotTrace.getTrace();
-      float[] data = trace.getDataReference();
+      int traceNo = plotTrace.getTraceNo();
+      int traceNoLast = Math.min(traceNo + decimation - 1, numTracesTotal);
+      double traceCenter = 0.5 * (traceNo + traceNoLast);
 
       // Determine the normalization min and max, if normalization is trace-based.
       if (normalization.equals(NormalizationMethod.BY_TRACE_MAXIMUM)) {
@@ -936,18 +947,40 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
         normalizationFactor = 1;
       }
 
+      // Determine the samples that fall within the tile, plus one on either side for interpolation.
+      int numSamplesTotal = trace.getNumSamples();
+      float zDelta = trace.getZDelta();
+      int sampleStart = Math.max(0, (int) Math.floor((cornerPoint1.y - trace.getZStart()) / zDelta) - 1);
+      int sampleEnd = Math.min(numSamplesTotal - 1, (int) Math.ceil((cornerPoint2.y - trace.getZStart()) / zDelta) + 1);
+      if (sampleEnd == sampleStart && numSamplesTotal > 1) {
+        if (sampleEnd < numSamplesTotal - 1) {
+          sampleEnd++;
+        } else {
+          sampleStart--;
+        }
+      }
+      if (sampleEnd < sampleStart) {
+        continue;
+      }
+      float[] data = trace.getDataReference();
+      if (sampleStart > 0 || sampleEnd < numSamplesTotal - 1) {
+        data = Arrays.copyOfRange(data, sampleStart, sampleEnd + 1);
+      }
+      int numSamples = sampleEnd - sampleStart + 1;
+      float zTop = trace.getZStart() + sampleStart * zDelta;
+      float zBottom = trace.getZStart() + sampleEnd * zDelta;
+
       Point2D.Double pixelTopCenter = new Point2D.Double();
-      _canvas.transformModelToPixel(getModelSpace(), traceNo, trace.getZStart(), pixelTopCenter);
+      _canvas.transformModelToPixel(getModelSpace(), traceCenter, zTop, pixelTopCenter);
       Point2D.Double pixelTopLeft = new Point2D.Double();
-      _canvas.transformModelToPixel(getModelSpace(), traceNo - 0.5, trace.getZStart(), pixelTopLeft);
+      _canvas.transformModelToPixel(getModelSpace(), traceNo - 0.5, zTop, pixelTopLeft);
       Point2D.Double pixelBottomRight = new Point2D.Double();
-      _canvas.transformModelToPixel(getModelSpace(), traceNo + 0.5, trace.getZEnd(), pixelBottomRight);
+      _canvas.transformModelToPixel(getModelSpace(), traceNoLast + 0.5, zBottom, pixelBottomRight);
 
       int xCenter = Math.round((float) pixelTopCenter.x);
       int xLeft = Math.round((float) pixelTopLeft.x);
       int yTop = Math.round((float) pixelTopLeft.y);
       int xRight = Math.round((float) pixelBottomRight.x);
-      int yBottom = Math.round((float) pixelBottomRight.y);
       xLeft -= pixelAnchorX;
       xRight -= pixelAnchorX;
 
@@ -960,12 +993,11 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
       tracesRendered++;
 
       // Build the wiggle arrays.
-      int numSamples = trace.getNumSamples();
       int[] xLinear = new int[numSamples];
       int[] yLinear = new int[numSamples];
       int[] xStep = new int[1 + (numSamples - 1) * 2];
       int[] yStep = new int[1 + (numSamples - 1) * 2];
-      double pixelsPerSample = (pixelBottomRight.y - pixelTopLeft.y) / (numSamples - 1);
+      double pixelsPerSample = (pixelBottomRight.y - pixelTopLeft.y) / Math.max(1, numSamples - 1);
       Point2D.Double pixelCoord = new Point2D.Double();
       for (int i = 0; i < numSamples; i++) {
         double dx = data[i] * polarityScalar * normalizationOffset / normalizationFactor;
@@ -974,8 +1006,8 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
         } else {
           dx = Math.max(dx, -traceClipping);
         }
-        double x = traceNo + dx;
-        double y = trace.getZStart() + i * trace.getZDelta();
+        double x = traceCenter + dx;
+        double y = zTop + i * zDelta;
         _canvas.transformModelToPixel(getModelSpace(), x, y, pixelCoord);
         int px = (int) (pixelCoord.x + 0.5) - pixelAnchorX;
         int py = (int) (pixelCoord.y + 0.5) - pixelAnchorY;
@@ -1005,10 +1037,8 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
       _interpolationRenderStrategy.renderTrace(traceNo, traceIndex, numSamples, data, alpha, numColorBarColors,
           isReversedRange, polarityScalar, normalizationMin, normalizationMax, normalizationFactor,
           normalizationOffset, traceClipping, drawWiggle, pixelAnchorX, pixelAnchorY, pixelCoord, xLeft, xCenter,
-          xRight, yTop, numPixelsY, xWiggle, yWiggle, pixelsPerSample, _imageWidth, _imageHeight, _imageColors);
+          xRight, yTop, numPixelsY, xWiggle, yWiggle, pixelsPerSample, imageWidth, imageHeight, imageColors);
     }
-    long time4 = System.currentTimeMillis();
-    //System.out.println("1 Thread: " + (time4 - time3) + " msec");
 
     return tracesRendered;
   }
@@ -1124,7 +1154,8 @@ public abstract class SeismicDatasetRenderer extends SectionViewRenderer impleme
      */
     @Override
     public Object compute(final ILogger logger, final IProgressMonitor monitor) throws CoreException {
-      ReadTracesResult result = new ReadTracesResult(_traceSection, _renderer.readTraces(monitor, _traceSection));
+      ReadTracesResult result = new ReadTracesResult(_traceSection, _renderer._prefetcher.getTraces(monitor,
+          _traceSection));
       _renderer.setReadResult(result);
       return result;
     }
@@ -590,9 +590,8 @@ public class PostStack3dRenderer extends VolumeViewRenderer {
 
     if (_inlineSliceQuad != null) {
       if (drawTexture) {
-        final Texture texture = AWTTextureUtil.loadTexture(SeismicDatasetHelper.createTexture(_inlineSliceData
-            .getData(), _model.getColorBar(), _inlineSliceData.getNumTraces(), _inlineSliceData.getNumSamples(),
-            _inlineSliceData.getTraces(), _viewer.getMaximumTextureSize(), reversePolarity, transparency),
+        final Texture texture = AWTTextureUtil.loadTexture(SeismicDatasetHelper.createTexture(_inlineSliceData,
+            _model.getColorBar(), _viewer.getMaximumTextureSize(), reversePolarity, transparency),
             getMinificationFilter(), Image.Format.GuessNoCompression, false);
         texture.setMagnificationFilter(getMagnificationFilter());
         texture.setAnisotropicFilterPercent(getAnisoLevel());
@@ -603,10 +602,9 @@ public class PostStack3dRenderer extends VolumeViewRenderer {
 
     if (_xlineSliceQuad != null) {
       if (drawTexture) {
-        final Texture texture = AWTTextureUtil.loadTexture(SeismicDatasetHelper.createTexture(
-            _xlineSliceData.getData(), _model.getColorBar(), _xlineSliceData.getNumTraces(), _xlineSliceData
-                .getNumSamples(), _xlineSliceData.getTraces(), _viewer.getMaximumTextureSize(), reversePolarity,
-            transparency), getMinificationFilter(), Image.Format.GuessNoCompression, false);
+        final Texture texture = AWTTextureUtil.loadTexture(SeismicDatasetHelper.createTexture(_xlineSliceData,
+            _model.getColorBar(), _viewer.getMaximumTextureSize(), reversePolarity, transparency),
+            getMinificationFilter(), Image.Format.GuessNoCompression, false);
         texture.setMagnificationFilter(getMagnificationFilter());
         texture.setAnisotropicFilterPercent(getAnisoLevel());
         setPrimaryTexture(_xlineSliceQuad, texture);
@@ -655,9 +653,8 @@ public class PostStack3dRenderer extends VolumeViewRenderer {
     if (drawTexture) {
       _model.setXlineSlice(value);
       _model.setXlineSliceVisible(true);
-      final Texture texture = AWTTextureUtil.loadTexture(SeismicDatasetHelper.createTexture(_xlineSliceData.getData(),
-          _model.getColorBar(), _xlineSliceData.getNumTraces(), _xlineSliceData.getNumSamples(), _xlineSliceData
-              .getTraces(), _viewer.getMaximumTextureSize(), reversePolarity, transparency), getMinificationFilter(),
+      final Texture texture = AWTTextureUtil.loadTexture(SeismicDatasetHelper.createTexture(_xlineSliceData,
+          _model.getColorBar(), _viewer.getMaximumTextureSize(), reversePolarity, transparency), getMinificationFilter(),
           Image.Format.GuessNoCompression, false);
       texture.setMagnificationFilter(getMagnificationFilter());
       texture.setAnisotropicFilterPercent(getAnisoLevel());
@@ -696,9 +693,8 @@ public class PostStack3dRenderer extends VolumeViewRenderer {
     if (drawTexture) {
       _model.setInlineSlice(value);
       _model.setInlineSliceVisible(true);
-      final Texture texture = AWTTextureUtil.loadTexture(SeismicDatasetHelper.createTexture(_inlineSliceData.getData(),
-          _model.getColorBar(), _inlineSliceData.getNumTraces(), _inlineSliceData.getNumSamples(), _inlineSliceData
-              .getTraces(), _viewer.getMaximumTextureSize(), reversePolarity, transparency), getMinificationFilter(),
+      final Texture texture = AWTTextureUtil.loadTexture(SeismicDatasetHelper.createTexture(_inlineSliceData,
+          _model.getColorBar(), _viewer.getMaximumTextureSize(), reversePolarity, transparency), getMinificationFilter(),
           Image.Format.GuessNoCompression, false);
       texture.setMagnificationFilter(getMagnificationFilter());
       texture.setAnisotropicFilterPercent(getAnisoLevel());
@@ -15,6 +15,8 @@ import org.geocraft.core.color.map.SeismicColorMap;
 import org.geocraft.core.color.map.SpectrumColorMap;
 import org.geocraft.core.common.math.MathUtil;
 import org.geocraft.core.model.datatypes.Trace;
+import org.geocraft.core.model.datatypes.TraceData;
+import org.geocraft.core.model.datatypes.Trace.Status;
 import org.geocraft.core.model.seismic.PostStack2dLine;
 import org.geocraft.ui.volumeviewer.renderer.util.VolumeViewerHelper;
 
@@ -48,7 +50,8 @@ public class SeismicDatasetHelper {
     if (data == null) {
       return null;
     }
-    final BufferedImage textureImage = getImage(data, numRows, numCols, colorBar, traces, maximumSize, false, 0);
+    final BufferedImage textureImage = getImage(data, numRows, numCols, colorBar, getMissingFlags(traces),
+        maximumSize, false, 0);
     return textureImage;
   }
 
@@ -69,23 +72,62 @@ public class SeismicDatasetHelper {
     if (data == null) {
       return null;
     }
-    final BufferedImage textureImage = getImage(data, numRows, numCols, colorBar, traces, maximumSize, reversePolarity,
-        transparency);
+    final BufferedImage textureImage = getImage(data, numRows, numCols, colorBar, getMissingFlags(traces),
+        maximumSize, reversePolarity, transparency);
     return textureImage;
   }
 
+  /**
+   * Create a texture image based on the provided trace data, with a row for each trace.
+   * The samples and trace statuses are read directly from the trace data, without
+   * creating the traces of a flat trace collection.
+   * @param traceData the trace data
+   * @param colorBar the color bar
+   * @param maximumSize the maximum texture size
+   * @return the image for the texture
+   */
+  public static BufferedImage createTexture(final TraceData traceData, final ColorBar colorBar,
+      final int maximumSize, final boolean reversePolarity, final int transparency) {
+    // if the slice data in null, a texture cannot be computed
+    if (traceData == null) {
+      return null;
+    }
+    final boolean[] missing = new boolean[traceData.getNumTraces()];
+    for (int i = 0; i < missing.length; i++) {
+      missing[i] = traceData.getStatus(i).equals(Status.Missing);
+    }
+    return getImage(traceData.getData(), traceData.getNumTraces(), traceData.getNumSamples(), colorBar, missing,
+        maximumSize, reversePolarity, transparency);
+  }
+
+  /**
+   * Gets the flags indicating which of the traces are missing.
+   * @param traces the traces (<i>null</i> if unknown)
+   * @return the flags (<i>null</i> if the traces are unknown)
+   */
+  private static boolean[] getMissingFlags(final Trace[] traces) {
+    if (traces == null) {
+      return null;
+    }
+    final boolean[] missing = new boolean[traces.length];
+    for (int i = 0; i < traces.length; i++) {
+      missing[i] = traces[i].isMissing();
+    }
+    return missing;
+  }
+
   /**
    * Build a texture image based on the provided traces float data.
    * @param data the data
    * @param colorBar the color bar
    * @param numRows the number of rows
    * @param numCols the number of columns
-   * @param traces the traces that the texture image is made of
+   * @param missing the flags indicating which rows are missing traces (<i>null</i> if none)
    * @param maximumSize the maximum texture size
    * @return the image for the texture
    */
   private static BufferedImage getImage(final float[] data, final int numRows, final int numCols,
-      final ColorBar colorBar, final Trace[] traces, final int maximumSize, final boolean reversePolarity,
+      final ColorBar colorBar, final boolean[] missing, final int maximumSize, final boolean reversePolarity,
       final int transparency) {
     final BufferedImage image = new BufferedImage(numCols, numRows, BufferedImage.TYPE_INT_ARGB);
     final float alpha = 1f - transparency / 100f;
@@ -93,7 +135,7 @@ public class SeismicDatasetHelper {
       final int row = i / numCols;
       final int column = i % numCols;
       final float scalar = reversePolarity ? -1 : 1;
-      if ((traces == null || !traces[row].isMissing()) && !Float.isNaN(data[i])) {
+      if ((missing == null || !missing[row]) && !Float.isNaN(data[i])) {
         final Color color = VolumeViewerHelper.swtColorToColor(colorBar.getColor(data[i] * scalar, true));
         final ColorRGBA colorRGBA = VolumeViewerHelper.colorToColorRGBA(color, alpha);
         image.setRGB(column, row, colorRGBA.asIntARGB());
@@ -7,6 +7,7 @@ import org.geocraft.core.common.preferences.PropertyStoreFactory;
 import org.geocraft.core.model.Model;
 import org.geocraft.core.model.event.DataSelection;
 import org.geocraft.core.model.seismic.Wavelet;
+import org.geocraft.math.fft.FFT;
 import org.geocraft.math.wavelet.WaveletFilter;
 import org.geocraft.ui.model.ModelUI;
 import org.geocraft.ui.plot.defs.LineStyle;
@@ -76,7 +77,7 @@ public class PhaseSpectrumRenderer extends WaveletViewRenderer {
     _waveletPolyline.setLineStyle(LineStyle.SOLID);
 
     int nn = _wavelet.getNumSamples();
-    int fnn = computeSizeOfFFT(Math.max((int) (1024 / _wavelet.getTimeInterval()), nn));
+    int fnn = FFT.computeSize(Math.max((int) (1024 / _wavelet.getTimeInterval()), nn));
     float[] ampWavelet = new float[fnn / 2 + 1];
     float[] phaseWavelet = new float[fnn / 2 + 1];
     doFFT(_wavelet, ampWavelet, phaseWavelet, nn, -(int) (_wavelet.getTimeStart() / _wavelet.getTimeInterval()), fnn);
@@ -170,33 +171,13 @@ public class PhaseSpectrumRenderer extends WaveletViewRenderer {
    */
   private void doFFT(final Wavelet wavelet, final float[] ampWavelet, final float[] phaseWavelet, final int n,
       final int z, final int fn) {
-    WaveletFilter filter = new WaveletFilter(wavelet);
-    filter.fft(ampWavelet, phaseWavelet, n, z, fn);
+    WaveletFilter.computeSpectrum(wavelet.getValues(), ampWavelet, phaseWavelet, n, z, fn);
   }
 
   private float range(final float a, final float b, final float c) {
     return a < b ? b < c ? b : c : a;
   }
 
-  private int computeSizeOfFFT(final int n) {
-    int i;
-    int alt_size;
-    for (i = 2; i < n; i <<= 1) {
-      // Do nothing.
-    }
-    int size = i;
-    if ((alt_size = i / 4 * 3) >= n) {
-      size = alt_size;
-    }
-    if ((alt_size = i / 8 * 5) >= n) {
-      size = alt_size;
-    }
-    if ((alt_size = i / 16 * 9) >= n) {
-      size = alt_size;
-    }
-    return size;
-  }
-
   /* (non-Javadoc)
    * @see org.geocraft.ui.viewer.IRenderer#getSettingsModel()
    */